@@ -0,0 +1,55 @@
+package datadog.trace.bootstrap;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Utility to track nested instrumentation, with the same API as {@link CallDepthThreadLocalMap}
+ * but keyed by class.
+ *
+ * <p>Every key class is assigned a slot the first time it is seen, and each thread keeps its call
+ * depths in a plain int array indexed by slot. Incrementing is then a class value lookup, a thread
+ * local lookup and an array write, instead of a map lookup and update with a boxed depth.
+ */
+public final class CallDepthTracker {
+  private static final int INITIAL_SLOTS = 16;
+
+  private static final AtomicInteger NEXT_SLOT = new AtomicInteger();
+
+  private static final ClassValue<Integer> SLOTS =
+      new ClassValue<Integer>() {
+        @Override
+        protected Integer computeValue(final Class<?> type) {
+          return NEXT_SLOT.getAndIncrement();
+        }
+      };
+
+  private static final ThreadLocal<int[]> DEPTHS =
+      new ThreadLocal<int[]>() {
+        @Override
+        protected int[] initialValue() {
+          return new int[Math.max(INITIAL_SLOTS, NEXT_SLOT.get())];
+        }
+      };
+
+  private CallDepthTracker() {}
+
+  /** @return the depth before this call: 0 for the outermost call */
+  public static int incrementCallDepth(final Class<?> key) {
+    final int slot = SLOTS.get(key);
+    int[] depths = DEPTHS.get();
+    if (slot >= depths.length) {
+      depths = Arrays.copyOf(depths, Math.max(slot + 1, depths.length << 1));
+      DEPTHS.set(depths);
+    }
+    return depths[slot]++;
+  }
+
+  public static void reset(final Class<?> key) {
+    final int slot = SLOTS.get(key);
+    final int[] depths = DEPTHS.get();
+    if (slot < depths.length) {
+      depths[slot] = 0;
+    }
+  }
+}
@@ -27,5 +27,11 @@ public interface AgentSpan {
 
   void setSpanName(String spanName);
 
+  /** @return the decimal trace id, as used for log correlation, or "0" if there is none */
+  String getTraceId();
+
+  /** @return the decimal span id, as used for log correlation, or "0" if there is none */
+  String getSpanId();
+
   interface Context {}
 }
@@ -197,6 +197,16 @@ public class AgentTracer {
 
     @Override
     public void setSpanName(final String spanName) {}
+
+    @Override
+    public String getTraceId() {
+      return "0";
+    }
+
+    @Override
+    public String getSpanId() {
+      return "0";
+    }
   }
 
   static class NoopAgentScope implements AgentScope {
@@ -0,0 +1,46 @@
+package datadog.trace.bootstrap.instrumentation.jdbc;
+
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Caches {@link JDBCConnectionUrlParser} results by connection URL.
+ *
+ * <p>Connection pools hand out many connections, and often wrappers around them, for the same
+ * handful of URLs, so each connection missing the per-connection map would otherwise parse the same
+ * URL again. Only URLs parsed without properties are cached, since properties like the user can
+ * differ between connections to the same URL. The cache is bounded: when it fills up it is cleared
+ * and refills with the URLs still in use.
+ */
+public final class DBInfoCache {
+  static final int MAX_SIZE = 256;
+
+  private static final ConcurrentMap<String, DBInfo> CACHE =
+      new ConcurrentHashMap<String, DBInfo>();
+
+  private DBInfoCache() {}
+
+  public static DBInfo parse(final String url, final Properties props) {
+    if (url == null || (props != null && !props.isEmpty())) {
+      return JDBCConnectionUrlParser.parse(url, props);
+    }
+    DBInfo info = CACHE.get(url);
+    if (info == null) {
+      info = JDBCConnectionUrlParser.parse(url, null);
+      if (CACHE.size() >= MAX_SIZE) {
+        CACHE.clear();
+      }
+      CACHE.put(url, info);
+    }
+    return info;
+  }
+
+  static int size() {
+    return CACHE.size();
+  }
+
+  static void clear() {
+    CACHE.clear();
+  }
+}
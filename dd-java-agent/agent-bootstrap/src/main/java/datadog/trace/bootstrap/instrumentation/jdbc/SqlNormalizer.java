@@ -0,0 +1,164 @@
+package datadog.trace.bootstrap.instrumentation.jdbc;
+
+/**
+ * Normalizes SQL statements for use as resource names: string and numeric literals are replaced
+ * with {@code ?}, comments are dropped and whitespace runs are collapsed to a single space.
+ *
+ * <p>Applications usually prepare the same few statements from the same string constants, so
+ * results are kept in a small direct-mapped cache keyed by the identity of the SQL string. A hit
+ * costs an identity hash and a reference comparison and returns the same normalized instance every
+ * time. Entries are immutable, so racing writers can only replace each other's entries.
+ */
+public final class SqlNormalizer {
+  private static final int CACHE_SIZE = 512; // must be a power of two
+
+  private static final Entry[] CACHE = new Entry[CACHE_SIZE];
+
+  private SqlNormalizer() {}
+
+  /** @return the normalized statement, or null if {@code sql} is null */
+  public static String normalize(final String sql) {
+    if (sql == null) {
+      return null;
+    }
+    final int index = System.identityHashCode(sql) & (CACHE_SIZE - 1);
+    final Entry entry = CACHE[index];
+    if (entry != null && entry.sql == sql) {
+      return entry.normalized;
+    }
+    final String normalized = normalizeUncached(sql);
+    CACHE[index] = new Entry(sql, normalized);
+    return normalized;
+  }
+
+  static String normalizeUncached(final String sql) {
+    final int length = sql.length();
+    final StringBuilder builder = new StringBuilder(length);
+    boolean pendingSpace = false;
+    int i = 0;
+    while (i < length) {
+      final char c = sql.charAt(i);
+      int next = i + 1;
+      String emit = null;
+      if (Character.isWhitespace(c)) {
+        pendingSpace = true;
+      } else if (c == '-' && next < length && sql.charAt(next) == '-') {
+        next = skipLineComment(sql, next);
+        pendingSpace = true;
+      } else if (c == '/' && next < length && sql.charAt(next) == '*') {
+        next = skipBlockComment(sql, next + 1);
+        pendingSpace = true;
+      } else if (c == '\'') {
+        next = skipQuoted(sql, next, '\'');
+        emit = "?";
+      } else if (c == '"' || c == '`') {
+        // quoted identifiers are kept as is
+        next = skipQuoted(sql, next, c);
+        emit = sql.substring(i, next);
+      } else if (isDigit(c) || (c == '.' && next < length && isDigit(sql.charAt(next)))) {
+        if (builder.length() > 0
+            && !pendingSpace
+            && isIdentifierPart(builder.charAt(builder.length() - 1))) {
+          // part of an identifier or of a positional parameter like $1
+          next = skipIdentifier(sql, next);
+          emit = sql.substring(i, next);
+        } else {
+          next = skipNumber(sql, i);
+          emit = "?";
+        }
+      } else if (isIdentifierPart(c)) {
+        next = skipIdentifier(sql, next);
+        emit = sql.substring(i, next);
+      } else {
+        emit = String.valueOf(c);
+      }
+      if (emit != null) {
+        if (pendingSpace && builder.length() > 0) {
+          builder.append(' ');
+        }
+        pendingSpace = false;
+        builder.append(emit);
+      }
+      i = next;
+    }
+    return sql.contentEquals(builder) ? sql : builder.toString();
+  }
+
+  private static int skipQuoted(final String sql, int i, final char quote) {
+    final int length = sql.length();
+    while (i < length) {
+      if (sql.charAt(i++) == quote) {
+        if (i < length && sql.charAt(i) == quote) {
+          i++; // doubled quote is an escaped quote
+        } else {
+          return i;
+        }
+      }
+    }
+    return length;
+  }
+
+  private static int skipLineComment(final String sql, int i) {
+    final int length = sql.length();
+    while (i < length && sql.charAt(i) != '\n') {
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipBlockComment(final String sql, int i) {
+    final int end = sql.indexOf("*/", i);
+    return end < 0 ? sql.length() : end + 2;
+  }
+
+  private static int skipIdentifier(final String sql, int i) {
+    final int length = sql.length();
+    while (i < length && isIdentifierPart(sql.charAt(i))) {
+      i++;
+    }
+    return i;
+  }
+
+  private static int skipNumber(final String sql, int i) {
+    final int length = sql.length();
+    if (i + 1 < length
+        && sql.charAt(i) == '0'
+        && (sql.charAt(i + 1) == 'x' || sql.charAt(i + 1) == 'X')) {
+      return skipIdentifier(sql, i + 2);
+    }
+    while (i < length && (isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+      i++;
+    }
+    if (i < length && (sql.charAt(i) == 'e' || sql.charAt(i) == 'E')) {
+      int exponent = i + 1;
+      if (exponent < length && (sql.charAt(exponent) == '+' || sql.charAt(exponent) == '-')) {
+        exponent++;
+      }
+      if (exponent < length && isDigit(sql.charAt(exponent))) {
+        i = exponent;
+        while (i < length && isDigit(sql.charAt(i))) {
+          i++;
+        }
+      }
+    }
+    return i;
+  }
+
+  private static boolean isDigit(final char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  private static boolean isIdentifierPart(final char c) {
+    return Character.isLetterOrDigit(c) || c == '_' || c == '$';
+  }
+
+  private static final class Entry {
+    final String sql;
+    final String normalized;
+
+    Entry(final String sql, final String normalized) {
+      this.sql = sql;
+      this.normalized = normalized;
+    }
+  }
+}
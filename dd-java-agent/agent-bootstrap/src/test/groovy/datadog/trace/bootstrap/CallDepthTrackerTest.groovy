@@ -0,0 +1,71 @@
+package datadog.trace.bootstrap
+
+import spock.lang.Specification
+
+class CallDepthTrackerTest extends Specification {
+
+  def "test CallDepthTracker"() {
+    setup:
+    def k1 = String
+    def k2 = Integer
+
+    expect:
+    CallDepthTracker.incrementCallDepth(k1) == 0
+    CallDepthTracker.incrementCallDepth(k2) == 0
+
+    CallDepthTracker.incrementCallDepth(k1) == 1
+    CallDepthTracker.incrementCallDepth(k2) == 1
+
+    when:
+    CallDepthTracker.reset(k1)
+
+    then:
+    CallDepthTracker.incrementCallDepth(k2) == 2
+
+    when:
+    CallDepthTracker.reset(k2)
+
+    then:
+    CallDepthTracker.incrementCallDepth(k1) == 0
+    CallDepthTracker.incrementCallDepth(k2) == 0
+
+    CallDepthTracker.incrementCallDepth(k1) == 1
+    CallDepthTracker.incrementCallDepth(k2) == 1
+
+    cleanup:
+    CallDepthTracker.reset(k1)
+    CallDepthTracker.reset(k2)
+  }
+
+  def "depths are tracked per thread"() {
+    setup:
+    CallDepthTracker.incrementCallDepth(Long)
+    def otherThreadDepth = -1
+
+    when:
+    def thread = Thread.start {
+      otherThreadDepth = CallDepthTracker.incrementCallDepth(Long)
+    }
+    thread.join()
+
+    then:
+    otherThreadDepth == 0
+    CallDepthTracker.incrementCallDepth(Long) == 1
+
+    cleanup:
+    CallDepthTracker.reset(Long)
+  }
+
+  def "many keys"() {
+    setup:
+    def keys = [Byte, Short, Float, Double, Character, Boolean, Number, Object, Class, Thread,
+                Runnable, Iterable, Collection, List, Set, Map, Queue, Deque, Comparable, Cloneable]
+
+    expect:
+    keys.every { CallDepthTracker.incrementCallDepth(it) == 0 }
+    keys.every { CallDepthTracker.incrementCallDepth(it) == 1 }
+
+    cleanup:
+    keys.each { CallDepthTracker.reset(it) }
+  }
+}
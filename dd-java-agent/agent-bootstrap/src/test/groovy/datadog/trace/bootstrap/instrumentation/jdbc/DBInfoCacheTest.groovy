@@ -0,0 +1,48 @@
+package datadog.trace.bootstrap.instrumentation.jdbc
+
+import spock.lang.Specification
+
+class DBInfoCacheTest extends Specification {
+
+  def setup() {
+    DBInfoCache.clear()
+  }
+
+  def "urls are parsed once"() {
+    setup:
+    def url = "jdbc:postgresql://pghost:11/pgdb"
+
+    when:
+    def info = DBInfoCache.parse(url, null)
+
+    then:
+    info == JDBCConnectionUrlParser.parse(url, null)
+    DBInfoCache.parse(new String(url), new Properties()).is(info)
+    DBInfoCache.size() == 1
+  }
+
+  def "urls with properties are not cached"() {
+    setup:
+    def props = new Properties()
+    props.setProperty("user", "pguser")
+
+    when:
+    def info = DBInfoCache.parse("jdbc:postgresql://pghost:11/pgdb", props)
+
+    then:
+    info.user == "pguser"
+    DBInfoCache.size() == 0
+    DBInfoCache.parse("jdbc:postgresql://pghost:11/pgdb", null).user == null
+  }
+
+  def "cache is bounded"() {
+    when:
+    (0..DBInfoCache.MAX_SIZE).each {
+      DBInfoCache.parse("jdbc:postgresql://pghost:11/db$it", null)
+    }
+
+    then:
+    DBInfoCache.size() <= DBInfoCache.MAX_SIZE
+    DBInfoCache.parse(null, null) == DBInfo.DEFAULT
+  }
+}
@@ -17,9 +17,12 @@ package com.datadog.profiling.controller.openjdk;
 
 import com.datadog.profiling.controller.ConfigurationException;
 import com.datadog.profiling.controller.Controller;
+import com.datadog.profiling.controller.OverheadGovernor;
 import datadog.trace.api.Config;
 import java.io.IOException;
 import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
 import jdk.jfr.Recording;
 
@@ -33,8 +36,11 @@ public final class OpenJdkController implements Controller {
   static final String JFP = "jfr/dd.jfp";
   static final int RECORDING_MAX_SIZE = 64 * 1024 * 1024; // 64 megs
   static final Duration RECORDING_MAX_AGE = Duration.ofMinutes(5);
+  static final String SPAN_ACTIVATION_THRESHOLD = "datadog.SpanActivation#threshold";
 
   private final Map<String, String> recordingSettings;
+  private final OverheadGovernor governor;
+  private final boolean aggregate;
 
   /**
    * Main constructor for OpenJDK profiling controller.
@@ -48,12 +54,29 @@ public final class OpenJdkController implements Controller {
     Class.forName("jdk.jfr.Recording");
     Class.forName("jdk.jfr.FlightRecorder");
 
+    final Map<String, String> settings;
     try {
-      recordingSettings =
-          JfpUtils.readNamedJfpResource(JFP, config.getProfilingTemplateOverrideFile());
+      settings = JfpUtils.readNamedJfpResource(JFP, config.getProfilingTemplateOverrideFile());
     } catch (final IOException e) {
       throw new ConfigurationException(e);
     }
+    final Integer spanActivationThreshold = config.getProfilingSpanActivationThreshold();
+    if (spanActivationThreshold != null) {
+      final Map<String, String> withThreshold = new HashMap<>(settings);
+      withThreshold.put(SPAN_ACTIVATION_THRESHOLD, spanActivationThreshold + " ms");
+      recordingSettings = Collections.unmodifiableMap(withThreshold);
+    } else {
+      recordingSettings = settings;
+    }
+    governor =
+        config.isProfilingGovernorEnabled()
+            ? new OverheadGovernor(
+                recordingSettings,
+                config.getProfilingGovernorMaxSize(),
+                Duration.ofMillis(config.getProfilingGovernorMaxThreshold()),
+                Duration.ofMillis(config.getProfilingGovernorMaxPeriod()))
+            : null;
+    aggregate = config.isProfilingAggregationEnabled();
   }
 
   @Override
@@ -64,6 +87,6 @@ public final class OpenJdkController implements Controller {
     recording.setMaxSize(RECORDING_MAX_SIZE);
     recording.setMaxAge(RECORDING_MAX_AGE);
     recording.start();
-    return new OpenJdkOngoingRecording(recording);
+    return new OpenJdkOngoingRecording(recording, governor, aggregate);
   }
 }
@@ -1,17 +1,43 @@
 package com.datadog.profiling.controller.openjdk;
 
 import com.datadog.profiling.controller.OngoingRecording;
+import com.datadog.profiling.controller.OverheadGovernor;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import jdk.jfr.FlightRecorder;
 import jdk.jfr.Recording;
 import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
 
+@Slf4j
 public class OpenJdkOngoingRecording implements OngoingRecording {
+  static final String RECORDING_FILE_PREFIX = "dd-profiling-recording-";
 
   private final Recording recording;
+  private final OverheadGovernor governor;
+  private final boolean aggregate;
 
   OpenJdkOngoingRecording(final Recording recording) {
+    this(recording, null, false);
+  }
+
+  /**
+   * @param governor adjusts the settings of the recording after each snapshot, may be null
+   * @param aggregate whether snapshots are aggregated into pprof profiles
+   */
+  OpenJdkOngoingRecording(
+      final Recording recording, final OverheadGovernor governor, final boolean aggregate) {
     this.recording = recording;
+    this.governor = governor;
+    this.aggregate = aggregate;
   }
 
   @Override
@@ -32,7 +58,79 @@ public class OpenJdkOngoingRecording implements OngoingRecording {
 
     final Recording snapshot = FlightRecorder.getFlightRecorder().takeSnapshot();
     snapshot.setName(recording.getName()); // Copy name from original recording
-    return new OpenJdkRecordingData(snapshot, start, end);
+    return recordingData(snapshot, start, end);
+  }
+
+  private OpenJdkRecordingData recordingData(
+      final Recording snapshot, final Instant start, final Instant end) {
+    return governor == null && !aggregate
+        ? new OpenJdkRecordingData(snapshot, start, end)
+        : process(snapshot, start, end);
+  }
+
+  /**
+   * Writes the data of the period to a file to measure it for the governor and to aggregate it. The
+   * data is then uploaded from the file instead of being read again from the recording. If the data
+   * cannot be processed, it is uploaded as recorded.
+   */
+  private OpenJdkRecordingData process(
+      final Recording snapshot, final Instant start, final Instant end) {
+    Path file = null;
+    try (final InputStream stream = snapshot.getStream(start, end)) {
+      if (stream == null) {
+        return new OpenJdkRecordingData(snapshot, start, end);
+      }
+      file = Files.createTempFile(RECORDING_FILE_PREFIX, ".jfr");
+      Files.copy(stream, file, StandardCopyOption.REPLACE_EXISTING);
+      final Map<String, String> tags =
+          governor == null ? Collections.<String, String>emptyMap() : govern(file);
+      if (aggregate) {
+        // The profile replaces the recording in the file, it is much smaller
+        Files.write(file, ProfileAggregator.aggregate(file, start, end));
+        return new OpenJdkRecordingData(snapshot, start, end, file, tags, ProfileAggregator.FORMAT);
+      }
+      return new OpenJdkRecordingData(
+          snapshot, start, end, file, tags, OpenJdkRecordingData.FORMAT);
+    } catch (final IOException e) {
+      log.warn("Cannot process recording {}, uploading it as recorded", recording.getName(), e);
+      if (file != null) {
+        try {
+          Files.deleteIfExists(file);
+        } catch (final IOException ignored) {
+          // the file is in the temporary directory
+        }
+      }
+      return new OpenJdkRecordingData(snapshot, start, end);
+    }
+  }
+
+  /**
+   * Lets the governor adjust the settings of the recording after measuring the data of the period.
+   * Events are only counted, which means parsing the data, when it is over the budget.
+   *
+   * @return the tags of the data, describing the settings it was recorded with
+   */
+  private Map<String, String> govern(final Path file) throws IOException {
+    final long size = Files.size(file);
+    // The tags describe the settings the data was recorded with, before adjusting them
+    final Map<String, String> tags = governor.getTags();
+    final Map<String, Long> eventCounts =
+        governor.isOverBudget(size) ? countEvents(file) : Collections.<String, Long>emptyMap();
+    final Map<String, String> settings = governor.adjust(size, eventCounts);
+    if (settings != null) {
+      recording.setSettings(settings);
+    }
+    return tags;
+  }
+
+  private static Map<String, Long> countEvents(final Path file) throws IOException {
+    final Map<String, Long> counts = new HashMap<>();
+    try (final RecordingFile recordingFile = new RecordingFile(file)) {
+      while (recordingFile.hasMoreEvents()) {
+        counts.merge(recordingFile.readEvent().getEventType().getName(), 1L, Long::sum);
+      }
+    }
+    return counts;
   }
 
   @Override
@@ -18,34 +18,69 @@ package com.datadog.profiling.controller.openjdk;
 import com.datadog.profiling.controller.RecordingData;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
 import jdk.jfr.Recording;
+import lombok.extern.slf4j.Slf4j;
 
 /** Implementation for profiling recordings. */
+@Slf4j
 public class OpenJdkRecordingData implements RecordingData {
+  static final String FORMAT = "jfr";
 
   private final Recording recording;
   private final Instant start;
   private final Instant end;
+  /**
+   * File the data was already written to, possibly in another format, or null to read the data from
+   * the recording
+   */
+  private final Path file;
+
+  private final Map<String, String> tags;
+  private final String format;
 
   OpenJdkRecordingData(final Recording recording) {
     this(recording, recording.getStartTime(), recording.getStopTime());
   }
 
   OpenJdkRecordingData(final Recording recording, final Instant start, final Instant end) {
+    this(recording, start, end, null, Collections.<String, String>emptyMap(), FORMAT);
+  }
+
+  OpenJdkRecordingData(
+      final Recording recording,
+      final Instant start,
+      final Instant end,
+      final Path file,
+      final Map<String, String> tags,
+      final String format) {
     this.recording = recording;
     this.start = start;
     this.end = end;
+    this.file = file;
+    this.tags = tags;
+    this.format = format;
   }
 
   @Override
   public InputStream getStream() throws IOException {
-    return recording.getStream(start, end);
+    return file != null ? Files.newInputStream(file) : recording.getStream(start, end);
   }
 
   @Override
   public void release() {
     recording.close();
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (final IOException e) {
+        log.warn("Failed to delete recording file {}", file, e);
+      }
+    }
   }
 
   @Override
@@ -68,6 +103,16 @@ public class OpenJdkRecordingData implements RecordingData {
     return end;
   }
 
+  @Override
+  public Map<String, String> getTags() {
+    return tags;
+  }
+
+  @Override
+  public String getFormat() {
+    return format;
+  }
+
   // Visible for testing
   Recording getRecording() {
     return recording;
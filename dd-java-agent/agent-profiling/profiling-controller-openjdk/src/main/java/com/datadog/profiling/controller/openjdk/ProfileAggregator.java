@@ -0,0 +1,272 @@
+/*
+ * Copyright 2019 Datadog
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datadog.profiling.controller.openjdk;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedMethod;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Folds the samples of a recording into a pprof profile: a dictionary of stack traces with one set
+ * of values per distinct stack trace.
+ *
+ * <p>Execution samples count as cpu samples, allocation samples add to the allocation count and
+ * size, and monitor enter events add to the lock count and time. Other events are not part of the
+ * profile. Frames are identified by method and line number.
+ *
+ * <p>The data of a period is made of whole chunks, which may start before the period or end after
+ * it, so only the events starting within the period are added.
+ */
+final class ProfileAggregator {
+  static final String FORMAT = "pprof";
+
+  static final String EXECUTION_SAMPLE = "jdk.ExecutionSample";
+  static final String ALLOCATION_IN_NEW_TLAB = "jdk.ObjectAllocationInNewTLAB";
+  static final String ALLOCATION_OUTSIDE_TLAB = "jdk.ObjectAllocationOutsideTLAB";
+  static final String MONITOR_ENTER = "jdk.JavaMonitorEnter";
+
+  // Value types, in the order of the values of each sample
+  static final int CPU_SAMPLES = 0;
+  static final int ALLOC_SAMPLES = 1;
+  static final int ALLOC_SPACE = 2;
+  static final int LOCK_SAMPLES = 3;
+  static final int LOCK_TIME = 4;
+  private static final String[][] SAMPLE_TYPES = {
+    {"cpu-samples", "count"},
+    {"alloc-samples", "count"},
+    {"alloc-space", "bytes"},
+    {"lock-samples", "count"},
+    {"lock-time", "nanoseconds"}
+  };
+
+  // Field numbers of profile.proto
+  private static final int PROFILE_SAMPLE_TYPE = 1;
+  private static final int PROFILE_SAMPLE = 2;
+  private static final int PROFILE_LOCATION = 4;
+  private static final int PROFILE_FUNCTION = 5;
+  private static final int PROFILE_STRING_TABLE = 6;
+  private static final int PROFILE_TIME_NANOS = 9;
+  private static final int PROFILE_DURATION_NANOS = 10;
+  private static final int VALUE_TYPE_TYPE = 1;
+  private static final int VALUE_TYPE_UNIT = 2;
+  private static final int SAMPLE_LOCATION_ID = 1;
+  private static final int SAMPLE_VALUE = 2;
+  private static final int LOCATION_ID = 1;
+  private static final int LOCATION_LINE = 4;
+  private static final int LINE_FUNCTION_ID = 1;
+  private static final int LINE_LINE = 2;
+  private static final int FUNCTION_ID = 1;
+  private static final int FUNCTION_NAME = 2;
+  private static final int FUNCTION_SYSTEM_NAME = 3;
+
+  private final Instant start;
+  private final Instant end;
+  private final Map<String, Long> strings = new HashMap<>();
+  private final List<String> stringTable = new ArrayList<>();
+  /** Function ids by function name */
+  private final Map<String, Long> functions = new LinkedHashMap<>();
+  /** Location ids by function id and line */
+  private final Map<Location, Long> locations = new LinkedHashMap<>();
+  /** Values by stack trace */
+  private final Map<Stack, long[]> samples = new LinkedHashMap<>();
+
+  ProfileAggregator(final Instant start, final Instant end) {
+    this.start = start;
+    this.end = end;
+    // the first string of the table has to be the empty string
+    string("");
+  }
+
+  /** @return the pprof profile of the samples of a recording file */
+  static byte[] aggregate(final Path file, final Instant start, final Instant end)
+      throws IOException {
+    final ProfileAggregator aggregator = new ProfileAggregator(start, end);
+    try (final RecordingFile recordingFile = new RecordingFile(file)) {
+      while (recordingFile.hasMoreEvents()) {
+        aggregator.add(recordingFile.readEvent());
+      }
+    }
+    return aggregator.toPprof();
+  }
+
+  void add(final RecordedEvent event) {
+    final Instant startTime = event.getStartTime();
+    if (startTime.isBefore(start) || !startTime.isBefore(end)) {
+      return;
+    }
+    final long[] values;
+    switch (event.getEventType().getName()) {
+      case EXECUTION_SAMPLE:
+        values = values(event.getStackTrace());
+        values[CPU_SAMPLES]++;
+        break;
+      case ALLOCATION_IN_NEW_TLAB:
+        values = values(event.getStackTrace());
+        values[ALLOC_SAMPLES]++;
+        values[ALLOC_SPACE] += event.getLong("tlabSize");
+        break;
+      case ALLOCATION_OUTSIDE_TLAB:
+        values = values(event.getStackTrace());
+        values[ALLOC_SAMPLES]++;
+        values[ALLOC_SPACE] += event.getLong("allocationSize");
+        break;
+      case MONITOR_ENTER:
+        values = values(event.getStackTrace());
+        values[LOCK_SAMPLES]++;
+        values[LOCK_TIME] += event.getDuration().toNanos();
+        break;
+      default:
+        break;
+    }
+  }
+
+  /** @return the number of distinct stack traces */
+  int size() {
+    return samples.size();
+  }
+
+  byte[] toPprof() {
+    final ProtobufWriter profile = new ProtobufWriter();
+    for (final String[] sampleType : SAMPLE_TYPES) {
+      profile.writeMessage(
+          PROFILE_SAMPLE_TYPE,
+          new ProtobufWriter()
+              .writeInt64(VALUE_TYPE_TYPE, string(sampleType[0]))
+              .writeInt64(VALUE_TYPE_UNIT, string(sampleType[1])));
+    }
+    for (final Map.Entry<Stack, long[]> sample : samples.entrySet()) {
+      profile.writeMessage(
+          PROFILE_SAMPLE,
+          new ProtobufWriter()
+              .writePackedInt64(SAMPLE_LOCATION_ID, sample.getKey().locationIds)
+              .writePackedInt64(SAMPLE_VALUE, sample.getValue()));
+    }
+    for (final Map.Entry<Location, Long> location : locations.entrySet()) {
+      profile.writeMessage(
+          PROFILE_LOCATION,
+          new ProtobufWriter()
+              .writeInt64(LOCATION_ID, location.getValue())
+              .writeMessage(
+                  LOCATION_LINE,
+                  new ProtobufWriter()
+                      .writeInt64(LINE_FUNCTION_ID, location.getKey().functionId)
+                      .writeInt64(LINE_LINE, location.getKey().line)));
+    }
+    for (final Map.Entry<String, Long> function : functions.entrySet()) {
+      final long name = string(function.getKey());
+      profile.writeMessage(
+          PROFILE_FUNCTION,
+          new ProtobufWriter()
+              .writeInt64(FUNCTION_ID, function.getValue())
+              .writeInt64(FUNCTION_NAME, name)
+              .writeInt64(FUNCTION_SYSTEM_NAME, name));
+    }
+    profile.writeInt64(PROFILE_TIME_NANOS, ChronoUnit.NANOS.between(Instant.EPOCH, start));
+    profile.writeInt64(PROFILE_DURATION_NANOS, ChronoUnit.NANOS.between(start, end));
+    // written last, all strings are known by now
+    for (final String string : stringTable) {
+      profile.writeString(PROFILE_STRING_TABLE, string);
+    }
+    return profile.toByteArray();
+  }
+
+  private long[] values(final RecordedStackTrace stackTrace) {
+    final List<RecordedFrame> frames =
+        stackTrace == null ? new ArrayList<>() : stackTrace.getFrames();
+    // frames start with the top of the stack, which is also the order of pprof locations
+    final long[] locationIds = new long[frames.size()];
+    for (int i = 0; i < locationIds.length; i++) {
+      locationIds[i] = location(frames.get(i));
+    }
+    return samples.computeIfAbsent(new Stack(locationIds), k -> new long[SAMPLE_TYPES.length]);
+  }
+
+  private long location(final RecordedFrame frame) {
+    final RecordedMethod method = frame.getMethod();
+    final String name =
+        method == null ? "unknown" : method.getType().getName() + "." + method.getName();
+    final Long functionId = functions.computeIfAbsent(name, k -> (long) functions.size() + 1);
+    // unknown line numbers are negative, pprof uses 0
+    final Location location = new Location(functionId, Math.max(frame.getLineNumber(), 0));
+    return locations.computeIfAbsent(location, k -> (long) locations.size() + 1);
+  }
+
+  private long string(final String string) {
+    Long index = strings.get(string);
+    if (index == null) {
+      index = (long) stringTable.size();
+      strings.put(string, index);
+      stringTable.add(string);
+    }
+    return index;
+  }
+
+  private static final class Location {
+    final long functionId;
+    final long line;
+
+    Location(final long functionId, final long line) {
+      this.functionId = functionId;
+      this.line = line;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (!(o instanceof Location)) {
+        return false;
+      }
+      final Location other = (Location) o;
+      return functionId == other.functionId && line == other.line;
+    }
+
+    @Override
+    public int hashCode() {
+      return 31 * Long.hashCode(functionId) + Long.hashCode(line);
+    }
+  }
+
+  private static final class Stack {
+    final long[] locationIds;
+    private final int hashCode;
+
+    Stack(final long[] locationIds) {
+      this.locationIds = locationIds;
+      hashCode = Arrays.hashCode(locationIds);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      return o instanceof Stack && Arrays.equals(locationIds, ((Stack) o).locationIds);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+}
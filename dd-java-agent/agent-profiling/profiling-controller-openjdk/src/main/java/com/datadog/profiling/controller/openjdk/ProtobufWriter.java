@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 Datadog
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datadog.profiling.controller.openjdk;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal writer for the protobuf wire format, enough to encode pprof profiles without depending
+ * on the protobuf runtime. Nested messages are written to their own writer and then added as bytes.
+ */
+final class ProtobufWriter {
+  private static final int VARINT = 0;
+  private static final int LENGTH_DELIMITED = 2;
+
+  private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+  /** Writes an int64/uint64 field, omitting the default value like protobuf does. */
+  ProtobufWriter writeInt64(final int field, final long value) {
+    if (value != 0) {
+      writeTag(field, VARINT);
+      writeVarint(value);
+    }
+    return this;
+  }
+
+  /** Writes a packed repeated int64/uint64 field. */
+  ProtobufWriter writePackedInt64(final int field, final long[] values) {
+    final ProtobufWriter packed = new ProtobufWriter();
+    for (final long value : values) {
+      packed.writeVarint(value);
+    }
+    return writeBytes(field, packed.toByteArray());
+  }
+
+  ProtobufWriter writeString(final int field, final String value) {
+    // the empty string has to be written too, as the first entry of string tables
+    return writeBytes(field, value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  ProtobufWriter writeMessage(final int field, final ProtobufWriter message) {
+    return writeBytes(field, message.toByteArray());
+  }
+
+  byte[] toByteArray() {
+    return out.toByteArray();
+  }
+
+  private ProtobufWriter writeBytes(final int field, final byte[] bytes) {
+    writeTag(field, LENGTH_DELIMITED);
+    writeVarint(bytes.length);
+    out.write(bytes, 0, bytes.length);
+    return this;
+  }
+
+  private void writeTag(final int field, final int wireType) {
+    writeVarint((field << 3) | wireType);
+  }
+
+  private void writeVarint(long value) {
+    while ((value & ~0x7FL) != 0) {
+      out.write((int) ((value & 0x7F) | 0x80));
+      value >>>= 7;
+    }
+    out.write((int) value);
+  }
+}
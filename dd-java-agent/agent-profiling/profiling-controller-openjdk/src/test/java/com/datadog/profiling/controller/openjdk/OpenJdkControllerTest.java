@@ -25,6 +25,7 @@ public class OpenJdkControllerTest {
   @BeforeEach
   public void setup() throws ConfigurationException, ClassNotFoundException {
     when(config.getProfilingTemplateOverrideFile()).thenReturn(OVERRIDES);
+    when(config.getProfilingSpanActivationThreshold()).thenReturn(null);
     controller = new OpenJdkController(config);
   }
 
@@ -38,4 +39,13 @@ public class OpenJdkControllerTest {
     assertEquals(OpenJdkController.RECORDING_MAX_AGE, recording.getMaxAge());
     recording.close();
   }
+
+  @Test
+  public void testSpanActivationThreshold() throws ConfigurationException, ClassNotFoundException {
+    when(config.getProfilingSpanActivationThreshold()).thenReturn(5);
+    final Recording recording =
+        new OpenJdkController(config).createRecording(TEST_NAME).stop().getRecording();
+    assertEquals("5 ms", recording.getSettings().get(OpenJdkController.SPAN_ACTIVATION_THRESHOLD));
+    recording.close();
+  }
 }
@@ -1,13 +1,25 @@
 package com.datadog.profiling.controller.openjdk;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.datadog.profiling.controller.OverheadGovernor;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
 import jdk.jfr.Recording;
 import jdk.jfr.RecordingState;
 import org.junit.jupiter.api.BeforeEach;
@@ -75,6 +87,128 @@ public class OpenJdkOngoingRecordingTest {
     verify(recording, never()).stop();
   }
 
+  @Test
+  public void testGovernedSnapshot() throws IOException, InterruptedException {
+    final Recording source = new Recording();
+    source.enable("jdk.ThreadSleep").withThreshold(Duration.ZERO);
+    source.start();
+    Thread.sleep(10);
+
+    final Map<String, String> template = new HashMap<>();
+    template.put("jdk.ThreadSleep#enabled", "true");
+    template.put("jdk.ThreadSleep#threshold", "0 ms");
+    // any data is over a budget of 0 bytes
+    final OverheadGovernor governor =
+        new OverheadGovernor(template, 0, Duration.ofMillis(100), Duration.ofMillis(100));
+    ongoingRecording = new OpenJdkOngoingRecording(recording, governor, false);
+
+    // the snapshot has the data of every running recording, including the source
+    final OpenJdkRecordingData recordingData =
+        ongoingRecording.snapshot(Instant.EPOCH, Instant.now().plusSeconds(60));
+    source.close();
+    assertEquals(TEST_NAME, recordingData.getName());
+    try (final InputStream stream = recordingData.getStream()) {
+      assertTrue(stream.read() >= 0);
+    }
+    // the data was recorded with the template settings
+    assertTrue(recordingData.getTags().isEmpty());
+
+    recordingData.release();
+
+    verify(recording)
+        .setSettings(argThat(settings -> "1 ms".equals(settings.get("jdk.ThreadSleep#threshold"))));
+    assertEquals("1ms", governor.getTags().get("jfr_governor.jdk.ThreadSleep.threshold"));
+  }
+
+  @Test
+  public void testAggregatedSnapshot() throws IOException, InterruptedException {
+    final Recording source = new Recording();
+    source.enable(ProfileAggregator.MONITOR_ENTER).withThreshold(Duration.ZERO).withStackTrace();
+    source.start();
+    contendMonitor();
+
+    ongoingRecording = new OpenJdkOngoingRecording(recording, null, true);
+
+    final OpenJdkRecordingData recordingData =
+        ongoingRecording.snapshot(Instant.EPOCH, Instant.now().plusSeconds(60));
+    source.close();
+    assertEquals(TEST_NAME, recordingData.getName());
+    assertEquals("pprof", recordingData.getFormat());
+    final ByteArrayOutputStream profile = new ByteArrayOutputStream();
+    try (final InputStream stream = recordingData.getStream()) {
+      final byte[] buffer = new byte[8192];
+      int read;
+      while ((read = stream.read(buffer)) >= 0) {
+        profile.write(buffer, 0, read);
+      }
+    }
+    recordingData.release();
+
+    // the string table has the sample types and the functions of the contended stack
+    final String strings = new String(profile.toByteArray(), StandardCharsets.ISO_8859_1);
+    assertTrue(strings.contains("lock-time"));
+    assertTrue(strings.contains(OpenJdkOngoingRecordingTest.class.getName() + ".contendMonitor"));
+  }
+
+  @Test
+  public void testAggregatedSnapshotOnlyHasEventsOfThePeriod()
+      throws IOException, InterruptedException {
+    final Recording source = new Recording();
+    source.enable(ProfileAggregator.MONITOR_ENTER).withThreshold(Duration.ZERO).withStackTrace();
+    source.start();
+    // both periods are recorded in the same chunk
+    contendMonitorInPreviousPeriod();
+    Thread.sleep(20);
+    final Instant start = Instant.now();
+    Thread.sleep(20);
+    contendMonitor();
+
+    ongoingRecording = new OpenJdkOngoingRecording(recording, null, true);
+
+    final OpenJdkRecordingData recordingData =
+        ongoingRecording.snapshot(start, Instant.now().plusSeconds(60));
+    source.close();
+    final ByteArrayOutputStream profile = new ByteArrayOutputStream();
+    try (final InputStream stream = recordingData.getStream()) {
+      final byte[] buffer = new byte[8192];
+      int read;
+      while ((read = stream.read(buffer)) >= 0) {
+        profile.write(buffer, 0, read);
+      }
+    }
+    recordingData.release();
+
+    final String strings = new String(profile.toByteArray(), StandardCharsets.ISO_8859_1);
+    assertTrue(strings.contains(OpenJdkOngoingRecordingTest.class.getName() + ".contendMonitor"));
+    assertFalse(strings.contains("contendMonitorInPreviousPeriod"));
+  }
+
+  private static void contendMonitorInPreviousPeriod() throws InterruptedException {
+    contendMonitor();
+  }
+
+  private static void contendMonitor() throws InterruptedException {
+    final Object lock = new Object();
+    final CountDownLatch locked = new CountDownLatch(1);
+    final Thread holder =
+        new Thread(
+            () -> {
+              synchronized (lock) {
+                locked.countDown();
+                try {
+                  Thread.sleep(50);
+                } catch (final InterruptedException ignored) {
+                  // the monitor is released anyway
+                }
+              }
+            });
+    holder.start();
+    locked.await();
+    synchronized (lock) {
+      holder.join();
+    }
+  }
+
   @Test
   public void testSnapshotOnStopped() {
     when(recording.getState()).thenReturn(RecordingState.STOPPED);
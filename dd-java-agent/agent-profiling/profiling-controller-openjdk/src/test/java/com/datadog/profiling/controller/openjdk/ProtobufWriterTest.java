@@ -0,0 +1,38 @@
+package com.datadog.profiling.controller.openjdk;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class ProtobufWriterTest {
+
+  @Test
+  public void testInt64() {
+    assertArrayEquals(
+        new byte[] {0x08, (byte) 0x96, 0x01},
+        new ProtobufWriter().writeInt64(1, 150).toByteArray());
+    // default values are omitted
+    assertArrayEquals(new byte[0], new ProtobufWriter().writeInt64(1, 0).toByteArray());
+  }
+
+  @Test
+  public void testPackedInt64() {
+    assertArrayEquals(
+        new byte[] {0x22, 0x04, 0x03, (byte) 0x8E, 0x02, 0x00},
+        new ProtobufWriter().writePackedInt64(4, new long[] {3, 270, 0}).toByteArray());
+  }
+
+  @Test
+  public void testStringAndMessage() {
+    assertArrayEquals(
+        new byte[] {0x12, 0x07, 0x74, 0x65, 0x73, 0x74, 0x69, 0x6E, 0x67},
+        new ProtobufWriter().writeString(2, "testing").toByteArray());
+    assertArrayEquals(
+        new byte[] {0x1A, 0x03, 0x08, (byte) 0x96, 0x01},
+        new ProtobufWriter()
+            .writeMessage(3, new ProtobufWriter().writeInt64(1, 150))
+            .toByteArray());
+    assertArrayEquals(
+        new byte[] {0x32, 0x00}, new ProtobufWriter().writeString(6, "").toByteArray());
+  }
+}
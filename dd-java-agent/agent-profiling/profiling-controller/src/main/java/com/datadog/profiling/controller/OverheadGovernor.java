@@ -0,0 +1,202 @@
+/*
+ * Copyright 2019 Datadog
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datadog.profiling.controller;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the amount of data recorded per upload period within a budget by adjusting the settings of
+ * the noisiest event types.
+ *
+ * <p>After each period the controller reports the size of the period's data and, when it is over
+ * the budget, the number of events of each type. The governor then doubles the threshold or period
+ * of the event type with the most events which can still be raised, up to the configured bounds.
+ * Once the data is below half of the budget, the most recently raised setting is lowered again one
+ * step at a time, back to the value of the template. Only one setting changes per period, so the
+ * effect of a change is measured before the next one.
+ */
+@Slf4j
+public final class OverheadGovernor {
+  static final String THRESHOLD = "#threshold";
+  static final String PERIOD = "#period";
+  static final String TAG_PREFIX = "jfr_governor.";
+
+  private static final Pattern DURATION = Pattern.compile("(\\d+)\\s*(ns|us|ms|s|m|h|d)");
+  private static final long MIN_RAISED_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+  private final Map<String, String> template;
+  private final Map<String, String> settings;
+  private final long maxBytes;
+  private final long maxThresholdNanos;
+  private final long maxPeriodNanos;
+  /** Settings raised above the template, the most recently raised last */
+  private final Deque<String> raised = new ArrayDeque<>();
+
+  public OverheadGovernor(
+      final Map<String, String> template,
+      final long maxBytes,
+      final Duration maxThreshold,
+      final Duration maxPeriod) {
+    this.template = template;
+    settings = new HashMap<>(template);
+    this.maxBytes = maxBytes;
+    maxThresholdNanos = maxThreshold.toNanos();
+    maxPeriodNanos = maxPeriod.toNanos();
+  }
+
+  /**
+   * @param bytes the size of the data recorded in the last period
+   * @return whether the data is over the budget, in which case {@link #adjust} needs the event
+   *     counts of the period
+   */
+  public boolean isOverBudget(final long bytes) {
+    return bytes > maxBytes;
+  }
+
+  /**
+   * Adjusts the settings after a period.
+   *
+   * @param bytes the size of the data recorded in the last period
+   * @param eventCounts the number of events of each type recorded in the last period, only used
+   *     when the data is over the budget
+   * @return the new settings to apply to the recording, or null if the settings didn't change
+   */
+  public synchronized Map<String, String> adjust(
+      final long bytes, final Map<String, Long> eventCounts) {
+    if (isOverBudget(bytes)) {
+      return raise(bytes, eventCounts);
+    }
+    if (bytes < maxBytes / 2 && !raised.isEmpty()) {
+      return lower(bytes);
+    }
+    return null;
+  }
+
+  /** @return the settings the governor changed from the template, as tags for the upload */
+  public synchronized Map<String, String> getTags() {
+    if (raised.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    final Map<String, String> tags = new HashMap<>();
+    for (final String key : raised) {
+      tags.put(TAG_PREFIX + key.replace('#', '.'), settings.get(key).replace(" ", ""));
+    }
+    return tags;
+  }
+
+  private Map<String, String> raise(final long bytes, final Map<String, Long> eventCounts) {
+    final List<Map.Entry<String, Long>> noisiest = new ArrayList<>(eventCounts.entrySet());
+    noisiest.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+    for (final Map.Entry<String, Long> event : noisiest) {
+      for (final String setting : new String[] {THRESHOLD, PERIOD}) {
+        final String key = event.getKey() + setting;
+        final long current = parseNanos(settings.get(key));
+        final long bound = setting.equals(THRESHOLD) ? maxThresholdNanos : maxPeriodNanos;
+        if (current < 0 || current >= bound) {
+          continue;
+        }
+        final String value = formatNanos(Math.min(Math.max(current * 2, MIN_RAISED_NANOS), bound));
+        log.info(
+            "Recorded {} bytes in the last period, over the budget of {} bytes. "
+                + "Raising {} ({} events) from {} to {}",
+            bytes,
+            maxBytes,
+            key,
+            event.getValue(),
+            settings.get(key),
+            value);
+        settings.put(key, value);
+        raised.remove(key);
+        raised.addLast(key);
+        return Collections.unmodifiableMap(new HashMap<>(settings));
+      }
+    }
+    log.info(
+        "Recorded {} bytes in the last period, over the budget of {} bytes. "
+            + "All event settings are at their bounds",
+        bytes,
+        maxBytes);
+    return null;
+  }
+
+  private Map<String, String> lower(final long bytes) {
+    final String key = raised.peekLast();
+    final String original = template.get(key);
+    final long lowered = parseNanos(settings.get(key)) / 2;
+    final String value;
+    if (lowered <= parseNanos(original)) {
+      value = original;
+      raised.removeLast();
+    } else {
+      value = formatNanos(lowered);
+    }
+    log.info(
+        "Recorded {} bytes in the last period, under half of the budget of {} bytes. "
+            + "Lowering {} from {} to {}",
+        bytes,
+        maxBytes,
+        key,
+        settings.get(key),
+        value);
+    settings.put(key, value);
+    return Collections.unmodifiableMap(new HashMap<>(settings));
+  }
+
+  /** @return the duration of a setting value like {@code 10 ms}, or -1 if it isn't a duration */
+  static long parseNanos(final String value) {
+    if (value == null) {
+      return -1;
+    }
+    final Matcher matcher = DURATION.matcher(value.trim());
+    if (!matcher.matches()) {
+      return -1;
+    }
+    final long amount = Long.parseLong(matcher.group(1));
+    switch (matcher.group(2)) {
+      case "ns":
+        return amount;
+      case "us":
+        return TimeUnit.MICROSECONDS.toNanos(amount);
+      case "ms":
+        return TimeUnit.MILLISECONDS.toNanos(amount);
+      case "s":
+        return TimeUnit.SECONDS.toNanos(amount);
+      case "m":
+        return TimeUnit.MINUTES.toNanos(amount);
+      case "h":
+        return TimeUnit.HOURS.toNanos(amount);
+      default:
+        return TimeUnit.DAYS.toNanos(amount);
+    }
+  }
+
+  static String formatNanos(final long nanos) {
+    return nanos % MIN_RAISED_NANOS == 0
+        ? TimeUnit.NANOSECONDS.toMillis(nanos) + " ms"
+        : nanos + " ns";
+  }
+}
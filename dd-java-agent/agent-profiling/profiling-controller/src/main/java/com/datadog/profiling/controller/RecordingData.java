@@ -18,6 +18,7 @@ package com.datadog.profiling.controller;
 import java.io.IOException;
 import java.io.InputStream;
 import java.time.Instant;
+import java.util.Map;
 
 /** Platform agnostic API for operations required when retrieving data using the ProfilingSystem. */
 public interface RecordingData {
@@ -66,4 +67,18 @@ public interface RecordingData {
    * @return the requested end time.
    */
   Instant getEnd();
+
+  /**
+   * Returns tags describing how the data was recorded, to send along with the data.
+   *
+   * @return the tags of the recording, may be empty.
+   */
+  Map<String, String> getTags();
+
+  /**
+   * Returns the format of the data, for example {@code jfr} for a flight recording.
+   *
+   * @return the format of the data.
+   */
+  String getFormat();
 }
@@ -0,0 +1,105 @@
+package com.datadog.profiling.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.common.collect.ImmutableMap;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+
+public class OverheadGovernorTest {
+
+  private static final long MAX_BYTES = 1000;
+  private static final Map<String, String> TEMPLATE =
+      ImmutableMap.of(
+          "jdk.JavaMonitorEnter#enabled", "true",
+          "jdk.JavaMonitorEnter#threshold", "20 ms",
+          "jdk.ThreadPark#threshold", "0 ms",
+          "jdk.ExecutionSample#period", "9 ms",
+          "jdk.ObjectAllocationInNewTLAB#enabled", "true");
+
+  private final OverheadGovernor governor =
+      new OverheadGovernor(TEMPLATE, MAX_BYTES, Duration.ofMillis(50), Duration.ofMillis(30));
+
+  @Test
+  public void testWithinBudget() {
+    assertFalse(governor.isOverBudget(MAX_BYTES));
+    assertNull(governor.adjust(MAX_BYTES, Collections.<String, Long>emptyMap()));
+    assertNull(governor.adjust(0, Collections.<String, Long>emptyMap()));
+    assertTrue(governor.getTags().isEmpty());
+  }
+
+  @Test
+  public void testRaisesNoisiestEvent() {
+    assertTrue(governor.isOverBudget(MAX_BYTES + 1));
+    final Map<String, String> settings =
+        governor.adjust(
+            MAX_BYTES + 1, ImmutableMap.of("jdk.JavaMonitorEnter", 10L, "jdk.ThreadPark", 100L));
+
+    assertEquals("1 ms", settings.get("jdk.ThreadPark#threshold"));
+    assertEquals("20 ms", settings.get("jdk.JavaMonitorEnter#threshold"));
+    assertEquals("true", settings.get("jdk.JavaMonitorEnter#enabled"));
+    assertEquals(
+        ImmutableMap.of("jfr_governor.jdk.ThreadPark.threshold", "1ms"), governor.getTags());
+  }
+
+  @Test
+  public void testSkipsEventsWithoutDurationSettings() {
+    final Map<String, String> settings =
+        governor.adjust(
+            MAX_BYTES + 1,
+            ImmutableMap.of("jdk.ObjectAllocationInNewTLAB", 1000L, "jdk.ExecutionSample", 10L));
+
+    assertEquals("18 ms", settings.get("jdk.ExecutionSample#period"));
+  }
+
+  @Test
+  public void testStaysWithinBounds() {
+    final Map<String, Long> counts = ImmutableMap.of("jdk.JavaMonitorEnter", 10L);
+    final String key = "jdk.JavaMonitorEnter#threshold";
+    assertEquals("40 ms", governor.adjust(MAX_BYTES + 1, counts).get(key));
+    assertEquals("50 ms", governor.adjust(MAX_BYTES + 1, counts).get(key));
+    assertNull(governor.adjust(MAX_BYTES + 1, counts));
+  }
+
+  @Test
+  public void testLowersBackToTemplate() {
+    final Map<String, Long> counts = ImmutableMap.of("jdk.ExecutionSample", 10L);
+    governor.adjust(MAX_BYTES + 1, counts);
+    governor.adjust(MAX_BYTES + 1, counts);
+    assertEquals(
+        ImmutableMap.of("jfr_governor.jdk.ExecutionSample.period", "30ms"), governor.getTags());
+
+    // not far enough under the budget
+    assertNull(governor.adjust(MAX_BYTES / 2, Collections.<String, Long>emptyMap()));
+
+    assertEquals(
+        "15 ms",
+        governor
+            .adjust(MAX_BYTES / 2 - 1, Collections.<String, Long>emptyMap())
+            .get("jdk.ExecutionSample#period"));
+    assertEquals(
+        "9 ms",
+        governor
+            .adjust(MAX_BYTES / 2 - 1, Collections.<String, Long>emptyMap())
+            .get("jdk.ExecutionSample#period"));
+    assertTrue(governor.getTags().isEmpty());
+    assertNull(governor.adjust(0, Collections.<String, Long>emptyMap()));
+  }
+
+  @Test
+  public void testParseAndFormat() {
+    assertEquals(TimeUnit.MILLISECONDS.toNanos(10), OverheadGovernor.parseNanos("10 ms"));
+    assertEquals(TimeUnit.SECONDS.toNanos(1), OverheadGovernor.parseNanos("1 s"));
+    assertEquals(20_000, OverheadGovernor.parseNanos("20 us"));
+    assertEquals(-1, OverheadGovernor.parseNanos("everyChunk"));
+    assertEquals(-1, OverheadGovernor.parseNanos(null));
+    assertEquals("10 ms", OverheadGovernor.formatNanos(TimeUnit.MILLISECONDS.toNanos(10)));
+    assertEquals("40000 ns", OverheadGovernor.formatNanos(40_000));
+  }
+}
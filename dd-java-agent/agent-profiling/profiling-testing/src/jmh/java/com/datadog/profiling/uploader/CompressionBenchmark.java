@@ -0,0 +1,60 @@
+package com.datadog.profiling.uploader;
+
+import com.datadog.profiling.uploader.util.StreamUtils;
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Compresses the test recording with each compression type, level and number of threads. The
+ * compressed size is printed on setup so that the ratio can be compared with the throughput.
+ *
+ * <p>The benchmark is in the uploader's package to use the package private compression engine.
+ */
+@State(Scope.Benchmark)
+public class CompressionBenchmark {
+  private static final StreamUtils.BytesConsumer<Integer> LENGTH =
+      (bytes, offset, length) -> length;
+
+  @Param({"lz4", "gzip"})
+  public String type;
+
+  @Param({"-1", "1", "9"})
+  public int level;
+
+  @Param({"1", "4"})
+  public int threads;
+
+  private byte[] recording;
+  private CompressionEngine engine;
+
+  @Setup(Level.Trial)
+  public void setup() throws IOException {
+    try (final InputStream is =
+        CompressionBenchmark.class.getResourceAsStream("/test-recording.jfr")) {
+      recording = ByteStreams.toByteArray(is);
+    }
+    engine = CompressionEngine.of(CompressionType.of(type), level, threads);
+    System.out.println(
+        "\nCompressed size: " + compress() + " of " + recording.length + " bytes");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    engine.close();
+  }
+
+  @Benchmark
+  public int compress() throws IOException {
+    return StreamUtils.compressStream(
+        new ByteArrayInputStream(recording), recording.length, engine, LENGTH);
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 2019 Datadog
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datadog.profiling.uploader;
+
+import com.datadog.profiling.uploader.util.ParallelGzipOutputStream;
+import com.datadog.profiling.uploader.util.ParallelGzipOutputStream.LeveledGzipOutputStream;
+import com.datadog.profiling.uploader.util.StreamUtils;
+import com.datadog.profiling.util.ProfilingThreadFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import lombok.extern.slf4j.Slf4j;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FrameOutputStream;
+import net.jpountz.lz4.LZ4FrameOutputStream.BLOCKSIZE;
+import net.jpountz.lz4.LZ4FrameOutputStream.FLG;
+import net.jpountz.xxhash.XXHashFactory;
+
+/**
+ * Compresses recordings with the configured compression type, level and number of threads.
+ *
+ * <p>A level of {@code -1} selects the default of the compressor. For gzip the level is the {@link
+ * Deflater} level from 0 to 9. For lz4 a level of 0 or less selects the fast compressor and higher
+ * levels select the high compression compressor at that level. With more than one thread gzip
+ * compresses blocks of the recording in parallel, see {@link ParallelGzipOutputStream}; the other
+ * compression types always compress on the calling thread.
+ */
+@Slf4j
+final class CompressionEngine implements StreamUtils.Compressor, Closeable {
+  static final int DEFAULT_LEVEL = -1;
+
+  private static final long THREAD_KEEP_ALIVE_SECONDS = 30;
+
+  private final CompressionType type;
+  private final int level;
+  private final int threads;
+  private final LZ4Compressor lz4Compressor;
+  private final ThreadPoolExecutor executor;
+
+  private CompressionEngine(final CompressionType type, final int level, final int threads) {
+    this.type = type;
+    this.level = level;
+    this.threads = threads;
+    lz4Compressor = type == CompressionType.ON || type == CompressionType.LZ4 ? lz4(level) : null;
+    if (type == CompressionType.GZIP && threads > 1) {
+      executor =
+          new ThreadPoolExecutor(
+              threads,
+              threads,
+              THREAD_KEEP_ALIVE_SECONDS,
+              TimeUnit.SECONDS,
+              new LinkedBlockingQueue<Runnable>(),
+              new ProfilingThreadFactory("dd-profiler-compression"));
+      executor.allowCoreThreadTimeOut(true);
+    } else {
+      executor = null;
+    }
+  }
+
+  static CompressionEngine of(final CompressionType type, int level, int threads) {
+    if (type == CompressionType.GZIP
+        && level != DEFAULT_LEVEL
+        && (level < Deflater.NO_COMPRESSION || level > Deflater.BEST_COMPRESSION)) {
+      log.warn("Invalid gzip compression level: {}. Using the default level.", level);
+      level = DEFAULT_LEVEL;
+    }
+    if (threads < 1) {
+      log.warn("Invalid number of compression threads: {}. Using 1.", threads);
+      threads = 1;
+    }
+    log.debug("Uploader compression type={}, level={}, threads={}", type, level, threads);
+    return new CompressionEngine(type, level, threads);
+  }
+
+  CompressionType getType() {
+    return type;
+  }
+
+  @Override
+  public OutputStream compress(final OutputStream os) throws IOException {
+    switch (type) {
+      case OFF:
+        return os;
+      case GZIP:
+        return executor != null
+            ? new ParallelGzipOutputStream(os, executor, level, threads)
+            : new LeveledGzipOutputStream(os, level);
+      case ON:
+      case LZ4:
+      default:
+        return new LZ4FrameOutputStream(
+            os,
+            BLOCKSIZE.SIZE_4MB,
+            -1L,
+            lz4Compressor,
+            XXHashFactory.fastestInstance().hash32(),
+            FLG.Bits.BLOCK_INDEPENDENCE);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (executor != null) {
+      executor.shutdown();
+    }
+  }
+
+  private static LZ4Compressor lz4(final int level) {
+    final LZ4Factory factory = LZ4Factory.fastestInstance();
+    // the high compressor clamps levels above its maximum
+    return level <= 0 ? factory.fastCompressor() : factory.highCompressor(level);
+  }
+}
@@ -23,18 +23,27 @@ import com.datadog.profiling.util.ProfilingThreadFactory;
 import datadog.trace.api.Config;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.InetSocketAddress;
 import java.net.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
 import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayDeque;
 import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 import lombok.extern.slf4j.Slf4j;
 import okhttp3.Call;
@@ -69,6 +78,10 @@ public final class RecordingUploader {
 
   static final String TAGS_PARAM = "tags[]";
 
+  // Sent with spooled recordings, as the profiler has no other channel for its own metrics
+  static final String SPOOL_DEPTH_TAG = "upload_spool.depth";
+  static final String SPOOL_DROPS_TAG = "upload_spool.drops";
+
   static final String HEADER_DD_API_KEY = "DD-API-KEY";
 
   static final String JAVA_LANG = "java";
@@ -77,7 +90,6 @@ public final class RecordingUploader {
   static final int MAX_RUNNING_REQUESTS = 10;
   static final int MAX_ENQUEUED_REQUESTS = 20;
 
-  static final String RECORDING_FORMAT = "jfr";
   static final String RECORDING_TYPE_PREFIX = "jfr-";
   static final String RECORDING_RUNTIME = "jvm";
 
@@ -108,6 +120,11 @@ public final class RecordingUploader {
         }
       };
 
+  static final String SPILL_FILE_PREFIX = "dd-profiling-upload-";
+
+  static final long SPOOL_INITIAL_BACKOFF_MILLIS = 1000;
+  static final long SPOOL_MAX_BACKOFF_MILLIS = 60 * 1000;
+
   static final int SEED_EXPECTED_REQUEST_SIZE = 2 * 1024 * 1024; // 2MB;
   static final int REQUEST_SIZE_HISTORY_SIZE = 10;
   static final double REQUEST_SIZE_COEFFICIENT = 1.2;
@@ -117,7 +134,14 @@ public final class RecordingUploader {
   private final String apiKey;
   private final String url;
   private final List<String> tags;
+  private final CompressionEngine compressionEngine;
   private final Compression compression;
+  private final StreamingCompression streamingCompression;
+  // Visible for testing
+  final UploadSpool spool;
+  private final ScheduledExecutorService retryExecutorService;
+  // Spooled recordings are uploaded one at a time to keep them in order
+  private final AtomicBoolean spoolUploadInFlight = new AtomicBoolean();
   private final Deque<Integer> requestSizeHistory;
 
   public RecordingUploader(final Config config) {
@@ -194,7 +218,23 @@ public final class RecordingUploader {
     // We are mainly talking to the same(ish) host so we need to raise this limit
     client.dispatcher().setMaxRequestsPerHost(MAX_RUNNING_REQUESTS);
 
-    compression = getCompression(CompressionType.of(config.getProfilingUploadCompression()));
+    compressionEngine =
+        CompressionEngine.of(
+            CompressionType.of(config.getProfilingUploadCompression()),
+            config.getProfilingUploadCompressionLevel(),
+            config.getProfilingUploadCompressionThreads());
+    compression = getCompression(compressionEngine);
+    spool = config.isProfilingUploadSpoolEnabled() ? createSpool(config) : null;
+    // The spool always needs the compressed recording in a file
+    streamingCompression =
+        config.isProfilingUploadStreaming() || spool != null
+            ? getStreamingCompression(compressionEngine)
+            : null;
+    retryExecutorService =
+        spool == null
+            ? null
+            : Executors.newSingleThreadScheduledExecutor(
+                new ProfilingThreadFactory("dd-profiler-upload-retry"));
 
     requestSizeHistory = new ArrayDeque<>(REQUEST_SIZE_HISTORY_SIZE);
     requestSizeHistory.add(SEED_EXPECTED_REQUEST_SIZE);
@@ -202,7 +242,9 @@ public final class RecordingUploader {
 
   public void upload(final RecordingType type, final RecordingData data) {
     try {
-      if (canEnqueueMoreRequests()) {
+      if (spool != null) {
+        spoolRecording(type, data);
+      } else if (canEnqueueMoreRequests()) {
         makeUploadRequest(type, data);
       } else {
         log.error("Cannot upload data: too many enqueued requests!");
@@ -220,6 +262,9 @@ public final class RecordingUploader {
   }
 
   public void shutdown() {
+    if (retryExecutorService != null) {
+      retryExecutorService.shutdownNow();
+    }
     okHttpExecutorService.shutdownNow();
     try {
       okHttpExecutorService.awaitTermination(TERMINATION_TIMEOUT, TimeUnit.SECONDS);
@@ -230,6 +275,24 @@ public final class RecordingUploader {
     }
 
     client.connectionPool().evictAll();
+    compressionEngine.close();
+
+    if (spool != null) {
+      spool.close();
+    }
+  }
+
+  private static UploadSpool createSpool(final Config config) {
+    try {
+      return new UploadSpool(
+          Files.createTempDirectory("dd-profiling-spool-"),
+          config.getProfilingUploadSpoolMaxSize(),
+          Duration.ofSeconds(config.getProfilingUploadSpoolMaxAge()),
+          Clock.systemUTC());
+    } catch (final IOException e) {
+      log.error("Cannot create upload spool directory, recordings will not be retried", e);
+      return null;
+    }
   }
 
   @FunctionalInterface
@@ -238,37 +301,36 @@ public final class RecordingUploader {
     RequestBody compress(InputStream is, int expectedSize) throws IOException;
   }
 
-  private Compression getCompression(final CompressionType type) {
-    log.debug("Uploader compression type={}", type);
+  /** Compresses into a stream instead of a byte array. */
+  @FunctionalInterface
+  private interface StreamingCompression {
+
+    void compress(InputStream is, OutputStream os) throws IOException;
+  }
+
+  private Compression getCompression(final CompressionEngine engine) {
     final StreamUtils.BytesConsumer<RequestBody> consumer =
         (bytes, offset, length) -> RequestBody.create(OCTET_STREAM, bytes, offset, length);
-    final Compression compression;
-    // currently only gzip and off are supported
-    // this needs to be updated once more compression types are added
-    switch (type) {
-      case GZIP:
-        {
-          compression = (is, expectedSize) -> StreamUtils.gzipStream(is, expectedSize, consumer);
-          break;
-        }
-      case OFF:
-        {
-          compression = (is, expectedSize) -> StreamUtils.readStream(is, expectedSize, consumer);
-          break;
-        }
-      case ON:
-      case LZ4:
-      default:
-        {
-          compression = (is, expectedSize) -> StreamUtils.lz4Stream(is, expectedSize, consumer);
-          break;
-        }
+    if (engine.getType() == CompressionType.OFF) {
+      return (is, expectedSize) -> StreamUtils.readStream(is, expectedSize, consumer);
     }
-    return compression;
+    return (is, expectedSize) -> StreamUtils.compressStream(is, expectedSize, engine, consumer);
+  }
+
+  private StreamingCompression getStreamingCompression(final CompressionEngine engine) {
+    log.debug("Uploader streams compressed recordings through a spill file");
+    if (engine.getType() == CompressionType.OFF) {
+      return StreamUtils::copyStream;
+    }
+    return (is, os) -> StreamUtils.compressStream(is, os, engine);
   }
 
   private void makeUploadRequest(final RecordingType type, final RecordingData data)
       throws IOException {
+    if (streamingCompression != null) {
+      makeStreamingUploadRequest(type, data);
+      return;
+    }
     final int expectedRequestSize = getExpectedRequestSize();
     // TODO: it would be really nice to avoid copy here, but:
     // * if JFR doesn't write file to disk we seem to not be able to get size of the recording
@@ -286,19 +348,76 @@ public final class RecordingUploader {
     // The body data is stored in byte array so we naturally get size limit that will fit into int
     updateUploadSizesHistory((int) body.contentLength());
 
+    enqueueUploadRequest(type, data, body, RESPONSE_CALLBACK);
+  }
+
+  /**
+   * Compresses the recording into a temporary file which backs the request body, so the heap usage
+   * doesn't depend on the recording size. The file can be read again if the request has to be
+   * resent, and it is deleted once the request completes.
+   */
+  private void makeStreamingUploadRequest(final RecordingType type, final RecordingData data)
+      throws IOException {
+    final Path file = Files.createTempFile(SPILL_FILE_PREFIX, ".tmp");
+    boolean enqueued = false;
+    try {
+      streamingCompression.compress(data.getStream(), Files.newOutputStream(file));
+      final RequestBody body = RequestBody.create(OCTET_STREAM, file.toFile());
+      log.debug(
+          "Uploading recording {} [{}] (Size={} bytes, streamed)",
+          data.getName(),
+          type,
+          body.contentLength());
+      enqueueUploadRequest(type, data, body, new SpillFileCallback(file));
+      enqueued = true;
+    } finally {
+      if (!enqueued) {
+        deleteSpillFile(file);
+      }
+    }
+  }
+
+  private void enqueueUploadRequest(
+      final RecordingType type,
+      final RecordingData data,
+      final RequestBody body,
+      final Callback callback) {
+    enqueueUploadRequest(
+        type,
+        data.getName(),
+        data.getFormat(),
+        data.getStart(),
+        data.getEnd(),
+        data.getTags(),
+        body,
+        callback);
+  }
+
+  private void enqueueUploadRequest(
+      final RecordingType type,
+      final String name,
+      final String format,
+      final Instant start,
+      final Instant end,
+      final Map<String, String> recordingTags,
+      final RequestBody body,
+      final Callback callback) {
     final MultipartBody.Builder bodyBuilder =
         new MultipartBody.Builder()
             .setType(MultipartBody.FORM)
-            .addFormDataPart(RECORDING_NAME_PARAM, data.getName())
-            .addFormDataPart(FORMAT_PARAM, RECORDING_FORMAT)
+            .addFormDataPart(RECORDING_NAME_PARAM, name)
+            .addFormDataPart(FORMAT_PARAM, format)
             .addFormDataPart(TYPE_PARAM, RECORDING_TYPE_PREFIX + type.getName())
             .addFormDataPart(RUNTIME_PARAM, RECORDING_RUNTIME)
             // Note that toString is well defined for instants - ISO-8601
-            .addFormDataPart(RECORDING_START_PARAM, data.getStart().toString())
-            .addFormDataPart(RECORDING_END_PARAM, data.getEnd().toString());
+            .addFormDataPart(RECORDING_START_PARAM, start.toString())
+            .addFormDataPart(RECORDING_END_PARAM, end.toString());
     for (final String tag : tags) {
       bodyBuilder.addFormDataPart(TAGS_PARAM, tag);
     }
+    for (final String tag : tagsToList(recordingTags)) {
+      bodyBuilder.addFormDataPart(TAGS_PARAM, tag);
+    }
     bodyBuilder.addPart(DATA_HEADERS, body);
     final RequestBody requestBody = bodyBuilder.build();
 
@@ -311,7 +430,189 @@ public final class RecordingUploader {
             .post(requestBody)
             .build();
 
-    client.newCall(request).enqueue(RESPONSE_CALLBACK);
+    client.newCall(request).enqueue(callback);
+  }
+
+  /**
+   * Compresses the recording into the spool and uploads the spool in order. Recordings which fail
+   * to upload stay in the spool and are retried with a backoff until they are uploaded or dropped
+   * by the spool's limits.
+   */
+  private void spoolRecording(final RecordingType type, final RecordingData data)
+      throws IOException {
+    final Path file = spool.newFile();
+    try {
+      streamingCompression.compress(data.getStream(), Files.newOutputStream(file));
+    } catch (final IOException | RuntimeException e) {
+      deleteSpillFile(file);
+      throw e;
+    }
+    spool.offer(
+        file,
+        type,
+        data.getName(),
+        data.getFormat(),
+        data.getStart(),
+        data.getEnd(),
+        data.getTags());
+    uploadSpool();
+  }
+
+  private void uploadSpool() {
+    while (spoolUploadInFlight.compareAndSet(false, true)) {
+      final UploadSpool.Entry entry = spool.peek();
+      if (entry != null) {
+        uploadSpooled(entry);
+        return;
+      }
+      spoolUploadInFlight.set(false);
+      // a recording may have been spooled after peeking
+      if (spool.depth() == 0) {
+        return;
+      }
+    }
+  }
+
+  private void uploadSpooled(final UploadSpool.Entry entry) {
+    log.debug(
+        "Uploading spooled recording {} [{}] (Size={} bytes, attempt {})",
+        entry.name,
+        entry.type,
+        entry.size,
+        entry.attempts + 1);
+    try {
+      enqueueUploadRequest(
+          entry.type,
+          entry.name,
+          entry.format,
+          entry.start,
+          entry.end,
+          spoolTags(entry),
+          RequestBody.create(OCTET_STREAM, entry.file.toFile()),
+          new SpoolCallback(entry));
+    } catch (final RuntimeException e) {
+      log.error("Failed to upload spooled recording {}", entry.name, e);
+      spool.discard(entry);
+      spoolUploadInFlight.set(false);
+      uploadSpool();
+    }
+  }
+
+  /** @return the tags of a spooled recording along with the state of the spool as it is uploaded */
+  private Map<String, String> spoolTags(final UploadSpool.Entry entry) {
+    final Map<String, String> tags = new HashMap<>(entry.tags);
+    tags.put(SPOOL_DEPTH_TAG, Integer.toString(spool.depth()));
+    tags.put(SPOOL_DROPS_TAG, Long.toString(spool.drops()));
+    return tags;
+  }
+
+  private void spooledUploadDone(final UploadSpool.Entry entry, final boolean uploaded) {
+    if (uploaded) {
+      spool.remove(entry);
+    } else {
+      spool.discard(entry);
+    }
+    spoolUploadInFlight.set(false);
+    uploadSpool();
+  }
+
+  private void retrySpooledUpload(final UploadSpool.Entry entry) {
+    entry.attempts++;
+    final long backoff =
+        Math.min(
+            SPOOL_MAX_BACKOFF_MILLIS,
+            SPOOL_INITIAL_BACKOFF_MILLIS << Math.min(entry.attempts - 1, 16));
+    log.warn(
+        "Retrying upload of recording {} in {} ms ({} recordings spooled)",
+        entry.name,
+        backoff,
+        spool.depth());
+    try {
+      retryExecutorService.schedule(
+          () -> {
+            spoolUploadInFlight.set(false);
+            uploadSpool();
+          },
+          backoff,
+          TimeUnit.MILLISECONDS);
+    } catch (final RejectedExecutionException e) {
+      // shutting down
+      spoolUploadInFlight.set(false);
+    }
+  }
+
+  static boolean isRetryable(final int code) {
+    return code >= 500 || code == 408 || code == 429;
+  }
+
+  private static void deleteSpillFile(final Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (final IOException e) {
+      log.warn("Failed to delete upload spill file {}", file, e);
+    }
+  }
+
+  /** Keeps spooled recordings whose upload failed with a transient error for a retry. */
+  private final class SpoolCallback implements Callback {
+    private final UploadSpool.Entry entry;
+
+    SpoolCallback(final UploadSpool.Entry entry) {
+      this.entry = entry;
+    }
+
+    @Override
+    public void onFailure(final Call call, final IOException e) {
+      log.warn("Failed to upload recording {}", entry.name, e);
+      retrySpooledUpload(entry);
+    }
+
+    @Override
+    public void onResponse(final Call call, final Response response) {
+      final int code = response.code();
+      response.close();
+      if (response.isSuccessful()) {
+        log.debug("Upload done");
+        spooledUploadDone(entry, true);
+      } else if (isRetryable(code)) {
+        log.warn("Failed to upload recording {}: response code {}", entry.name, code);
+        retrySpooledUpload(entry);
+      } else {
+        log.error(
+            "Failed to upload recording {}: unexpected response code {} {}",
+            entry.name,
+            response.message(),
+            code);
+        spooledUploadDone(entry, false);
+      }
+    }
+  }
+
+  /** Deletes the spill file backing a streamed request once the request is done. */
+  private static final class SpillFileCallback implements Callback {
+    private final Path file;
+
+    SpillFileCallback(final Path file) {
+      this.file = file;
+    }
+
+    @Override
+    public void onFailure(final Call call, final IOException e) {
+      try {
+        RESPONSE_CALLBACK.onFailure(call, e);
+      } finally {
+        deleteSpillFile(file);
+      }
+    }
+
+    @Override
+    public void onResponse(final Call call, final Response response) throws IOException {
+      try {
+        RESPONSE_CALLBACK.onResponse(call, response);
+      } finally {
+        deleteSpillFile(file);
+      }
+    }
   }
 
   private int getExpectedRequestSize() {
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2019 Datadog
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datadog.profiling.uploader;
+
+import com.datadog.profiling.controller.RecordingType;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Bounded on-disk queue of compressed recordings waiting to be uploaded.
+ *
+ * <p>Entries are kept in the order of their recording start time, so that recordings are uploaded
+ * in order even when an earlier one had to be retried. When the spool exceeds its size limit the
+ * oldest recordings are dropped, and recordings older than the age limit are dropped on the next
+ * access.
+ *
+ * <p>The spool only bridges outages while the process runs. It lives in a temporary directory of
+ * its own which is deleted on shutdown, so recordings still spooled then are lost and nothing is
+ * picked up again after a restart.
+ */
+@Slf4j
+final class UploadSpool {
+
+  static final class Entry {
+    final Path file;
+    final long size;
+    final RecordingType type;
+    final String name;
+    final String format;
+    final Instant start;
+    final Instant end;
+    final Map<String, String> tags;
+    final Instant spooled;
+    int attempts;
+
+    Entry(
+        final Path file,
+        final long size,
+        final RecordingType type,
+        final String name,
+        final String format,
+        final Instant start,
+        final Instant end,
+        final Map<String, String> tags,
+        final Instant spooled) {
+      this.file = file;
+      this.size = size;
+      this.type = type;
+      this.name = name;
+      this.format = format;
+      this.start = start;
+      this.end = end;
+      this.tags = tags;
+      this.spooled = spooled;
+    }
+  }
+
+  final Path directory;
+  private final long maxSize;
+  private final Duration maxAge;
+  private final Clock clock;
+
+  private final List<Entry> entries = new ArrayList<>();
+  private long size;
+  private final AtomicLong drops = new AtomicLong();
+
+  UploadSpool(final Path directory, final long maxSize, final Duration maxAge, final Clock clock) {
+    this.directory = directory;
+    this.maxSize = maxSize;
+    this.maxAge = maxAge;
+    this.clock = clock;
+  }
+
+  /** @return a new file in the spool directory to write a compressed recording to */
+  Path newFile() throws IOException {
+    return Files.createTempFile(directory, RecordingUploader.SPILL_FILE_PREFIX, ".tmp");
+  }
+
+  /** Adds a recording written to a {@link #newFile() spool file}. */
+  Entry offer(
+      final Path file,
+      final RecordingType type,
+      final String name,
+      final String format,
+      final Instant start,
+      final Instant end,
+      final Map<String, String> tags)
+      throws IOException {
+    final Entry entry =
+        new Entry(
+            file, Files.size(file), type, name, format, start, end, tags, Instant.now(clock));
+    synchronized (this) {
+      if (entry.size > maxSize) {
+        log.warn("Dropping recording {}: {} bytes exceeds the spool size", name, entry.size);
+        drop(entry);
+        return null;
+      }
+      dropExpired();
+      while (size + entry.size > maxSize && !entries.isEmpty()) {
+        final Entry oldest = entries.remove(0);
+        size -= oldest.size;
+        log.warn("Dropping spooled recording {}: spool is full", oldest.name);
+        drop(oldest);
+      }
+      int index = entries.size();
+      while (index > 0 && entries.get(index - 1).start.isAfter(entry.start)) {
+        index--;
+      }
+      entries.add(index, entry);
+      size += entry.size;
+      return entry;
+    }
+  }
+
+  /** @return the oldest recording still to upload, or null */
+  synchronized Entry peek() {
+    dropExpired();
+    return entries.isEmpty() ? null : entries.get(0);
+  }
+
+  /** Removes a recording which was uploaded. */
+  synchronized void remove(final Entry entry) {
+    if (entries.remove(entry)) {
+      size -= entry.size;
+    }
+    delete(entry.file);
+  }
+
+  /** Removes a recording which can't be uploaded, unless it was already dropped. */
+  synchronized void discard(final Entry entry) {
+    if (entries.remove(entry)) {
+      size -= entry.size;
+      drop(entry);
+    }
+  }
+
+  /**
+   * Removes all recordings and the spool directory, on shutdown. Files of recordings which were
+   * still being compressed are deleted along with the spooled ones.
+   */
+  synchronized void close() {
+    entries.clear();
+    size = 0;
+    if (!Files.isDirectory(directory)) {
+      // already closed
+      return;
+    }
+    try (final DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+      for (final Path file : files) {
+        delete(file);
+      }
+    } catch (final IOException e) {
+      log.warn("Failed to list spool directory {}", directory, e);
+    }
+    delete(directory);
+  }
+
+  /** @return the number of recordings waiting to be uploaded */
+  synchronized int depth() {
+    return entries.size();
+  }
+
+  /** @return the number of bytes waiting to be uploaded */
+  synchronized long size() {
+    return size;
+  }
+
+  /** @return the number of recordings dropped since the spool was created */
+  long drops() {
+    return drops.get();
+  }
+
+  private void dropExpired() {
+    final Instant oldest = Instant.now(clock).minus(maxAge);
+    for (final Iterator<Entry> it = entries.iterator(); it.hasNext(); ) {
+      final Entry entry = it.next();
+      if (entry.spooled.isBefore(oldest)) {
+        it.remove();
+        size -= entry.size;
+        log.warn("Dropping spooled recording {}: older than {}", entry.name, maxAge);
+        drop(entry);
+      }
+    }
+  }
+
+  private void drop(final Entry entry) {
+    drops.incrementAndGet();
+    delete(entry.file);
+  }
+
+  private static void delete(final Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (final IOException e) {
+      log.warn("Failed to delete spool file {}", file, e);
+    }
+  }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright 2019 Datadog
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.datadog.profiling.uploader.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzip output stream which compresses blocks of its input in parallel.
+ *
+ * <p>Each block is compressed into a separate gzip member and the members are written out in order.
+ * Concatenated members form a valid gzip stream (RFC 1952) which {@link
+ * java.util.zip.GZIPInputStream} and other decoders read back as a whole. The number of blocks
+ * being compressed at a time is bounded so that a fast producer can't buffer an unbounded amount of
+ * data.
+ */
+public final class ParallelGzipOutputStream extends OutputStream {
+  public static final int DEFAULT_BLOCK_SIZE = 1024 * 1024;
+
+  private final OutputStream out;
+  private final ExecutorService executor;
+  private final int level;
+  private final int blockSize;
+  private final int maxPending;
+
+  private final Deque<Future<ByteArrayOutputStream>> pending = new ArrayDeque<>();
+  private final byte[] block;
+  private int count;
+  private boolean written;
+  private boolean closed;
+
+  public ParallelGzipOutputStream(
+      final OutputStream out, final ExecutorService executor, final int level, final int threads) {
+    this(out, executor, level, threads, DEFAULT_BLOCK_SIZE);
+  }
+
+  public ParallelGzipOutputStream(
+      final OutputStream out,
+      final ExecutorService executor,
+      final int level,
+      final int threads,
+      final int blockSize) {
+    this.out = out;
+    this.executor = executor;
+    this.level = level;
+    this.blockSize = blockSize;
+    this.maxPending = Math.max(1, threads) * 2;
+    block = new byte[blockSize];
+  }
+
+  @Override
+  public void write(final int b) throws IOException {
+    ensureOpen();
+    block[count++] = (byte) b;
+    if (count == blockSize) {
+      submitBlock();
+    }
+  }
+
+  @Override
+  public void write(final byte[] b, int off, int len) throws IOException {
+    ensureOpen();
+    while (len > 0) {
+      final int n = Math.min(len, blockSize - count);
+      System.arraycopy(b, off, block, count, n);
+      count += n;
+      off += n;
+      len -= n;
+      if (count == blockSize) {
+        submitBlock();
+      }
+    }
+  }
+
+  /** Writes out the blocks compressed so far; a partially filled block is kept until it fills. */
+  @Override
+  public void flush() throws IOException {
+    ensureOpen();
+    while (!pending.isEmpty() && pending.peekFirst().isDone()) {
+      writeMember(pending.pollFirst());
+    }
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    try {
+      // an empty input still has to produce a valid gzip stream
+      if (count > 0 || !written && pending.isEmpty()) {
+        submitBlock();
+      }
+      while (!pending.isEmpty()) {
+        writeMember(pending.pollFirst());
+      }
+    } finally {
+      for (final Future<ByteArrayOutputStream> future : pending) {
+        future.cancel(true);
+      }
+      pending.clear();
+      out.close();
+    }
+  }
+
+  private void submitBlock() throws IOException {
+    final Callable<ByteArrayOutputStream> task =
+        new CompressTask(Arrays.copyOf(block, count), level);
+    count = 0;
+    while (pending.size() >= maxPending) {
+      writeMember(pending.pollFirst());
+    }
+    Future<ByteArrayOutputStream> future;
+    try {
+      future = executor.submit(task);
+    } catch (final RejectedExecutionException e) {
+      // the pool is shutting down, compress on the calling thread
+      final FutureTask<ByteArrayOutputStream> inline = new FutureTask<>(task);
+      inline.run();
+      future = inline;
+    }
+    pending.addLast(future);
+  }
+
+  private void writeMember(final Future<ByteArrayOutputStream> future) throws IOException {
+    try {
+      future.get().writeTo(out);
+      written = true;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while compressing");
+    } catch (final ExecutionException e) {
+      final Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      throw new IOException("Failed to compress block", cause);
+    }
+  }
+
+  private void ensureOpen() throws IOException {
+    if (closed) {
+      throw new IOException("Stream closed");
+    }
+  }
+
+  private static final class CompressTask implements Callable<ByteArrayOutputStream> {
+    private final byte[] data;
+    private final int level;
+
+    CompressTask(final byte[] data, final int level) {
+      this.data = data;
+      this.level = level;
+    }
+
+    @Override
+    public ByteArrayOutputStream call() throws IOException {
+      // compressed data is usually much smaller than the input
+      final ByteArrayOutputStream baos = new ByteArrayOutputStream(data.length / 4 + 64);
+      try (final GZIPOutputStream gzip = new LeveledGzipOutputStream(baos, level)) {
+        gzip.write(data);
+      }
+      return baos;
+    }
+  }
+
+  /** {@link GZIPOutputStream} with a configurable compression level. */
+  public static final class LeveledGzipOutputStream extends GZIPOutputStream {
+    public LeveledGzipOutputStream(final OutputStream out, final int level) throws IOException {
+      super(out);
+      def.setLevel(level);
+    }
+  }
+}
@@ -35,28 +35,77 @@ public final class StreamUtils {
   }
 
   /**
-   * Read a stream into a consumer gzip-compressing content. If the stream is already compressed
-   * (gzip, zip, lz4) the original data will be returned.
+   * Wraps an output stream into one which compresses the data written to it.
+   *
+   * <p>Closing the returned stream must finish the compressed data and close the wrapped stream.
+   */
+  @FunctionalInterface
+  public interface Compressor {
+    OutputStream compress(OutputStream os) throws IOException;
+  }
+
+  /**
+   * Read a stream into a consumer compressing content. If the stream is already compressed (gzip,
+   * zip, lz4) the original data will be returned.
    *
    * @param is the input stream
-   * @return gzipped contents of the input stream or the the original content if the stream is
+   * @param expectedSize expected result size to preallocate buffers
+   * @param compressor the compression to apply
+   * @param consumer consumer to convert byte array to result
+   * @return compressed contents of the input stream or the the original content if the stream is
    *     already compressed
    * @throws IOException
    */
-  public static <T> T gzipStream(
-      InputStream is, final int expectedSize, final BytesConsumer<T> consumer) throws IOException {
+  public static <T> T compressStream(
+      InputStream is,
+      final int expectedSize,
+      final Compressor compressor,
+      final BytesConsumer<T> consumer)
+      throws IOException {
     is = ensureMarkSupported(is);
     if (isCompressed(is)) {
       return readStream(is, expectedSize, consumer);
     } else {
       final FastByteArrayOutputStream baos = new FastByteArrayOutputStream(expectedSize);
-      try (final OutputStream zipped = new GZIPOutputStream(baos)) {
+      try (final OutputStream zipped = compressor.compress(baos)) {
         copy(is, zipped);
       }
       return baos.consume(consumer);
     }
   }
 
+  /**
+   * Copy a stream into an output stream compressing content. If the stream is already compressed
+   * (gzip, zip, lz4) the original data will be copied. The output stream is closed when done.
+   *
+   * @param is the input stream
+   * @param os the output stream
+   * @param compressor the compression to apply
+   * @throws IOException
+   */
+  public static void compressStream(
+      InputStream is, final OutputStream os, final Compressor compressor) throws IOException {
+    is = ensureMarkSupported(is);
+    try (final OutputStream out = isCompressed(is) ? os : compressor.compress(os)) {
+      copy(is, out);
+    }
+  }
+
+  /**
+   * Read a stream into a consumer gzip-compressing content. If the stream is already compressed
+   * (gzip, zip, lz4) the original data will be returned.
+   *
+   * @param is the input stream
+   * @return gzipped contents of the input stream or the the original content if the stream is
+   *     already compressed
+   * @throws IOException
+   */
+  public static <T> T gzipStream(
+      final InputStream is, final int expectedSize, final BytesConsumer<T> consumer)
+      throws IOException {
+    return compressStream(is, expectedSize, GZIPOutputStream::new, consumer);
+  }
+
   /**
    * Read a stream into a consumer lz4-compressing content. If the stream is already compressed
    * (gzip, zip, lz4) the original data will be returned.
@@ -67,16 +116,21 @@ public final class StreamUtils {
    * @throws IOException
    */
   public static <T> T lz4Stream(
-      InputStream is, final int expectedSize, final BytesConsumer<T> consumer) throws IOException {
-    is = ensureMarkSupported(is);
-    if (isCompressed(is)) {
-      return readStream(is, expectedSize, consumer);
-    } else {
-      final FastByteArrayOutputStream baos = new FastByteArrayOutputStream(expectedSize);
-      try (final OutputStream zipped = new LZ4FrameOutputStream(baos)) {
-        copy(is, zipped);
-      }
-      return baos.consume(consumer);
+      final InputStream is, final int expectedSize, final BytesConsumer<T> consumer)
+      throws IOException {
+    return compressStream(is, expectedSize, LZ4FrameOutputStream::new, consumer);
+  }
+
+  /**
+   * Copy a stream into an output stream. The output stream is closed when done.
+   *
+   * @param is the input stream
+   * @param os the output stream
+   * @throws IOException
+   */
+  public static void copyStream(final InputStream is, final OutputStream os) throws IOException {
+    try (final OutputStream out = os) {
+      copy(is, out);
     }
   }
 
@@ -17,6 +17,7 @@ package com.datadog.profiling.uploader;
 
 import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.mockito.Mockito.mock;
@@ -41,6 +42,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.file.Files;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
@@ -124,6 +126,8 @@ public class RecordingUploaderTest {
     when(config.getApiKey()).thenReturn(API_KEY_VALUE);
     when(config.getMergedProfilingTags()).thenReturn(TAGS);
     when(config.getProfilingUploadTimeout()).thenReturn((int) REQUEST_TIMEOUT.getSeconds());
+    when(config.getProfilingUploadCompressionLevel()).thenReturn(CompressionEngine.DEFAULT_LEVEL);
+    when(config.getProfilingUploadCompressionThreads()).thenReturn(1);
 
     uploader = new RecordingUploader(config);
   }
@@ -159,9 +163,7 @@ public class RecordingUploaderTest {
     assertEquals(
         ImmutableList.of(RECODING_NAME_PREFIX + SEQUENCE_NUMBER),
         parameters.get(RecordingUploader.RECORDING_NAME_PARAM));
-    assertEquals(
-        ImmutableList.of(RecordingUploader.RECORDING_FORMAT),
-        parameters.get(RecordingUploader.FORMAT_PARAM));
+    assertEquals(ImmutableList.of("jfr"), parameters.get(RecordingUploader.FORMAT_PARAM));
     assertEquals(
         ImmutableList.of(RecordingUploader.RECORDING_TYPE_PREFIX + RECORDING_TYPE.getName()),
         parameters.get(RecordingUploader.TYPE_PARAM));
@@ -195,6 +197,174 @@ public class RecordingUploaderTest {
     assertArrayEquals(expectedBytes, uploadedBytes);
   }
 
+  @ParameterizedTest
+  @ValueSource(strings = {"on", "gzip", "off"})
+  public void testStreamingUpload(final String compression)
+      throws IOException, InterruptedException {
+    when(config.getProfilingUploadCompression()).thenReturn(compression);
+    when(config.isProfilingUploadStreaming()).thenReturn(true);
+    uploader = new RecordingUploader(config);
+
+    server.enqueue(new MockResponse().setResponseCode(200));
+
+    final RecordingData recording = mockRecordingData(RECORDING_RESOURCE);
+    uploader.upload(RECORDING_TYPE, recording);
+
+    final RecordedRequest recordedRequest = server.takeRequest(5, TimeUnit.SECONDS);
+    final Multimap<String, Object> parameters =
+        ProfilingTestUtils.parseProfilingRequestParameters(recordedRequest);
+    assertEquals(
+        ImmutableList.of(RECODING_NAME_PREFIX + SEQUENCE_NUMBER),
+        parameters.get(RecordingUploader.RECORDING_NAME_PARAM));
+
+    final byte[] expectedBytes =
+        ByteStreams.toByteArray(
+            Thread.currentThread().getContextClassLoader().getResourceAsStream(RECORDING_RESOURCE));
+
+    byte[] uploadedBytes =
+        (byte[]) Iterables.getFirst(parameters.get(RecordingUploader.DATA_PARAM), new byte[] {});
+    if (compression.equals("gzip")) {
+      uploadedBytes = unGzip(uploadedBytes);
+    } else if (compression.equals("on")) {
+      uploadedBytes = unLz4(uploadedBytes);
+    }
+    assertArrayEquals(expectedBytes, uploadedBytes);
+
+    verify(recording.getStream()).close();
+    verify(recording).release();
+  }
+
+  @Test
+  public void testRecordingTags() throws IOException, InterruptedException {
+    server.enqueue(new MockResponse().setResponseCode(200));
+
+    final RecordingData recording = mockRecordingData(RECORDING_RESOURCE);
+    when(recording.getTags()).thenReturn(ImmutableMap.of("jfr_governor.jdk.ThreadPark", "20ms"));
+    uploader.upload(RECORDING_TYPE, recording);
+
+    final RecordedRequest recordedRequest = server.takeRequest(5, TimeUnit.SECONDS);
+    final Multimap<String, Object> parameters =
+        ProfilingTestUtils.parseProfilingRequestParameters(recordedRequest);
+    final Map<String, String> expectedTags = new HashMap<>(EXPECTED_TAGS);
+    expectedTags.put("jfr_governor.jdk.ThreadPark", "20ms");
+    assertEquals(
+        expectedTags, ProfilingTestUtils.parseTags(parameters.get(RecordingUploader.TAGS_PARAM)));
+  }
+
+  @Test
+  public void testRecordingFormat() throws IOException, InterruptedException {
+    server.enqueue(new MockResponse().setResponseCode(200));
+
+    final RecordingData recording = mockRecordingData(RECORDING_RESOURCE);
+    when(recording.getFormat()).thenReturn("pprof");
+    uploader.upload(RECORDING_TYPE, recording);
+
+    final RecordedRequest recordedRequest = server.takeRequest(5, TimeUnit.SECONDS);
+    final Multimap<String, Object> parameters =
+        ProfilingTestUtils.parseProfilingRequestParameters(recordedRequest);
+    assertEquals(ImmutableList.of("pprof"), parameters.get(RecordingUploader.FORMAT_PARAM));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"lz4", "gzip"})
+  public void testCompressionLevelAndThreads(final String compression)
+      throws IOException, InterruptedException {
+    when(config.getProfilingUploadCompression()).thenReturn(compression);
+    when(config.getProfilingUploadCompressionLevel()).thenReturn(9);
+    when(config.getProfilingUploadCompressionThreads()).thenReturn(4);
+    uploader = new RecordingUploader(config);
+
+    server.enqueue(new MockResponse().setResponseCode(200));
+
+    uploader.upload(RECORDING_TYPE, mockRecordingData(RECORDING_RESOURCE));
+
+    final RecordedRequest recordedRequest = server.takeRequest(5, TimeUnit.SECONDS);
+    final Multimap<String, Object> parameters =
+        ProfilingTestUtils.parseProfilingRequestParameters(recordedRequest);
+
+    final byte[] expectedBytes =
+        ByteStreams.toByteArray(
+            Thread.currentThread().getContextClassLoader().getResourceAsStream(RECORDING_RESOURCE));
+
+    byte[] uploadedBytes =
+        (byte[]) Iterables.getFirst(parameters.get(RecordingUploader.DATA_PARAM), new byte[] {});
+    if (compression.equals("gzip")) {
+      uploadedBytes = unGzip(uploadedBytes);
+    } else {
+      uploadedBytes = unLz4(uploadedBytes);
+    }
+    assertArrayEquals(expectedBytes, uploadedBytes);
+  }
+
+  @Test
+  public void testSpooledUploadRetried() throws IOException, InterruptedException {
+    when(config.isProfilingUploadSpoolEnabled()).thenReturn(true);
+    when(config.getProfilingUploadSpoolMaxSize()).thenReturn(64 * 1024 * 1024);
+    when(config.getProfilingUploadSpoolMaxAge()).thenReturn(600);
+    uploader = new RecordingUploader(config);
+
+    server.enqueue(new MockResponse().setResponseCode(503));
+    server.enqueue(new MockResponse().setResponseCode(200));
+
+    final RecordingData recording = mockRecordingData(RECORDING_RESOURCE);
+    uploader.upload(RECORDING_TYPE, recording);
+
+    // the stream is fully consumed into the spool before returning
+    verify(recording.getStream()).close();
+    verify(recording).release();
+
+    final RecordedRequest failedRequest = server.takeRequest(5, TimeUnit.SECONDS);
+    final RecordedRequest retriedRequest = server.takeRequest(5, TimeUnit.SECONDS);
+    assertNotNull(failedRequest);
+    assertNotNull(retriedRequest);
+
+    final Multimap<String, Object> parameters =
+        ProfilingTestUtils.parseProfilingRequestParameters(retriedRequest);
+    assertEquals(
+        ImmutableList.of(Instant.ofEpochSecond(RECORDING_START).toString()),
+        parameters.get(RecordingUploader.RECORDING_START_PARAM));
+    assertEquals(
+        ImmutableList.of(Instant.ofEpochSecond(RECORDING_END).toString()),
+        parameters.get(RecordingUploader.RECORDING_END_PARAM));
+    final byte[] expectedBytes =
+        ByteStreams.toByteArray(
+            Thread.currentThread().getContextClassLoader().getResourceAsStream(RECORDING_RESOURCE));
+    assertArrayEquals(
+        expectedBytes,
+        unLz4(
+            (byte[])
+                Iterables.getFirst(parameters.get(RecordingUploader.DATA_PARAM), new byte[] {})));
+    final Map<String, String> expectedTags = new HashMap<>(EXPECTED_TAGS);
+    expectedTags.put(RecordingUploader.SPOOL_DEPTH_TAG, "1");
+    expectedTags.put(RecordingUploader.SPOOL_DROPS_TAG, "0");
+    assertEquals(
+        expectedTags, ProfilingTestUtils.parseTags(parameters.get(RecordingUploader.TAGS_PARAM)));
+
+    for (int i = 0; i < 50 && uploader.spool.depth() > 0; i++) {
+      Thread.sleep(100);
+    }
+    assertEquals(0, uploader.spool.depth());
+  }
+
+  @Test
+  public void testShutdownDeletesSpool() throws IOException, InterruptedException {
+    when(config.isProfilingUploadSpoolEnabled()).thenReturn(true);
+    when(config.getProfilingUploadSpoolMaxSize()).thenReturn(64 * 1024 * 1024);
+    when(config.getProfilingUploadSpoolMaxAge()).thenReturn(600);
+    uploader.shutdown();
+    uploader = new RecordingUploader(config);
+
+    // the recording stays in the spool until shutdown
+    server.enqueue(new MockResponse().setResponseCode(503));
+    uploader.upload(RECORDING_TYPE, mockRecordingData(RECORDING_RESOURCE));
+    assertNotNull(server.takeRequest(5, TimeUnit.SECONDS));
+    assertEquals(1, uploader.spool.depth());
+
+    uploader.shutdown();
+
+    assertFalse(Files.exists(uploader.spool.directory));
+  }
+
   @Test
   public void testRequestWithProxy() throws IOException, InterruptedException {
     final String backendHost = "intake.profiling.datadoghq.com:1234";
@@ -427,6 +597,7 @@ public class RecordingUploaderTest {
                     .getContextClassLoader()
                     .getResourceAsStream(recordingResource)));
     when(recordingData.getName()).thenReturn(RECODING_NAME_PREFIX + SEQUENCE_NUMBER);
+    when(recordingData.getFormat()).thenReturn("jfr");
     when(recordingData.getStart()).thenReturn(Instant.ofEpochSecond(RECORDING_START));
     when(recordingData.getEnd()).thenReturn(Instant.ofEpochSecond(RECORDING_END));
     return recordingData;
@@ -0,0 +1,144 @@
+package com.datadog.profiling.uploader;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import com.datadog.profiling.controller.RecordingType;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class UploadSpoolTest {
+
+  private static final Instant NOW = Instant.ofEpochSecond(10_000);
+
+  @TempDir Path directory;
+
+  @Test
+  public void testOrderedByRecordingStart() throws IOException {
+    final UploadSpool spool = spool(100, Clock.fixed(NOW, ZoneOffset.UTC));
+
+    final UploadSpool.Entry second = offer(spool, 10, 2);
+    final UploadSpool.Entry first = offer(spool, 10, 1);
+
+    assertEquals(2, spool.depth());
+    assertEquals(20, spool.size());
+    assertEquals(0, spool.drops());
+    assertSame(first, spool.peek());
+
+    spool.remove(first);
+    assertFalse(Files.exists(first.file));
+    assertSame(second, spool.peek());
+    assertEquals(1, spool.depth());
+  }
+
+  @Test
+  public void testSizeLimitDropsOldest() throws IOException {
+    final UploadSpool spool = spool(25, Clock.fixed(NOW, ZoneOffset.UTC));
+
+    final UploadSpool.Entry first = offer(spool, 10, 1);
+    final UploadSpool.Entry second = offer(spool, 10, 2);
+    final UploadSpool.Entry third = offer(spool, 10, 3);
+
+    assertEquals(2, spool.depth());
+    assertEquals(1, spool.drops());
+    assertFalse(Files.exists(first.file));
+    assertSame(second, spool.peek());
+
+    // larger than the whole spool
+    assertNull(offer(spool, 30, 4));
+    assertEquals(2, spool.depth());
+    assertEquals(20, spool.size());
+    assertEquals(2, spool.drops());
+    assertSame(second, spool.peek());
+
+    spool.discard(second);
+    spool.discard(second);
+    assertEquals(1, spool.depth());
+    assertEquals(3, spool.drops());
+    assertFalse(Files.exists(second.file));
+    assertSame(third, spool.peek());
+  }
+
+  @Test
+  public void testAgeLimit() throws IOException {
+    // every read of the clock is an hour later than the previous one
+    final UploadSpool spool = spool(100, new AdvancingClock());
+
+    final UploadSpool.Entry entry = offer(spool, 10, 1);
+
+    assertNull(spool.peek());
+    assertEquals(0, spool.depth());
+    assertEquals(1, spool.drops());
+    assertFalse(Files.exists(entry.file));
+  }
+
+  @Test
+  public void testClose() throws IOException {
+    final Path spoolDirectory = Files.createDirectory(directory.resolve("spool"));
+    final UploadSpool spool =
+        new UploadSpool(
+            spoolDirectory, 100, Duration.ofMinutes(1), Clock.fixed(NOW, ZoneOffset.UTC));
+    final UploadSpool.Entry entry = offer(spool, 10, 1);
+    // a recording which was still being compressed
+    final Path unfinished = spool.newFile();
+
+    spool.close();
+
+    assertEquals(0, spool.depth());
+    assertEquals(0, spool.size());
+    assertFalse(Files.exists(entry.file));
+    assertFalse(Files.exists(unfinished));
+    assertFalse(Files.exists(spoolDirectory));
+  }
+
+  private UploadSpool spool(final long maxSize, final Clock clock) {
+    return new UploadSpool(directory, maxSize, Duration.ofMinutes(1), clock);
+  }
+
+  private static UploadSpool.Entry offer(final UploadSpool spool, final int size, final int start)
+      throws IOException {
+    final Path file = spool.newFile();
+    Files.write(file, new byte[size]);
+    return spool.offer(
+        file,
+        RecordingType.CONTINUOUS,
+        "recording-" + start,
+        "jfr",
+        NOW.plusSeconds(start),
+        NOW.plusSeconds(start + 1),
+        Collections.emptyMap());
+  }
+
+  /** Moves forward by an hour every time it is read. */
+  private static final class AdvancingClock extends Clock {
+    private Instant now = NOW;
+
+    @Override
+    public ZoneId getZone() {
+      return ZoneOffset.UTC;
+    }
+
+    @Override
+    public Clock withZone(final ZoneId zone) {
+      return this;
+    }
+
+    @Override
+    public Instant instant() {
+      final Instant instant = now;
+      now = now.plus(Duration.ofHours(1));
+      return instant;
+    }
+  }
+}
@@ -0,0 +1,93 @@
+package com.datadog.profiling.uploader.util;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.io.ByteStreams;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+class ParallelGzipOutputStreamTest {
+
+  private static final int BLOCK_SIZE = 1024;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @AfterEach
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {0, 1, BLOCK_SIZE - 1, BLOCK_SIZE, BLOCK_SIZE + 1, 50 * BLOCK_SIZE + 7})
+  public void roundTrip(final int size) throws IOException {
+    final byte[] data = randomText(size);
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (final OutputStream out =
+        new ParallelGzipOutputStream(baos, executor, Deflater.DEFAULT_COMPRESSION, 4, BLOCK_SIZE)) {
+      // mix single byte and array writes
+      int offset = 0;
+      while (offset < size) {
+        if (offset % 3 == 0) {
+          out.write(data[offset++]);
+        } else {
+          final int length = Math.min(size - offset, 333);
+          out.write(data, offset, length);
+          offset += length;
+        }
+      }
+    }
+
+    assertArrayEquals(data, uncompressGzip(baos.toByteArray()));
+  }
+
+  @Test
+  public void compressesInlineWhenExecutorIsShutDown() throws IOException {
+    final byte[] data = randomText(10 * BLOCK_SIZE);
+    executor.shutdown();
+
+    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+    try (final OutputStream out =
+        new ParallelGzipOutputStream(baos, executor, Deflater.BEST_SPEED, 4, BLOCK_SIZE)) {
+      out.write(data);
+    }
+
+    assertArrayEquals(data, uncompressGzip(baos.toByteArray()));
+  }
+
+  @Test
+  public void writeAfterClose() throws IOException {
+    final OutputStream out =
+        new ParallelGzipOutputStream(
+            new ByteArrayOutputStream(), executor, Deflater.DEFAULT_COMPRESSION, 4);
+    out.close();
+
+    assertThrows(IOException.class, () -> out.write(1));
+  }
+
+  private static byte[] randomText(final int size) {
+    final Random random = new Random(size);
+    final byte[] data = new byte[size];
+    for (int i = 0; i < size; i++) {
+      // a small alphabet so that the data actually compresses
+      data[i] = (byte) ('a' + random.nextInt(8));
+    }
+    return data;
+  }
+
+  private static byte[] uncompressGzip(final byte[] bytes) throws IOException {
+    return ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(bytes)));
+  }
+}
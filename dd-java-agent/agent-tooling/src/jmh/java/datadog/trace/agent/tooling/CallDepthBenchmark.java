@@ -0,0 +1,32 @@
+package datadog.trace.agent.tooling;
+
+import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import org.openjdk.jmh.annotations.Benchmark;
+
+/**
+ * Compares the map based and the slot based call depth tracking for the enter/nested enter/reset
+ * sequence an instrumented JDBC call goes through.
+ */
+public class CallDepthBenchmark {
+
+  @Benchmark
+  public int threadLocalMap() {
+    final int depth = CallDepthThreadLocalMap.incrementCallDepth(PreparedStatement.class);
+    final int nested = CallDepthThreadLocalMap.incrementCallDepth(Statement.class);
+    CallDepthThreadLocalMap.reset(Statement.class);
+    CallDepthThreadLocalMap.reset(PreparedStatement.class);
+    return depth + nested;
+  }
+
+  @Benchmark
+  public int tracker() {
+    final int depth = CallDepthTracker.incrementCallDepth(PreparedStatement.class);
+    final int nested = CallDepthTracker.incrementCallDepth(Statement.class);
+    CallDepthTracker.reset(Statement.class);
+    CallDepthTracker.reset(PreparedStatement.class);
+    return depth + nested;
+  }
+}
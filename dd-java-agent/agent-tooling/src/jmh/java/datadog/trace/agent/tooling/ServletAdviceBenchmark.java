@@ -0,0 +1,125 @@
+package datadog.trace.agent.tooling;
+
+import datadog.opentracing.DDSpan;
+import datadog.opentracing.DDTracer;
+import datadog.trace.api.CorrelationIdentifier;
+import datadog.trace.api.DDSpanTypes;
+import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
+import datadog.trace.bootstrap.instrumentation.api.AgentScope;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.bootstrap.instrumentation.api.AgentTracer.TracerAPI;
+import datadog.trace.bootstrap.instrumentation.api.Tags;
+import datadog.trace.common.writer.Writer;
+import io.opentracing.util.GlobalTracer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Replays what the servlet 3 advice does around a request (extract, start, decorate, activate,
+ * finish, close) against the OpenTracing bridge and the native tracer API. Run with the gc profiler
+ * to compare the allocations per request.
+ */
+public class ServletAdviceBenchmark {
+
+  private static final AgentPropagation.Getter<Map<String, String>> GETTER =
+      new AgentPropagation.Getter<Map<String, String>>() {
+        @Override
+        public Iterable<String> keys(final Map<String, String> carrier) {
+          return carrier.keySet();
+        }
+
+        @Override
+        public String get(final Map<String, String> carrier, final String key) {
+          return carrier.get(key);
+        }
+      };
+
+  /** Drops traces so the benchmark measures the instrumentation path rather than the writer. */
+  private static final class NoopWriter implements Writer {
+    @Override
+    public void write(final List<DDSpan> trace) {}
+
+    @Override
+    public void start() {}
+
+    @Override
+    public void close() {}
+
+    @Override
+    public void incrementTraceCount() {}
+  }
+
+  @State(Scope.Benchmark)
+  public static class TracerState {
+    @Param({"opentracing", "native"})
+    public String api;
+
+    public TracerAPI tracerAPI;
+
+    @Setup
+    public void setup() {
+      final DDTracer tracer = DDTracer.builder().writer(new NoopWriter()).build();
+      if (!GlobalTracer.isRegistered()) {
+        GlobalTracer.register(tracer);
+        datadog.trace.api.GlobalTracer.registerIfAbsent(tracer);
+      }
+      tracerAPI = "native".equals(api) ? new DDTracerAPI(tracer) : new OpenTracing32();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class RequestState {
+    public final Map<String, String> headers = new HashMap<>();
+    public final Map<String, Object> attributes = new HashMap<>();
+
+    {
+      headers.put("Host", "localhost:8080");
+      headers.put("User-Agent", "jmh");
+      headers.put("Accept", "*/*");
+      headers.put("X-Datadog-Trace-Id", "1234567890123456789");
+      headers.put("X-Datadog-Parent-Id", "987654321");
+      headers.put("X-Datadog-Sampling-Priority", "1");
+    }
+  }
+
+  @Benchmark
+  public Object servletRequest(final TracerState tracer, final RequestState request) {
+    final TracerAPI api = tracer.tracerAPI;
+
+    // Servlet3Advice.onEnter
+    final AgentSpan.Context extractedContext = api.propagate().extract(request.headers, GETTER);
+    final AgentSpan span =
+        api.startSpan("servlet.request", extractedContext)
+            .setTag("span.origin.type", "datadog.benchmark.TestServlet");
+    span.setTag("span.type", DDSpanTypes.HTTP_SERVER);
+    span.setTag(Tags.COMPONENT, "java-web-servlet");
+    span.setTag(Tags.SPAN_KIND, Tags.SPAN_KIND_SERVER);
+    span.setTag(Tags.PEER_HOST_IPV4, "127.0.0.1");
+    span.setTag(Tags.PEER_PORT, 54321);
+    span.setTag(Tags.HTTP_METHOD, "GET");
+    span.setTag(Tags.HTTP_URL, "http://localhost:8080/hello");
+
+    final AgentScope scope = api.activateSpan(span, false);
+    scope.setAsyncPropagation(true);
+
+    request.attributes.put("datadog.span", span);
+    request.attributes.put(CorrelationIdentifier.getTraceIdKey(), span.getTraceId());
+    request.attributes.put(CorrelationIdentifier.getSpanIdKey(), span.getSpanId());
+
+    // Nested instrumentation reading the active span
+    final AgentSpan active = api.activeSpan();
+
+    // Servlet3Advice.stopSpan
+    final AgentSpan scopeSpan = scope.span();
+    scopeSpan.setTag(Tags.HTTP_STATUS, 200);
+    scopeSpan.finish();
+    scope.close();
+    return active;
+  }
+}
@@ -0,0 +1,316 @@
+package datadog.trace.agent.tooling;
+
+import static io.opentracing.propagation.Format.Builtin.TEXT_MAP_EXTRACT;
+import static io.opentracing.propagation.Format.Builtin.TEXT_MAP_INJECT;
+
+import datadog.opentracing.DDSpan;
+import datadog.opentracing.DDTracer;
+import datadog.trace.api.DDTags;
+import datadog.trace.api.interceptor.MutableSpan;
+import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
+import datadog.trace.bootstrap.instrumentation.api.AgentPropagation.Getter;
+import datadog.trace.bootstrap.instrumentation.api.AgentScope;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.bootstrap.instrumentation.api.AgentTracer.TracerAPI;
+import datadog.trace.context.TraceScope;
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.SpanContext;
+import io.opentracing.noop.NoopSpan;
+import io.opentracing.propagation.TextMapExtract;
+import io.opentracing.propagation.TextMapInject;
+import io.opentracing.tag.Tags;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * {@link TracerAPI} bound directly to a {@link DDTracer}.
+ *
+ * <p>Unlike {@link OpenTracing32} it does not look the tracer up through the {@link
+ * io.opentracing.util.GlobalTracer} on every call and starts spans without a span builder. A span
+ * is its own context, so the only allocation on top of the span itself is a single wrapper.
+ */
+public final class DDTracerAPI implements TracerAPI {
+
+  private final DDTracer tracer;
+  private final DDAgentPropagation propagation = new DDAgentPropagation();
+
+  private final DDAgentSpan noopSpan = new DDAgentSpan(NoopSpan.INSTANCE);
+
+  public DDTracerAPI(final DDTracer tracer) {
+    this.tracer = tracer;
+  }
+
+  @Override
+  public AgentSpan startSpan(final String spanName) {
+    return new DDAgentSpan(tracer.startSpan(spanName, null, false, 0));
+  }
+
+  @Override
+  public AgentSpan startSpan(final String spanName, final long startTimeMicros) {
+    return new DDAgentSpan(tracer.startSpan(spanName, null, false, startTimeMicros));
+  }
+
+  @Override
+  public AgentSpan startSpan(final String spanName, final AgentSpan.Context parent) {
+    return new DDAgentSpan(tracer.startSpan(spanName, spanContext(parent), true, 0));
+  }
+
+  @Override
+  public AgentSpan startSpan(
+      final String spanName, final AgentSpan.Context parent, final long startTimeMicros) {
+    return new DDAgentSpan(tracer.startSpan(spanName, spanContext(parent), true, startTimeMicros));
+  }
+
+  @Override
+  public AgentScope activateSpan(final AgentSpan span, final boolean finishSpanOnClose) {
+    // when span is noopSpan(), the scope returned is not a TracerScope
+    final Scope scope =
+        tracer.scopeManager().activate(((DDAgentSpan) span).span, finishSpanOnClose);
+    return new DDAgentScope((DDAgentSpan) span, scope);
+  }
+
+  @Override
+  public AgentSpan activeSpan() {
+    final Span span = tracer.scopeManager().activeSpan();
+    return span == null ? null : new DDAgentSpan(span);
+  }
+
+  @Override
+  public TraceScope activeScope() {
+    final Scope scope = tracer.scopeManager().active();
+    if (scope instanceof TraceScope) {
+      return (TraceScope) scope;
+    } else {
+      return null;
+    }
+  }
+
+  @Override
+  public AgentPropagation propagate() {
+    return propagation;
+  }
+
+  @Override
+  public AgentSpan noopSpan() {
+    return noopSpan;
+  }
+
+  private static SpanContext spanContext(final AgentSpan.Context context) {
+    if (context instanceof DDAgentSpan) {
+      return ((DDAgentSpan) context).span.context();
+    } else if (context instanceof DDAgentContext) {
+      return ((DDAgentContext) context).context;
+    } else {
+      return null;
+    }
+  }
+
+  private static final class DDAgentSpan implements AgentSpan, AgentSpan.Context {
+
+    private final Span span;
+
+    private DDAgentSpan(final Span span) {
+      this.span = span;
+    }
+
+    @Override
+    public AgentSpan setTag(final String key, final boolean value) {
+      span.setTag(key, value);
+      return this;
+    }
+
+    @Override
+    public AgentSpan setTag(final String key, final int value) {
+      span.setTag(key, value);
+      return this;
+    }
+
+    @Override
+    public AgentSpan setTag(final String key, final long value) {
+      span.setTag(key, value);
+      return this;
+    }
+
+    @Override
+    public AgentSpan setTag(final String key, final double value) {
+      span.setTag(key, value);
+      return this;
+    }
+
+    @Override
+    public AgentSpan setTag(final String key, final String value) {
+      span.setTag(key, value);
+      return this;
+    }
+
+    @Override
+    public AgentSpan setError(final boolean error) {
+      Tags.ERROR.set(span, error);
+      return this;
+    }
+
+    @Override
+    public AgentSpan setErrorMessage(final String errorMessage) {
+      span.setTag(DDTags.ERROR_MSG, errorMessage);
+      return this;
+    }
+
+    @Override
+    public AgentSpan addThrowable(final Throwable throwable) {
+      if (span instanceof DDSpan) {
+        ((DDSpan) span).setErrorMeta(throwable);
+      }
+      return this;
+    }
+
+    @Override
+    public AgentSpan getLocalRootSpan() {
+      if (span instanceof MutableSpan) {
+        final MutableSpan root = ((MutableSpan) span).getLocalRootSpan();
+        if (root != span && root instanceof Span) {
+          return new DDAgentSpan((Span) root);
+        }
+      }
+      return this;
+    }
+
+    @Override
+    public AgentSpan.Context context() {
+      return this;
+    }
+
+    @Override
+    public void finish() {
+      span.finish();
+    }
+
+    @Override
+    public String getSpanName() {
+      if (span instanceof MutableSpan) {
+        return ((MutableSpan) span).getOperationName();
+      }
+      return "";
+    }
+
+    @Override
+    public void setSpanName(final String spanName) {
+      span.setOperationName(spanName);
+    }
+
+    @Override
+    public String getTraceId() {
+      return span instanceof DDSpan ? ((DDSpan) span).context().toTraceId() : "0";
+    }
+
+    @Override
+    public String getSpanId() {
+      return span instanceof DDSpan ? ((DDSpan) span).context().toSpanId() : "0";
+    }
+  }
+
+  private static final class DDAgentScope implements AgentScope {
+
+    private final DDAgentSpan span;
+    private final Scope scope;
+
+    private DDAgentScope(final DDAgentSpan span, final Scope scope) {
+      this.span = span;
+      this.scope = scope;
+    }
+
+    @Override
+    public void close() {
+      scope.close();
+    }
+
+    @Override
+    public AgentScope setAsyncPropagation(final boolean value) {
+      if (scope instanceof TraceScope) {
+        ((TraceScope) scope).setAsyncPropagation(value);
+      }
+      return this;
+    }
+
+    @Override
+    public AgentSpan span() {
+      return span;
+    }
+  }
+
+  /** Context extracted from a carrier. */
+  private static final class DDAgentContext implements AgentSpan.Context {
+    private final SpanContext context;
+
+    private DDAgentContext(final SpanContext context) {
+      this.context = context;
+    }
+  }
+
+  private final class DDAgentPropagation implements AgentPropagation {
+
+    @Override
+    public TraceScope.Continuation capture() {
+      final Scope active = tracer.scopeManager().active();
+      if (active instanceof TraceScope) {
+        return ((TraceScope) active).capture();
+      } else {
+        return null;
+      }
+    }
+
+    @Override
+    public <C> void inject(final AgentSpan span, final C carrier, final Setter<C> setter) {
+      final Span injected = ((DDAgentSpan) span).span;
+      if (injected instanceof DDSpan) {
+        tracer.inject(injected.context(), TEXT_MAP_INJECT, new Injector<>(carrier, setter));
+      }
+    }
+
+    @Override
+    public <C> AgentSpan.Context extract(final C carrier, final Getter<C> getter) {
+      final SpanContext context =
+          tracer.extract(TEXT_MAP_EXTRACT, new Extractor<>(carrier, getter));
+      return new DDAgentContext(context);
+    }
+  }
+
+  private static final class Injector<C> implements TextMapInject {
+    private final C carrier;
+    private final AgentPropagation.Setter<C> setter;
+
+    private Injector(final C carrier, final AgentPropagation.Setter<C> setter) {
+      this.carrier = carrier;
+      this.setter = setter;
+    }
+
+    @Override
+    public void put(final String key, final String value) {
+      setter.set(carrier, key, value);
+    }
+  }
+
+  private static final class Extractor<C> implements TextMapExtract {
+    private final Map<String, String> extracted;
+
+    private Extractor(final C carrier, final Getter<C> getter) {
+      extracted = new HashMap<>();
+      for (final String key : getter.keys(carrier)) {
+        // extracted header value
+        String s = getter.get(carrier, key);
+        // in case of multiple values in the header, need to parse
+        if (s != null && !s.isEmpty()) {
+          s = s.split(",")[0].trim();
+        }
+        extracted.put(key, s);
+      }
+    }
+
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+      return extracted.entrySet().iterator();
+    }
+  }
+}
@@ -215,11 +215,26 @@ public final class OpenTracing32 implements TracerAPI {
       span.setOperationName(spanName);
     }
 
+    @Override
+    public String getTraceId() {
+      return idOrZero(span.context().toTraceId());
+    }
+
+    @Override
+    public String getSpanId() {
+      return idOrZero(span.context().toSpanId());
+    }
+
     private Span getSpan() {
       return span;
     }
   }
 
+  /** The noop tracer reports empty ids, CorrelationIdentifier reports "0" */
+  private static String idOrZero(final String id) {
+    return id == null || id.isEmpty() ? "0" : id;
+  }
+
   private final class OT32Scope implements AgentScope {
 
     private final OT32Span span;
@@ -15,7 +15,7 @@ public class TracerInstaller {
         try {
           io.opentracing.util.GlobalTracer.register(tracer);
           datadog.trace.api.GlobalTracer.registerIfAbsent(tracer);
-          AgentTracer.registerIfAbsent(new OpenTracing32());
+          AgentTracer.registerIfAbsent(new DDTracerAPI(tracer));
         } catch (final RuntimeException re) {
           log.warn("Failed to register tracer '" + tracer + "'", re);
         }
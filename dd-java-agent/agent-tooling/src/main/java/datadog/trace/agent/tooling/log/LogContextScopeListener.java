@@ -2,46 +2,112 @@ package datadog.trace.agent.tooling.log;
 
 import datadog.trace.api.CorrelationIdentifier;
 import datadog.trace.context.ScopeListener;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * A scope listener that receives the MDC/ThreadContext put and receive methods and update the trace
  * and span reference anytime a new scope is activated or closed.
+ *
+ * <p>The methods are bound once as method handles rather than called reflectively. When a get
+ * method is supplied the log context is only written if it does not already hold the active ids,
+ * which makes the notification fired for the restored scope on close essentially free.
  */
 @Slf4j
 public class LogContextScopeListener implements ScopeListener {
+  private static final String NO_ID = "0";
 
-  /** A reference to the log context method that sets a new attribute in the log context */
-  private final Method putMethod;
+  private static final MethodType PUT_TYPE =
+      MethodType.methodType(void.class, String.class, String.class);
+  private static final MethodType REMOVE_TYPE = MethodType.methodType(void.class, String.class);
+  private static final MethodType GET_TYPE = MethodType.methodType(Object.class, String.class);
 
-  /** A reference to the log context method that removes an attribute from the log context */
-  private final Method removeMethod;
+  /** A handle to the log context method that sets a new attribute in the log context */
+  private final MethodHandle putHandle;
+
+  /** A handle to the log context method that removes an attribute from the log context */
+  private final MethodHandle removeHandle;
+
+  /** A handle to the log context method that reads an attribute. May be null. */
+  private final MethodHandle getHandle;
 
   public LogContextScopeListener(final Method putMethod, final Method removeMethod) {
-    this.putMethod = putMethod;
-    this.removeMethod = removeMethod;
+    this(putMethod, removeMethod, null);
+  }
+
+  public LogContextScopeListener(
+      final Method putMethod, final Method removeMethod, final Method getMethod) {
+    putHandle = bind(putMethod, PUT_TYPE);
+    removeHandle = bind(removeMethod, REMOVE_TYPE);
+    getHandle = getMethod == null ? null : bind(getMethod, GET_TYPE);
   }
 
   @Override
   public void afterScopeActivated() {
+    update(CorrelationIdentifier.getTraceId(), CorrelationIdentifier.getSpanId());
+  }
+
+  @Override
+  public void afterScopeClosed() {
+    // The scope restored by the close (if any) is already active at this point
+    final String traceId = CorrelationIdentifier.getTraceId();
+    if (NO_ID.equals(traceId)) {
+      remove();
+    } else {
+      update(traceId, CorrelationIdentifier.getSpanId());
+    }
+  }
+
+  private void update(final String traceId, final String spanId) {
+    if (putHandle == null) {
+      return;
+    }
     try {
-      putMethod.invoke(
-          null, CorrelationIdentifier.getTraceIdKey(), CorrelationIdentifier.getTraceId());
-      putMethod.invoke(
-          null, CorrelationIdentifier.getSpanIdKey(), CorrelationIdentifier.getSpanId());
-    } catch (final Exception e) {
+      if (!holds(CorrelationIdentifier.getTraceIdKey(), traceId)) {
+        putHandle.invokeExact(CorrelationIdentifier.getTraceIdKey(), traceId);
+      }
+      if (!holds(CorrelationIdentifier.getSpanIdKey(), spanId)) {
+        putHandle.invokeExact(CorrelationIdentifier.getSpanIdKey(), spanId);
+      }
+    } catch (final Throwable e) {
       log.debug("Exception setting log context context", e);
     }
   }
 
-  @Override
-  public void afterScopeClosed() {
+  private void remove() {
+    if (removeHandle == null) {
+      return;
+    }
     try {
-      removeMethod.invoke(null, CorrelationIdentifier.getTraceIdKey());
-      removeMethod.invoke(null, CorrelationIdentifier.getSpanIdKey());
-    } catch (final Exception e) {
+      if (!holds(CorrelationIdentifier.getTraceIdKey(), null)) {
+        removeHandle.invokeExact(CorrelationIdentifier.getTraceIdKey());
+      }
+      if (!holds(CorrelationIdentifier.getSpanIdKey(), null)) {
+        removeHandle.invokeExact(CorrelationIdentifier.getSpanIdKey());
+      }
+    } catch (final Throwable e) {
       log.debug("Exception removing log context context", e);
     }
   }
+
+  /** @return true if the log context is known to hold exactly {@code value} for {@code key} */
+  private boolean holds(final String key, final String value) throws Throwable {
+    if (getHandle == null) {
+      return false;
+    }
+    final Object current = (Object) getHandle.invokeExact(key);
+    return value == null ? current == null : value.equals(current);
+  }
+
+  private static MethodHandle bind(final Method method, final MethodType type) {
+    try {
+      return MethodHandles.publicLookup().unreflect(method).asType(type);
+    } catch (final IllegalAccessException | RuntimeException e) {
+      log.debug("Failed to bind log context method {}", method, e);
+      return null;
+    }
+  }
 }
@@ -0,0 +1,121 @@
+package datadog.trace.agent.tooling
+
+import datadog.opentracing.DDSpan
+import datadog.opentracing.DDTracer
+import datadog.trace.api.DDTags
+import datadog.trace.bootstrap.instrumentation.api.AgentPropagation
+import datadog.trace.common.writer.ListWriter
+import datadog.trace.util.test.DDSpecification
+
+class DDTracerAPITest extends DDSpecification {
+  def writer = new ListWriter()
+  def tracer = DDTracer.builder().writer(writer).build()
+  def api = new DDTracerAPI(tracer)
+
+  static final AgentPropagation.Getter<Map<String, String>> GETTER = new AgentPropagation.Getter<Map<String, String>>() {
+    @Override
+    Iterable<String> keys(Map<String, String> carrier) {
+      return carrier.keySet()
+    }
+
+    @Override
+    String get(Map<String, String> carrier, String key) {
+      return carrier.get(key)
+    }
+  }
+
+  def cleanup() {
+    tracer.close()
+  }
+
+  def "spans started under an active span are its children"() {
+    when:
+    def parent = api.startSpan("parent")
+    def scope = api.activateSpan(parent, true)
+    def child = api.startSpan("child")
+    def active = api.activeSpan()
+    child.finish()
+    scope.close()
+
+    then:
+    active.spanName == "parent"
+    active.context().is(active)
+    writer.size() == 1
+    def trace = writer.firstTrace()
+    trace.size() == 2
+    def parentSpan = trace.find { it.operationName == "parent" } as DDSpan
+    def childSpan = trace.find { it.operationName == "child" } as DDSpan
+    childSpan.parentId == parentSpan.spanId
+    childSpan.traceId == parentSpan.traceId
+    childSpan.localRootSpan.is(parentSpan)
+    api.activeSpan() == null
+  }
+
+  def "explicit parent ignores the active span"() {
+    setup:
+    def headers = ["x-datadog-trace-id": "123, 456", "x-datadog-parent-id": "456"]
+
+    when:
+    def context = api.propagate().extract(headers, GETTER)
+    def scope = api.activateSpan(api.startSpan("other"), true)
+    def span = api.startSpan("extracted", context, 1000)
+    span.finish()
+    scope.close()
+
+    then:
+    def extracted = writer.flatten().find { it.operationName == "extracted" } as DDSpan
+    extracted.traceId == 123G
+    extracted.parentId == 456G
+    extracted.startTime == 1000000
+  }
+
+  def "errors are recorded on the span"() {
+    when:
+    def span = api.startSpan("error")
+    span.addThrowable(new IllegalStateException("boom"))
+    span.setSpanName("renamed")
+    span.finish()
+
+    then:
+    def recorded = writer.firstTrace()[0]
+    recorded.operationName == "renamed"
+    recorded.error == 1
+    recorded.tags[DDTags.ERROR_MSG] == "boom"
+    recorded.tags[DDTags.ERROR_TYPE] == IllegalStateException.name
+  }
+
+  def "inject writes the span ids"() {
+    setup:
+    def carrier = [:]
+    def setter = { Map c, String k, String v -> c.put(k, v) } as AgentPropagation.Setter
+    def span = api.startSpan("inject")
+
+    when:
+    api.propagate().inject(span, carrier, setter)
+    api.propagate().inject(api.noopSpan(), carrier, setter)
+    span.finish()
+
+    then:
+    def recorded = writer.firstTrace()[0]
+    carrier["x-datadog-trace-id"] == recorded.traceId.toString()
+    carrier["x-datadog-parent-id"] == recorded.spanId.toString()
+  }
+
+  def "correlation ids are cached on the span"() {
+    when:
+    def span = api.startSpan("ids")
+    def scope = api.activateSpan(span, true)
+    def traceId = span.traceId
+    def spanId = span.spanId
+
+    then:
+    traceId == tracer.traceId
+    spanId == tracer.spanId
+    span.traceId.is(traceId)
+    span.spanId.is(spanId)
+    api.noopSpan().traceId == "0"
+
+    cleanup:
+    scope.close()
+  }
+}
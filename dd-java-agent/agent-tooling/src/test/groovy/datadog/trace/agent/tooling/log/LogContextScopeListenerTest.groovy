@@ -0,0 +1,159 @@
+package datadog.trace.agent.tooling.log
+
+import datadog.opentracing.DDSpan
+import datadog.opentracing.DDTracer
+import datadog.trace.api.CorrelationIdentifier
+import datadog.trace.api.GlobalTracer
+import datadog.trace.common.writer.ListWriter
+import datadog.trace.util.test.DDSpecification
+
+class LogContextScopeListenerTest extends DDSpecification {
+  def tracer = DDTracer.builder().writer(new ListWriter()).build()
+
+  def setup() {
+    // The scope stack is per thread, so the ids are those of our spans whichever tracer is global
+    GlobalTracer.registerIfAbsent(tracer)
+    TestLogContext.reset()
+  }
+
+  def cleanup() {
+    tracer.close()
+  }
+
+  def "log context follows the active span"() {
+    setup:
+    tracer.addScopeListener(listener(withGet))
+    def parent = tracer.buildSpan("parent").start() as DDSpan
+    def child = tracer.buildSpan("child").asChildOf(parent).start() as DDSpan
+
+    when:
+    def parentScope = tracer.activateSpan(parent)
+
+    then:
+    TestLogContext.CONTEXT == ids(parent)
+
+    when:
+    def childScope = tracer.activateSpan(child)
+
+    then:
+    TestLogContext.CONTEXT == ids(child)
+
+    when:
+    childScope.close()
+
+    then:
+    TestLogContext.CONTEXT == ids(parent)
+
+    when:
+    parentScope.close()
+
+    then:
+    TestLogContext.CONTEXT.isEmpty()
+
+    where:
+    withGet << [true, false]
+  }
+
+  def "redundant writes are skipped when the log context can be read"() {
+    setup:
+    tracer.addScopeListener(listener(true))
+    def parent = tracer.buildSpan("parent").start()
+    def child = tracer.buildSpan("child").asChildOf(parent).start()
+
+    when:
+    def parentScope = tracer.activateSpan(parent)
+    def childScope = tracer.activateSpan(child)
+    childScope.close()
+    parentScope.close()
+
+    then:
+    // both ids for the parent, then only the span id when the child is activated and closed
+    TestLogContext.PUTS == 4
+    TestLogContext.REMOVES == 2
+
+    when:
+    parentScope = tracer.activateSpan(parent)
+    def sameScope = tracer.activateSpan(parent)
+    sameScope.close()
+    parentScope.close()
+
+    then:
+    TestLogContext.PUTS == 6
+    TestLogContext.REMOVES == 4
+  }
+
+  def "every notification writes when the log context can't be read"() {
+    setup:
+    tracer.addScopeListener(listener(false))
+    def parent = tracer.buildSpan("parent").start()
+    def child = tracer.buildSpan("child").asChildOf(parent).start()
+
+    when:
+    def parentScope = tracer.activateSpan(parent)
+    def childScope = tracer.activateSpan(child)
+    childScope.close()
+    parentScope.close()
+
+    then:
+    // closing the child notifies both the close and the activation of the parent
+    TestLogContext.PUTS == 8
+    TestLogContext.REMOVES == 2
+  }
+
+  def "a method which can't be bound disables the listener"() {
+    setup:
+    def listener = new LogContextScopeListener(
+      TestLogContext.getDeclaredMethod("reset"),
+      TestLogContext.getMethod("remove", String))
+    tracer.addScopeListener(listener)
+    def span = tracer.buildSpan("span").start()
+
+    when:
+    tracer.activateSpan(span).close()
+
+    then:
+    noExceptionThrown()
+    TestLogContext.PUTS == 0
+    TestLogContext.CONTEXT.isEmpty()
+  }
+
+  static listener(boolean withGet) {
+    return new LogContextScopeListener(
+      TestLogContext.getMethod("put", String, String),
+      TestLogContext.getMethod("remove", String),
+      withGet ? TestLogContext.getMethod("get", String) : null)
+  }
+
+  static ids(DDSpan span) {
+    return [
+      (CorrelationIdentifier.getTraceIdKey()): span.traceId.toString(),
+      (CorrelationIdentifier.getSpanIdKey()) : span.spanId.toString()
+    ]
+  }
+
+  static class TestLogContext {
+    static final Map<String, String> CONTEXT = new HashMap<>()
+    static int PUTS = 0
+    static int REMOVES = 0
+
+    static void put(String key, String value) {
+      PUTS++
+      CONTEXT.put(key, value)
+    }
+
+    static void remove(String key) {
+      REMOVES++
+      CONTEXT.remove(key)
+    }
+
+    static String get(String key) {
+      return CONTEXT.get(key)
+    }
+
+    static void reset() {
+      CONTEXT.clear()
+      PUTS = 0
+      REMOVES = 0
+    }
+  }
+}
@@ -13,7 +13,7 @@ import akka.http.scaladsl.model.HttpRequest;
 import akka.http.scaladsl.model.HttpResponse;
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import datadog.trace.bootstrap.instrumentation.api.AgentPropagation;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
@@ -74,7 +74,7 @@ public final class AkkaHttpClientInstrumentation extends Instrumenter.Default {
       In the future we may want to separate these, but since lots of code is reused we would need to come up
       with way of continuing to reusing it.
        */
-      final int callDepth = CallDepthThreadLocalMap.incrementCallDepth(HttpExt.class);
+      final int callDepth = CallDepthTracker.incrementCallDepth(HttpExt.class);
       if (callDepth > 0) {
         return null;
       }
@@ -102,7 +102,7 @@ public final class AkkaHttpClientInstrumentation extends Instrumenter.Default {
       if (scope == null) {
         return;
       }
-      CallDepthThreadLocalMap.reset(HttpExt.class);
+      CallDepthTracker.reset(HttpExt.class);
 
       final AgentSpan span = scope.span();
 
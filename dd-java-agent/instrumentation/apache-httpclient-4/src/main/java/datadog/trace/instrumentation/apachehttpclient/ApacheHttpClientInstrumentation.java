@@ -16,7 +16,7 @@ import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
 
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import java.io.IOException;
@@ -183,7 +183,7 @@ public class ApacheHttpClientInstrumentation extends Instrumenter.Default {
         DECORATE.beforeFinish(span);
       } finally {
         scope.close();
-        CallDepthThreadLocalMap.reset(HttpClient.class);
+        CallDepthTracker.reset(HttpClient.class);
       }
     }
   }
@@ -191,7 +191,7 @@ public class ApacheHttpClientInstrumentation extends Instrumenter.Default {
   public static class UriRequestAdvice {
     @Advice.OnMethodEnter(suppress = Throwable.class)
     public static AgentScope methodEnter(@Advice.Argument(0) final HttpUriRequest request) {
-      final int callDepth = CallDepthThreadLocalMap.incrementCallDepth(HttpClient.class);
+      final int callDepth = CallDepthTracker.incrementCallDepth(HttpClient.class);
       if (callDepth > 0) {
         return null;
       }
@@ -220,7 +220,7 @@ public class ApacheHttpClientInstrumentation extends Instrumenter.Default {
                 typing = Assigner.Typing.DYNAMIC,
                 readOnly = false)
             Object handler) {
-      final int callDepth = CallDepthThreadLocalMap.incrementCallDepth(HttpClient.class);
+      final int callDepth = CallDepthTracker.incrementCallDepth(HttpClient.class);
       if (callDepth > 0) {
         return null;
       }
@@ -248,7 +248,7 @@ public class ApacheHttpClientInstrumentation extends Instrumenter.Default {
     @Advice.OnMethodEnter(suppress = Throwable.class)
     public static AgentScope methodEnter(
         @Advice.Argument(0) final HttpHost host, @Advice.Argument(1) final HttpRequest request) {
-      final int callDepth = CallDepthThreadLocalMap.incrementCallDepth(HttpClient.class);
+      final int callDepth = CallDepthTracker.incrementCallDepth(HttpClient.class);
       if (callDepth > 0) {
         return null;
       }
@@ -282,7 +282,7 @@ public class ApacheHttpClientInstrumentation extends Instrumenter.Default {
                 typing = Assigner.Typing.DYNAMIC,
                 readOnly = false)
             Object handler) {
-      final int callDepth = CallDepthThreadLocalMap.incrementCallDepth(HttpClient.class);
+      final int callDepth = CallDepthTracker.incrementCallDepth(HttpClient.class);
       if (callDepth > 0) {
         return null;
       }
@@ -14,7 +14,7 @@ import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Constants;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import java.util.Map;
 import net.bytebuddy.asm.Advice;
 import net.bytebuddy.description.method.MethodDescription;
@@ -76,7 +76,7 @@ public final class ClassloadingInstrumentation extends Instrumenter.Default {
       // because on some JVMs (e.g. IBM's, though IBM bootstrap loader is explicitly excluded above)
       // Class.forName() ends up calling loadClass() on the bootstrap loader which would then come
       // back to this instrumentation over and over, causing a StackOverflowError
-      final int callDepth = CallDepthThreadLocalMap.incrementCallDepth(ClassLoader.class);
+      final int callDepth = CallDepthTracker.incrementCallDepth(ClassLoader.class);
       if (callDepth > 0) {
         return null;
       }
@@ -95,7 +95,7 @@ public final class ClassloadingInstrumentation extends Instrumenter.Default {
         // ends up calling a ClassFileTransformer which ends up calling loadClass() further down the
         // stack on one of our bootstrap packages (since the call depth check would then suppress
         // the nested loadClass instrumentation)
-        CallDepthThreadLocalMap.reset(ClassLoader.class);
+        CallDepthTracker.reset(ClassLoader.class);
       }
       return null;
     }
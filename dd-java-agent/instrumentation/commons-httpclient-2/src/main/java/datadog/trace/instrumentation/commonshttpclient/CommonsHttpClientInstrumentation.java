@@ -15,7 +15,7 @@ import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
 
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import java.util.Map;
@@ -65,7 +65,7 @@ public class CommonsHttpClientInstrumentation extends Instrumenter.Default {
   public static class ExecAdvice {
     @Advice.OnMethodEnter(suppress = Throwable.class)
     public static AgentScope methodEnter(@Advice.Argument(1) final HttpMethod httpMethod) {
-      final int callDepth = CallDepthThreadLocalMap.incrementCallDepth(HttpClient.class);
+      final int callDepth = CallDepthTracker.incrementCallDepth(HttpClient.class);
       if (callDepth > 0) {
         return null;
       }
@@ -97,7 +97,7 @@ public class CommonsHttpClientInstrumentation extends Instrumenter.Default {
         DECORATE.beforeFinish(span);
       } finally {
         scope.close();
-        CallDepthThreadLocalMap.reset(HttpClient.class);
+        CallDepthTracker.reset(HttpClient.class);
       }
     }
   }
@@ -10,7 +10,7 @@ import static net.bytebuddy.matcher.ElementMatchers.returns;
 import com.couchbase.client.java.CouchbaseCluster;
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import java.lang.reflect.Method;
 import java.util.Map;
 import net.bytebuddy.asm.Advice;
@@ -55,7 +55,7 @@ public class CouchbaseClusterInstrumentation extends Instrumenter.Default {
 
     @Advice.OnMethodEnter
     public static int trackCallDepth() {
-      return CallDepthThreadLocalMap.incrementCallDepth(CouchbaseCluster.class);
+      return CallDepthTracker.incrementCallDepth(CouchbaseCluster.class);
     }
 
     @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
@@ -66,7 +66,7 @@ public class CouchbaseClusterInstrumentation extends Instrumenter.Default {
       if (callDepth > 0) {
         return;
       }
-      CallDepthThreadLocalMap.reset(CouchbaseCluster.class);
+      CallDepthTracker.reset(CouchbaseCluster.class);
       result = Observable.create(new CouchbaseOnSubscribe(result, method, null));
     }
   }
@@ -4,7 +4,7 @@ import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activateSp
 import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.startSpan;
 import static datadog.trace.instrumentation.hibernate.HibernateDecorator.DECORATOR;
 
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import datadog.trace.bootstrap.ContextStore;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
@@ -32,7 +32,7 @@ public class SessionMethodUtils {
       return null; // No state found. We aren't in a Session.
     }
 
-    final int depth = CallDepthThreadLocalMap.incrementCallDepth(SessionMethodUtils.class);
+    final int depth = CallDepthTracker.incrementCallDepth(SessionMethodUtils.class);
     if (depth > 0) {
       return null; // This method call is being traced already.
     }
@@ -62,7 +62,7 @@ public class SessionMethodUtils {
       return;
     }
 
-    CallDepthThreadLocalMap.reset(SessionMethodUtils.class);
+    CallDepthTracker.reset(SessionMethodUtils.class);
     final AgentScope scope = sessionState.getMethodScope();
     final AgentSpan span = scope.span();
     if (span != null && sessionState.hasChildSpan) {
@@ -15,7 +15,7 @@ import static net.bytebuddy.matcher.ElementMatchers.not;
 
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import datadog.trace.bootstrap.ContextStore;
 import datadog.trace.bootstrap.InstrumentationContext;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
@@ -80,7 +80,7 @@ public class HttpUrlConnectionInstrumentation extends Instrumenter.Default {
       final HttpUrlState state = contextStore.putIfAbsent(thiz, HttpUrlState.FACTORY);
 
       synchronized (state) {
-        final int callDepth = CallDepthThreadLocalMap.incrementCallDepth(HttpURLConnection.class);
+        final int callDepth = CallDepthTracker.incrementCallDepth(HttpURLConnection.class);
         if (callDepth > 0) {
           return null;
         }
@@ -116,7 +116,7 @@ public class HttpUrlConnectionInstrumentation extends Instrumenter.Default {
         }
       }
 
-      CallDepthThreadLocalMap.reset(HttpURLConnection.class);
+      CallDepthTracker.reset(HttpURLConnection.class);
     }
   }
 
@@ -10,7 +10,7 @@ import static net.bytebuddy.matcher.ElementMatchers.takesArgument;
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
 import datadog.trace.bootstrap.instrumentation.jdbc.DBInfo;
-import datadog.trace.bootstrap.instrumentation.jdbc.JDBCConnectionUrlParser;
+import datadog.trace.bootstrap.instrumentation.jdbc.DBInfoCache;
 import java.sql.Connection;
 import java.util.Map;
 import java.util.Properties;
@@ -58,7 +58,7 @@ public final class DriverInstrumentation extends Instrumenter.Default {
         // Exception was probably thrown.
         return;
       }
-      final DBInfo dbInfo = JDBCConnectionUrlParser.parse(url, props);
+      final DBInfo dbInfo = DBInfoCache.parse(url, props);
       JDBCMaps.connectionInfo.put(connection, dbInfo);
     }
   }
@@ -1,12 +1,14 @@
 package datadog.trace.instrumentation.jdbc;
 
+import datadog.trace.api.Config;
 import datadog.trace.api.DDSpanTypes;
 import datadog.trace.api.DDTags;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.bootstrap.instrumentation.api.Tags;
 import datadog.trace.bootstrap.instrumentation.decorator.DatabaseClientDecorator;
 import datadog.trace.bootstrap.instrumentation.jdbc.DBInfo;
-import datadog.trace.bootstrap.instrumentation.jdbc.JDBCConnectionUrlParser;
+import datadog.trace.bootstrap.instrumentation.jdbc.DBInfoCache;
+import datadog.trace.bootstrap.instrumentation.jdbc.SqlNormalizer;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.PreparedStatement;
@@ -72,10 +74,10 @@ public class JDBCDecorator extends DatabaseClientDecorator<DBInfo> {
           final String url = metaData.getURL();
           if (url != null) {
             try {
-              dbInfo = JDBCConnectionUrlParser.parse(url, connection.getClientInfo());
+              dbInfo = DBInfoCache.parse(url, connection.getClientInfo());
             } catch (final Exception ex) {
               // getClientInfo is likely not allowed.
-              dbInfo = JDBCConnectionUrlParser.parse(url, null);
+              dbInfo = DBInfoCache.parse(url, null);
             }
           } else {
             dbInfo = DBInfo.DEFAULT;
@@ -96,17 +98,26 @@ public class JDBCDecorator extends DatabaseClientDecorator<DBInfo> {
 
   @Override
   public AgentSpan onStatement(final AgentSpan span, final String statement) {
-    final String resourceName = statement == null ? DB_QUERY : statement;
+    final String sql = normalize(statement);
+    final String resourceName = sql == null ? DB_QUERY : sql;
     span.setTag(DDTags.RESOURCE_NAME, resourceName);
     span.setTag(Tags.COMPONENT, "java-jdbc-statement");
-    return super.onStatement(span, statement);
+    return super.onStatement(span, sql);
   }
 
   public AgentSpan onPreparedStatement(final AgentSpan span, final PreparedStatement statement) {
-    final String sql = JDBCMaps.preparedStatements.get(statement);
+    final String sql = normalize(JDBCMaps.preparedStatements.get(statement));
     final String resourceName = sql == null ? DB_QUERY : sql;
     span.setTag(DDTags.RESOURCE_NAME, resourceName);
     span.setTag(Tags.COMPONENT, "java-jdbc-prepared_statement");
     return super.onStatement(span, sql);
   }
+
+  /**
+   * The SQL of a prepared statement is the instance given to Connection.prepareStatement, so the
+   * normalizer's identity cache makes repeated executions reuse the same normalized string.
+   */
+  private static String normalize(final String sql) {
+    return Config.get().isDbClientNormalizeSql() ? SqlNormalizer.normalize(sql) : sql;
+  }
 }
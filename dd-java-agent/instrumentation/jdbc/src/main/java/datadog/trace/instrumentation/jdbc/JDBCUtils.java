@@ -1,57 +1,98 @@
 package datadog.trace.instrumentation.jdbc;
 
 import datadog.trace.bootstrap.ExceptionLogger;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Field;
 import java.sql.Connection;
+import java.sql.SQLFeatureNotSupportedException;
 import java.sql.Statement;
 
 public abstract class JDBCUtils {
-  private static Field c3poField = null;
+  private static final String C3P0_PROXY_CONNECTION =
+      "com.mchange.v2.c3p0.impl.NewProxyConnection";
+
+  private static final ClassValue<Unwrapper> UNWRAPPERS = new UnwrapperByClass();
 
   /**
    * @param statement
    * @return the unwrapped connection or null if exception was thrown.
    */
   public static Connection connectionFromStatement(final Statement statement) {
-    Connection connection;
     try {
-      connection = statement.getConnection();
-
-      if (c3poField != null) {
-        if (connection.getClass().getName().equals("com.mchange.v2.c3p0.impl.NewProxyConnection")) {
-          return (Connection) c3poField.get(connection);
-        }
+      final Connection connection = statement.getConnection();
+      if (connection == null) {
+        return null;
       }
+      return UNWRAPPERS.get(connection.getClass()).unwrap(connection);
+    } catch (final Throwable e) {
+      // Had some problem getting the connection.
+      ExceptionLogger.LOGGER.debug("Could not get connection for StatementAdvice", e);
+      return null;
+    }
+  }
 
-      try {
-        // unwrap the connection to cache the underlying actual connection and to not cache proxy
-        // objects
-        if (connection.isWrapperFor(Connection.class)) {
-          connection = connection.unwrap(Connection.class);
-        }
-      } catch (final Exception | AbstractMethodError e) {
-        if (connection != null) {
-          // Attempt to work around c3po delegating to an connection that doesn't support
-          // unwrapping.
-          final Class<? extends Connection> connectionClass = connection.getClass();
-          if (connectionClass.getName().equals("com.mchange.v2.c3p0.impl.NewProxyConnection")) {
-            final Field inner = connectionClass.getDeclaredField("inner");
-            inner.setAccessible(true);
-            c3poField = inner;
-            return (Connection) c3poField.get(connection);
+  /**
+   * Unwraps connections of one class. What works for a connection class is remembered so that a
+   * class which can't be unwrapped isn't retried on every statement.
+   */
+  static final class Unwrapper {
+    private final Class<?> connectionClass;
+    private volatile boolean unwrapSupported = true;
+    private volatile MethodHandle innerConnection;
+
+    Unwrapper(final Class<?> connectionClass) {
+      this.connectionClass = connectionClass;
+    }
+
+    Connection unwrap(final Connection connection) throws Throwable {
+      final MethodHandle inner = innerConnection;
+      if (inner != null) {
+        return (Connection) inner.invokeExact(connection);
+      }
+      if (unwrapSupported) {
+        try {
+          // unwrap the connection to cache the underlying actual connection and to not cache proxy
+          // objects
+          if (connection.isWrapperFor(Connection.class)) {
+            return connection.unwrap(Connection.class);
           }
+        } catch (final SQLFeatureNotSupportedException | AbstractMethodError e) {
+          // wrapping isn't supported by this class
+          // ex: org.h2.jdbc.JdbcConnection v1.3.175
+          // or: jdts.jdbc which always throws `AbstractMethodError` (at least up to version 1.3)
+          // Stick with original connection.
+          unwrapSupported = false;
+          return unwrapC3p0(connection);
+        } catch (final Exception e) {
+          // may be specific to this connection, e.g. because it is closed
+          return unwrapC3p0(connection);
         }
+      }
+      return connection;
+    }
 
-        // perhaps wrapping isn't supported?
-        // ex: org.h2.jdbc.JdbcConnection v1.3.175
-        // or: jdts.jdbc which always throws `AbstractMethodError` (at least up to version 1.3)
-        // Stick with original connection.
+    private Connection unwrapC3p0(final Connection connection) throws Throwable {
+      if (!connectionClass.getName().equals(C3P0_PROXY_CONNECTION)) {
+        return connection;
       }
-    } catch (final Throwable e) {
-      // Had some problem getting the connection.
-      ExceptionLogger.LOGGER.debug("Could not get connection for StatementAdvice", e);
-      return null;
+      // Attempt to work around c3po delegating to an connection that doesn't support unwrapping.
+      final Field field = connectionClass.getDeclaredField("inner");
+      field.setAccessible(true);
+      final MethodHandle inner =
+          MethodHandles.lookup()
+              .unreflectGetter(field)
+              .asType(MethodType.methodType(Connection.class, Connection.class));
+      innerConnection = inner;
+      return (Connection) inner.invokeExact(connection);
+    }
+  }
+
+  static final class UnwrapperByClass extends ClassValue<Unwrapper> {
+    @Override
+    protected Unwrapper computeValue(final Class<?> type) {
+      return new Unwrapper(type);
     }
-    return connection;
   }
 }
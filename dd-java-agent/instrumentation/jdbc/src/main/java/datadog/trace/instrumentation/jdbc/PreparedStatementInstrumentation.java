@@ -13,7 +13,7 @@ import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
 
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import java.sql.Connection;
@@ -39,7 +39,11 @@ public final class PreparedStatementInstrumentation extends Instrumenter.Default
   @Override
   public String[] helperClassNames() {
     return new String[] {
-      packageName + ".JDBCMaps", packageName + ".JDBCUtils", packageName + ".JDBCDecorator",
+      packageName + ".JDBCMaps",
+      packageName + ".JDBCUtils",
+      packageName + ".JDBCUtils$Unwrapper",
+      packageName + ".JDBCUtils$UnwrapperByClass",
+      packageName + ".JDBCDecorator",
     };
   }
 
@@ -59,7 +63,7 @@ public final class PreparedStatementInstrumentation extends Instrumenter.Default
         return null;
       }
 
-      final int callDepth = CallDepthThreadLocalMap.incrementCallDepth(PreparedStatement.class);
+      final int callDepth = CallDepthTracker.incrementCallDepth(PreparedStatement.class);
       if (callDepth > 0) {
         return null;
       }
@@ -81,7 +85,7 @@ public final class PreparedStatementInstrumentation extends Instrumenter.Default
       DECORATE.onError(scope.span(), throwable);
       DECORATE.beforeFinish(scope.span());
       scope.close();
-      CallDepthThreadLocalMap.reset(PreparedStatement.class);
+      CallDepthTracker.reset(PreparedStatement.class);
     }
   }
 }
@@ -273,6 +273,62 @@ class JDBCInstrumentationTest extends AgentTestRunner {
     "derby" | cpDatasources.get("c3p0").get("derby").getConnection()    | "APP"    | "SELECT 3 FROM SYSIBM.SYSDUMMY1"
   }
 
+  def "prepared statement resource is normalized when enabled"() {
+    setup:
+    def connection = new Driver().connect(jdbcUrls.get("h2"), null)
+    PreparedStatement statement = connection.prepareStatement("SELECT 3 FROM DUAL WHERE 'a' = 'a'")
+    runUnderTrace("parent") {
+      withConfigOverride(Config.DB_CLIENT_NORMALIZE_SQL, "true") {
+        assert statement.execute()
+        assert statement.execute()
+      }
+    }
+
+    expect:
+    assertTraces(1) {
+      trace(0, 3) {
+        basicSpan(it, 0, "parent")
+        span(1) {
+          operationName "h2.query"
+          serviceName "h2"
+          resourceName "SELECT ? FROM DUAL WHERE ? = ?"
+          spanType DDSpanTypes.SQL
+          childOf span(0)
+          errored false
+          tags {
+            "$Tags.COMPONENT" "java-jdbc-prepared_statement"
+            "$Tags.SPAN_KIND" Tags.SPAN_KIND_CLIENT
+            "$Tags.DB_TYPE" "h2"
+            "$Tags.DB_INSTANCE" dbName.toLowerCase()
+            "span.origin.type" String
+            defaultTags()
+          }
+        }
+        span(2) {
+          operationName "h2.query"
+          serviceName "h2"
+          resourceName "SELECT ? FROM DUAL WHERE ? = ?"
+          spanType DDSpanTypes.SQL
+          childOf span(0)
+          errored false
+          tags {
+            "$Tags.COMPONENT" "java-jdbc-prepared_statement"
+            "$Tags.SPAN_KIND" Tags.SPAN_KIND_CLIENT
+            "$Tags.DB_TYPE" "h2"
+            "$Tags.DB_INSTANCE" dbName.toLowerCase()
+            "span.origin.type" String
+            defaultTags()
+          }
+        }
+      }
+    }
+    TEST_WRITER.firstTrace()[1].resourceName.is(TEST_WRITER.firstTrace()[2].resourceName)
+
+    cleanup:
+    statement.close()
+    connection.close()
+  }
+
   @Unroll
   def "prepared statement query on #driver with #connection.getClass().getCanonicalName() generates a span"() {
     setup:
@@ -0,0 +1,37 @@
+import datadog.trace.bootstrap.instrumentation.jdbc.SqlNormalizer
+import datadog.trace.util.test.DDSpecification
+
+class SqlNormalizerTest extends DDSpecification {
+
+  def "normalize #sql"() {
+    expect:
+    SqlNormalizer.normalize(sql) == normalized
+
+    where:
+    sql                                                        | normalized
+    null                                                       | null
+    "SELECT * FROM users WHERE id = 42"                        | "SELECT * FROM users WHERE id = ?"
+    "select a from t where name = 'O''Brien' and x=3.5e10"     | "select a from t where name = ? and x=?"
+    "SELECT  *\n FROM t1 -- comment\nWHERE c2 = \$1"           | "SELECT * FROM t1 WHERE c2 = \$1"
+    "select \"Col 1\", `col2` from t where c = 'x'"            | "select \"Col 1\", `col2` from t where c = ?"
+    "insert into t values (0xFF, -12, .5, 'a')"                | "insert into t values (?, -?, ?, ?)"
+    "update t set v=v+1 /* hint */ where k IN (1,2,3)"         | "update t set v=v+? where k IN (?,?,?)"
+    "select * from table2 where col_3 is null"                 | "select * from table2 where col_3 is null"
+  }
+
+  def "statements are normalized once per string instance"() {
+    setup:
+    def sql = new String("SELECT * FROM t WHERE id = 1")
+
+    expect:
+    SqlNormalizer.normalize(sql).is(SqlNormalizer.normalize(sql))
+  }
+
+  def "normalized statements are returned as is"() {
+    setup:
+    def sql = "SELECT * FROM t WHERE id = ?"
+
+    expect:
+    SqlNormalizer.normalize(sql).is(sql)
+  }
+}
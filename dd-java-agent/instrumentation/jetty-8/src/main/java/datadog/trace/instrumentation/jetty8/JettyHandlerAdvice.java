@@ -9,7 +9,6 @@ import static datadog.trace.instrumentation.jetty8.JettyDecorator.DECORATE;
 
 import datadog.trace.api.CorrelationIdentifier;
 import datadog.trace.api.DDTags;
-import datadog.trace.api.GlobalTracer;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.bootstrap.instrumentation.api.Tags;
@@ -43,8 +42,8 @@ public class JettyHandlerAdvice {
     final AgentScope scope = activateSpan(span, false);
     scope.setAsyncPropagation(true);
     req.setAttribute(DD_SPAN_ATTRIBUTE, span);
-    req.setAttribute(CorrelationIdentifier.getTraceIdKey(), GlobalTracer.get().getTraceId());
-    req.setAttribute(CorrelationIdentifier.getSpanIdKey(), GlobalTracer.get().getSpanId());
+    req.setAttribute(CorrelationIdentifier.getTraceIdKey(), span.getTraceId());
+    req.setAttribute(CorrelationIdentifier.getSpanIdKey(), span.getSpanId());
     return scope;
   }
 
@@ -13,7 +13,7 @@ import static net.bytebuddy.matcher.ElementMatchers.takesArgument;
 
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import java.util.HashMap;
@@ -76,7 +76,7 @@ public final class JMSMessageProducerInstrumentation extends Instrumenter.Defaul
     @Advice.OnMethodEnter(suppress = Throwable.class)
     public static AgentScope onEnter(
         @Advice.Argument(0) final Message message, @Advice.This final MessageProducer producer) {
-      final int callDepth = CallDepthThreadLocalMap.incrementCallDepth(MessageProducer.class);
+      final int callDepth = CallDepthTracker.incrementCallDepth(MessageProducer.class);
       if (callDepth > 0) {
         return null;
       }
@@ -107,7 +107,7 @@ public final class JMSMessageProducerInstrumentation extends Instrumenter.Defaul
       PRODUCER_DECORATE.onError(scope, throwable);
       PRODUCER_DECORATE.beforeFinish(scope);
       scope.close();
-      CallDepthThreadLocalMap.reset(MessageProducer.class);
+      CallDepthTracker.reset(MessageProducer.class);
     }
   }
 
@@ -118,7 +118,7 @@ public final class JMSMessageProducerInstrumentation extends Instrumenter.Defaul
         @Advice.Argument(0) final Destination destination,
         @Advice.Argument(1) final Message message,
         @Advice.This final MessageProducer producer) {
-      final int callDepth = CallDepthThreadLocalMap.incrementCallDepth(MessageProducer.class);
+      final int callDepth = CallDepthTracker.incrementCallDepth(MessageProducer.class);
       if (callDepth > 0) {
         return null;
       }
@@ -142,7 +142,7 @@ public final class JMSMessageProducerInstrumentation extends Instrumenter.Defaul
       PRODUCER_DECORATE.onError(scope, throwable);
       PRODUCER_DECORATE.beforeFinish(scope);
       scope.close();
-      CallDepthThreadLocalMap.reset(MessageProducer.class);
+      CallDepthTracker.reset(MessageProducer.class);
     }
   }
 }
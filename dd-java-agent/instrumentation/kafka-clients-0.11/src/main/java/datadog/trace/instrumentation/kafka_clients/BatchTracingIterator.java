@@ -0,0 +1,187 @@
+package datadog.trace.instrumentation.kafka_clients;
+
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activateSpan;
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.propagate;
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.startSpan;
+import static datadog.trace.instrumentation.kafka_clients.TextMapExtractAdapter.GETTER;
+
+import datadog.trace.bootstrap.instrumentation.api.AgentScope;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
+import datadog.trace.bootstrap.instrumentation.api.AgentSpan.Context;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * Traces the iteration over a poll's records with one span for the whole batch instead of one span
+ * per record.
+ *
+ * <p>The batch span continues the trace of the first record. The trace ids of the other records'
+ * producers are collected in a tag, skipping traces the producer side decided to drop. Only every
+ * n-th record, as configured, is traced with its own span, so the cost of tracing grows with the
+ * number of polls rather than with the number of records.
+ *
+ * <p>A consumer which stops iterating before the end leaves the batch open; it is then finished
+ * when the thread which started it polls again or closes the consumer, see {@link
+ * #finishOpenBatch()}.
+ */
+@Slf4j
+public class BatchTracingIterator implements Iterator<ConsumerRecord> {
+  static final int MAX_PARENT_TRACE_IDS = 32;
+
+  private static final String TRACE_ID_HEADER = "x-datadog-trace-id";
+  private static final String SAMPLING_PRIORITY_HEADER = "x-datadog-sampling-priority";
+
+  /**
+   * The iterator of the current thread whose batch has been started and not finished yet. The
+   * iterator keeps the holder of the thread which started its batch, so that whichever thread
+   * finishes the batch clears it.
+   */
+  private static final ThreadLocal<AtomicReference<BatchTracingIterator>> OPEN_BATCH =
+      new ThreadLocal<>();
+
+  private final Iterator<ConsumerRecord> delegateIterator;
+  private final String operationName;
+  private final KafkaDecorator decorator;
+  private final int recordSpanInterval;
+
+  /**
+   * Note: this may potentially create problems if this iterator is used from different threads. But
+   * at the moment we cannot do much about this.
+   */
+  private AgentScope batchScope;
+
+  private AgentScope recordScope;
+  private AtomicReference<BatchTracingIterator> openBatch;
+  private int records;
+  private final Set<String> parentTraceIds = new LinkedHashSet<>();
+
+  public BatchTracingIterator(
+      final Iterator<ConsumerRecord> delegateIterator,
+      final String operationName,
+      final KafkaDecorator decorator,
+      final int recordSpanInterval) {
+    this.delegateIterator = delegateIterator;
+    this.operationName = operationName;
+    this.decorator = decorator;
+    this.recordSpanInterval = recordSpanInterval;
+  }
+
+  @Override
+  public boolean hasNext() {
+    closeRecordScope();
+    final boolean hasNext = delegateIterator.hasNext();
+    if (!hasNext) {
+      finishBatch();
+    }
+    return hasNext;
+  }
+
+  @Override
+  public ConsumerRecord next() {
+    // in case they didn't call hasNext()...
+    closeRecordScope();
+
+    final ConsumerRecord next = delegateIterator.next();
+
+    try {
+      if (next != null) {
+        if (batchScope == null) {
+          startBatch(next);
+        }
+        records++;
+        addParentTraceId(next.headers());
+        if (recordSpanInterval > 0 && records % recordSpanInterval == 0) {
+          final Context spanContext = propagate().extract(next.headers(), GETTER);
+          final AgentSpan span = startSpan(operationName, spanContext);
+          decorator.afterStart(span);
+          decorator.onConsume(span, next);
+          recordScope = activateSpan(span, true);
+          recordScope.setAsyncPropagation(true);
+        }
+      }
+    } catch (final Exception e) {
+      log.debug("Error during decoration", e);
+    }
+    return next;
+  }
+
+  @Override
+  public void remove() {
+    delegateIterator.remove();
+  }
+
+  private void startBatch(final ConsumerRecord first) {
+    final Context spanContext = propagate().extract(first.headers(), GETTER);
+    final AgentSpan span = startSpan(operationName, spanContext);
+    decorator.afterStart(span);
+    decorator.onConsumeBatch(span, first);
+    batchScope = activateSpan(span, true);
+    batchScope.setAsyncPropagation(true);
+    AtomicReference<BatchTracingIterator> openBatch = OPEN_BATCH.get();
+    if (openBatch == null) {
+      openBatch = new AtomicReference<>();
+      OPEN_BATCH.set(openBatch);
+    }
+    openBatch.set(this);
+    this.openBatch = openBatch;
+  }
+
+  private void finishBatch() {
+    if (batchScope != null) {
+      decorator.onBatchEnd(batchScope.span(), records, parentTraceIds);
+      batchScope.close();
+      batchScope = null;
+      // the thread which started the batch may have moved on to another one already
+      openBatch.compareAndSet(this, null);
+      openBatch = null;
+    }
+  }
+
+  /**
+   * Finishes the batch the current thread left open by not iterating to the end, so that its scope
+   * doesn't stay active on top of whatever the thread does after the next poll or after closing the
+   * consumer.
+   */
+  public static void finishOpenBatch() {
+    final AtomicReference<BatchTracingIterator> openBatch = OPEN_BATCH.get();
+    final BatchTracingIterator iterator = openBatch == null ? null : openBatch.get();
+    if (iterator != null) {
+      iterator.closeRecordScope();
+      iterator.finishBatch();
+    }
+  }
+
+  private void closeRecordScope() {
+    if (recordScope != null) {
+      recordScope.close();
+      recordScope = null;
+    }
+  }
+
+  /** Reads the two headers directly rather than extracting a context for every record. */
+  private void addParentTraceId(final Headers headers) {
+    if (parentTraceIds.size() >= MAX_PARENT_TRACE_IDS) {
+      return;
+    }
+    final String traceId = GETTER.get(headers, TRACE_ID_HEADER);
+    if (traceId == null) {
+      return;
+    }
+    final String samplingPriority = GETTER.get(headers, SAMPLING_PRIORITY_HEADER);
+    if (samplingPriority != null) {
+      try {
+        if (Integer.parseInt(samplingPriority.trim()) <= 0) {
+          return;
+        }
+      } catch (final NumberFormatException e) {
+        // keep the trace id, the priority is only used to skip dropped traces
+      }
+    }
+    parentTraceIds.add(traceId);
+  }
+}
@@ -39,6 +39,7 @@ public final class KafkaConsumerInstrumentation extends Instrumenter.Default {
       packageName + ".KafkaDecorator$1",
       packageName + ".KafkaDecorator$2",
       packageName + ".TextMapExtractAdapter",
+      packageName + ".BatchTracingIterator",
       packageName + ".TracingIterable",
       packageName + ".TracingIterator",
       packageName + ".TracingList",
@@ -97,7 +98,7 @@ public final class KafkaConsumerInstrumentation extends Instrumenter.Default {
     @Advice.OnMethodExit(suppress = Throwable.class)
     public static void wrap(@Advice.Return(readOnly = false) Iterator<ConsumerRecord> iterator) {
       if (iterator != null) {
-        iterator = new TracingIterator(iterator, "kafka.consume", CONSUMER_DECORATE);
+        iterator = TracingIterable.tracingIterator(iterator, "kafka.consume", CONSUMER_DECORATE);
       }
     }
   }
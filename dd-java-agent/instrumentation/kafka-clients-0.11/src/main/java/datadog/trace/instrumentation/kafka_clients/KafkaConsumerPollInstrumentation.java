@@ -0,0 +1,70 @@
+package datadog.trace.instrumentation.kafka_clients;
+
+import static net.bytebuddy.matcher.ElementMatchers.isMethod;
+import static net.bytebuddy.matcher.ElementMatchers.isPublic;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+
+import com.google.auto.service.AutoService;
+import datadog.trace.agent.tooling.Instrumenter;
+import java.util.HashMap;
+import java.util.Map;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.matcher.ElementMatcher;
+
+/**
+ * Finishes the batch span a consumer left open when it polls again or is closed, see
+ * BatchTracingIterator.
+ */
+@AutoService(Instrumenter.class)
+public final class KafkaConsumerPollInstrumentation extends Instrumenter.Default {
+
+  public KafkaConsumerPollInstrumentation() {
+    super("kafka");
+  }
+
+  @Override
+  public ElementMatcher<TypeDescription> typeMatcher() {
+    return named("org.apache.kafka.clients.consumer.KafkaConsumer");
+  }
+
+  @Override
+  public String[] helperClassNames() {
+    return new String[] {
+      packageName + ".KafkaDecorator",
+      packageName + ".KafkaDecorator$1",
+      packageName + ".KafkaDecorator$2",
+      packageName + ".TextMapExtractAdapter",
+      packageName + ".BatchTracingIterator",
+    };
+  }
+
+  @Override
+  public Map<? extends ElementMatcher<? super MethodDescription>, String> transformers() {
+    final Map<ElementMatcher<? super MethodDescription>, String> transformers = new HashMap<>();
+    transformers.put(
+        isMethod().and(isPublic()).and(named("poll")),
+        KafkaConsumerPollInstrumentation.class.getName() + "$PollAdvice");
+    transformers.put(
+        isMethod().and(isPublic()).and(named("close")),
+        KafkaConsumerPollInstrumentation.class.getName() + "$CloseAdvice");
+    return transformers;
+  }
+
+  public static class PollAdvice {
+
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static void onEnter() {
+      BatchTracingIterator.finishOpenBatch();
+    }
+  }
+
+  public static class CloseAdvice {
+
+    @Advice.OnMethodEnter(suppress = Throwable.class)
+    public static void onEnter() {
+      BatchTracingIterator.finishOpenBatch();
+    }
+  }
+}
@@ -5,6 +5,7 @@ import datadog.trace.api.DDTags;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.bootstrap.instrumentation.api.Tags;
 import datadog.trace.bootstrap.instrumentation.decorator.ClientDecorator;
+import java.util.Collection;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.apache.kafka.clients.producer.ProducerRecord;
 
@@ -62,6 +63,28 @@ public abstract class KafkaDecorator extends ClientDecorator {
     }
   }
 
+  public void onConsumeBatch(final AgentSpan span, final ConsumerRecord first) {
+    if (first != null) {
+      final String topic = first.topic() == null ? "kafka" : first.topic();
+      span.setTag(DDTags.RESOURCE_NAME, "Consume Topic " + topic);
+    }
+  }
+
+  public void onBatchEnd(
+      final AgentSpan span, final int records, final Collection<String> parentTraceIds) {
+    span.setTag("kafka.batch.size", records);
+    if (!parentTraceIds.isEmpty()) {
+      final StringBuilder ids = new StringBuilder();
+      for (final String id : parentTraceIds) {
+        if (ids.length() > 0) {
+          ids.append(',');
+        }
+        ids.append(id);
+      }
+      span.setTag("kafka.batch.parent_trace_ids", ids.toString());
+    }
+  }
+
   public void onProduce(final AgentSpan span, final ProducerRecord record) {
     if (record != null) {
 
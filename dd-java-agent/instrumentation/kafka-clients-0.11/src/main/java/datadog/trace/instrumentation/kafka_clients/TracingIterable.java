@@ -1,5 +1,6 @@
 package datadog.trace.instrumentation.kafka_clients;
 
+import datadog.trace.api.Config;
 import java.util.Iterator;
 import org.apache.kafka.clients.consumer.ConsumerRecord;
 
@@ -25,7 +26,7 @@ public class TracingIterable implements Iterable<ConsumerRecord> {
     // However, this is not thread-safe, but usually the first (hopefully only) traversal of
     // ConsumerRecords is performed in the same thread that called poll()
     if (firstIterator) {
-      it = new TracingIterator(delegate.iterator(), operationName, decorator);
+      it = tracingIterator(delegate.iterator(), operationName, decorator);
       firstIterator = false;
     } else {
       it = delegate.iterator();
@@ -33,4 +34,16 @@ public class TracingIterable implements Iterable<ConsumerRecord> {
 
     return it;
   }
+
+  public static Iterator<ConsumerRecord> tracingIterator(
+      final Iterator<ConsumerRecord> delegate,
+      final String operationName,
+      final KafkaDecorator decorator) {
+    final Config config = Config.get();
+    if (config.isKafkaConsumerBatchEnabled()) {
+      return new BatchTracingIterator(
+          delegate, operationName, decorator, config.getKafkaConsumerBatchRecordSpanInterval());
+    }
+    return new TracingIterator(delegate, operationName, decorator);
+  }
 }
@@ -1,5 +1,7 @@
 import datadog.trace.agent.test.AgentTestRunner
+import datadog.trace.api.Config
 import datadog.trace.bootstrap.instrumentation.api.Tags
+import datadog.trace.instrumentation.kafka_clients.BatchTracingIterator
 import org.apache.kafka.clients.consumer.ConsumerConfig
 import org.apache.kafka.clients.consumer.ConsumerRecord
 import org.apache.kafka.clients.consumer.KafkaConsumer
@@ -16,9 +18,14 @@ import org.springframework.kafka.test.rule.KafkaEmbedded
 import org.springframework.kafka.test.utils.ContainerTestUtils
 import org.springframework.kafka.test.utils.KafkaTestUtils
 
+import java.util.concurrent.Callable
+import java.util.concurrent.Executors
 import java.util.concurrent.LinkedBlockingQueue
 import java.util.concurrent.TimeUnit
 
+import static datadog.trace.agent.test.utils.ConfigUtils.withConfigOverride
+import static datadog.trace.bootstrap.instrumentation.api.AgentTracer.activeSpan
+
 class KafkaClientTest extends AgentTestRunner {
   static final SHARED_TOPIC = "shared.topic"
 
@@ -204,4 +211,361 @@ class KafkaClientTest extends AgentTestRunner {
 
   }
 
+  def "test batch mode traces one span per poll"() {
+    setup:
+    def kafkaPartition = 0
+    def consumerProperties = KafkaTestUtils.consumerProps("sender", "false", embeddedKafka)
+    consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest")
+    def consumer = new KafkaConsumer<String, String>(consumerProperties)
+
+    def senderProps = KafkaTestUtils.senderProps(embeddedKafka.getBrokersAsString())
+    def producer = new KafkaProducer(senderProps)
+
+    consumer.assign(Arrays.asList(new TopicPartition(SHARED_TOPIC, kafkaPartition)))
+
+    when:
+    producer.send(new ProducerRecord<Integer, String>(SHARED_TOPIC, kafkaPartition, null, "first")).get()
+    TEST_WRITER.waitForTraces(1)
+    producer.send(new ProducerRecord<Integer, String>(SHARED_TOPIC, kafkaPartition, null, "second")).get()
+    TEST_WRITER.waitForTraces(2)
+    def values = withConfigOverride(Config.KAFKA_CONSUMER_BATCH_ENABLED, "true") {
+      def pollResult = KafkaTestUtils.getRecords(consumer)
+      pollResult.records(new TopicPartition(SHARED_TOPIC, kafkaPartition)).collect { it.value() }
+    }
+
+    then:
+    values == ["first", "second"]
+    assertTraces(3) {
+      trace(0, 1) {
+        span(0) {
+          operationName "kafka.produce"
+          parent()
+        }
+      }
+      trace(1, 1) {
+        span(0) {
+          operationName "kafka.produce"
+          parent()
+        }
+      }
+      trace(2, 1) {
+        // CONSUMER batch span
+        span(0) {
+          serviceName "kafka"
+          operationName "kafka.consume"
+          resourceName "Consume Topic $SHARED_TOPIC"
+          spanType "queue"
+          errored false
+          childOf TEST_WRITER[0][0]
+          tags {
+            "$Tags.COMPONENT" "java-kafka"
+            "$Tags.SPAN_KIND" Tags.SPAN_KIND_CONSUMER
+            "kafka.batch.size" 2
+            "kafka.batch.parent_trace_ids" "${TEST_WRITER[0][0].traceId},${TEST_WRITER[1][0].traceId}"
+            defaultTags(true)
+          }
+        }
+      }
+    }
+
+    cleanup:
+    consumer.close()
+    producer.close()
+  }
+
+  def "test batch mode traces every n-th record with its own span"() {
+    setup:
+    def kafkaPartition = 0
+    def consumerProperties = KafkaTestUtils.consumerProps("sender", "false", embeddedKafka)
+    consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest")
+    def consumer = new KafkaConsumer<String, String>(consumerProperties)
+
+    def senderProps = KafkaTestUtils.senderProps(embeddedKafka.getBrokersAsString())
+    def producer = new KafkaProducer(senderProps)
+
+    consumer.assign(Arrays.asList(new TopicPartition(SHARED_TOPIC, kafkaPartition)))
+
+    when:
+    producer.send(new ProducerRecord<Integer, String>(SHARED_TOPIC, kafkaPartition, null, "first")).get()
+    TEST_WRITER.waitForTraces(1)
+    producer.send(new ProducerRecord<Integer, String>(SHARED_TOPIC, kafkaPartition, null, "second")).get()
+    TEST_WRITER.waitForTraces(2)
+    def values = withConfigOverride(Config.KAFKA_CONSUMER_BATCH_ENABLED, "true") {
+      withConfigOverride(Config.KAFKA_CONSUMER_BATCH_RECORD_SPAN_INTERVAL, "1") {
+        def pollResult = KafkaTestUtils.getRecords(consumer)
+        pollResult.records(new TopicPartition(SHARED_TOPIC, kafkaPartition)).collect { it.value() }
+      }
+    }
+
+    then:
+    values == ["first", "second"]
+    // the record spans are closed as the iteration moves on, the batch span at its end
+    assertTraces(5) {
+      trace(0, 1) {
+        span(0) {
+          operationName "kafka.produce"
+          parent()
+        }
+      }
+      trace(1, 1) {
+        span(0) {
+          operationName "kafka.produce"
+          parent()
+        }
+      }
+      trace(2, 1) {
+        // CONSUMER record span 0
+        span(0) {
+          serviceName "kafka"
+          operationName "kafka.consume"
+          resourceName "Consume Topic $SHARED_TOPIC"
+          spanType "queue"
+          errored false
+          childOf TEST_WRITER[0][0]
+          tags {
+            "$Tags.COMPONENT" "java-kafka"
+            "$Tags.SPAN_KIND" Tags.SPAN_KIND_CONSUMER
+            "partition" { it >= 0 }
+            "offset" 0
+            defaultTags(true)
+          }
+        }
+      }
+      trace(3, 1) {
+        // CONSUMER record span 1
+        span(0) {
+          serviceName "kafka"
+          operationName "kafka.consume"
+          resourceName "Consume Topic $SHARED_TOPIC"
+          spanType "queue"
+          errored false
+          childOf TEST_WRITER[1][0]
+          tags {
+            "$Tags.COMPONENT" "java-kafka"
+            "$Tags.SPAN_KIND" Tags.SPAN_KIND_CONSUMER
+            "partition" { it >= 0 }
+            "offset" 1
+            defaultTags(true)
+          }
+        }
+      }
+      trace(4, 1) {
+        // CONSUMER batch span
+        span(0) {
+          operationName "kafka.consume"
+          childOf TEST_WRITER[0][0]
+          tags {
+            "$Tags.COMPONENT" "java-kafka"
+            "$Tags.SPAN_KIND" Tags.SPAN_KIND_CONSUMER
+            "kafka.batch.size" 2
+            "kafka.batch.parent_trace_ids" "${TEST_WRITER[0][0].traceId},${TEST_WRITER[1][0].traceId}"
+            defaultTags(true)
+          }
+        }
+      }
+    }
+
+    cleanup:
+    consumer.close()
+    producer.close()
+  }
+
+  def "test batch left open by an early exit is finished by the next poll"() {
+    setup:
+    def kafkaPartition = 0
+    def consumerProperties = KafkaTestUtils.consumerProps("sender", "false", embeddedKafka)
+    consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest")
+    def consumer = new KafkaConsumer<String, String>(consumerProperties)
+
+    def senderProps = KafkaTestUtils.senderProps(embeddedKafka.getBrokersAsString())
+    def producer = new KafkaProducer(senderProps)
+
+    consumer.assign(Arrays.asList(new TopicPartition(SHARED_TOPIC, kafkaPartition)))
+
+    when:
+    producer.send(new ProducerRecord<Integer, String>(SHARED_TOPIC, kafkaPartition, null, "first")).get()
+    TEST_WRITER.waitForTraces(1)
+    producer.send(new ProducerRecord<Integer, String>(SHARED_TOPIC, kafkaPartition, null, "second")).get()
+    TEST_WRITER.waitForTraces(2)
+    def first = withConfigOverride(Config.KAFKA_CONSUMER_BATCH_ENABLED, "true") {
+      def pollResult = KafkaTestUtils.getRecords(consumer)
+      // stop after the first record, like a consumer breaking out of its loop
+      pollResult.records(new TopicPartition(SHARED_TOPIC, kafkaPartition)).iterator().next()
+    }
+
+    then:
+    first.value() == "first"
+    activeSpan() != null
+    TEST_WRITER.size() == 2
+
+    when:
+    consumer.poll(100)
+
+    then:
+    activeSpan() == null
+    assertTraces(3) {
+      trace(0, 1) {
+        span(0) {
+          operationName "kafka.produce"
+          parent()
+        }
+      }
+      trace(1, 1) {
+        span(0) {
+          operationName "kafka.produce"
+          parent()
+        }
+      }
+      trace(2, 1) {
+        // CONSUMER batch span, with only the record which was consumed
+        span(0) {
+          operationName "kafka.consume"
+          childOf TEST_WRITER[0][0]
+          tags {
+            "$Tags.COMPONENT" "java-kafka"
+            "$Tags.SPAN_KIND" Tags.SPAN_KIND_CONSUMER
+            "kafka.batch.size" 1
+            "kafka.batch.parent_trace_ids" "${TEST_WRITER[0][0].traceId}"
+            defaultTags(true)
+          }
+        }
+      }
+    }
+
+    cleanup:
+    consumer.close()
+    producer.close()
+  }
+
+  def "test batch left open by an early exit is finished when the consumer is closed"() {
+    setup:
+    def kafkaPartition = 0
+    def consumerProperties = KafkaTestUtils.consumerProps("sender", "false", embeddedKafka)
+    consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest")
+    def consumer = new KafkaConsumer<String, String>(consumerProperties)
+
+    def senderProps = KafkaTestUtils.senderProps(embeddedKafka.getBrokersAsString())
+    def producer = new KafkaProducer(senderProps)
+
+    consumer.assign(Arrays.asList(new TopicPartition(SHARED_TOPIC, kafkaPartition)))
+
+    when:
+    producer.send(new ProducerRecord<Integer, String>(SHARED_TOPIC, kafkaPartition, null, "first")).get()
+    TEST_WRITER.waitForTraces(1)
+    producer.send(new ProducerRecord<Integer, String>(SHARED_TOPIC, kafkaPartition, null, "second")).get()
+    TEST_WRITER.waitForTraces(2)
+    def first = withConfigOverride(Config.KAFKA_CONSUMER_BATCH_ENABLED, "true") {
+      def pollResult = KafkaTestUtils.getRecords(consumer)
+      pollResult.records(new TopicPartition(SHARED_TOPIC, kafkaPartition)).iterator().next()
+    }
+
+    then:
+    first.value() == "first"
+    activeSpan() != null
+    TEST_WRITER.size() == 2
+
+    when:
+    consumer.close()
+
+    then:
+    activeSpan() == null
+    assertTraces(3) {
+      trace(0, 1) {
+        span(0) {
+          operationName "kafka.produce"
+          parent()
+        }
+      }
+      trace(1, 1) {
+        span(0) {
+          operationName "kafka.produce"
+          parent()
+        }
+      }
+      trace(2, 1) {
+        // CONSUMER batch span, with only the record which was consumed
+        span(0) {
+          operationName "kafka.consume"
+          childOf TEST_WRITER[0][0]
+          tags {
+            "$Tags.COMPONENT" "java-kafka"
+            "$Tags.SPAN_KIND" Tags.SPAN_KIND_CONSUMER
+            "kafka.batch.size" 1
+            "kafka.batch.parent_trace_ids" "${TEST_WRITER[0][0].traceId}"
+            defaultTags(true)
+          }
+        }
+      }
+    }
+
+    cleanup:
+    producer.close()
+  }
+
+  def "test batch started by a second thread is released by the thread finishing it"() {
+    setup:
+    def kafkaPartition = 0
+    def consumerProperties = KafkaTestUtils.consumerProps("sender", "false", embeddedKafka)
+    consumerProperties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest")
+    def consumer = new KafkaConsumer<String, String>(consumerProperties)
+
+    def senderProps = KafkaTestUtils.senderProps(embeddedKafka.getBrokersAsString())
+    def producer = new KafkaProducer(senderProps)
+    def worker = Executors.newSingleThreadExecutor()
+
+    consumer.assign(Arrays.asList(new TopicPartition(SHARED_TOPIC, kafkaPartition)))
+
+    when:
+    producer.send(new ProducerRecord<Integer, String>(SHARED_TOPIC, kafkaPartition, null, "first")).get()
+    TEST_WRITER.waitForTraces(1)
+    producer.send(new ProducerRecord<Integer, String>(SHARED_TOPIC, kafkaPartition, null, "second")).get()
+    TEST_WRITER.waitForTraces(2)
+    def iterator = withConfigOverride(Config.KAFKA_CONSUMER_BATCH_ENABLED, "true") {
+      def pollResult = KafkaTestUtils.getRecords(consumer)
+      pollResult.records(new TopicPartition(SHARED_TOPIC, kafkaPartition)).iterator()
+    }
+    // the worker starts the batch, the polling thread iterates to the end and finishes it
+    def first = worker.submit({ iterator.next() } as Callable).get()
+    def second = iterator.next()
+    def hasNext = iterator.hasNext()
+    def workerOpenBatch = worker.submit({ BatchTracingIterator.OPEN_BATCH.get().get() } as Callable).get()
+
+    then:
+    [first, second]*.value() == ["first", "second"]
+    !hasNext
+    workerOpenBatch == null
+    assertTraces(3) {
+      trace(0, 1) {
+        span(0) {
+          operationName "kafka.produce"
+          parent()
+        }
+      }
+      trace(1, 1) {
+        span(0) {
+          operationName "kafka.produce"
+          parent()
+        }
+      }
+      trace(2, 1) {
+        // CONSUMER batch span
+        span(0) {
+          operationName "kafka.consume"
+          childOf TEST_WRITER[0][0]
+          tags {
+            "$Tags.COMPONENT" "java-kafka"
+            "$Tags.SPAN_KIND" Tags.SPAN_KIND_CONSUMER
+            "kafka.batch.size" 2
+            "kafka.batch.parent_trace_ids" "${TEST_WRITER[0][0].traceId},${TEST_WRITER[1][0].traceId}"
+            defaultTags(true)
+          }
+        }
+      }
+    }
+
+    cleanup:
+    worker.shutdown()
+    consumer.close()
+    producer.close()
+  }
 }
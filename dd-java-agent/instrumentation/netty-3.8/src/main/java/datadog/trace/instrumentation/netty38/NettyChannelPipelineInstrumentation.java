@@ -9,7 +9,7 @@ import static net.bytebuddy.matcher.ElementMatchers.takesArgument;
 
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import datadog.trace.bootstrap.ContextStore;
 import datadog.trace.bootstrap.InstrumentationContext;
 import datadog.trace.instrumentation.netty38.client.HttpClientRequestTracingHandler;
@@ -140,7 +140,7 @@ public class NettyChannelPipelineInstrumentation extends Instrumenter.Default {
               new HttpClientResponseTracingHandler(contextStore));
         }
       } finally {
-        CallDepthThreadLocalMap.reset(ChannelPipeline.class);
+        CallDepthTracker.reset(ChannelPipeline.class);
       }
     }
   }
@@ -156,7 +156,7 @@ public class NettyChannelPipelineInstrumentation extends Instrumenter.Default {
       if (pipeline.get(handler.getClass().getName()) != null) {
         pipeline.remove(handler.getClass().getName());
       }
-      return CallDepthThreadLocalMap.incrementCallDepth(ChannelPipeline.class);
+      return CallDepthTracker.incrementCallDepth(ChannelPipeline.class);
     }
 
     @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
@@ -186,7 +186,7 @@ public class NettyChannelPipelineInstrumentation extends Instrumenter.Default {
       if (pipeline.get(handler.getClass().getName()) != null) {
         pipeline.remove(handler.getClass().getName());
       }
-      return CallDepthThreadLocalMap.incrementCallDepth(ChannelPipeline.class);
+      return CallDepthTracker.incrementCallDepth(ChannelPipeline.class);
     }
 
     @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
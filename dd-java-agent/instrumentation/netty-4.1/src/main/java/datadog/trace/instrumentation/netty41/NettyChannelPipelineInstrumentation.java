@@ -11,7 +11,7 @@ import static net.bytebuddy.matcher.ElementMatchers.takesArgument;
 
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import datadog.trace.context.TraceScope;
 import datadog.trace.instrumentation.netty41.client.HttpClientRequestTracingHandler;
 import datadog.trace.instrumentation.netty41.client.HttpClientResponseTracingHandler;
@@ -61,6 +61,7 @@ public class NettyChannelPipelineInstrumentation extends Instrumenter.Default {
     return new String[] {
       packageName + ".AttributeKeys",
       packageName + ".AttributeKeys$1",
+      packageName + ".TracedHandlers",
       // client helpers
       packageName + ".client.NettyHttpClientDecorator",
       packageName + ".client.NettyResponseInjectAdapter",
@@ -107,7 +108,9 @@ public class NettyChannelPipelineInstrumentation extends Instrumenter.Default {
       // Using the specific handler key instead of the generic ChannelPipeline.class will help us
       // both to handle such cases and avoid adding our additional handlers in case of internal
       // calls of `addLast` to other method overloads with a compatible signature.
-      return CallDepthThreadLocalMap.incrementCallDepth(handler.getClass());
+      // Only the handlers we add tracing handlers for are tracked, which bounds the number of keys.
+      final Class<?> key = TracedHandlers.tracedType(handler);
+      return key == null ? 0 : CallDepthTracker.incrementCallDepth(key);
     }
 
     @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
@@ -149,7 +152,10 @@ public class NettyChannelPipelineInstrumentation extends Instrumenter.Default {
       } catch (final IllegalArgumentException e) {
         // Prevented adding duplicate handlers.
       } finally {
-        CallDepthThreadLocalMap.reset(handler.getClass());
+        final Class<?> key = TracedHandlers.tracedType(handler);
+        if (key != null) {
+          CallDepthTracker.reset(key);
+        }
       }
     }
   }
@@ -0,0 +1,36 @@
+package datadog.trace.instrumentation.netty41;
+
+import io.netty.channel.ChannelHandler;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpRequestDecoder;
+import io.netty.handler.codec.http.HttpRequestEncoder;
+import io.netty.handler.codec.http.HttpResponseDecoder;
+import io.netty.handler.codec.http.HttpResponseEncoder;
+import io.netty.handler.codec.http.HttpServerCodec;
+
+public final class TracedHandlers {
+  private TracedHandlers() {}
+
+  /**
+   * Handlers are tracked by the codec type they are traced as, rather than by their own class, so
+   * the number of call depth keys stays fixed however many handler types a pipeline uses.
+   *
+   * @return the codec type which gets a tracing handler added next to it, or null
+   */
+  public static Class<? extends ChannelHandler> tracedType(final ChannelHandler handler) {
+    if (handler instanceof HttpServerCodec) {
+      return HttpServerCodec.class;
+    } else if (handler instanceof HttpRequestDecoder) {
+      return HttpRequestDecoder.class;
+    } else if (handler instanceof HttpResponseEncoder) {
+      return HttpResponseEncoder.class;
+    } else if (handler instanceof HttpClientCodec) {
+      return HttpClientCodec.class;
+    } else if (handler instanceof HttpRequestEncoder) {
+      return HttpRequestEncoder.class;
+    } else if (handler instanceof HttpResponseDecoder) {
+      return HttpResponseDecoder.class;
+    }
+    return null;
+  }
+}
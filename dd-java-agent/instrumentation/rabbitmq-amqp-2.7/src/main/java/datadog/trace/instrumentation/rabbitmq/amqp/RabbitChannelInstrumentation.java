@@ -32,7 +32,7 @@ import com.rabbitmq.client.GetResponse;
 import com.rabbitmq.client.MessageProperties;
 import datadog.trace.agent.tooling.Instrumenter;
 import datadog.trace.api.DDTags;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan.Context;
@@ -117,7 +117,7 @@ public class RabbitChannelInstrumentation extends Instrumenter.Default {
     @Advice.OnMethodEnter
     public static AgentScope onEnter(
         @Advice.This final Channel channel, @Advice.Origin("Channel.#m") final String method) {
-      final int callDepth = CallDepthThreadLocalMap.incrementCallDepth(Channel.class);
+      final int callDepth = CallDepthTracker.incrementCallDepth(Channel.class);
       if (callDepth > 0) {
         return null;
       }
@@ -142,7 +142,7 @@ public class RabbitChannelInstrumentation extends Instrumenter.Default {
       DECORATE.onError(scope, throwable);
       DECORATE.beforeFinish(scope);
       scope.close();
-      CallDepthThreadLocalMap.reset(Channel.class);
+      CallDepthTracker.reset(Channel.class);
     }
   }
 
@@ -201,7 +201,7 @@ public class RabbitChannelInstrumentation extends Instrumenter.Default {
         @Advice.Local("placeholderScope") AgentScope placeholderScope,
         @Advice.Local("callDepth") int callDepth) {
 
-      callDepth = CallDepthThreadLocalMap.incrementCallDepth(Channel.class);
+      callDepth = CallDepthTracker.incrementCallDepth(Channel.class);
       // Don't want RabbitCommandInstrumentation to mess up our actual parent span.
       placeholderScope = activateSpan(noopSpan(), false);
       return System.currentTimeMillis();
@@ -259,7 +259,7 @@ public class RabbitChannelInstrumentation extends Instrumenter.Default {
         CONSUMER_DECORATE.beforeFinish(span);
       } finally {
         span.finish();
-        CallDepthThreadLocalMap.reset(Channel.class);
+        CallDepthTracker.reset(Channel.class);
       }
     }
   }
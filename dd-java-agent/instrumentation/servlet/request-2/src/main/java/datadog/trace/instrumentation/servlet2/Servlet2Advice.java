@@ -9,7 +9,6 @@ import static datadog.trace.instrumentation.servlet2.Servlet2Decorator.DECORATE;
 
 import datadog.trace.api.CorrelationIdentifier;
 import datadog.trace.api.DDTags;
-import datadog.trace.api.GlobalTracer;
 import datadog.trace.bootstrap.InstrumentationContext;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
@@ -62,10 +61,8 @@ public class Servlet2Advice {
     scope.setAsyncPropagation(true);
 
     httpServletRequest.setAttribute(DD_SPAN_ATTRIBUTE, span);
-    httpServletRequest.setAttribute(
-        CorrelationIdentifier.getTraceIdKey(), GlobalTracer.get().getTraceId());
-    httpServletRequest.setAttribute(
-        CorrelationIdentifier.getSpanIdKey(), GlobalTracer.get().getSpanId());
+    httpServletRequest.setAttribute(CorrelationIdentifier.getTraceIdKey(), span.getTraceId());
+    httpServletRequest.setAttribute(CorrelationIdentifier.getSpanIdKey(), span.getSpanId());
 
     return scope;
   }
@@ -12,7 +12,7 @@ import static net.bytebuddy.matcher.ElementMatchers.named;
 
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import java.util.Map;
 import javax.servlet.AsyncContext;
@@ -63,7 +63,7 @@ public final class AsyncContextInstrumentation extends Instrumenter.Default {
     @Advice.OnMethodEnter(suppress = Throwable.class)
     public static boolean enter(
         @Advice.This final AsyncContext context, @Advice.AllArguments final Object[] args) {
-      final int depth = CallDepthThreadLocalMap.incrementCallDepth(AsyncContext.class);
+      final int depth = CallDepthTracker.incrementCallDepth(AsyncContext.class);
       if (depth > 0) {
         return false;
       }
@@ -94,7 +94,7 @@ public final class AsyncContextInstrumentation extends Instrumenter.Default {
     @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
     public static void exit(@Advice.Enter final boolean topLevel) {
       if (topLevel) {
-        CallDepthThreadLocalMap.reset(AsyncContext.class);
+        CallDepthTracker.reset(AsyncContext.class);
       }
     }
   }
@@ -9,7 +9,6 @@ import static datadog.trace.instrumentation.servlet3.Servlet3Decorator.DECORATE;
 
 import datadog.trace.api.CorrelationIdentifier;
 import datadog.trace.api.DDTags;
-import datadog.trace.api.GlobalTracer;
 import datadog.trace.bootstrap.InstrumentationContext;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
@@ -57,10 +56,8 @@ public class Servlet3Advice {
     scope.setAsyncPropagation(true);
 
     httpServletRequest.setAttribute(DD_SPAN_ATTRIBUTE, span);
-    httpServletRequest.setAttribute(
-        CorrelationIdentifier.getTraceIdKey(), GlobalTracer.get().getTraceId());
-    httpServletRequest.setAttribute(
-        CorrelationIdentifier.getSpanIdKey(), GlobalTracer.get().getSpanId());
+    httpServletRequest.setAttribute(CorrelationIdentifier.getTraceIdKey(), span.getTraceId());
+    httpServletRequest.setAttribute(CorrelationIdentifier.getSpanIdKey(), span.getSpanId());
 
     return scope;
   }
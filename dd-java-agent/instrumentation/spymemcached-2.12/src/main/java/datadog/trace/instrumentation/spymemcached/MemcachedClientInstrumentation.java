@@ -8,7 +8,7 @@ import static net.bytebuddy.matcher.ElementMatchers.returns;
 
 import com.google.auto.service.AutoService;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import java.util.HashMap;
 import java.util.Map;
 import net.bytebuddy.asm.Advice;
@@ -75,7 +75,7 @@ public final class MemcachedClientInstrumentation extends Instrumenter.Default {
 
     @Advice.OnMethodEnter(suppress = Throwable.class)
     public static boolean methodEnter() {
-      return CallDepthThreadLocalMap.incrementCallDepth(MemcachedClient.class) <= 0;
+      return CallDepthTracker.incrementCallDepth(MemcachedClient.class) <= 0;
     }
 
     @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
@@ -87,7 +87,7 @@ public final class MemcachedClientInstrumentation extends Instrumenter.Default {
       if (!shouldInjectListener) {
         return;
       }
-      CallDepthThreadLocalMap.reset(MemcachedClient.class);
+      CallDepthTracker.reset(MemcachedClient.class);
       if (future != null) {
         final OperationCompletionListener listener =
             new OperationCompletionListener(client.getConnection(), methodName);
@@ -100,7 +100,7 @@ public final class MemcachedClientInstrumentation extends Instrumenter.Default {
 
     @Advice.OnMethodEnter(suppress = Throwable.class)
     public static boolean methodEnter() {
-      return CallDepthThreadLocalMap.incrementCallDepth(MemcachedClient.class) <= 0;
+      return CallDepthTracker.incrementCallDepth(MemcachedClient.class) <= 0;
     }
 
     @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
@@ -112,7 +112,7 @@ public final class MemcachedClientInstrumentation extends Instrumenter.Default {
       if (!shouldInjectListener) {
         return;
       }
-      CallDepthThreadLocalMap.reset(MemcachedClient.class);
+      CallDepthTracker.reset(MemcachedClient.class);
       if (future != null) {
         final GetCompletionListener listener =
             new GetCompletionListener(client.getConnection(), methodName);
@@ -125,7 +125,7 @@ public final class MemcachedClientInstrumentation extends Instrumenter.Default {
 
     @Advice.OnMethodEnter(suppress = Throwable.class)
     public static boolean methodEnter() {
-      return CallDepthThreadLocalMap.incrementCallDepth(MemcachedClient.class) <= 0;
+      return CallDepthTracker.incrementCallDepth(MemcachedClient.class) <= 0;
     }
 
     @Advice.OnMethodExit(onThrowable = Throwable.class, suppress = Throwable.class)
@@ -137,7 +137,7 @@ public final class MemcachedClientInstrumentation extends Instrumenter.Default {
       if (!shouldInjectListener) {
         return;
       }
-      CallDepthThreadLocalMap.reset(MemcachedClient.class);
+      CallDepthTracker.reset(MemcachedClient.class);
       if (future != null) {
         final BulkGetCompletionListener listener =
             new BulkGetCompletionListener(client.getConnection(), methodName);
@@ -151,7 +151,7 @@ public final class MemcachedClientInstrumentation extends Instrumenter.Default {
     @Advice.OnMethodEnter(suppress = Throwable.class)
     public static SyncCompletionListener methodEnter(
         @Advice.This final MemcachedClient client, @Advice.Origin("#m") final String methodName) {
-      if (CallDepthThreadLocalMap.incrementCallDepth(MemcachedClient.class) <= 0) {
+      if (CallDepthTracker.incrementCallDepth(MemcachedClient.class) <= 0) {
         return new SyncCompletionListener(client.getConnection(), methodName);
       } else {
         return null;
@@ -165,7 +165,7 @@ public final class MemcachedClientInstrumentation extends Instrumenter.Default {
       if (listener == null) {
         return;
       }
-      CallDepthThreadLocalMap.reset(MemcachedClient.class);
+      CallDepthTracker.reset(MemcachedClient.class);
       listener.done(thrown);
     }
   }
@@ -19,7 +19,7 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.twilio.Twilio;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import java.util.Map;
@@ -98,7 +98,7 @@ public class TwilioAsyncInstrumentation extends Instrumenter.Default {
       // case of async operations where we want visibility into how long the task was delayed from
       // starting. Our call depth checker does not span threads, so the async case is handled
       // automatically for us.
-      final int callDepth = CallDepthThreadLocalMap.incrementCallDepth(Twilio.class);
+      final int callDepth = CallDepthTracker.incrementCallDepth(Twilio.class);
       if (callDepth > 0) {
         return null;
       }
@@ -142,7 +142,7 @@ public class TwilioAsyncInstrumentation extends Instrumenter.Default {
         }
       } finally {
         scope.close(); // won't finish the span.
-        CallDepthThreadLocalMap.reset(Twilio.class); // reset call depth count
+        CallDepthTracker.reset(Twilio.class); // reset call depth count
       }
     }
   }
@@ -15,7 +15,7 @@ import static net.bytebuddy.matcher.ElementMatchers.not;
 import com.google.auto.service.AutoService;
 import com.twilio.Twilio;
 import datadog.trace.agent.tooling.Instrumenter;
-import datadog.trace.bootstrap.CallDepthThreadLocalMap;
+import datadog.trace.bootstrap.CallDepthTracker;
 import datadog.trace.bootstrap.instrumentation.api.AgentScope;
 import datadog.trace.bootstrap.instrumentation.api.AgentSpan;
 import java.util.Map;
@@ -94,7 +94,7 @@ public class TwilioSyncInstrumentation extends Instrumenter.Default {
       // case of async operations where we want visibility into how long the task was delayed from
       // starting. Our call depth checker does not span threads, so the async case is handled
       // automatically for us.
-      final int callDepth = CallDepthThreadLocalMap.incrementCallDepth(Twilio.class);
+      final int callDepth = CallDepthTracker.incrementCallDepth(Twilio.class);
       if (callDepth > 0) {
         return null;
       }
@@ -125,7 +125,7 @@ public class TwilioSyncInstrumentation extends Instrumenter.Default {
         DECORATE.beforeFinish(span);
       } finally {
         scope.close();
-        CallDepthThreadLocalMap.reset(Twilio.class); // reset call depth count
+        CallDepthTracker.reset(Twilio.class); // reset call depth count
       }
     }
   }
@@ -1,5 +1,7 @@
 package datadog.trace.agent.test.utils;
 
+import datadog.opentracing.DDTracer;
+import datadog.trace.agent.tooling.DDTracerAPI;
 import datadog.trace.agent.tooling.OpenTracing32;
 import datadog.trace.bootstrap.instrumentation.api.AgentTracer;
 import io.opentracing.Tracer;
@@ -10,7 +12,8 @@ public class GlobalTracerUtils {
   public static void registerOrReplaceGlobalTracer(final Tracer tracer) {
     try {
       GlobalTracer.register(tracer);
-      AgentTracer.registerIfAbsent(new OpenTracing32());
+      AgentTracer.registerIfAbsent(
+          tracer instanceof DDTracer ? new DDTracerAPI((DDTracer) tracer) : new OpenTracing32());
     } catch (final Exception e) {
       // Force it anyway using reflection
       Field field = null;
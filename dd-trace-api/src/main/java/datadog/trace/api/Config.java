@@ -88,9 +88,14 @@ public class Config {
   public static final String HTTP_CLIENT_TAG_QUERY_STRING = "http.client.tag.query-string";
   public static final String HTTP_CLIENT_HOST_SPLIT_BY_DOMAIN = "trace.http.client.split-by-domain";
   public static final String DB_CLIENT_HOST_SPLIT_BY_INSTANCE = "trace.db.client.split-by-instance";
+  public static final String DB_CLIENT_NORMALIZE_SQL = "trace.db.client.normalize-sql";
+  public static final String KAFKA_CONSUMER_BATCH_ENABLED = "kafka.consumer.batch.enabled";
+  public static final String KAFKA_CONSUMER_BATCH_RECORD_SPAN_INTERVAL =
+      "kafka.consumer.batch.record-span-interval";
   public static final String SPLIT_BY_TAGS = "trace.split-by-tags";
   public static final String SCOPE_DEPTH_LIMIT = "trace.scope.depth.limit";
   public static final String PARTIAL_FLUSH_MIN_SPANS = "trace.partial.flush.min.spans";
+  public static final String TRACE_COMPLETION_OFFLOAD = "trace.completion.offload.enabled";
   public static final String RUNTIME_CONTEXT_FIELD_INJECTION =
       "trace.runtime.context.field.injection";
   public static final String PROPAGATION_STYLE_EXTRACT = "propagation.style.extract";
@@ -108,6 +113,9 @@ public class Config {
   public static final String HEALTH_METRICS_ENABLED = "trace.health.metrics.enabled";
   public static final String HEALTH_METRICS_STATSD_HOST = "trace.health.metrics.statsd.host";
   public static final String HEALTH_METRICS_STATSD_PORT = "trace.health.metrics.statsd.port";
+  public static final String HEALTH_METRICS_AGGREGATION_INTERVAL =
+      "trace.health.metrics.aggregation.interval";
+  public static final String HEALTH_METRICS_JMX_ENABLED = "trace.health.metrics.jmx.enabled";
 
   public static final String LOGS_INJECTION_ENABLED = "logs.injection";
 
@@ -133,6 +141,21 @@ public class Config {
       "profiling.jfr-template-override-file";
   public static final String PROFILING_UPLOAD_TIMEOUT = "profiling.upload.timeout";
   public static final String PROFILING_UPLOAD_COMPRESSION = "profiling.upload.compression";
+  public static final String PROFILING_UPLOAD_STREAMING = "profiling.upload.streaming";
+  public static final String PROFILING_UPLOAD_SPOOL_ENABLED = "profiling.upload.spool.enabled";
+  public static final String PROFILING_UPLOAD_SPOOL_MAX_SIZE = "profiling.upload.spool.max-size";
+  public static final String PROFILING_UPLOAD_SPOOL_MAX_AGE = "profiling.upload.spool.max-age";
+  public static final String PROFILING_UPLOAD_COMPRESSION_LEVEL =
+      "profiling.upload.compression.level";
+  public static final String PROFILING_UPLOAD_COMPRESSION_THREADS =
+      "profiling.upload.compression.threads";
+  public static final String PROFILING_SPAN_ACTIVATION_THRESHOLD =
+      "profiling.span-activation.threshold";
+  public static final String PROFILING_GOVERNOR_ENABLED = "profiling.governor.enabled";
+  public static final String PROFILING_GOVERNOR_MAX_SIZE = "profiling.governor.max-size";
+  public static final String PROFILING_GOVERNOR_MAX_THRESHOLD = "profiling.governor.max-threshold";
+  public static final String PROFILING_GOVERNOR_MAX_PERIOD = "profiling.governor.max-period";
+  public static final String PROFILING_AGGREGATION_ENABLED = "profiling.aggregation.enabled";
   public static final String PROFILING_PROXY_HOST = "profiling.proxy.host";
   public static final String PROFILING_PROXY_PORT = "profiling.proxy.port";
   public static final String PROFILING_PROXY_USERNAME = "profiling.proxy.username";
@@ -169,9 +192,13 @@ public class Config {
   private static final boolean DEFAULT_HTTP_CLIENT_TAG_QUERY_STRING = false;
   private static final boolean DEFAULT_HTTP_CLIENT_SPLIT_BY_DOMAIN = false;
   private static final boolean DEFAULT_DB_CLIENT_HOST_SPLIT_BY_INSTANCE = false;
+  private static final boolean DEFAULT_DB_CLIENT_NORMALIZE_SQL = false;
+  private static final boolean DEFAULT_KAFKA_CONSUMER_BATCH_ENABLED = false;
+  private static final int DEFAULT_KAFKA_CONSUMER_BATCH_RECORD_SPAN_INTERVAL = 0;
   private static final String DEFAULT_SPLIT_BY_TAGS = "";
   private static final int DEFAULT_SCOPE_DEPTH_LIMIT = 100;
   private static final int DEFAULT_PARTIAL_FLUSH_MIN_SPANS = 1000;
+  private static final boolean DEFAULT_TRACE_COMPLETION_OFFLOAD = false;
   private static final String DEFAULT_PROPAGATION_STYLE_EXTRACT = PropagationStyle.DATADOG.name();
   private static final String DEFAULT_PROPAGATION_STYLE_INJECT = PropagationStyle.DATADOG.name();
   private static final boolean DEFAULT_JMX_FETCH_ENABLED = true;
@@ -179,6 +206,8 @@ public class Config {
   public static final int DEFAULT_JMX_FETCH_STATSD_PORT = 8125;
 
   public static final boolean DEFAULT_METRICS_ENABLED = false;
+  public static final int DEFAULT_HEALTH_METRICS_AGGREGATION_INTERVAL = 0; // seconds, disabled
+  public static final boolean DEFAULT_HEALTH_METRICS_JMX_ENABLED = false;
   // No default constants for metrics statsd support -- falls back to jmxfetch values
 
   public static final boolean DEFAULT_LOGS_INJECTION_ENABLED = false;
@@ -189,6 +218,17 @@ public class Config {
   public static final int DEFAULT_PROFILING_UPLOAD_PERIOD = 60; // 1 min
   public static final int DEFAULT_PROFILING_UPLOAD_TIMEOUT = 30; // seconds
   public static final String DEFAULT_PROFILING_UPLOAD_COMPRESSION = "on";
+  public static final boolean DEFAULT_PROFILING_UPLOAD_STREAMING = false;
+  public static final boolean DEFAULT_PROFILING_UPLOAD_SPOOL_ENABLED = false;
+  public static final int DEFAULT_PROFILING_UPLOAD_SPOOL_MAX_SIZE = 64 * 1024 * 1024; // bytes
+  public static final int DEFAULT_PROFILING_UPLOAD_SPOOL_MAX_AGE = 600; // seconds
+  public static final int DEFAULT_PROFILING_UPLOAD_COMPRESSION_LEVEL = -1; // compressor default
+  public static final int DEFAULT_PROFILING_UPLOAD_COMPRESSION_THREADS = 1;
+  public static final boolean DEFAULT_PROFILING_GOVERNOR_ENABLED = false;
+  public static final int DEFAULT_PROFILING_GOVERNOR_MAX_SIZE = 16 * 1024 * 1024; // bytes
+  public static final int DEFAULT_PROFILING_GOVERNOR_MAX_THRESHOLD = 100; // ms
+  public static final int DEFAULT_PROFILING_GOVERNOR_MAX_PERIOD = 100; // ms
+  public static final boolean DEFAULT_PROFILING_AGGREGATION_ENABLED = false;
   public static final int DEFAULT_PROFILING_PROXY_PORT = 8080;
 
   private static final String SPLIT_BY_SPACE_OR_COMMA_REGEX = "[,\\s]+";
@@ -262,9 +302,14 @@ public class Config {
   @Getter private final boolean httpClientTagQueryString;
   @Getter private final boolean httpClientSplitByDomain;
   @Getter private final boolean dbClientSplitByInstance;
+  @Getter private final boolean dbClientNormalizeSql;
+  @Getter private final boolean kafkaConsumerBatchEnabled;
+  /** Every n-th record of a batch gets its own span, 0 disables record spans in batch mode */
+  @Getter private final Integer kafkaConsumerBatchRecordSpanInterval;
   @Getter private final Set<String> splitByTags;
   @Getter private final Integer scopeDepthLimit;
   @Getter private final Integer partialFlushMinSpans;
+  @Getter private final boolean traceCompletionOffload;
   @Getter private final boolean runtimeContextFieldInjection;
   @Getter private final Set<PropagationStyle> propagationStylesToExtract;
   @Getter private final Set<PropagationStyle> propagationStylesToInject;
@@ -282,6 +327,8 @@ public class Config {
   @Getter private final boolean healthMetricsEnabled;
   @Getter private final String healthMetricsStatsdHost;
   @Getter private final Integer healthMetricsStatsdPort;
+  @Getter private final int healthMetricsAggregationInterval;
+  @Getter private final boolean healthMetricsJmxEnabled;
 
   @Getter private final boolean logsInjectionEnabled;
   @Getter private final boolean reportHostName;
@@ -309,6 +356,18 @@ public class Config {
   @Getter private final String profilingTemplateOverrideFile;
   @Getter private final int profilingUploadTimeout;
   @Getter private final String profilingUploadCompression;
+  @Getter private final boolean profilingUploadStreaming;
+  @Getter private final boolean profilingUploadSpoolEnabled;
+  @Getter private final int profilingUploadSpoolMaxSize;
+  @Getter private final int profilingUploadSpoolMaxAge;
+  @Getter private final int profilingUploadCompressionLevel;
+  @Getter private final int profilingUploadCompressionThreads;
+  @Getter private final Integer profilingSpanActivationThreshold;
+  @Getter private final boolean profilingGovernorEnabled;
+  @Getter private final int profilingGovernorMaxSize;
+  @Getter private final int profilingGovernorMaxThreshold;
+  @Getter private final int profilingGovernorMaxPeriod;
+  @Getter private final boolean profilingAggregationEnabled;
   @Getter private final String profilingProxyHost;
   @Getter private final int profilingProxyPort;
   @Getter private final String profilingProxyUsername;
@@ -389,6 +448,17 @@ public class Config {
         getBooleanSettingFromEnvironment(
             DB_CLIENT_HOST_SPLIT_BY_INSTANCE, DEFAULT_DB_CLIENT_HOST_SPLIT_BY_INSTANCE);
 
+    dbClientNormalizeSql =
+        getBooleanSettingFromEnvironment(DB_CLIENT_NORMALIZE_SQL, DEFAULT_DB_CLIENT_NORMALIZE_SQL);
+
+    kafkaConsumerBatchEnabled =
+        getBooleanSettingFromEnvironment(
+            KAFKA_CONSUMER_BATCH_ENABLED, DEFAULT_KAFKA_CONSUMER_BATCH_ENABLED);
+    kafkaConsumerBatchRecordSpanInterval =
+        getIntegerSettingFromEnvironment(
+            KAFKA_CONSUMER_BATCH_RECORD_SPAN_INTERVAL,
+            DEFAULT_KAFKA_CONSUMER_BATCH_RECORD_SPAN_INTERVAL);
+
     splitByTags =
         Collections.unmodifiableSet(
             new LinkedHashSet<>(
@@ -400,6 +470,10 @@ public class Config {
     partialFlushMinSpans =
         getIntegerSettingFromEnvironment(PARTIAL_FLUSH_MIN_SPANS, DEFAULT_PARTIAL_FLUSH_MIN_SPANS);
 
+    traceCompletionOffload =
+        getBooleanSettingFromEnvironment(
+            TRACE_COMPLETION_OFFLOAD, DEFAULT_TRACE_COMPLETION_OFFLOAD);
+
     runtimeContextFieldInjection =
         getBooleanSettingFromEnvironment(
             RUNTIME_CONTEXT_FIELD_INJECTION, DEFAULT_RUNTIME_CONTEXT_FIELD_INJECTION);
@@ -434,6 +508,12 @@ public class Config {
         getBooleanSettingFromEnvironment(HEALTH_METRICS_ENABLED, DEFAULT_METRICS_ENABLED);
     healthMetricsStatsdHost = getSettingFromEnvironment(HEALTH_METRICS_STATSD_HOST, null);
     healthMetricsStatsdPort = getIntegerSettingFromEnvironment(HEALTH_METRICS_STATSD_PORT, null);
+    healthMetricsAggregationInterval =
+        getIntegerSettingFromEnvironment(
+            HEALTH_METRICS_AGGREGATION_INTERVAL, DEFAULT_HEALTH_METRICS_AGGREGATION_INTERVAL);
+    healthMetricsJmxEnabled =
+        getBooleanSettingFromEnvironment(
+            HEALTH_METRICS_JMX_ENABLED, DEFAULT_HEALTH_METRICS_JMX_ENABLED);
 
     logsInjectionEnabled =
         getBooleanSettingFromEnvironment(LOGS_INJECTION_ENABLED, DEFAULT_LOGS_INJECTION_ENABLED);
@@ -510,6 +590,41 @@ public class Config {
     profilingUploadCompression =
         getSettingFromEnvironment(
             PROFILING_UPLOAD_COMPRESSION, DEFAULT_PROFILING_UPLOAD_COMPRESSION);
+    profilingUploadStreaming =
+        getBooleanSettingFromEnvironment(
+            PROFILING_UPLOAD_STREAMING, DEFAULT_PROFILING_UPLOAD_STREAMING);
+    profilingUploadSpoolEnabled =
+        getBooleanSettingFromEnvironment(
+            PROFILING_UPLOAD_SPOOL_ENABLED, DEFAULT_PROFILING_UPLOAD_SPOOL_ENABLED);
+    profilingUploadSpoolMaxSize =
+        getIntegerSettingFromEnvironment(
+            PROFILING_UPLOAD_SPOOL_MAX_SIZE, DEFAULT_PROFILING_UPLOAD_SPOOL_MAX_SIZE);
+    profilingUploadSpoolMaxAge =
+        getIntegerSettingFromEnvironment(
+            PROFILING_UPLOAD_SPOOL_MAX_AGE, DEFAULT_PROFILING_UPLOAD_SPOOL_MAX_AGE);
+    profilingUploadCompressionLevel =
+        getIntegerSettingFromEnvironment(
+            PROFILING_UPLOAD_COMPRESSION_LEVEL, DEFAULT_PROFILING_UPLOAD_COMPRESSION_LEVEL);
+    profilingUploadCompressionThreads =
+        getIntegerSettingFromEnvironment(
+            PROFILING_UPLOAD_COMPRESSION_THREADS, DEFAULT_PROFILING_UPLOAD_COMPRESSION_THREADS);
+    profilingSpanActivationThreshold =
+        getIntegerSettingFromEnvironment(PROFILING_SPAN_ACTIVATION_THRESHOLD, null);
+    profilingGovernorEnabled =
+        getBooleanSettingFromEnvironment(
+            PROFILING_GOVERNOR_ENABLED, DEFAULT_PROFILING_GOVERNOR_ENABLED);
+    profilingGovernorMaxSize =
+        getIntegerSettingFromEnvironment(
+            PROFILING_GOVERNOR_MAX_SIZE, DEFAULT_PROFILING_GOVERNOR_MAX_SIZE);
+    profilingGovernorMaxThreshold =
+        getIntegerSettingFromEnvironment(
+            PROFILING_GOVERNOR_MAX_THRESHOLD, DEFAULT_PROFILING_GOVERNOR_MAX_THRESHOLD);
+    profilingGovernorMaxPeriod =
+        getIntegerSettingFromEnvironment(
+            PROFILING_GOVERNOR_MAX_PERIOD, DEFAULT_PROFILING_GOVERNOR_MAX_PERIOD);
+    profilingAggregationEnabled =
+        getBooleanSettingFromEnvironment(
+            PROFILING_AGGREGATION_ENABLED, DEFAULT_PROFILING_AGGREGATION_ENABLED);
     profilingProxyHost = getSettingFromEnvironment(PROFILING_PROXY_HOST, null);
     profilingProxyPort =
         getIntegerSettingFromEnvironment(PROFILING_PROXY_PORT, DEFAULT_PROFILING_PROXY_PORT);
@@ -580,6 +695,18 @@ public class Config {
         getPropertyBooleanValue(
             properties, DB_CLIENT_HOST_SPLIT_BY_INSTANCE, parent.dbClientSplitByInstance);
 
+    dbClientNormalizeSql =
+        getPropertyBooleanValue(properties, DB_CLIENT_NORMALIZE_SQL, parent.dbClientNormalizeSql);
+
+    kafkaConsumerBatchEnabled =
+        getPropertyBooleanValue(
+            properties, KAFKA_CONSUMER_BATCH_ENABLED, parent.kafkaConsumerBatchEnabled);
+    kafkaConsumerBatchRecordSpanInterval =
+        getPropertyIntegerValue(
+            properties,
+            KAFKA_CONSUMER_BATCH_RECORD_SPAN_INTERVAL,
+            parent.kafkaConsumerBatchRecordSpanInterval);
+
     splitByTags =
         Collections.unmodifiableSet(
             new LinkedHashSet<>(
@@ -592,6 +719,10 @@ public class Config {
     partialFlushMinSpans =
         getPropertyIntegerValue(properties, PARTIAL_FLUSH_MIN_SPANS, parent.partialFlushMinSpans);
 
+    traceCompletionOffload =
+        getPropertyBooleanValue(
+            properties, TRACE_COMPLETION_OFFLOAD, parent.traceCompletionOffload);
+
     runtimeContextFieldInjection =
         getPropertyBooleanValue(
             properties, RUNTIME_CONTEXT_FIELD_INJECTION, parent.runtimeContextFieldInjection);
@@ -631,6 +762,14 @@ public class Config {
     healthMetricsStatsdPort =
         getPropertyIntegerValue(
             properties, HEALTH_METRICS_STATSD_PORT, parent.healthMetricsStatsdPort);
+    healthMetricsAggregationInterval =
+        getPropertyIntegerValue(
+            properties,
+            HEALTH_METRICS_AGGREGATION_INTERVAL,
+            parent.healthMetricsAggregationInterval);
+    healthMetricsJmxEnabled =
+        getPropertyBooleanValue(
+            properties, HEALTH_METRICS_JMX_ENABLED, parent.healthMetricsJmxEnabled);
 
     logsInjectionEnabled =
         getBooleanSettingFromEnvironment(LOGS_INJECTION_ENABLED, DEFAULT_LOGS_INJECTION_ENABLED);
@@ -676,6 +815,46 @@ public class Config {
             properties, PROFILING_UPLOAD_TIMEOUT, parent.profilingUploadTimeout);
     profilingUploadCompression =
         properties.getProperty(PROFILING_UPLOAD_COMPRESSION, parent.profilingUploadCompression);
+    profilingUploadStreaming =
+        getPropertyBooleanValue(
+            properties, PROFILING_UPLOAD_STREAMING, parent.profilingUploadStreaming);
+    profilingUploadSpoolEnabled =
+        getPropertyBooleanValue(
+            properties, PROFILING_UPLOAD_SPOOL_ENABLED, parent.profilingUploadSpoolEnabled);
+    profilingUploadSpoolMaxSize =
+        getPropertyIntegerValue(
+            properties, PROFILING_UPLOAD_SPOOL_MAX_SIZE, parent.profilingUploadSpoolMaxSize);
+    profilingUploadSpoolMaxAge =
+        getPropertyIntegerValue(
+            properties, PROFILING_UPLOAD_SPOOL_MAX_AGE, parent.profilingUploadSpoolMaxAge);
+    profilingUploadCompressionLevel =
+        getPropertyIntegerValue(
+            properties, PROFILING_UPLOAD_COMPRESSION_LEVEL, parent.profilingUploadCompressionLevel);
+    profilingUploadCompressionThreads =
+        getPropertyIntegerValue(
+            properties,
+            PROFILING_UPLOAD_COMPRESSION_THREADS,
+            parent.profilingUploadCompressionThreads);
+    profilingSpanActivationThreshold =
+        getPropertyIntegerValue(
+            properties,
+            PROFILING_SPAN_ACTIVATION_THRESHOLD,
+            parent.profilingSpanActivationThreshold);
+    profilingGovernorEnabled =
+        getPropertyBooleanValue(
+            properties, PROFILING_GOVERNOR_ENABLED, parent.profilingGovernorEnabled);
+    profilingGovernorMaxSize =
+        getPropertyIntegerValue(
+            properties, PROFILING_GOVERNOR_MAX_SIZE, parent.profilingGovernorMaxSize);
+    profilingGovernorMaxThreshold =
+        getPropertyIntegerValue(
+            properties, PROFILING_GOVERNOR_MAX_THRESHOLD, parent.profilingGovernorMaxThreshold);
+    profilingGovernorMaxPeriod =
+        getPropertyIntegerValue(
+            properties, PROFILING_GOVERNOR_MAX_PERIOD, parent.profilingGovernorMaxPeriod);
+    profilingAggregationEnabled =
+        getPropertyBooleanValue(
+            properties, PROFILING_AGGREGATION_ENABLED, parent.profilingAggregationEnabled);
     profilingProxyHost = properties.getProperty(PROFILING_PROXY_HOST, parent.profilingProxyHost);
     profilingProxyPort =
         getPropertyIntegerValue(properties, PROFILING_PROXY_PORT, parent.profilingProxyPort);
@@ -10,6 +10,11 @@ public interface ScopeListener {
    */
   void afterScopeActivated();
 
-  /** Called just after a scope is closed. */
+  /**
+   * Called just after a scope is closed.
+   *
+   * <p>The scope restored by the close, if any, is already active when this is called and is
+   * reported through {@link #afterScopeActivated()} right after.
+   */
   void afterScopeClosed();
 }
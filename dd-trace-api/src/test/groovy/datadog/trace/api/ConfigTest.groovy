@@ -12,10 +12,13 @@ import static datadog.trace.api.Config.API_KEY
 import static datadog.trace.api.Config.API_KEY_FILE
 import static datadog.trace.api.Config.CONFIGURATION_FILE
 import static datadog.trace.api.Config.DB_CLIENT_HOST_SPLIT_BY_INSTANCE
+import static datadog.trace.api.Config.DB_CLIENT_NORMALIZE_SQL
 import static datadog.trace.api.Config.DEFAULT_JMX_FETCH_STATSD_PORT
 import static datadog.trace.api.Config.GLOBAL_TAGS
 import static datadog.trace.api.Config.HEADER_TAGS
+import static datadog.trace.api.Config.HEALTH_METRICS_AGGREGATION_INTERVAL
 import static datadog.trace.api.Config.HEALTH_METRICS_ENABLED
+import static datadog.trace.api.Config.HEALTH_METRICS_JMX_ENABLED
 import static datadog.trace.api.Config.HEALTH_METRICS_STATSD_HOST
 import static datadog.trace.api.Config.HEALTH_METRICS_STATSD_PORT
 import static datadog.trace.api.Config.HOST_TAG
@@ -29,24 +32,38 @@ import static datadog.trace.api.Config.JMX_FETCH_REFRESH_BEANS_PERIOD
 import static datadog.trace.api.Config.JMX_FETCH_STATSD_HOST
 import static datadog.trace.api.Config.JMX_FETCH_STATSD_PORT
 import static datadog.trace.api.Config.JMX_TAGS
+import static datadog.trace.api.Config.KAFKA_CONSUMER_BATCH_ENABLED
+import static datadog.trace.api.Config.KAFKA_CONSUMER_BATCH_RECORD_SPAN_INTERVAL
 import static datadog.trace.api.Config.LANGUAGE_TAG_KEY
 import static datadog.trace.api.Config.LANGUAGE_TAG_VALUE
 import static datadog.trace.api.Config.PARTIAL_FLUSH_MIN_SPANS
 import static datadog.trace.api.Config.PREFIX
 import static datadog.trace.api.Config.PRIORITY_SAMPLING
+import static datadog.trace.api.Config.PROFILING_AGGREGATION_ENABLED
 import static datadog.trace.api.Config.PROFILING_API_KEY_FILE_OLD
 import static datadog.trace.api.Config.PROFILING_API_KEY_FILE_VERY_OLD
 import static datadog.trace.api.Config.PROFILING_ENABLED
+import static datadog.trace.api.Config.PROFILING_GOVERNOR_ENABLED
+import static datadog.trace.api.Config.PROFILING_GOVERNOR_MAX_PERIOD
+import static datadog.trace.api.Config.PROFILING_GOVERNOR_MAX_SIZE
+import static datadog.trace.api.Config.PROFILING_GOVERNOR_MAX_THRESHOLD
 import static datadog.trace.api.Config.PROFILING_PROXY_HOST
 import static datadog.trace.api.Config.PROFILING_PROXY_PASSWORD
 import static datadog.trace.api.Config.PROFILING_PROXY_PORT
 import static datadog.trace.api.Config.PROFILING_PROXY_USERNAME
+import static datadog.trace.api.Config.PROFILING_SPAN_ACTIVATION_THRESHOLD
 import static datadog.trace.api.Config.PROFILING_START_DELAY
 import static datadog.trace.api.Config.PROFILING_START_FORCE_FIRST
 import static datadog.trace.api.Config.PROFILING_TAGS
 import static datadog.trace.api.Config.PROFILING_TEMPLATE_OVERRIDE_FILE
 import static datadog.trace.api.Config.PROFILING_UPLOAD_COMPRESSION
+import static datadog.trace.api.Config.PROFILING_UPLOAD_COMPRESSION_LEVEL
+import static datadog.trace.api.Config.PROFILING_UPLOAD_COMPRESSION_THREADS
 import static datadog.trace.api.Config.PROFILING_UPLOAD_PERIOD
+import static datadog.trace.api.Config.PROFILING_UPLOAD_SPOOL_ENABLED
+import static datadog.trace.api.Config.PROFILING_UPLOAD_SPOOL_MAX_AGE
+import static datadog.trace.api.Config.PROFILING_UPLOAD_SPOOL_MAX_SIZE
+import static datadog.trace.api.Config.PROFILING_UPLOAD_STREAMING
 import static datadog.trace.api.Config.PROFILING_UPLOAD_TIMEOUT
 import static datadog.trace.api.Config.PROFILING_URL
 import static datadog.trace.api.Config.PROPAGATION_STYLE_EXTRACT
@@ -61,6 +78,7 @@ import static datadog.trace.api.Config.SPAN_TAGS
 import static datadog.trace.api.Config.SPLIT_BY_TAGS
 import static datadog.trace.api.Config.TAGS
 import static datadog.trace.api.Config.TRACE_AGENT_PORT
+import static datadog.trace.api.Config.TRACE_COMPLETION_OFFLOAD
 import static datadog.trace.api.Config.TRACE_ENABLED
 import static datadog.trace.api.Config.TRACE_RATE_LIMIT
 import static datadog.trace.api.Config.TRACE_REPORT_HOSTNAME
@@ -121,8 +139,12 @@ class ConfigTest extends DDSpecification {
     config.httpClientErrorStatuses == (400..499).toSet()
     config.httpClientSplitByDomain == false
     config.dbClientSplitByInstance == false
+    config.dbClientNormalizeSql == false
+    config.kafkaConsumerBatchEnabled == false
+    config.kafkaConsumerBatchRecordSpanInterval == 0
     config.splitByTags == [].toSet()
     config.partialFlushMinSpans == 1000
+    config.traceCompletionOffload == false
     config.reportHostName == false
     config.runtimeContextFieldInjection == true
     config.propagationStylesToExtract.toList() == [Config.PropagationStyle.DATADOG]
@@ -137,6 +159,8 @@ class ConfigTest extends DDSpecification {
     config.healthMetricsEnabled == false
     config.healthMetricsStatsdHost == null
     config.healthMetricsStatsdPort == null
+    config.healthMetricsAggregationInterval == 0
+    config.healthMetricsJmxEnabled == false
 
     config.profilingEnabled == false
     config.profilingUrl == null
@@ -146,6 +170,18 @@ class ConfigTest extends DDSpecification {
     config.profilingUploadPeriod == 60
     config.profilingTemplateOverrideFile == null
     config.profilingUploadTimeout == 30
+    config.profilingUploadStreaming == false
+    config.profilingUploadSpoolEnabled == false
+    config.profilingUploadSpoolMaxSize == 64 * 1024 * 1024
+    config.profilingUploadSpoolMaxAge == 600
+    config.profilingUploadCompressionLevel == -1
+    config.profilingUploadCompressionThreads == 1
+    config.profilingSpanActivationThreshold == null
+    config.profilingGovernorEnabled == false
+    config.profilingGovernorMaxSize == 16 * 1024 * 1024
+    config.profilingGovernorMaxThreshold == 100
+    config.profilingGovernorMaxPeriod == 100
+    config.profilingAggregationEnabled == false
     config.profilingProxyHost == null
     config.profilingProxyPort == Config.DEFAULT_PROFILING_PROXY_PORT
     config.profilingProxyUsername == null
@@ -184,8 +220,12 @@ class ConfigTest extends DDSpecification {
     prop.setProperty(HTTP_CLIENT_ERROR_STATUSES, "111")
     prop.setProperty(HTTP_CLIENT_HOST_SPLIT_BY_DOMAIN, "true")
     prop.setProperty(DB_CLIENT_HOST_SPLIT_BY_INSTANCE, "true")
+    prop.setProperty(DB_CLIENT_NORMALIZE_SQL, "true")
+    prop.setProperty(KAFKA_CONSUMER_BATCH_ENABLED, "true")
+    prop.setProperty(KAFKA_CONSUMER_BATCH_RECORD_SPAN_INTERVAL, "100")
     prop.setProperty(SPLIT_BY_TAGS, "some.tag1,some.tag2,some.tag1")
     prop.setProperty(PARTIAL_FLUSH_MIN_SPANS, "15")
+    prop.setProperty(TRACE_COMPLETION_OFFLOAD, "true")
     prop.setProperty(TRACE_REPORT_HOSTNAME, "true")
     prop.setProperty(RUNTIME_CONTEXT_FIELD_INJECTION, "false")
     prop.setProperty(PROPAGATION_STYLE_EXTRACT, "Datadog, B3")
@@ -199,6 +239,8 @@ class ConfigTest extends DDSpecification {
     prop.setProperty(HEALTH_METRICS_ENABLED, "true")
     prop.setProperty(HEALTH_METRICS_STATSD_HOST, "metrics statsd host")
     prop.setProperty(HEALTH_METRICS_STATSD_PORT, "654")
+    prop.setProperty(HEALTH_METRICS_AGGREGATION_INTERVAL, "10")
+    prop.setProperty(HEALTH_METRICS_JMX_ENABLED, "true")
     prop.setProperty(TRACE_SAMPLING_SERVICE_RULES, "a:1")
     prop.setProperty(TRACE_SAMPLING_OPERATION_RULES, "b:1")
     prop.setProperty(TRACE_SAMPLE_RATE, ".5")
@@ -213,6 +255,18 @@ class ConfigTest extends DDSpecification {
     prop.setProperty(PROFILING_TEMPLATE_OVERRIDE_FILE, "/path")
     prop.setProperty(PROFILING_UPLOAD_TIMEOUT, "1116")
     prop.setProperty(PROFILING_UPLOAD_COMPRESSION, "off")
+    prop.setProperty(PROFILING_UPLOAD_STREAMING, "true")
+    prop.setProperty(PROFILING_UPLOAD_SPOOL_ENABLED, "true")
+    prop.setProperty(PROFILING_UPLOAD_SPOOL_MAX_SIZE, "1024")
+    prop.setProperty(PROFILING_UPLOAD_SPOOL_MAX_AGE, "30")
+    prop.setProperty(PROFILING_UPLOAD_COMPRESSION_LEVEL, "6")
+    prop.setProperty(PROFILING_UPLOAD_COMPRESSION_THREADS, "4")
+    prop.setProperty(PROFILING_SPAN_ACTIVATION_THRESHOLD, "5")
+    prop.setProperty(PROFILING_GOVERNOR_ENABLED, "true")
+    prop.setProperty(PROFILING_GOVERNOR_MAX_SIZE, "2048")
+    prop.setProperty(PROFILING_GOVERNOR_MAX_THRESHOLD, "50")
+    prop.setProperty(PROFILING_GOVERNOR_MAX_PERIOD, "200")
+    prop.setProperty(PROFILING_AGGREGATION_ENABLED, "true")
     prop.setProperty(PROFILING_PROXY_HOST, "proxy-host")
     prop.setProperty(PROFILING_PROXY_PORT, "1118")
     prop.setProperty(PROFILING_PROXY_USERNAME, "proxy-username")
@@ -240,8 +294,12 @@ class ConfigTest extends DDSpecification {
     config.httpClientErrorStatuses == (111..111).toSet()
     config.httpClientSplitByDomain == true
     config.dbClientSplitByInstance == true
+    config.dbClientNormalizeSql == true
+    config.kafkaConsumerBatchEnabled == true
+    config.kafkaConsumerBatchRecordSpanInterval == 100
     config.splitByTags == ["some.tag1", "some.tag2"].toSet()
     config.partialFlushMinSpans == 15
+    config.traceCompletionOffload == true
     config.reportHostName == true
     config.runtimeContextFieldInjection == false
     config.propagationStylesToExtract.toList() == [Config.PropagationStyle.DATADOG, Config.PropagationStyle.B3]
@@ -256,6 +314,8 @@ class ConfigTest extends DDSpecification {
     config.healthMetricsEnabled == true
     config.healthMetricsStatsdHost == "metrics statsd host"
     config.healthMetricsStatsdPort == 654
+    config.healthMetricsAggregationInterval == 10
+    config.healthMetricsJmxEnabled == true
     config.traceSamplingServiceRules == [a: "1"]
     config.traceSamplingOperationRules == [b: "1"]
     config.traceSampleRate == 0.5
@@ -270,6 +330,18 @@ class ConfigTest extends DDSpecification {
     config.profilingUploadCompression == "off"
     config.profilingTemplateOverrideFile == "/path"
     config.profilingUploadTimeout == 1116
+    config.profilingUploadStreaming == true
+    config.profilingUploadSpoolEnabled == true
+    config.profilingUploadSpoolMaxSize == 1024
+    config.profilingUploadSpoolMaxAge == 30
+    config.profilingUploadCompressionLevel == 6
+    config.profilingUploadCompressionThreads == 4
+    config.profilingSpanActivationThreshold == 5
+    config.profilingGovernorEnabled == true
+    config.profilingGovernorMaxSize == 2048
+    config.profilingGovernorMaxThreshold == 50
+    config.profilingGovernorMaxPeriod == 200
+    config.profilingAggregationEnabled == true
     config.profilingProxyHost == "proxy-host"
     config.profilingProxyPort == 1118
     config.profilingProxyUsername == "proxy-username"
@@ -6,20 +6,29 @@ import datadog.opentracing.jfr.DDScopeEvent;
 import datadog.opentracing.jfr.DDScopeEventFactory;
 import jdk.jfr.EventType;
 
-/** Event factory for {@link ScopeEvent} */
+/** Event factory for {@link ScopeEvent} and {@link SpanActivationEvent} */
 public class ScopeEventFactory implements DDScopeEventFactory {
 
   private final EventType eventType;
+  private final EventType activationEventType;
 
   public ScopeEventFactory() throws ClassNotFoundException {
     BlackList.checkBlackList();
     // Note: Loading ScopeEvent when ScopeEventFactory is loaded is important because it also loads
     // JFR classes - which may not be present on some JVMs
     eventType = EventType.getEventType(ScopeEvent.class);
+    activationEventType = EventType.getEventType(SpanActivationEvent.class);
   }
 
   @Override
   public DDScopeEvent create(final DDSpanContext context) {
     return eventType.isEnabled() ? new ScopeEvent(context) : DDNoopScopeEvent.INSTANCE;
   }
+
+  @Override
+  public DDScopeEvent createActivation(final DDSpanContext context) {
+    return activationEventType.isEnabled()
+        ? new SpanActivationEvent(context)
+        : DDNoopScopeEvent.INSTANCE;
+  }
 }
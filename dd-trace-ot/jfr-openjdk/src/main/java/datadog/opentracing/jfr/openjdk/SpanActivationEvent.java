@@ -0,0 +1,65 @@
+package datadog.opentracing.jfr.openjdk;
+
+import datadog.opentracing.DDSpan;
+import datadog.opentracing.DDSpanContext;
+import datadog.opentracing.jfr.DDScopeEvent;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Covers the time a scope of a span is open on a thread. The events of scopes activated on top of
+ * another one are nested in its event, so an execution sample of the thread belongs to the span of
+ * the innermost event containing it. Activations shorter than the threshold are not committed and
+ * their samples go to the enclosing span. The ids are the unsigned 64 bit ids stored as longs, to
+ * avoid formatting them on the application thread.
+ *
+ * <p>The event is disabled unless the recording settings enable it, since recordings which don't
+ * set a threshold would record every activation.
+ */
+@Name("datadog.SpanActivation")
+@Label("Span Activation")
+@Description("Datadog event corresponding to a span being active on a thread.")
+@Category("Datadog")
+@StackTrace(false)
+@Enabled(false)
+public final class SpanActivationEvent extends Event implements DDScopeEvent {
+
+  private final transient DDSpanContext spanContext;
+
+  @Label("Trace Id")
+  private long traceId;
+
+  @Label("Span Id")
+  private long spanId;
+
+  @Label("Local Root Span Id")
+  private long localRootSpanId;
+
+  SpanActivationEvent(final DDSpanContext spanContext) {
+    this.spanContext = spanContext;
+  }
+
+  @Override
+  public void start() {
+    if (isEnabled()) {
+      begin();
+    }
+  }
+
+  @Override
+  public void finish() {
+    end();
+    if (shouldCommit()) {
+      traceId = spanContext.getTraceId().longValue();
+      spanId = spanContext.getSpanId().longValue();
+      final DDSpan rootSpan = spanContext.getTrace().getRootSpan();
+      localRootSpanId = rootSpan == null ? spanId : rootSpan.context().getSpanId().longValue();
+      commit();
+    }
+  }
+}
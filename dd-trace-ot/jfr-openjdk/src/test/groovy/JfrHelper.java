@@ -1,14 +1,25 @@
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
 import jdk.jfr.Recording;
 import jdk.jfr.consumer.RecordingFile;
 
 public class JfrHelper {
 
-  public static Object startRecording() {
+  public static Object startRecording(final String... enabledEvents) {
     final Recording recording = new Recording();
+    for (final String event : enabledEvents) {
+      recording.enable(event);
+    }
+    recording.start();
+    return recording;
+  }
+
+  public static Object startRecording(final String event, final Duration threshold) {
+    final Recording recording = new Recording();
+    recording.enable(event).withThreshold(threshold);
     recording.start();
     return recording;
   }
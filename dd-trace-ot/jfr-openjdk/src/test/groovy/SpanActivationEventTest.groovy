@@ -0,0 +1,96 @@
+import datadog.opentracing.DDTracer
+import datadog.trace.common.sampling.RateByServiceSampler
+import datadog.trace.common.writer.ListWriter
+import datadog.trace.context.TraceScope
+import io.opentracing.Scope
+import spock.lang.Requires
+import spock.lang.Specification
+
+import java.time.Duration
+
+import static datadog.trace.api.Config.DEFAULT_SERVICE_NAME
+
+@Requires({ jvm.java11Compatible })
+class SpanActivationEventTest extends Specification {
+
+  private static final String EVENT_NAME = "datadog.SpanActivation"
+
+  def writer = new ListWriter()
+  def tracer = new DDTracer(DEFAULT_SERVICE_NAME, writer, new RateByServiceSampler(), [:])
+
+  def "Span activation events of a thread are nested"() {
+    setup:
+    def recording = JfrHelper.startRecording(EVENT_NAME)
+
+    when:
+    Scope parentScope = tracer.buildSpan("parent").startActive(true)
+    Scope childScope = tracer.buildSpan("child").startActive(true)
+    childScope.close()
+    parentScope.close()
+    def events = JfrHelper.stopRecording(recording)
+      .findAll { it.eventType.name == EVENT_NAME }
+      .sort { it.startTime }
+    def parent = parentScope.span().context()
+    def child = childScope.span().context()
+
+    then:
+    events.size() == 2
+    events*.getLong("spanId") == [parent.spanId, child.spanId]*.longValue()
+    events*.getLong("traceId") == [parent.traceId, parent.traceId]*.longValue()
+    events*.getLong("localRootSpanId") == [parent.spanId, parent.spanId]*.longValue()
+    events[0].startTime <= events[1].startTime
+    events[1].endTime <= events[0].endTime
+  }
+
+  def "Short children don't split the span activation event of their parent"() {
+    setup:
+    def threshold = Duration.ofMillis(20)
+    // warms up the code, so that only the sleeps take time in the recorded run
+    activateParentWithShortChildren()
+    def recording = JfrHelper.startRecording(EVENT_NAME, threshold)
+
+    when:
+    def parent = activateParentWithShortChildren()
+    def events = JfrHelper.stopRecording(recording)
+      .findAll { it.eventType.name == EVENT_NAME }
+
+    then:
+    events.size() == 1
+    events[0].getLong("spanId") == parent.spanId.longValue()
+    events[0].duration >= threshold
+  }
+
+  def "Span activation event is written after continuation activation"() {
+    setup:
+    TraceScope parentScope = tracer.buildSpan("parent").startActive(false)
+    parentScope.setAsyncPropagation(true)
+    def span = parentScope.span()
+    TraceScope.Continuation continuation = parentScope.capture()
+    parentScope.close()
+    def recording = JfrHelper.startRecording(EVENT_NAME)
+
+    when:
+    TraceScope scope = continuation.activate()
+    scope.close()
+    def events = JfrHelper.stopRecording(recording)
+      .findAll { it.eventType.name == EVENT_NAME }
+    span.finish()
+
+    then:
+    events.size() == 1
+    events[0].getLong("spanId") == span.context().spanId.longValue()
+    events[0].getLong("traceId") == span.context().traceId.longValue()
+  }
+
+  /** The parent is open longer than the threshold, but never that long between two children. */
+  def activateParentWithShortChildren() {
+    Scope parentScope = tracer.buildSpan("parent").startActive(true)
+    4.times {
+      Thread.sleep(6)
+      tracer.buildSpan("child").startActive(true).close()
+    }
+    Thread.sleep(6)
+    parentScope.close()
+    return parentScope.span().context()
+  }
+}
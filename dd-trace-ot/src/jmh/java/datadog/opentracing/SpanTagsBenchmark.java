@@ -0,0 +1,87 @@
+package datadog.opentracing;
+
+import static datadog.trace.common.serialization.MsgpackFormatWriter.MSGPACK_WRITER;
+
+import datadog.trace.common.writer.Writer;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+import org.msgpack.core.buffer.ArrayBufferOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Span creation with a typical set of instrumentation tags, and serialization of the result. Run
+ * with the gc profiler ({@code -prof gc}) to see the allocation per span.
+ */
+public class SpanTagsBenchmark {
+
+  /** Drops traces so that finished spans do not accumulate. */
+  private static final class NoopWriter implements Writer {
+    @Override
+    public void write(final List<DDSpan> trace) {}
+
+    @Override
+    public void start() {}
+
+    @Override
+    public void close() {}
+
+    @Override
+    public void incrementTraceCount() {}
+  }
+
+  @State(Scope.Thread)
+  public static class TracerState {
+    public final DDTracer tracer = DDTracer.builder().writer(new NoopWriter()).build();
+    public final DDSpan span = tag((DDSpan) tracer.buildSpan("tags-benchmark").start());
+    public final ArrayBufferOutput buffer = new ArrayBufferOutput();
+    public final MessagePacker packer = MessagePack.newDefaultPacker(buffer);
+  }
+
+  private static DDSpan tag(final DDSpan span) {
+    span.setTag("component", "java-web-servlet");
+    span.setTag("span.kind", "server");
+    span.setTag("http.method", "GET");
+    span.setTag("http.url", "http://localhost:8080/hello");
+    span.setTag("peer.ipv4", "127.0.0.1");
+    span.setTag("peer.port", 54321);
+    span.setTag("http.status_code", 200);
+    span.setTag("error", false);
+    span.context().setMetric("_sample_rate", 0.5);
+    return span;
+  }
+
+  @Benchmark
+  public Object startTaggedFinish(final TracerState state) {
+    final DDSpan span =
+        tag((DDSpan) state.tracer.buildSpan("tags-benchmark").ignoreActiveSpan().start());
+    span.finish();
+    return span;
+  }
+
+  @Benchmark
+  public Object getTag(final TracerState state) {
+    return state.span.getTags().get("http.url");
+  }
+
+  @Benchmark
+  public int iterateTags(final TracerState state) {
+    int length = 0;
+    for (final Map.Entry<String, Object> entry : state.span.getTags().entrySet()) {
+      length += entry.getKey().length();
+    }
+    return length;
+  }
+
+  @Benchmark
+  public Object serialize(final TracerState state) throws IOException {
+    state.buffer.clear();
+    MSGPACK_WRITER.writeDDSpan(state.span, state.packer);
+    state.packer.flush();
+    return state.buffer;
+  }
+}
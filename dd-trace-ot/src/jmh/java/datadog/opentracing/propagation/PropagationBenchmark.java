@@ -0,0 +1,104 @@
+package datadog.opentracing.propagation;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import datadog.opentracing.DDSpan;
+import datadog.opentracing.DDSpanContext;
+import datadog.opentracing.DDTracer;
+import datadog.trace.api.Config;
+import datadog.trace.common.writer.ListWriter;
+import io.opentracing.propagation.TextMapExtractAdapter;
+import io.opentracing.propagation.TextMapInjectAdapter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.slf4j.LoggerFactory;
+
+public class PropagationBenchmark {
+  static {
+    ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+  }
+
+  private static final List<Config.PropagationStyle> STYLES =
+      Arrays.asList(
+          Config.PropagationStyle.DATADOG,
+          Config.PropagationStyle.B3,
+          Config.PropagationStyle.HAYSTACK);
+
+  private static final Map<String, String> TAGGED_HEADERS =
+      Collections.singletonMap("X-Request-Id", "http.request_id");
+
+  @State(Scope.Thread)
+  public static class InjectState {
+    private final HttpCodec.Injector injector =
+        new HttpCodec.CompoundInjector(
+            Arrays.<HttpCodec.Injector>asList(
+                new DatadogHttpCodec.Injector(),
+                new B3HttpCodec.Injector(),
+                new HaystackHttpCodec.Injector()));
+
+    private final DDSpanContext context;
+
+    {
+      final DDTracer tracer = DDTracer.builder().writer(new ListWriter()).build();
+      final DDSpan span = (DDSpan) tracer.buildSpan("propagation-benchmark").start();
+      span.setBaggageItem("user.id", "some user id");
+      span.setBaggageItem("session", "a=b&c=d");
+      context = span.context();
+    }
+  }
+
+  @State(Scope.Thread)
+  public static class ExtractState {
+    private final HttpCodec.Extractor fused = new FusedHttpExtractor(STYLES, TAGGED_HEADERS);
+
+    private final HttpCodec.Extractor compound =
+        new HttpCodec.CompoundExtractor(
+            Arrays.<HttpCodec.Extractor>asList(
+                new DatadogHttpCodec.Extractor(TAGGED_HEADERS),
+                new B3HttpCodec.Extractor(TAGGED_HEADERS),
+                new HaystackHttpCodec.Extractor(TAGGED_HEADERS)));
+
+    private final Map<String, String> headers = new HashMap<>();
+
+    {
+      for (int i = 0; i < 60; i++) {
+        headers.put("X-Some-Header-" + i, "value-" + i);
+      }
+      headers.put("X-Datadog-Trace-Id", "1234567890123456789");
+      headers.put("X-Datadog-Parent-Id", "987654321");
+      headers.put("X-Datadog-Sampling-Priority", "1");
+      headers.put("X-Request-Id", "abc-123");
+    }
+  }
+
+  @Benchmark
+  public Object injectCached(final InjectState state) {
+    final Map<String, String> carrier = new HashMap<>();
+    state.injector.inject(state.context, new TextMapInjectAdapter(carrier));
+    return carrier;
+  }
+
+  @Benchmark
+  public Object injectUncached(final InjectState state) {
+    final Map<String, String> carrier = new HashMap<>();
+    state.context.setInjectedHeaders(null);
+    state.injector.inject(state.context, new TextMapInjectAdapter(carrier));
+    return carrier;
+  }
+
+  @Benchmark
+  public Object extractFused(final ExtractState state) {
+    return state.fused.extract(new TextMapExtractAdapter(state.headers));
+  }
+
+  @Benchmark
+  public Object extractCompound(final ExtractState state) {
+    return state.compound.extract(new TextMapExtractAdapter(state.headers));
+  }
+}
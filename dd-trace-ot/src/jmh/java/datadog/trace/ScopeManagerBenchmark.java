@@ -0,0 +1,79 @@
+package datadog.trace;
+
+import datadog.opentracing.DDTracer;
+import datadog.trace.common.writer.ListWriter;
+import datadog.trace.context.TraceScope;
+import io.opentracing.Scope;
+import io.opentracing.ScopeManager;
+import io.opentracing.Span;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.State;
+
+public class ScopeManagerBenchmark {
+  public static String SPAN_NAME = "scope-benchmark";
+
+  @State(org.openjdk.jmh.annotations.Scope.Thread)
+  public static class IdleState {
+    public DDTracer tracer = DDTracer.builder().writer(new ListWriter()).build();
+    public ScopeManager scopeManager = tracer.scopeManager();
+    public Span span = tracer.buildSpan(SPAN_NAME).start();
+  }
+
+  @State(org.openjdk.jmh.annotations.Scope.Thread)
+  public static class ActiveState {
+    public DDTracer tracer = DDTracer.builder().writer(new ListWriter()).build();
+    public ScopeManager scopeManager = tracer.scopeManager();
+    public Scope scope = tracer.buildSpan(SPAN_NAME).startActive(true);
+  }
+
+  @State(org.openjdk.jmh.annotations.Scope.Thread)
+  public static class AsyncState {
+    public DDTracer tracer = DDTracer.builder().writer(new ListWriter()).build();
+    public TraceScope scope = (TraceScope) tracer.buildSpan(SPAN_NAME).startActive(false);
+
+    {
+      scope.setAsyncPropagation(true);
+    }
+  }
+
+  @Benchmark
+  public Object testActiveNoScope(final IdleState state) {
+    return state.scopeManager.active();
+  }
+
+  @Benchmark
+  public Object testActiveSpanNoScope(final IdleState state) {
+    return state.scopeManager.activeSpan();
+  }
+
+  @Benchmark
+  public Object testActive(final ActiveState state) {
+    return state.scopeManager.active();
+  }
+
+  @Benchmark
+  public Object testActiveSpan(final ActiveState state) {
+    return state.scopeManager.activeSpan();
+  }
+
+  @Benchmark
+  public Object testActivateClose(final IdleState state) {
+    final Scope scope = state.scopeManager.activate(state.span, false);
+    scope.close();
+    return scope;
+  }
+
+  @Benchmark
+  public Object testContinuationCaptureClose(final AsyncState state) {
+    final TraceScope.Continuation continuation = state.scope.capture();
+    continuation.close(false);
+    return continuation;
+  }
+
+  @Benchmark
+  public Object testContinuationActivateClose(final AsyncState state) {
+    final TraceScope scope = state.scope.capture().activate();
+    scope.close();
+    return scope;
+  }
+}
@@ -0,0 +1,189 @@
+package datadog.trace;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import jnr.unixsocket.UnixServerSocketChannel;
+import jnr.unixsocket.UnixSocketAddress;
+import jnr.unixsocket.UnixSocketChannel;
+
+/**
+ * Minimal stand-in for the trace agent: accepts keep-alive http requests on loopback or on a unix
+ * domain socket, drains their body and answers with a sampling rate, like the agent does. Nothing
+ * is decoded, so the cost on the tracer side dominates.
+ */
+final class StandInAgent implements Closeable {
+  private static final byte[] RESPONSE;
+
+  static {
+    final String body = "{\"rate_by_service\":{\"service:,env:\":1.0}}";
+    RESPONSE =
+        ("HTTP/1.1 200 OK\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: "
+                + body.length()
+                + "\r\n\r\n"
+                + body)
+            .getBytes(StandardCharsets.US_ASCII);
+  }
+
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong bytes = new AtomicLong();
+
+  private final ServerSocket serverSocket;
+  private final UnixServerSocketChannel serverChannel;
+  private final File socketFile;
+  private volatile boolean running = true;
+
+  /** Listens on an ephemeral loopback port. */
+  static StandInAgent loopback() throws IOException {
+    return new StandInAgent(null);
+  }
+
+  /** Listens on a socket file, which must not exist yet. */
+  static StandInAgent unixDomainSocket(final File socketFile) throws IOException {
+    return new StandInAgent(socketFile);
+  }
+
+  private StandInAgent(final File socketFile) throws IOException {
+    this.socketFile = socketFile;
+    if (socketFile == null) {
+      serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+      serverChannel = null;
+    } else {
+      serverSocket = null;
+      serverChannel = UnixServerSocketChannel.open();
+      serverChannel.socket().bind(new UnixSocketAddress(socketFile));
+    }
+    final Thread acceptor =
+        new Thread("stand-in-agent-acceptor") {
+          @Override
+          public void run() {
+            accept();
+          }
+        };
+    acceptor.setDaemon(true);
+    acceptor.start();
+  }
+
+  int getPort() {
+    return serverSocket == null ? 0 : serverSocket.getLocalPort();
+  }
+
+  long getRequests() {
+    return requests.get();
+  }
+
+  long getBytes() {
+    return bytes.get();
+  }
+
+  private void accept() {
+    while (running) {
+      try {
+        final InputStream in;
+        final OutputStream out;
+        if (serverSocket != null) {
+          final Socket socket = serverSocket.accept();
+          socket.setTcpNoDelay(true);
+          in = socket.getInputStream();
+          out = socket.getOutputStream();
+        } else {
+          final UnixSocketChannel channel = serverChannel.accept();
+          in = Channels.newInputStream(channel);
+          out = Channels.newOutputStream(channel);
+        }
+        final Thread connection =
+            new Thread("stand-in-agent-connection") {
+              @Override
+              public void run() {
+                serve(new BufferedInputStream(in), out);
+              }
+            };
+        connection.setDaemon(true);
+        connection.start();
+      } catch (final IOException e) {
+        // closed
+      }
+    }
+  }
+
+  private void serve(final InputStream in, final OutputStream out) {
+    try {
+      while (running) {
+        final long contentLength = readHeaders(in);
+        if (contentLength < 0) {
+          break;
+        }
+        long remaining = contentLength;
+        while (remaining > 0) {
+          final long skipped = in.skip(remaining);
+          if (skipped <= 0) {
+            throw new EOFException();
+          }
+          remaining -= skipped;
+        }
+        requests.incrementAndGet();
+        bytes.addAndGet(contentLength);
+        out.write(RESPONSE);
+        out.flush();
+      }
+    } catch (final IOException e) {
+      // connection closed by the client
+    } finally {
+      try {
+        out.close();
+      } catch (final IOException e) {
+        // ignored
+      }
+    }
+  }
+
+  /** @return the content length of the request, or -1 at the end of the stream */
+  private static long readHeaders(final InputStream in) throws IOException {
+    final StringBuilder line = new StringBuilder();
+    long contentLength = 0;
+    boolean first = true;
+    int c;
+    while ((c = in.read()) >= 0) {
+      if (c == '\n') {
+        if (line.length() == 0) {
+          return contentLength;
+        }
+        final String header = line.toString();
+        final int colon = header.indexOf(':');
+        if (!first
+            && colon > 0
+            && "content-length".equalsIgnoreCase(header.substring(0, colon).trim())) {
+          contentLength = Long.parseLong(header.substring(colon + 1).trim());
+        }
+        first = false;
+        line.setLength(0);
+      } else if (c != '\r') {
+        line.append((char) c);
+      }
+    }
+    return -1;
+  }
+
+  @Override
+  public void close() throws IOException {
+    running = false;
+    if (serverSocket != null) {
+      serverSocket.close();
+    } else {
+      serverChannel.close();
+      socketFile.delete();
+    }
+  }
+}
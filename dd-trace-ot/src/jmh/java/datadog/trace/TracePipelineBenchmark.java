@@ -0,0 +1,209 @@
+package datadog.trace;
+
+import static datadog.trace.common.serialization.MsgpackFormatWriter.MSGPACK_WRITER;
+
+import ch.qos.logback.classic.Logger;
+import datadog.opentracing.DDSpan;
+import datadog.opentracing.DDTracer;
+import datadog.trace.common.writer.DDAgentWriter;
+import datadog.trace.common.writer.ListWriter;
+import datadog.trace.common.writer.Writer;
+import io.opentracing.Scope;
+import io.opentracing.Span;
+import io.opentracing.Tracer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import org.msgpack.core.MessagePack;
+import org.msgpack.core.MessagePacker;
+import org.msgpack.core.buffer.ArrayBufferOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The trace pipeline end to end: span creation and tagging, PendingTrace, DDTracer.write, the
+ * trace processing and batch writing disruptors, serialization and the request to a {@link
+ * StandInAgent} listening on loopback or on a unix domain socket.
+ *
+ * <p>Traces are shaped like the ones of the load generator: a root span with {@code width}
+ * children, each the top of a chain of {@code depth - 1} spans, and every span gets {@code tags}
+ * tags. The number of application threads is set with JMH's {@code -t} option, and the gc profiler
+ * reports the allocation per trace:
+ *
+ * <pre>
+ * java -jar dd-trace-ot/build/libs/dd-trace-ot-*-jmh.jar TracePipelineBenchmark -t 4 -prof gc
+ * </pre>
+ */
+public class TracePipelineBenchmark {
+  static {
+    ((Logger) LoggerFactory.getLogger(Logger.ROOT_LOGGER_NAME))
+        .setLevel(ch.qos.logback.classic.Level.WARN);
+  }
+
+  private static final String ROOT_NAME = "pipeline-root";
+  private static final String SPAN_NAME = "pipeline-span";
+
+  /** Drops traces so that finished spans do not accumulate. */
+  private static final class NoopWriter implements Writer {
+    @Override
+    public void write(final List<DDSpan> trace) {}
+
+    @Override
+    public void start() {}
+
+    @Override
+    public void close() {}
+
+    @Override
+    public void incrementTraceCount() {}
+  }
+
+  @State(org.openjdk.jmh.annotations.Scope.Benchmark)
+  public static class Shape {
+    @Param({"1", "10"})
+    public int width;
+
+    @Param({"2", "4"})
+    public int depth;
+
+    @Param({"0", "10"})
+    public int tags;
+
+    String[] tagKeys;
+    String[] tagValues;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      // built up front so that only the tracer's own allocation is measured
+      tagKeys = new String[tags];
+      tagValues = new String[tags];
+      for (int i = 0; i < tags; i++) {
+        tagKeys[i] = "tag." + i;
+        tagValues[i] = "value-" + i;
+      }
+    }
+  }
+
+  @State(org.openjdk.jmh.annotations.Scope.Benchmark)
+  public static class Pipeline {
+    @Param({"loopback", "uds"})
+    public String transport;
+
+    StandInAgent agent;
+    DDAgentWriter writer;
+    DDTracer tracer;
+    File socketDirectory;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+      final DDAgentWriter.DDAgentWriterBuilder builder = DDAgentWriter.builder();
+      if ("uds".equals(transport)) {
+        socketDirectory = Files.createTempDirectory("stand-in-agent").toFile();
+        final File socket = new File(socketDirectory, "apm.socket");
+        agent = StandInAgent.unixDomainSocket(socket);
+        builder.unixDomainSocket(socket.getPath());
+      } else {
+        agent = StandInAgent.loopback();
+        builder.agentHost("127.0.0.1").traceAgentPort(agent.getPort()).unixDomainSocket(null);
+      }
+      writer = builder.build();
+      tracer = DDTracer.builder().writer(writer).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+      tracer.close();
+      agent.close();
+      if (socketDirectory != null) {
+        socketDirectory.delete();
+      }
+    }
+  }
+
+  @State(org.openjdk.jmh.annotations.Scope.Thread)
+  public static class Local {
+    final DDTracer tracer = DDTracer.builder().writer(new NoopWriter()).build();
+    final ArrayBufferOutput buffer = new ArrayBufferOutput();
+    final MessagePacker packer = MessagePack.newDefaultPacker(buffer);
+    List<DDSpan> trace;
+
+    @Setup(Level.Trial)
+    public void setup(final Shape shape) {
+      final ListWriter traces = new ListWriter();
+      trace(DDTracer.builder().writer(traces).build(), shape);
+      trace = traces.firstTrace();
+    }
+  }
+
+  /** Span creation, scopes, tags and PendingTrace, with a writer which drops the trace. */
+  @Benchmark
+  public Object createTrace(final Local local, final Shape shape) {
+    return trace(local.tracer, shape);
+  }
+
+  /** Serialization of a finished trace, as done on the trace processing thread. */
+  @Benchmark
+  public Object serializeTrace(final Local local) throws IOException {
+    local.buffer.clear();
+    MSGPACK_WRITER.writeTrace(local.trace, local.packer);
+    local.packer.flush();
+    return local.buffer;
+  }
+
+  /**
+   * The cost to the application threads: the trace is handed over to the disruptors and sent in
+   * the background. Traces are counted and dropped when the disruptors can't keep up.
+   */
+  @Benchmark
+  public Object writeTrace(final Pipeline pipeline, final Shape shape) {
+    return trace(pipeline.tracer, shape);
+  }
+
+  /**
+   * The latency of a trace through the whole pipeline: flushing blocks until the batch containing
+   * the trace has been sent to the agent. Concurrent flushes may share a batch.
+   */
+  @Benchmark
+  public Object writeTraceAndFlush(final Pipeline pipeline, final Shape shape) {
+    final Span root = trace(pipeline.tracer, shape);
+    pipeline.writer.flush();
+    return root;
+  }
+
+  private static Span trace(final Tracer tracer, final Shape shape) {
+    final Span root = tracer.buildSpan(ROOT_NAME).start();
+    try (final Scope scope = tracer.activateSpan(root)) {
+      tag(root, shape);
+      if (shape.depth > 1) {
+        for (int i = 0; i < shape.width; i++) {
+          chain(tracer, shape, shape.depth - 1);
+        }
+      }
+    }
+    root.finish();
+    return root;
+  }
+
+  private static void chain(final Tracer tracer, final Shape shape, final int length) {
+    final Span span = tracer.buildSpan(SPAN_NAME).start();
+    try (final Scope scope = tracer.activateSpan(span)) {
+      tag(span, shape);
+      if (length > 1) {
+        chain(tracer, shape, length - 1);
+      }
+    }
+    span.finish();
+  }
+
+  private static void tag(final Span span, final Shape shape) {
+    for (int i = 0; i < shape.tags; i++) {
+      span.setTag(shape.tagKeys[i], shape.tagValues[i]);
+    }
+  }
+}
@@ -1,15 +1,16 @@
 package datadog.opentracing;
 
 import datadog.opentracing.decorators.AbstractDecorator;
+import datadog.opentracing.decorators.DecoratorTable;
+import datadog.opentracing.propagation.InjectedHeaders;
 import datadog.trace.api.DDTags;
 import datadog.trace.api.sampling.PrioritySampling;
 import java.math.BigInteger;
 import java.util.Collections;
-import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -31,6 +32,12 @@ public class DDSpanContext implements io.opentracing.SpanContext {
   private static final Map<String, Number> DEFAULT_METRICS =
       Collections.singletonMap(DD_MEASURED, DD_MEASURED_DEFAULT);
 
+  /** Most spans only carry the default metric and maybe a sampling priority and rate */
+  private static final int EXPECTED_METRICS = 4;
+
+  private static final AtomicIntegerFieldUpdater<DDSpanContext> BAGGAGE_VERSION =
+      AtomicIntegerFieldUpdater.newUpdater(DDSpanContext.class, "baggageVersion");
+
   // Shared with other span contexts
   /** For technical reasons, the ref to the original tracer */
   private final DDTracer tracer;
@@ -40,14 +47,17 @@ public class DDSpanContext implements io.opentracing.SpanContext {
 
   /** Baggage is associated with the whole trace and shared with other spans */
   private final Map<String, String> baggageItems;
+  /** Incremented on every baggage change */
+  private volatile int baggageVersion = 0;
+  /** Propagation headers from the last injection of this context, see HttpCodec */
+  private volatile InjectedHeaders injectedHeaders;
 
   // Not Shared with other span contexts
   private final BigInteger traceId;
   private final BigInteger spanId;
   private final BigInteger parentId;
-
   /** Tags are associated to the current span, they will not propagate to the children span */
-  private final Map<String, Object> tags = new ConcurrentHashMap<>();
+  private final TagStore tags = new TagStore();
 
   /** The service name is required, otherwise the span are dropped by the agent */
   private volatile String serviceName;
@@ -68,8 +78,8 @@ public class DDSpanContext implements io.opentracing.SpanContext {
   private boolean samplingPriorityLocked = false;
   /** The origin of the trace. (eg. Synthetics) */
   private final String origin;
-  /** Metrics on the span */
-  private final AtomicReference<Map<String, Number>> metrics = new AtomicReference<>();
+  /** Metrics on the span, created on the first call to {@link #setMetric} */
+  private volatile TagStore metrics;
 
   // Additional Metadata
   private final String threadName = Thread.currentThread().getName();
@@ -132,7 +142,7 @@ public class DDSpanContext implements io.opentracing.SpanContext {
       this.tags.put(ORIGIN_KEY, origin);
     }
     this.tags.put(DDTags.THREAD_NAME, threadName);
-    this.tags.put(DDTags.THREAD_ID, threadId);
+    this.tags.putLong(DDTags.THREAD_ID, threadId);
   }
 
   public BigInteger getTraceId() {
@@ -281,6 +291,7 @@ public class DDSpanContext implements io.opentracing.SpanContext {
 
   public void setBaggageItem(final String key, final String value) {
     baggageItems.put(key, value);
+    BAGGAGE_VERSION.incrementAndGet(this);
   }
 
   public String getBaggageItem(final String key) {
@@ -291,6 +302,19 @@ public class DDSpanContext implements io.opentracing.SpanContext {
     return baggageItems;
   }
 
+  /** @return a counter which changes whenever a baggage item is set on this context */
+  public int getBaggageVersion() {
+    return baggageVersion;
+  }
+
+  public InjectedHeaders getInjectedHeaders() {
+    return injectedHeaders;
+  }
+
+  public void setInjectedHeaders(final InjectedHeaders injectedHeaders) {
+    this.injectedHeaders = injectedHeaders;
+  }
+
   /* (non-Javadoc)
    * @see io.opentracing.SpanContext#baggageItems()
    */
@@ -309,18 +333,31 @@ public class DDSpanContext implements io.opentracing.SpanContext {
   }
 
   public Map<String, Number> getMetrics() {
-    final Map<String, Number> metrics = this.metrics.get();
-    return metrics == null ? DEFAULT_METRICS : metrics;
+    final TagStore metrics = this.metrics;
+    return metrics == null ? DEFAULT_METRICS : metrics.<Number>asMutableMap();
+  }
+
+  /** @return the metrics store, or null if only the default metrics are set */
+  public TagStore getMetricStore() {
+    return metrics;
   }
 
   public void setMetric(final String key, final Number value) {
-    if (metrics.get() == null) {
-      metrics.compareAndSet(null, new ConcurrentHashMap<>(DEFAULT_METRICS));
+    TagStore metrics = this.metrics;
+    if (metrics == null) {
+      synchronized (this) {
+        metrics = this.metrics;
+        if (metrics == null) {
+          metrics = new TagStore(EXPECTED_METRICS);
+          metrics.putAll(DEFAULT_METRICS);
+          this.metrics = metrics;
+        }
+      }
     }
     if (value instanceof Float) {
-      metrics.get().put(key, value.doubleValue());
+      metrics.putDouble(key, value.doubleValue());
     } else {
-      metrics.get().put(key, value);
+      metrics.put(key, value);
     }
   }
   /**
@@ -329,36 +366,32 @@ public class DDSpanContext implements io.opentracing.SpanContext {
    * @param tag the tag-name
    * @param value the value of the tag. tags with null values are ignored.
    */
-  public synchronized void setTag(final String tag, final Object value) {
+  public void setTag(final String tag, final Object value) {
     if (value == null || (value instanceof String && ((String) value).isEmpty())) {
       tags.remove(tag);
       return;
     }
 
-    boolean addTag = true;
-
     // Call decorators
-    final List<AbstractDecorator> decorators = tracer.getSpanContextDecorators(tag);
-    if (decorators != null) {
-      for (final AbstractDecorator decorator : decorators) {
-        try {
-          addTag &= decorator.shouldSetTag(this, tag, value);
-        } catch (final Throwable ex) {
-          log.debug(
-              "Could not decorate the span decorator={}: {}",
-              decorator.getClass().getSimpleName(),
-              ex.getMessage());
-        }
-      }
-    }
-
-    if (addTag) {
+    final AbstractDecorator[] decorators = tracer.getDecoratorTable().get(tag);
+    if (decorators == null || DecoratorTable.shouldSetTag(decorators, this, tag, value)) {
       tags.put(tag, value);
     }
   }
 
-  public synchronized Map<String, Object> getTags() {
-    return Collections.unmodifiableMap(tags);
+  /** @return the value of a tag, without going through the {@link #getTags()} map view */
+  public Object getTag(final String tag) {
+    return tags.get(tag);
+  }
+
+  /** @return a read-only live view of the tags, see {@link TagStore#asMap()} */
+  public Map<String, Object> getTags() {
+    return tags.asMap();
+  }
+
+  /** @return the tag store backing {@link #getTags()}, for iteration without copies */
+  public TagStore getTagStore() {
+    return tags;
   }
 
   @Override
@@ -383,7 +416,7 @@ public class DDSpanContext implements io.opentracing.SpanContext {
       s.append(" *errored*");
     }
 
-    s.append(" tags=").append(new TreeMap<>(tags));
+    s.append(" tags=").append(new TreeMap<>(tags.toMap()));
     return s.toString();
   }
 }
@@ -2,6 +2,7 @@ package datadog.opentracing;
 
 import datadog.opentracing.decorators.AbstractDecorator;
 import datadog.opentracing.decorators.DDDecoratorsFactory;
+import datadog.opentracing.decorators.DecoratorTable;
 import datadog.opentracing.jfr.DDNoopScopeEventFactory;
 import datadog.opentracing.jfr.DDScopeEventFactory;
 import datadog.opentracing.propagation.ExtractedContext;
@@ -16,6 +17,7 @@ import datadog.trace.api.sampling.PrioritySampling;
 import datadog.trace.common.sampling.PrioritySampler;
 import datadog.trace.common.sampling.Sampler;
 import datadog.trace.common.writer.DDAgentWriter;
+import datadog.trace.common.writer.TraceProcessor;
 import datadog.trace.common.writer.Writer;
 import datadog.trace.common.writer.ddagent.DDAgentResponseListener;
 import datadog.trace.context.ScopeListener;
@@ -32,6 +34,7 @@ import java.io.Closeable;
 import java.lang.ref.WeakReference;
 import java.math.BigInteger;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -43,7 +46,6 @@ import java.util.Properties;
 import java.util.ServiceConfigurationError;
 import java.util.ServiceLoader;
 import java.util.SortedSet;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListSet;
 import java.util.concurrent.ThreadLocalRandom;
 import lombok.Builder;
@@ -58,10 +60,18 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
       BigInteger.valueOf(2).pow(64).subtract(BigInteger.ONE);
   public static final BigInteger TRACE_ID_MIN = BigInteger.ZERO;
 
+  /** Spans started outside of a builder share the default, stateless, log handler */
+  private static final LogHandler LOG_HANDLER = new DefaultLogHandler();
+
   /** Default service name if none provided on the trace or span */
   final String serviceName;
   /** Writer is an charge of reporting traces and spans to the desired endpoint */
   final Writer writer;
+  /**
+   * Set when the writer completes traces (interceptors and sampling) on its own processing thread
+   * instead of the application thread finishing the trace.
+   */
+  private final TraceProcessor traceProcessor;
   /** Sampler defines the sampling policy in order to reduce the number of traces for instance */
   final Sampler sampler;
   /** Scope manager is in charge of managing the scopes from which spans are created */
@@ -71,6 +81,8 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
   private final Map<String, String> localRootSpanTags;
   /** A set of tags that are added to every span */
   private final Map<String, String> defaultSpanTags;
+  /** Read-only view of the default tags, used for spans which set no tags at start */
+  private final Map<String, Object> defaultSpanTagsView;
   /** A configured mapping of service names to update with new values */
   private final Map<String, String> serviceNameMappings;
 
@@ -83,9 +95,10 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
    */
   private final Thread shutdownCallback;
 
-  /** Span context decorators */
-  private final Map<String, List<AbstractDecorator>> spanContextDecorators =
-      new ConcurrentHashMap<>();
+  /** Span context decorators, recompiled on every {@link #addDecorator} */
+  private volatile DecoratorTable decorators = DecoratorTable.EMPTY;
+  /** Whether any of the default span tags has a decorator */
+  private volatile boolean defaultTagsDecorated = false;
 
   private final SortedSet<TraceInterceptor> interceptors =
       new ConcurrentSkipListSet<>(
@@ -124,6 +137,7 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
       serviceNameMappings(config.getServiceMapping());
       taggedHeaders(config.getHeaderTags());
       partialFlushMinSpans(config.getPartialFlushMinSpans());
+      offloadTraceCompletion(config.isTraceCompletionOffload());
       return this;
     }
   }
@@ -268,7 +282,8 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
         defaultSpanTags,
         serviceNameMappings,
         taggedHeaders,
-        partialFlushMinSpans);
+        partialFlushMinSpans,
+        Config.get().isTraceCompletionOffload());
   }
 
   @Builder
@@ -285,7 +300,8 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
       final Map<String, String> defaultSpanTags,
       final Map<String, String> serviceNameMappings,
       final Map<String, String> taggedHeaders,
-      final int partialFlushMinSpans) {
+      final int partialFlushMinSpans,
+      final boolean offloadTraceCompletion) {
 
     assert localRootSpanTags != null;
     assert defaultSpanTags != null;
@@ -304,9 +320,23 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
     this.scopeManager = scopeManager;
     this.localRootSpanTags = localRootSpanTags;
     this.defaultSpanTags = defaultSpanTags;
+    defaultSpanTagsView = Collections.<String, Object>unmodifiableMap(defaultSpanTags);
     this.serviceNameMappings = serviceNameMappings;
     this.partialFlushMinSpans = partialFlushMinSpans;
 
+    if (offloadTraceCompletion && this.writer instanceof DDAgentWriter) {
+      traceProcessor =
+          new TraceProcessor() {
+            @Override
+            public List<DDSpan> process(final List<DDSpan> trace) {
+              return complete(trace);
+            }
+          };
+      ((DDAgentWriter) this.writer).setTraceProcessor(traceProcessor);
+    } else {
+      traceProcessor = null;
+    }
+
     this.writer.start();
 
     shutdownCallback = new ShutdownHook(this);
@@ -350,7 +380,12 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
    * @return the list of span context decorators
    */
   public List<AbstractDecorator> getSpanContextDecorators(final String tag) {
-    return spanContextDecorators.get(tag);
+    final AbstractDecorator[] decorators = this.decorators.get(tag);
+    return decorators == null ? null : Arrays.asList(decorators);
+  }
+
+  DecoratorTable getDecoratorTable() {
+    return decorators;
   }
 
   /**
@@ -358,15 +393,9 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
    *
    * @param decorator The decorator in the list
    */
-  public void addDecorator(final AbstractDecorator decorator) {
-
-    List<AbstractDecorator> list = spanContextDecorators.get(decorator.getMatchingTag());
-    if (list == null) {
-      list = new ArrayList<>();
-    }
-    list.add(decorator);
-
-    spanContextDecorators.put(decorator.getMatchingTag(), list);
+  public synchronized void addDecorator(final AbstractDecorator decorator) {
+    decorators = decorators.with(decorator);
+    defaultTagsDecorated = decorators.decoratesAny(defaultSpanTags.keySet());
     log.debug(
         "Decorator added: '{}' -> {}", decorator.getMatchingTag(), decorator.getClass().getName());
   }
@@ -415,6 +444,185 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
     return new DDSpanBuilder(operationName, scopeManager);
   }
 
+  /**
+   * Starts a span without going through a {@link DDSpanBuilder}. This is the path used by the
+   * agent's instrumentation API: the span only carries the default tags, so there is no builder
+   * and no per-span tag map to allocate.
+   *
+   * @param operationName the operation name of the span
+   * @param parent the parent context, or null to use the active span unless ignored
+   * @param ignoreActiveSpan whether the active span should be ignored when parent is null
+   * @param timestampMicro the start time in microseconds, or 0 to use the current time
+   * @return the started span
+   */
+  public DDSpan startSpan(
+      final String operationName,
+      final SpanContext parent,
+      final boolean ignoreActiveSpan,
+      final long timestampMicro) {
+    final DDSpan span =
+        new DDSpan(
+            timestampMicro,
+            buildSpanContext(
+                scopeManager,
+                operationName,
+                parent,
+                ignoreActiveSpan,
+                null,
+                null,
+                false,
+                null,
+                null),
+            LOG_HANDLER);
+    log.debug("Starting a new span: {}", span);
+    return span;
+  }
+
+  private static BigInteger generateNewId() {
+    // It is **extremely** unlikely to generate the value "0" but we still need to handle that
+    // case
+    BigInteger value;
+    do {
+      value = new StringCachingBigInteger(63, ThreadLocalRandom.current());
+    } while (value.signum() == 0);
+
+    return value;
+  }
+
+  /**
+   * Build the SpanContext, if the actual span has a parent, the following attributes must be
+   * propagated: - ServiceName - Baggage - Trace (a list of all spans related) - SpanType
+   *
+   * @param tags the tags set on the span, or null when the span only carries the default tags
+   * @return the context
+   */
+  private DDSpanContext buildSpanContext(
+      final ScopeManager scopeManager,
+      final String operationName,
+      final SpanContext parent,
+      final boolean ignoreScope,
+      String serviceName,
+      final String resourceName,
+      final boolean errorFlag,
+      final String spanType,
+      Map<String, Object> tags) {
+    final BigInteger traceId;
+    final BigInteger spanId = generateNewId();
+    final BigInteger parentSpanId;
+    final Map<String, String> baggage;
+    final PendingTrace parentTrace;
+    final int samplingPriority;
+    final String origin;
+
+    final DDSpanContext context;
+    SpanContext parentContext = parent;
+    if (parentContext == null && !ignoreScope) {
+      // use the Scope as parent unless overridden or ignored.
+      final Span activeSpan = scopeManager.activeSpan();
+      if (activeSpan != null) {
+        parentContext = activeSpan.context();
+      }
+    }
+
+    // Propagate internal trace.
+    // Note: if we are not in the context of distributed tracing and we are starting the first
+    // root span, parentContext will be null at this point.
+    if (parentContext instanceof DDSpanContext) {
+      final DDSpanContext ddsc = (DDSpanContext) parentContext;
+      traceId = ddsc.getTraceId();
+      parentSpanId = ddsc.getSpanId();
+      baggage = ddsc.getBaggageItems();
+      parentTrace = ddsc.getTrace();
+      samplingPriority = PrioritySampling.UNSET;
+      origin = null;
+      if (serviceName == null) {
+        serviceName = ddsc.getServiceName();
+      }
+
+    } else {
+      if (parentContext instanceof ExtractedContext) {
+        // Propagate external trace
+        final ExtractedContext extractedContext = (ExtractedContext) parentContext;
+        traceId = extractedContext.getTraceId();
+        parentSpanId = extractedContext.getSpanId();
+        samplingPriority = extractedContext.getSamplingPriority();
+        baggage = extractedContext.getBaggage();
+      } else {
+        // Start a new trace
+        traceId = generateNewId();
+        parentSpanId = BigInteger.ZERO;
+        samplingPriority = PrioritySampling.UNSET;
+        baggage = null;
+      }
+
+      if (tags == null) {
+        tags = new LinkedHashMap<String, Object>(defaultSpanTags);
+      }
+
+      // Get header tags and set origin whether propagating or not.
+      if (parentContext instanceof TagContext) {
+        tags.putAll(((TagContext) parentContext).getTags());
+        origin = ((TagContext) parentContext).getOrigin();
+      } else {
+        origin = null;
+      }
+
+      tags.putAll(localRootSpanTags);
+
+      parentTrace = new PendingTrace(this, traceId);
+    }
+
+    if (serviceName == null) {
+      serviceName = this.serviceName;
+    }
+
+    if (tags == null) {
+      // Child span without explicit tags: the defaults are copied by the context as is
+      tags = defaultSpanTagsView;
+    }
+
+    // some attributes are inherited from the parent
+    context =
+        new DDSpanContext(
+            traceId,
+            spanId,
+            parentSpanId,
+            serviceName,
+            operationName != null ? operationName : resourceName,
+            resourceName,
+            samplingPriority,
+            origin,
+            baggage,
+            errorFlag,
+            spanType,
+            tags,
+            parentTrace,
+            this,
+            serviceNameMappings);
+
+    if (tags == defaultSpanTagsView && !defaultTagsDecorated) {
+      // The default tags hold no null values and none of them is decorated
+      return context;
+    }
+
+    // Apply Decorators to handle any tags that may have been set via the builder.
+    final DecoratorTable decorators = this.decorators;
+    for (final Map.Entry<String, Object> tag : tags.entrySet()) {
+      if (tag.getValue() == null) {
+        context.setTag(tag.getKey(), null);
+        continue;
+      }
+
+      final AbstractDecorator[] tagDecorators = decorators.get(tag.getKey());
+      if (tagDecorators != null
+          && !DecoratorTable.shouldSetTag(tagDecorators, context, tag.getKey(), tag.getValue())) {
+        context.setTag(tag.getKey(), null);
+      }
+    }
+
+    return context;
+  }
+
   @Override
   public <T> void inject(final SpanContext spanContext, final Format<T> format, final T carrier) {
     if (carrier instanceof TextMapInject) {
@@ -443,38 +651,77 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
    * We use the sampler to know if the trace has to be reported/written. The sampler is called on
    * the first span (root span) of the trace. If the trace is marked as a sample, we report it.
    *
+   * <p>Without interceptors the spans are not copied here: the writer gets a {@link TraceSnapshot}
+   * which copies them on first read, usually on the serialization thread.
+   *
+   * <p>When trace completion is offloaded, the trace is published as is and {@link #complete} runs
+   * on the writer's processing thread. A sampling priority locked for propagation before the trace
+   * finished is never changed there, since only an unset priority is computed.
+   *
    * @param trace a list of the spans related to the same trace
    */
   void write(final Collection<DDSpan> trace) {
     if (trace.isEmpty()) {
       return;
     }
-    final ArrayList<DDSpan> writtenTrace;
+    incrementTraceCount();
+    if (traceProcessor != null) {
+      writer.write(trace instanceof List ? (List<DDSpan>) trace : new TraceSnapshot(trace));
+      return;
+    }
+    final List<DDSpan> writtenTrace = complete(trace);
+    if (writtenTrace != null) {
+      writer.write(writtenTrace);
+    }
+  }
+
+  /**
+   * Runs the interceptors and the sampler over a finished trace.
+   *
+   * @return the spans to write, or null if the trace is not sampled
+   */
+  List<DDSpan> complete(final Collection<DDSpan> trace) {
+    final List<DDSpan> writtenTrace;
     if (interceptors.isEmpty()) {
-      writtenTrace = new ArrayList<>(trace);
+      writtenTrace = trace instanceof List ? (List<DDSpan>) trace : new TraceSnapshot(trace);
     } else {
-      Collection<? extends MutableSpan> interceptedTrace = new ArrayList<>(trace);
+      // Interceptors may modify the trace in place, so they share a single mutable copy
+      final List<DDSpan> copy = trace instanceof ArrayList ? (List<DDSpan>) trace : copyOf(trace);
+      Collection<? extends MutableSpan> interceptedTrace = copy;
       for (final TraceInterceptor interceptor : interceptors) {
         interceptedTrace = interceptor.onTraceComplete(interceptedTrace);
       }
-      writtenTrace = new ArrayList<>(interceptedTrace.size());
-      for (final MutableSpan span : interceptedTrace) {
-        if (span instanceof DDSpan) {
-          writtenTrace.add((DDSpan) span);
+      if (interceptedTrace == copy) {
+        writtenTrace = copy;
+      } else {
+        writtenTrace = new ArrayList<>(interceptedTrace.size());
+        for (final MutableSpan span : interceptedTrace) {
+          if (span instanceof DDSpan) {
+            writtenTrace.add((DDSpan) span);
+          }
         }
       }
     }
-    incrementTraceCount();
+    if (writtenTrace.isEmpty()) {
+      return null;
+    }
+    final DDSpan firstSpan = TraceSnapshot.first(writtenTrace);
+    final DDSpan rootSpan = (DDSpan) firstSpan.getLocalRootSpan();
+    setSamplingPriorityIfNecessary(rootSpan);
 
-    if (!writtenTrace.isEmpty()) {
-      final DDSpan rootSpan = (DDSpan) writtenTrace.get(0).getLocalRootSpan();
-      setSamplingPriorityIfNecessary(rootSpan);
+    final DDSpan spanToSample = rootSpan == null ? firstSpan : rootSpan;
+    return sampler.sample(spanToSample) ? writtenTrace : null;
+  }
 
-      final DDSpan spanToSample = rootSpan == null ? writtenTrace.get(0) : rootSpan;
-      if (sampler.sample(spanToSample)) {
-        writer.write(writtenTrace);
-      }
+  private static List<DDSpan> copyOf(final Collection<DDSpan> trace) {
+    // Avoid ArrayList(Collection): ConcurrentLinkedDeque.toArray copies the spans twice
+    final Collection<DDSpan> spans =
+        trace instanceof TraceSnapshot ? ((TraceSnapshot) trace).source : trace;
+    final List<DDSpan> copy = new ArrayList<>(spans.size());
+    for (final DDSpan span : spans) {
+      copy.add(span);
     }
+    return copy;
   }
 
   void setSamplingPriorityIfNecessary(final DDSpan rootSpan) {
@@ -499,7 +746,7 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
   public String getTraceId() {
     final Span activeSpan = activeSpan();
     if (activeSpan instanceof DDSpan) {
-      return ((DDSpan) activeSpan).getTraceId().toString();
+      return ((DDSpan) activeSpan).context().toTraceId();
     }
     return "0";
   }
@@ -508,7 +755,7 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
   public String getSpanId() {
     final Span activeSpan = activeSpan();
     if (activeSpan instanceof DDSpan) {
-      return ((DDSpan) activeSpan).getSpanId().toString();
+      return ((DDSpan) activeSpan).context().toSpanId();
     }
     return "0";
   }
@@ -594,7 +841,19 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
     }
 
     private Span startSpan() {
-      return new DDSpan(timestampMicro, buildSpanContext(), logHandler);
+      return new DDSpan(
+          timestampMicro,
+          buildSpanContext(
+              scopeManager,
+              operationName,
+              parent,
+              ignoreScope,
+              serviceName,
+              resourceName,
+              errorFlag,
+              spanType,
+              tags),
+          logHandler);
     }
 
     @Override
@@ -718,143 +977,6 @@ public class DDTracer implements io.opentracing.Tracer, Closeable, datadog.trace
       }
       return this;
     }
-
-    private BigInteger generateNewId() {
-      // It is **extremely** unlikely to generate the value "0" but we still need to handle that
-      // case
-      BigInteger value;
-      do {
-        value = new StringCachingBigInteger(63, ThreadLocalRandom.current());
-      } while (value.signum() == 0);
-
-      return value;
-    }
-
-    /**
-     * Build the SpanContext, if the actual span has a parent, the following attributes must be
-     * propagated: - ServiceName - Baggage - Trace (a list of all spans related) - SpanType
-     *
-     * @return the context
-     */
-    private DDSpanContext buildSpanContext() {
-      final BigInteger traceId;
-      final BigInteger spanId = generateNewId();
-      final BigInteger parentSpanId;
-      final Map<String, String> baggage;
-      final PendingTrace parentTrace;
-      final int samplingPriority;
-      final String origin;
-
-      final DDSpanContext context;
-      SpanContext parentContext = parent;
-      if (parentContext == null && !ignoreScope) {
-        // use the Scope as parent unless overridden or ignored.
-        final Span activeSpan = scopeManager.activeSpan();
-        if (activeSpan != null) {
-          parentContext = activeSpan.context();
-        }
-      }
-
-      // Propagate internal trace.
-      // Note: if we are not in the context of distributed tracing and we are starting the first
-      // root span, parentContext will be null at this point.
-      if (parentContext instanceof DDSpanContext) {
-        final DDSpanContext ddsc = (DDSpanContext) parentContext;
-        traceId = ddsc.getTraceId();
-        parentSpanId = ddsc.getSpanId();
-        baggage = ddsc.getBaggageItems();
-        parentTrace = ddsc.getTrace();
-        samplingPriority = PrioritySampling.UNSET;
-        origin = null;
-        if (serviceName == null) {
-          serviceName = ddsc.getServiceName();
-        }
-
-      } else {
-        if (parentContext instanceof ExtractedContext) {
-          // Propagate external trace
-          final ExtractedContext extractedContext = (ExtractedContext) parentContext;
-          traceId = extractedContext.getTraceId();
-          parentSpanId = extractedContext.getSpanId();
-          samplingPriority = extractedContext.getSamplingPriority();
-          baggage = extractedContext.getBaggage();
-        } else {
-          // Start a new trace
-          traceId = generateNewId();
-          parentSpanId = BigInteger.ZERO;
-          samplingPriority = PrioritySampling.UNSET;
-          baggage = null;
-        }
-
-        // Get header tags and set origin whether propagating or not.
-        if (parentContext instanceof TagContext) {
-          tags.putAll(((TagContext) parentContext).getTags());
-          origin = ((TagContext) parentContext).getOrigin();
-        } else {
-          origin = null;
-        }
-
-        tags.putAll(localRootSpanTags);
-
-        parentTrace = new PendingTrace(DDTracer.this, traceId);
-      }
-
-      if (serviceName == null) {
-        serviceName = DDTracer.this.serviceName;
-      }
-
-      final String operationName = this.operationName != null ? this.operationName : resourceName;
-
-      // some attributes are inherited from the parent
-      context =
-          new DDSpanContext(
-              traceId,
-              spanId,
-              parentSpanId,
-              serviceName,
-              operationName,
-              resourceName,
-              samplingPriority,
-              origin,
-              baggage,
-              errorFlag,
-              spanType,
-              tags,
-              parentTrace,
-              DDTracer.this,
-              serviceNameMappings);
-
-      // Apply Decorators to handle any tags that may have been set via the builder.
-      for (final Map.Entry<String, Object> tag : tags.entrySet()) {
-        if (tag.getValue() == null) {
-          context.setTag(tag.getKey(), null);
-          continue;
-        }
-
-        boolean addTag = true;
-
-        // Call decorators
-        final List<AbstractDecorator> decorators = getSpanContextDecorators(tag.getKey());
-        if (decorators != null) {
-          for (final AbstractDecorator decorator : decorators) {
-            try {
-              addTag &= decorator.shouldSetTag(context, tag.getKey(), tag.getValue());
-            } catch (final Throwable ex) {
-              log.debug(
-                  "Could not decorate the span decorator={}: {}",
-                  decorator.getClass().getSimpleName(),
-                  ex.getMessage());
-            }
-          }
-        }
-
-        if (!addTag) {
-          context.setTag(tag.getKey(), null);
-        }
-      }
-
-      return context;
-    }
   }
 
   private static class ShutdownHook extends Thread {
@@ -195,7 +195,8 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
     } else {
       if (tracer.getPartialFlushMinSpans() > 0 && size() > tracer.getPartialFlushMinSpans()) {
         synchronized (this) {
-          if (size() > tracer.getPartialFlushMinSpans()) {
+          // once written, the spans belong to the writer and must not be touched
+          if (!isWritten.get() && size() > tracer.getPartialFlushMinSpans()) {
             final DDSpan rootSpan = getRootSpan();
             final List<DDSpan> partialTrace = new ArrayList(size());
             final Iterator<DDSpan> it = iterator();
@@ -221,6 +222,7 @@ public class PendingTrace extends ConcurrentLinkedDeque<DDSpan> {
       removePendingTrace();
       if (!isEmpty()) {
         log.debug("Writing {} spans to {}.", size(), tracer.writer);
+        // the tracer takes ownership of the spans without copying them, see TraceSnapshot
         tracer.write(this);
       }
     }
@@ -0,0 +1,464 @@
+package datadog.opentracing;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact storage for the tags and metrics of a span.
+ *
+ * <p>Entries live in parallel arrays, in insertion order: the key, a kind, a reference slot for
+ * strings and other objects, and a primitive slot holding longs and the raw bits of doubles. An
+ * open-addressing index (linear probing) maps the hash of a key to its entry. Numbers and booleans
+ * are therefore kept unboxed, and adding a tag allocates nothing unless the table has to grow.
+ *
+ * <p>Reads are lock-free. A table only ever gets entries appended, and the volatile entry count
+ * publishes them: entries below the count are never modified, so a reader which reads the count
+ * first sees them complete. Replacing or removing a value copies the table and publishes the copy
+ * through a volatile field instead, which is rare for span tags. Writers synchronize on the store,
+ * which stays uncontended as a span's tags are almost always written by a single thread. Use
+ * {@link #snapshot()} for a consistent view across several calls.
+ */
+public final class TagStore {
+  public static final byte STRING = 1;
+  public static final byte OBJECT = 2;
+  public static final byte BOOLEAN = 3;
+  public static final byte INT = 4;
+  public static final byte LONG = 5;
+  public static final byte FLOAT = 6;
+  public static final byte DOUBLE = 7;
+
+  /** Instrumented spans typically carry around ten tags, including the thread and runtime ones */
+  private static final int DEFAULT_EXPECTED_SIZE = 12;
+
+  /** Receives the entries of a store without boxing. */
+  public interface Visitor<E extends Exception> {
+    /**
+     * @param key the tag key
+     * @param kind one of the kind constants of {@link TagStore}
+     * @param object the value for {@link #STRING} and {@link #OBJECT}, null otherwise
+     * @param bits the value for the other kinds, see {@link #toObject}
+     */
+    void visit(String key, byte kind, Object object, long bits) throws E;
+  }
+
+  /** The entries of a store at the time it was taken, unaffected by later writes. */
+  public static final class Snapshot {
+    private final Table table;
+    private final int size;
+
+    private Snapshot(final Table table, final int size) {
+      this.table = table;
+      this.size = size;
+    }
+
+    public int size() {
+      return size;
+    }
+
+    public boolean containsKey(final String key) {
+      return table.indexOf(key, size) >= 0;
+    }
+
+    /** @return the boxed value for the key, or null */
+    public Object get(final String key) {
+      return table.get(key, size);
+    }
+
+    public <E extends Exception> void visit(final Visitor<E> visitor) throws E {
+      table.visit(visitor, size);
+    }
+  }
+
+  private volatile Table table;
+
+  private Map<String, Object> view;
+  private Map<String, Object> mutableView;
+
+  public TagStore() {
+    this(DEFAULT_EXPECTED_SIZE);
+  }
+
+  public TagStore(final int expectedSize) {
+    table = new Table(Math.max(4, expectedSize));
+  }
+
+  public int size() {
+    return table.count;
+  }
+
+  public boolean containsKey(final String key) {
+    final Table table = this.table;
+    return table.indexOf(key, table.count) >= 0;
+  }
+
+  /** @return the boxed value for the key, or null */
+  public Object get(final String key) {
+    final Table table = this.table;
+    return table.get(key, table.count);
+  }
+
+  /** Stores the value, picking the slot from its type. A null value removes the key. */
+  public void put(final String key, final Object value) {
+    if (value == null) {
+      remove(key);
+    } else if (value instanceof String) {
+      put(key, STRING, value, 0);
+    } else if (value instanceof Integer) {
+      put(key, INT, null, (Integer) value);
+    } else if (value instanceof Long) {
+      put(key, LONG, null, (Long) value);
+    } else if (value instanceof Double) {
+      put(key, DOUBLE, null, Double.doubleToRawLongBits((Double) value));
+    } else if (value instanceof Float) {
+      put(key, FLOAT, null, Double.doubleToRawLongBits((Float) value));
+    } else if (value instanceof Boolean) {
+      put(key, BOOLEAN, null, (Boolean) value ? 1 : 0);
+    } else {
+      put(key, OBJECT, value, 0);
+    }
+  }
+
+  public void putLong(final String key, final long value) {
+    put(key, LONG, null, value);
+  }
+
+  public void putDouble(final String key, final double value) {
+    put(key, DOUBLE, null, Double.doubleToRawLongBits(value));
+  }
+
+  public synchronized void putAll(final Map<String, ?> map) {
+    for (final Map.Entry<String, ?> entry : map.entrySet()) {
+      put(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /** @return true if the key was present */
+  public synchronized boolean remove(final String key) {
+    final Table table = this.table;
+    final int count = table.count;
+    final int index = table.indexOf(key, count);
+    if (index < 0) {
+      return false;
+    }
+    this.table = table.copy(table.keys.length, count, index);
+    return true;
+  }
+
+  /** Calls the visitor for every entry present when the visit starts, in insertion order. */
+  public <E extends Exception> void visit(final Visitor<E> visitor) throws E {
+    final Table table = this.table;
+    table.visit(visitor, table.count);
+  }
+
+  /** @return the current entries of the store, for a consistent view across several calls */
+  public Snapshot snapshot() {
+    final Table table = this.table;
+    return new Snapshot(table, table.count);
+  }
+
+  /**
+   * @return a read-only live view of the store. Lookups go to the store, and iteration goes over
+   *     the entries present when it starts, straight from the store's arrays. Modifications throw
+   *     {@link UnsupportedOperationException}, like the unmodifiable map the span context used to
+   *     return for its tags.
+   */
+  @SuppressWarnings("unchecked")
+  public synchronized <V> Map<String, V> asMap() {
+    if (view == null) {
+      view = new View(false);
+    }
+    return (Map<String, V>) view;
+  }
+
+  /** @return a live view of the store like {@link #asMap()}, which also writes to the store */
+  @SuppressWarnings("unchecked")
+  public synchronized <V> Map<String, V> asMutableMap() {
+    if (mutableView == null) {
+      mutableView = new View(true);
+    }
+    return (Map<String, V>) mutableView;
+  }
+
+  /** @return a copy of the store with boxed values */
+  public Map<String, Object> toMap() {
+    final Table table = this.table;
+    final int count = table.count;
+    final Map<String, Object> map = new LinkedHashMap<>(count * 2);
+    for (int i = 0; i < count; i++) {
+      map.put(table.keys[i], table.value(i));
+    }
+    return map;
+  }
+
+  public static Object toObject(final byte kind, final Object object, final long bits) {
+    switch (kind) {
+      case BOOLEAN:
+        return bits != 0;
+      case INT:
+        return (int) bits;
+      case LONG:
+        return bits;
+      case FLOAT:
+        return (float) Double.longBitsToDouble(bits);
+      case DOUBLE:
+        return Double.longBitsToDouble(bits);
+      default:
+        return object;
+    }
+  }
+
+  /** @return the value as {@link String#valueOf(Object)} would render the boxed value */
+  public static String toString(final byte kind, final Object object, final long bits) {
+    switch (kind) {
+      case STRING:
+        return (String) object;
+      case BOOLEAN:
+        return bits != 0 ? "true" : "false";
+      case INT:
+      case LONG:
+        return Long.toString(bits);
+      case FLOAT:
+        return Float.toString((float) Double.longBitsToDouble(bits));
+      case DOUBLE:
+        return Double.toString(Double.longBitsToDouble(bits));
+      default:
+        return String.valueOf(object);
+    }
+  }
+
+  private synchronized void put(
+      final String key, final byte kind, final Object object, final long bits) {
+    Table table = this.table;
+    final int count = table.count;
+    final int index = table.indexOf(key, count);
+    if (index >= 0) {
+      // Published entries are never modified, the new value goes in a copy of the table
+      final Table copy = table.copy(table.keys.length, count, -1);
+      copy.set(index, key, kind, object, bits);
+      this.table = copy;
+      return;
+    }
+    final boolean full = count == table.keys.length;
+    if (full) {
+      table = table.copy(table.keys.length << 1, count, -1);
+    }
+    table.append(count, key, kind, object, bits);
+    table.count = count + 1;
+    if (full) {
+      this.table = table;
+    }
+  }
+
+  private static int hash(final String key) {
+    final int h = key.hashCode();
+    return h ^ (h >>> 16);
+  }
+
+  private static int tableSizeFor(final int capacity) {
+    // keep the load factor of the index at most 3/4, which always leaves an empty slot
+    final int minimum = capacity + (capacity / 3);
+    return Integer.highestOneBit(minimum - 1) << 1;
+  }
+
+  @Override
+  public String toString() {
+    return toMap().toString();
+  }
+
+  /** Entries and their index. */
+  private static final class Table {
+    final String[] keys;
+    final byte[] kinds;
+    final Object[] objects;
+    final long[] primitives;
+    /** The entry index plus one for each key, by hash of the key. 0 for an empty slot. */
+    final int[] slots;
+    /** The number of published entries, written after the entries themselves. */
+    volatile int count;
+
+    Table(final int capacity) {
+      keys = new String[capacity];
+      kinds = new byte[capacity];
+      objects = new Object[capacity];
+      primitives = new long[capacity];
+      slots = new int[tableSizeFor(capacity)];
+    }
+
+    /** @return the index of the key among the first {@code count} entries, or -1 */
+    int indexOf(final String key, final int count) {
+      if (key == null) {
+        return -1;
+      }
+      final int mask = slots.length - 1;
+      int slot = hash(key) & mask;
+      int entry;
+      // Slots of entries past the count may be seen half written, and are skipped
+      while ((entry = slots[slot]) != 0) {
+        if (entry <= count && key.equals(keys[entry - 1])) {
+          return entry - 1;
+        }
+        slot = (slot + 1) & mask;
+      }
+      return -1;
+    }
+
+    Object get(final String key, final int count) {
+      final int index = indexOf(key, count);
+      return index < 0 ? null : value(index);
+    }
+
+    Object value(final int index) {
+      return toObject(kinds[index], objects[index], primitives[index]);
+    }
+
+    <E extends Exception> void visit(final Visitor<E> visitor, final int count) throws E {
+      for (int i = 0; i < count; i++) {
+        visitor.visit(keys[i], kinds[i], objects[i], primitives[i]);
+      }
+    }
+
+    /** Writes the entry at {@code index}, which must not be published yet, and indexes it. */
+    void append(
+        final int index, final String key, final byte kind, final Object object, final long bits) {
+      set(index, key, kind, object, bits);
+      final int mask = slots.length - 1;
+      int slot = hash(key) & mask;
+      while (slots[slot] != 0) {
+        slot = (slot + 1) & mask;
+      }
+      slots[slot] = index + 1;
+    }
+
+    void set(
+        final int index, final String key, final byte kind, final Object object, final long bits) {
+      keys[index] = key;
+      kinds[index] = kind;
+      objects[index] = object;
+      primitives[index] = bits;
+    }
+
+    /** @return a published copy of the first {@code count} entries, without the one at skip */
+    Table copy(final int capacity, final int count, final int skip) {
+      final Table copy = new Table(capacity);
+      int size = 0;
+      for (int i = 0; i < count; i++) {
+        if (i != skip) {
+          copy.append(size++, keys[i], kinds[i], objects[i], primitives[i]);
+        }
+      }
+      copy.count = size;
+      return copy;
+    }
+  }
+
+  private final class View extends AbstractMap<String, Object> {
+    private final boolean mutable;
+
+    View(final boolean mutable) {
+      this.mutable = mutable;
+    }
+
+    @Override
+    public int size() {
+      return TagStore.this.size();
+    }
+
+    @Override
+    public boolean containsKey(final Object key) {
+      return key instanceof String && TagStore.this.containsKey((String) key);
+    }
+
+    @Override
+    public Object get(final Object key) {
+      return key instanceof String ? TagStore.this.get((String) key) : null;
+    }
+
+    @Override
+    public Object put(final String key, final Object value) {
+      if (!mutable) {
+        throw new UnsupportedOperationException();
+      }
+      synchronized (TagStore.this) {
+        final Object previous = TagStore.this.get(key);
+        TagStore.this.put(key, value);
+        return previous;
+      }
+    }
+
+    @Override
+    public Object remove(final Object key) {
+      if (!mutable) {
+        throw new UnsupportedOperationException();
+      }
+      if (!(key instanceof String)) {
+        return null;
+      }
+      synchronized (TagStore.this) {
+        final Object previous = TagStore.this.get((String) key);
+        TagStore.this.remove((String) key);
+        return previous;
+      }
+    }
+
+    @Override
+    public Set<Entry<String, Object>> entrySet() {
+      return new AbstractSet<Entry<String, Object>>() {
+        @Override
+        public int size() {
+          return TagStore.this.size();
+        }
+
+        @Override
+        public Iterator<Entry<String, Object>> iterator() {
+          return new EntryIterator(table, mutable);
+        }
+      };
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+    private final Table table;
+    private final int count;
+    private final boolean mutable;
+    private int next;
+    private String last;
+
+    EntryIterator(final Table table, final boolean mutable) {
+      this.table = table;
+      this.mutable = mutable;
+      count = table.count;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next < count;
+    }
+
+    @Override
+    public Map.Entry<String, Object> next() {
+      if (next >= count) {
+        throw new NoSuchElementException();
+      }
+      final int index = next++;
+      last = table.keys[index];
+      return new AbstractMap.SimpleImmutableEntry<>(last, table.value(index));
+    }
+
+    @Override
+    public void remove() {
+      if (!mutable) {
+        throw new UnsupportedOperationException();
+      }
+      if (last == null) {
+        throw new IllegalStateException();
+      }
+      TagStore.this.remove(last);
+      last = null;
+    }
+  }
+}
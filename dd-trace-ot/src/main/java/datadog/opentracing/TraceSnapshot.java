@@ -0,0 +1,102 @@
+package datadog.opentracing;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Fixed-size list of the spans of a trace handed over to the writer. The spans are only copied out
+ * of the source collection (usually the {@link PendingTrace} itself) the first time the list
+ * content is read. That is normally on the thread serializing the trace, so the copy moves off the
+ * application thread finishing the trace, and is skipped entirely for traces that are dropped.
+ *
+ * <p>The source is owned by the snapshot once handed over and must not be modified afterwards.
+ */
+public final class TraceSnapshot extends AbstractList<DDSpan> implements RandomAccess {
+  private static final DDSpan[] EMPTY = new DDSpan[0];
+
+  final Collection<DDSpan> source;
+  private volatile DDSpan[] spans;
+
+  TraceSnapshot(final Collection<DDSpan> source) {
+    this.source = source;
+  }
+
+  /** @return the first span, without copying the trace, or null if it is empty */
+  public DDSpan first() {
+    final DDSpan[] spans = this.spans;
+    if (spans != null) {
+      return spans.length == 0 ? null : spans[0];
+    }
+    final Iterator<DDSpan> it = source.iterator();
+    return it.hasNext() ? it.next() : null;
+  }
+
+  /** @return the first span of the trace, without copying it if it is a snapshot, or null */
+  public static DDSpan first(final List<DDSpan> trace) {
+    if (trace instanceof TraceSnapshot) {
+      return ((TraceSnapshot) trace).first();
+    }
+    return trace.isEmpty() ? null : trace.get(0);
+  }
+
+  @Override
+  public DDSpan get(final int index) {
+    final DDSpan[] spans = spans();
+    if (index < 0 || index >= spans.length) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + spans.length);
+    }
+    return spans[index];
+  }
+
+  /** Replacing spans is supported so the snapshot can be sorted in place. */
+  @Override
+  public DDSpan set(final int index, final DDSpan span) {
+    final DDSpan previous = get(index);
+    spans[index] = span;
+    return previous;
+  }
+
+  /** Doesn't copy the trace either, so that monitors can count spans on the writing thread. */
+  @Override
+  public int size() {
+    final DDSpan[] spans = this.spans;
+    return spans == null ? source.size() : spans.length;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    final DDSpan[] spans = this.spans;
+    return spans == null ? source.isEmpty() : spans.length == 0;
+  }
+
+  private DDSpan[] spans() {
+    DDSpan[] spans = this.spans;
+    if (spans == null) {
+      synchronized (this) {
+        spans = this.spans;
+        if (spans == null) {
+          spans = copy(source);
+          this.spans = spans;
+        }
+      }
+    }
+    return spans;
+  }
+
+  private static DDSpan[] copy(final Collection<DDSpan> source) {
+    // Iterate directly: ConcurrentLinkedDeque.toArray goes through an intermediate ArrayList
+    DDSpan[] copy = source.isEmpty() ? EMPTY : new DDSpan[source.size()];
+    int size = 0;
+    for (final DDSpan span : source) {
+      if (size == copy.length) {
+        copy = Arrays.copyOf(copy, size + (size >> 1) + 1);
+      }
+      copy[size++] = span;
+    }
+    return size == copy.length ? copy : Arrays.copyOf(copy, size);
+  }
+}
@@ -17,8 +17,7 @@ public class DBStatementAsResourceName extends AbstractDecorator {
 
     // Special case: Mongo
     // Skip the decorators
-    if (context.getTags().containsKey(Tags.COMPONENT.getKey())
-        && "java-mongo".equals(context.getTags().get(Tags.COMPONENT.getKey()))) {
+    if ("java-mongo".equals(context.getTag(Tags.COMPONENT.getKey()))) {
       return true;
     }
 
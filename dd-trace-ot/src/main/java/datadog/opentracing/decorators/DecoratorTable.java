@@ -0,0 +1,100 @@
+package datadog.opentracing.decorators;
+
+import datadog.opentracing.DDSpanContext;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Immutable lookup from a tag key to the decorators matching it. A new table is compiled every time
+ * a decorator is added, so reads never lock and never copy.
+ *
+ * <p>Most tags set on a span have no decorator. Besides the map the table keeps a mask of the
+ * lengths of the decorated keys, which rejects most of those tags without hashing the key.
+ */
+@Slf4j
+public final class DecoratorTable {
+  public static final DecoratorTable EMPTY =
+      new DecoratorTable(Collections.<String, AbstractDecorator[]>emptyMap());
+
+  private final Map<String, AbstractDecorator[]> decorators;
+  private final long lengthMask;
+
+  private DecoratorTable(final Map<String, AbstractDecorator[]> decorators) {
+    this.decorators = decorators;
+    long lengthMask = 0;
+    for (final String tag : decorators.keySet()) {
+      lengthMask |= lengthBit(tag);
+    }
+    this.lengthMask = lengthMask;
+  }
+
+  /** @return the decorators for this tag, or null if there are none */
+  public AbstractDecorator[] get(final String tag) {
+    if ((lengthMask & lengthBit(tag)) == 0) {
+      return null;
+    }
+    return decorators.get(tag);
+  }
+
+  /** @return the number of tags having at least one decorator */
+  public int size() {
+    return decorators.size();
+  }
+
+  /** @return true if at least one of the keys has a decorator */
+  public boolean decoratesAny(final Collection<String> tags) {
+    for (final String tag : tags) {
+      if (get(tag) != null) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /** @return a new table with the decorator appended to the ones matching its tag */
+  public DecoratorTable with(final AbstractDecorator decorator) {
+    final Map<String, AbstractDecorator[]> compiled = new HashMap<>(decorators);
+    final AbstractDecorator[] existing = compiled.get(decorator.getMatchingTag());
+    final AbstractDecorator[] updated;
+    if (existing == null) {
+      updated = new AbstractDecorator[] {decorator};
+    } else {
+      updated = Arrays.copyOf(existing, existing.length + 1);
+      updated[existing.length] = decorator;
+    }
+    compiled.put(decorator.getMatchingTag(), updated);
+    return new DecoratorTable(compiled);
+  }
+
+  /**
+   * Runs the decorators over a tag about to be set on the context.
+   *
+   * @return true if the tag should still be set
+   */
+  public static boolean shouldSetTag(
+      final AbstractDecorator[] decorators,
+      final DDSpanContext context,
+      final String tag,
+      final Object value) {
+    boolean addTag = true;
+    for (final AbstractDecorator decorator : decorators) {
+      try {
+        addTag &= decorator.shouldSetTag(context, tag, value);
+      } catch (final Throwable ex) {
+        log.debug(
+            "Could not decorate the span decorator={}: {}",
+            decorator.getClass().getSimpleName(),
+            ex.getMessage());
+      }
+    }
+    return addTag;
+  }
+
+  private static long lengthBit(final String tag) {
+    return tag == null ? 1L : 1L << Math.min(tag.length(), 63);
+  }
+}
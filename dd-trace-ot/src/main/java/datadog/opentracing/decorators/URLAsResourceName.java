@@ -19,7 +19,7 @@ public class URLAsResourceName extends AbstractDecorator {
 
   @Override
   public boolean shouldSetTag(final DDSpanContext context, final String tag, final Object value) {
-    final String statusCode = String.valueOf(context.getTags().get(Tags.HTTP_STATUS.getKey()));
+    final String statusCode = String.valueOf(context.getTag(Tags.HTTP_STATUS.getKey()));
     // do nothing if the status code is already set and equals to 404.
     // TODO: it assumes that Status404Decorator is active. If it's not, it will lead to unexpected
     // behaviors
@@ -88,7 +88,7 @@ public class URLAsResourceName extends AbstractDecorator {
 
   private String addMethodIfAvailable(final DDSpanContext context, String path) {
     // if the verb (GET, POST ...) is present, add it
-    final String verb = (String) context.getTags().get(Tags.HTTP_METHOD.getKey());
+    final String verb = (String) context.getTag(Tags.HTTP_METHOD.getKey());
     if (verb != null && !verb.isEmpty()) {
       path = verb + " " + path;
     }
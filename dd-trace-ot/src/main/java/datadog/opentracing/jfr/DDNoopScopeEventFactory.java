@@ -8,4 +8,9 @@ public final class DDNoopScopeEventFactory implements DDScopeEventFactory {
   public DDScopeEvent create(final DDSpanContext context) {
     return DDNoopScopeEvent.INSTANCE;
   }
+
+  @Override
+  public DDScopeEvent createActivation(final DDSpanContext context) {
+    return DDNoopScopeEvent.INSTANCE;
+  }
 }
@@ -12,4 +12,13 @@ public interface DDScopeEventFactory {
    * @return scope event instance
    */
   DDScopeEvent create(final DDSpanContext context);
+
+  /**
+   * Create new span activation event for given context, covering the time a scope of the span is
+   * open on the current thread.
+   *
+   * @param context span context.
+   * @return span activation event instance
+   */
+  DDScopeEvent createActivation(final DDSpanContext context);
 }
@@ -23,9 +23,9 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 class B3HttpCodec {
 
-  private static final String TRACE_ID_KEY = "X-B3-TraceId";
-  private static final String SPAN_ID_KEY = "X-B3-SpanId";
-  private static final String SAMPLING_PRIORITY_KEY = "X-B3-Sampled";
+  static final String TRACE_ID_KEY = "X-B3-TraceId";
+  static final String SPAN_ID_KEY = "X-B3-SpanId";
+  static final String SAMPLING_PRIORITY_KEY = "X-B3-Sampled";
   private static final String SAMPLING_PRIORITY_ACCEPT = String.valueOf(1);
   private static final String SAMPLING_PRIORITY_DROP = String.valueOf(0);
   private static final int HEX_RADIX = 16;
@@ -17,11 +17,11 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 class DatadogHttpCodec {
 
-  private static final String OT_BAGGAGE_PREFIX = "ot-baggage-";
-  private static final String TRACE_ID_KEY = "x-datadog-trace-id";
-  private static final String SPAN_ID_KEY = "x-datadog-parent-id";
-  private static final String SAMPLING_PRIORITY_KEY = "x-datadog-sampling-priority";
-  private static final String ORIGIN_KEY = "x-datadog-origin";
+  static final String OT_BAGGAGE_PREFIX = "ot-baggage-";
+  static final String TRACE_ID_KEY = "x-datadog-trace-id";
+  static final String SPAN_ID_KEY = "x-datadog-parent-id";
+  static final String SAMPLING_PRIORITY_KEY = "x-datadog-sampling-priority";
+  static final String ORIGIN_KEY = "x-datadog-origin";
 
   private DatadogHttpCodec() {
     // This class should not be created. This also makes code coverage checks happy.
@@ -31,8 +31,8 @@ class DatadogHttpCodec {
 
     @Override
     public void inject(final DDSpanContext context, final TextMapInject carrier) {
-      carrier.put(TRACE_ID_KEY, context.getTraceId().toString());
-      carrier.put(SPAN_ID_KEY, context.getSpanId().toString());
+      carrier.put(TRACE_ID_KEY, context.toTraceId());
+      carrier.put(SPAN_ID_KEY, context.toSpanId());
       if (context.lockSamplingPriority()) {
         carrier.put(SAMPLING_PRIORITY_KEY, String.valueOf(context.getSamplingPriority()));
       }
@@ -0,0 +1,417 @@
+package datadog.opentracing.propagation;
+
+import static datadog.opentracing.propagation.HttpCodec.validateUInt64BitsID;
+
+import datadog.trace.api.Config;
+import datadog.trace.api.sampling.PrioritySampling;
+import io.opentracing.SpanContext;
+import io.opentracing.propagation.TextMapExtract;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Extractor that handles all configured propagation styles in a single pass over the carrier.
+ *
+ * <p>Header names of every configured style and every tagged header are compiled into a
+ * case-insensitive lookup table once, so each carrier header costs one hash and at most one
+ * comparison instead of a {@code toLowerCase()} and a chain of {@code equalsIgnoreCase} calls per
+ * style. The result is the same as running the style specific extractors one after another through
+ * {@link HttpCodec.CompoundExtractor}: the first style producing an {@link ExtractedContext} wins,
+ * otherwise the outcome of the last configured style is returned.
+ */
+@Slf4j
+public class FusedHttpExtractor implements HttpCodec.Extractor {
+
+  private static final int DD_TRACE_ID = 1;
+  private static final int DD_SPAN_ID = 1 << 1;
+  private static final int DD_SAMPLING_PRIORITY = 1 << 2;
+  private static final int DD_ORIGIN = 1 << 3;
+  private static final int B3_TRACE_ID = 1 << 4;
+  private static final int B3_SPAN_ID = 1 << 5;
+  private static final int B3_SAMPLING_PRIORITY = 1 << 6;
+  private static final int HAYSTACK_TRACE_ID = 1 << 7;
+  private static final int HAYSTACK_SPAN_ID = 1 << 8;
+
+  private static final int B3_HEX_RADIX = 16;
+  private static final String HAYSTACK_BAGGAGE_PREFIX =
+      HaystackHttpCodec.OT_BAGGAGE_PREFIX.toLowerCase();
+
+  private final Config.PropagationStyle[] styles;
+  private final boolean datadogEnabled;
+  private final boolean haystackEnabled;
+  private final HeaderTable headers;
+
+  public FusedHttpExtractor(
+      final Collection<Config.PropagationStyle> styles, final Map<String, String> taggedHeaders) {
+    final List<Config.PropagationStyle> supported = new ArrayList<>(styles.size());
+    final HeaderTable.Builder builder = new HeaderTable.Builder();
+    boolean datadog = false;
+    boolean haystack = false;
+    for (final Config.PropagationStyle style : styles) {
+      if (style == Config.PropagationStyle.DATADOG) {
+        datadog = true;
+        builder.addRole(DatadogHttpCodec.TRACE_ID_KEY, DD_TRACE_ID);
+        builder.addRole(DatadogHttpCodec.SPAN_ID_KEY, DD_SPAN_ID);
+        builder.addRole(DatadogHttpCodec.SAMPLING_PRIORITY_KEY, DD_SAMPLING_PRIORITY);
+        builder.addRole(DatadogHttpCodec.ORIGIN_KEY, DD_ORIGIN);
+      } else if (style == Config.PropagationStyle.B3) {
+        builder.addRole(B3HttpCodec.TRACE_ID_KEY, B3_TRACE_ID);
+        builder.addRole(B3HttpCodec.SPAN_ID_KEY, B3_SPAN_ID);
+        builder.addRole(B3HttpCodec.SAMPLING_PRIORITY_KEY, B3_SAMPLING_PRIORITY);
+      } else if (style == Config.PropagationStyle.HAYSTACK) {
+        haystack = true;
+        builder.addRole(HaystackHttpCodec.TRACE_ID_KEY, HAYSTACK_TRACE_ID);
+        builder.addRole(HaystackHttpCodec.SPAN_ID_KEY, HAYSTACK_SPAN_ID);
+      } else {
+        log.debug("No implementation found to extract propagation style: {}", style);
+        continue;
+      }
+      supported.add(style);
+    }
+    for (final Map.Entry<String, String> mapping : taggedHeaders.entrySet()) {
+      builder.addTag(mapping.getKey().trim(), mapping.getValue());
+    }
+    this.styles = supported.toArray(new Config.PropagationStyle[0]);
+    datadogEnabled = datadog;
+    haystackEnabled = haystack;
+    headers = builder.build();
+  }
+
+  @Override
+  public SpanContext extract(final TextMapExtract carrier) {
+    if (styles.length == 0) {
+      return null;
+    }
+
+    Map<String, String> tags = Collections.emptyMap();
+    boolean tagsFailed = false;
+
+    BigInteger datadogTraceId = BigInteger.ZERO;
+    BigInteger datadogSpanId = BigInteger.ZERO;
+    int datadogSamplingPriority = PrioritySampling.UNSET;
+    String origin = null;
+    Map<String, String> datadogBaggage = Collections.emptyMap();
+    boolean datadogFailed = false;
+
+    BigInteger b3TraceId = BigInteger.ZERO;
+    BigInteger b3SpanId = BigInteger.ZERO;
+    int b3SamplingPriority = PrioritySampling.UNSET;
+    boolean b3Failed = false;
+
+    BigInteger haystackTraceId = BigInteger.ZERO;
+    BigInteger haystackSpanId = BigInteger.ZERO;
+    Map<String, String> haystackBaggage = Collections.emptyMap();
+    boolean haystackFailed = false;
+
+    for (final Map.Entry<String, String> entry : carrier) {
+      final String key = entry.getKey();
+      final String value = entry.getValue();
+
+      if (value == null) {
+        continue;
+      }
+
+      final HeaderTable.Entry header = headers.get(key);
+      final int roles = header == null ? 0 : header.roles;
+      if (roles != 0) {
+        if ((roles & DD_TRACE_ID) != 0 && !datadogFailed) {
+          try {
+            datadogTraceId = validateUInt64BitsID(value, 10);
+          } catch (final RuntimeException e) {
+            datadogFailed = failed(e);
+          }
+        } else if ((roles & DD_SPAN_ID) != 0 && !datadogFailed) {
+          try {
+            datadogSpanId = validateUInt64BitsID(value, 10);
+          } catch (final RuntimeException e) {
+            datadogFailed = failed(e);
+          }
+        } else if ((roles & DD_SAMPLING_PRIORITY) != 0 && !datadogFailed) {
+          try {
+            datadogSamplingPriority = Integer.parseInt(value);
+          } catch (final RuntimeException e) {
+            datadogFailed = failed(e);
+          }
+        } else if ((roles & DD_ORIGIN) != 0) {
+          origin = value;
+        } else if ((roles & B3_TRACE_ID) != 0 && !b3Failed) {
+          final int length = value.length();
+          if (length > 32) {
+            log.debug("Header {} exceeded max length of 32: {}", B3HttpCodec.TRACE_ID_KEY, value);
+            b3TraceId = BigInteger.ZERO;
+          } else {
+            try {
+              b3TraceId =
+                  validateUInt64BitsID(
+                      length > 16 ? value.substring(length - 16) : value, B3_HEX_RADIX);
+            } catch (final RuntimeException e) {
+              b3Failed = failed(e);
+            }
+          }
+        } else if ((roles & B3_SPAN_ID) != 0 && !b3Failed) {
+          try {
+            b3SpanId = validateUInt64BitsID(value, B3_HEX_RADIX);
+          } catch (final RuntimeException e) {
+            b3Failed = failed(e);
+          }
+        } else if ((roles & B3_SAMPLING_PRIORITY) != 0 && !b3Failed) {
+          try {
+            b3SamplingPriority =
+                Integer.parseInt(value) == 1
+                    ? PrioritySampling.SAMPLER_KEEP
+                    : PrioritySampling.SAMPLER_DROP;
+          } catch (final RuntimeException e) {
+            b3Failed = failed(e);
+          }
+        } else if ((roles & HAYSTACK_TRACE_ID) != 0 && !haystackFailed) {
+          try {
+            haystackTraceId = validateUInt64BitsID(value, 10);
+          } catch (final RuntimeException e) {
+            haystackFailed = failed(e);
+          }
+        } else if ((roles & HAYSTACK_SPAN_ID) != 0 && !haystackFailed) {
+          try {
+            haystackSpanId = validateUInt64BitsID(value, 10);
+          } catch (final RuntimeException e) {
+            haystackFailed = failed(e);
+          }
+        }
+      } else {
+        if (datadogEnabled
+            && !datadogFailed
+            && startsWithIgnoreCase(key, DatadogHttpCodec.OT_BAGGAGE_PREFIX)) {
+          try {
+            final String decoded = HttpCodec.decode(value);
+            if (datadogBaggage.isEmpty()) {
+              datadogBaggage = new HashMap<>();
+            }
+            datadogBaggage.put(
+                key.toLowerCase().replace(DatadogHttpCodec.OT_BAGGAGE_PREFIX, ""), decoded);
+          } catch (final RuntimeException e) {
+            datadogFailed = failed(e);
+          }
+        }
+        if (haystackEnabled
+            && !haystackFailed
+            && startsWithIgnoreCase(key, HAYSTACK_BAGGAGE_PREFIX)) {
+          try {
+            final String decoded = HttpCodec.decode(value);
+            if (haystackBaggage.isEmpty()) {
+              haystackBaggage = new HashMap<>();
+            }
+            haystackBaggage.put(key.toLowerCase().replace(HAYSTACK_BAGGAGE_PREFIX, ""), decoded);
+          } catch (final RuntimeException e) {
+            haystackFailed = failed(e);
+          }
+        }
+      }
+
+      if (header != null && header.tag != null && !tagsFailed) {
+        try {
+          final String decoded = HttpCodec.decode(value);
+          if (tags.isEmpty()) {
+            tags = new HashMap<>();
+          }
+          tags.put(header.tag, decoded);
+        } catch (final RuntimeException e) {
+          tagsFailed = failed(e);
+        }
+      }
+    }
+
+    if (tagsFailed) {
+      // A tagged header failing to decode aborts extraction for every style
+      return null;
+    }
+
+    SpanContext context = null;
+    for (final Config.PropagationStyle style : styles) {
+      if (style == Config.PropagationStyle.DATADOG) {
+        context =
+            datadogFailed
+                ? null
+                : toContext(
+                    datadogTraceId,
+                    datadogSpanId,
+                    datadogSamplingPriority,
+                    origin,
+                    datadogBaggage,
+                    tags);
+      } else if (style == Config.PropagationStyle.B3) {
+        context =
+            b3Failed
+                ? null
+                : toContext(
+                    b3TraceId,
+                    b3SpanId,
+                    b3SamplingPriority,
+                    null,
+                    Collections.<String, String>emptyMap(),
+                    tags);
+      } else {
+        context =
+            haystackFailed
+                ? null
+                : toContext(
+                    haystackTraceId,
+                    haystackSpanId,
+                    PrioritySampling.SAMPLER_KEEP,
+                    null,
+                    haystackBaggage,
+                    tags);
+      }
+      // Use incomplete TagContext only as last resort
+      if (context instanceof ExtractedContext) {
+        return context;
+      }
+    }
+    return context;
+  }
+
+  private static SpanContext toContext(
+      final BigInteger traceId,
+      final BigInteger spanId,
+      final int samplingPriority,
+      final String origin,
+      final Map<String, String> baggage,
+      final Map<String, String> tags) {
+    if (!BigInteger.ZERO.equals(traceId)) {
+      final ExtractedContext context =
+          new ExtractedContext(traceId, spanId, samplingPriority, origin, baggage, tags);
+      context.lockSamplingPriority();
+
+      log.debug("{} - Parent context extracted", context.getTraceId());
+      return context;
+    } else if (origin != null || !tags.isEmpty()) {
+      log.debug("Tags context extracted");
+      return new TagContext(origin, tags);
+    }
+    return null;
+  }
+
+  private static boolean failed(final RuntimeException e) {
+    log.debug("Exception when extracting context", e);
+    return true;
+  }
+
+  private static boolean startsWithIgnoreCase(final String key, final String prefix) {
+    return key.regionMatches(true, 0, prefix, 0, prefix.length());
+  }
+
+  /**
+   * Immutable open addressing table of lower-cased header names. The builder searches for a hash
+   * seed and table size which place every name in its home slot, so a lookup is one case-folding
+   * hash and one comparison. Should no such seed be found the table degrades gracefully to linear
+   * probing.
+   */
+  static final class HeaderTable {
+    private static final int[] SEEDS = {31, 37, 41, 43, 47, 53, 59, 61, 67, 71, 73, 79, 83, 89};
+    private static final int MAX_TABLE_SIZE = 1 << 12;
+
+    static final class Entry {
+      final String key;
+      int roles;
+      String tag;
+
+      Entry(final String key) {
+        this.key = key;
+      }
+    }
+
+    private final Entry[] table;
+    private final int mask;
+    private final int seed;
+
+    private HeaderTable(final Entry[] table, final int seed) {
+      this.table = table;
+      mask = table.length - 1;
+      this.seed = seed;
+    }
+
+    Entry get(final String key) {
+      int index = hash(key, seed) & mask;
+      Entry candidate;
+      while ((candidate = table[index]) != null) {
+        if (candidate.key.length() == key.length()
+            && key.regionMatches(true, 0, candidate.key, 0, key.length())) {
+          return candidate;
+        }
+        index = (index + 1) & mask;
+      }
+      return null;
+    }
+
+    private static int hash(final String key, final int seed) {
+      int h = 0;
+      for (int i = 0; i < key.length(); i++) {
+        h = seed * h + Character.toLowerCase(key.charAt(i));
+      }
+      return h ^ (h >>> 16);
+    }
+
+    static final class Builder {
+      private final Map<String, Entry> entries = new HashMap<>();
+
+      void addRole(final String key, final int role) {
+        entry(key).roles |= role;
+      }
+
+      void addTag(final String key, final String tag) {
+        entry(key).tag = tag;
+      }
+
+      private Entry entry(final String key) {
+        final String lowerCaseKey = key.toLowerCase();
+        Entry entry = entries.get(lowerCaseKey);
+        if (entry == null) {
+          entry = new Entry(lowerCaseKey);
+          entries.put(lowerCaseKey, entry);
+        }
+        return entry;
+      }
+
+      HeaderTable build() {
+        int size = 2;
+        while (size < entries.size() * 2) {
+          size <<= 1;
+        }
+        for (int tableSize = size; tableSize <= MAX_TABLE_SIZE; tableSize <<= 1) {
+          for (final int seed : SEEDS) {
+            final Entry[] table = tryPerfect(tableSize, seed);
+            if (table != null) {
+              return new HeaderTable(table, seed);
+            }
+          }
+        }
+        // Every candidate collided, fall back to probing on the smallest table
+        final Entry[] table = new Entry[size];
+        for (final Entry entry : entries.values()) {
+          int index = hash(entry.key, SEEDS[0]) & (size - 1);
+          while (table[index] != null) {
+            index = (index + 1) & (size - 1);
+          }
+          table[index] = entry;
+        }
+        return new HeaderTable(table, SEEDS[0]);
+      }
+
+      private Entry[] tryPerfect(final int tableSize, final int seed) {
+        final Entry[] table = new Entry[tableSize];
+        for (final Entry entry : entries.values()) {
+          final int index = hash(entry.key, seed) & (tableSize - 1);
+          if (table[index] != null) {
+            return null;
+          }
+          table[index] = entry;
+        }
+        return table;
+      }
+    }
+  }
+}
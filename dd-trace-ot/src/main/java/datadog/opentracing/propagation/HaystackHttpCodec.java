@@ -21,9 +21,9 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class HaystackHttpCodec {
 
-  private static final String OT_BAGGAGE_PREFIX = "Baggage-";
-  private static final String TRACE_ID_KEY = "Trace-ID";
-  private static final String SPAN_ID_KEY = "Span-ID";
+  static final String OT_BAGGAGE_PREFIX = "Baggage-";
+  static final String TRACE_ID_KEY = "Trace-ID";
+  static final String SPAN_ID_KEY = "Span-ID";
   private static final String PARENT_ID_KEY = "Parent_ID";
 
   private HaystackHttpCodec() {
@@ -34,8 +34,8 @@ public class HaystackHttpCodec {
 
     @Override
     public void inject(final DDSpanContext context, final TextMapInject carrier) {
-      carrier.put(TRACE_ID_KEY, context.getTraceId().toString());
-      carrier.put(SPAN_ID_KEY, context.getSpanId().toString());
+      carrier.put(TRACE_ID_KEY, context.toTraceId());
+      carrier.put(SPAN_ID_KEY, context.toSpanId());
       carrier.put(PARENT_ID_KEY, context.getParentId().toString());
 
       for (final Map.Entry<String, String> entry : context.baggageItems()) {
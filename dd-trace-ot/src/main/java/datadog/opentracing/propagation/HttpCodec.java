@@ -2,6 +2,7 @@ package datadog.opentracing.propagation;
 
 import datadog.opentracing.DDSpanContext;
 import datadog.opentracing.DDTracer;
+import datadog.opentracing.StringCachingBigInteger;
 import datadog.trace.api.Config;
 import io.opentracing.SpanContext;
 import io.opentracing.propagation.TextMapExtract;
@@ -49,23 +50,7 @@ public class HttpCodec {
 
   public static Extractor createExtractor(
       final Config config, final Map<String, String> taggedHeaders) {
-    final List<Extractor> extractors = new ArrayList<>();
-    for (final Config.PropagationStyle style : config.getPropagationStylesToExtract()) {
-      if (style == Config.PropagationStyle.DATADOG) {
-        extractors.add(new DatadogHttpCodec.Extractor(taggedHeaders));
-        continue;
-      }
-      if (style == Config.PropagationStyle.B3) {
-        extractors.add(new B3HttpCodec.Extractor(taggedHeaders));
-        continue;
-      }
-      if (style == Config.PropagationStyle.HAYSTACK) {
-        extractors.add(new HaystackHttpCodec.Extractor(taggedHeaders));
-        continue;
-      }
-      log.debug("No implementation found to extract propagation style: {}", style);
-    }
-    return new CompoundExtractor(extractors);
+    return new FusedHttpExtractor(config.getPropagationStylesToExtract(), taggedHeaders);
   }
 
   public static class CompoundInjector implements Injector {
@@ -76,11 +61,26 @@ public class HttpCodec {
       this.injectors = injectors;
     }
 
+    /**
+     * The headers written for a context are cached on the context itself, so repeated injections
+     * of the same span (e.g. a fan out to many downstream services) only copy the cached values.
+     */
     @Override
     public void inject(final DDSpanContext context, final TextMapInject carrier) {
-      for (final Injector injector : injectors) {
-        injector.inject(context, carrier);
+      // Read the stamp first so concurrent changes invalidate what is recorded below
+      final int samplingPriority = context.getSamplingPriority();
+      final int baggageVersion = context.getBaggageVersion();
+
+      InjectedHeaders headers = context.getInjectedHeaders();
+      if (headers == null || !headers.isValidFor(this, samplingPriority, baggageVersion)) {
+        final InjectedHeaders.Recorder recorder = new InjectedHeaders.Recorder();
+        for (final Injector injector : injectors) {
+          injector.inject(context, recorder);
+        }
+        headers = recorder.toHeaders(this, samplingPriority, baggageVersion);
+        context.setInjectedHeaders(headers);
       }
+      headers.replay(carrier);
     }
   }
 
@@ -117,7 +117,8 @@ public class HttpCodec {
    */
   static BigInteger validateUInt64BitsID(final String value, final int radix)
       throws IllegalArgumentException {
-    final BigInteger parsedValue = new BigInteger(value, radix);
+    // Cache the decimal form, it is used repeatedly for log correlation and injection
+    final BigInteger parsedValue = new StringCachingBigInteger(value, radix);
     if (parsedValue.compareTo(DDTracer.TRACE_ID_MIN) < 0
         || parsedValue.compareTo(DDTracer.TRACE_ID_MAX) > 0) {
       throw new IllegalArgumentException(
@@ -0,0 +1,61 @@
+package datadog.opentracing.propagation;
+
+import io.opentracing.propagation.TextMapInject;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Snapshot of the headers an {@link HttpCodec.Injector} wrote for a span context. Trace and span
+ * ids and origin never change for a given context, so the snapshot stays valid until the baggage
+ * or the sampling priority changes and replaying it is a plain copy into the carrier.
+ */
+public final class InjectedHeaders {
+  private final HttpCodec.Injector injector;
+  private final int samplingPriority;
+  private final int baggageVersion;
+  private final String[] keysAndValues;
+
+  private InjectedHeaders(
+      final HttpCodec.Injector injector,
+      final int samplingPriority,
+      final int baggageVersion,
+      final String[] keysAndValues) {
+    this.injector = injector;
+    this.samplingPriority = samplingPriority;
+    this.baggageVersion = baggageVersion;
+    this.keysAndValues = keysAndValues;
+  }
+
+  boolean isValidFor(
+      final HttpCodec.Injector injector, final int samplingPriority, final int baggageVersion) {
+    return this.injector == injector
+        && this.samplingPriority == samplingPriority
+        && this.baggageVersion == baggageVersion;
+  }
+
+  void replay(final TextMapInject carrier) {
+    for (int i = 0; i < keysAndValues.length; i += 2) {
+      carrier.put(keysAndValues[i], keysAndValues[i + 1]);
+    }
+  }
+
+  /** Carrier collecting everything injected into it, in order. */
+  static final class Recorder implements TextMapInject {
+    private final List<String> keysAndValues = new ArrayList<>();
+
+    @Override
+    public void put(final String key, final String value) {
+      keysAndValues.add(key);
+      keysAndValues.add(value);
+    }
+
+    InjectedHeaders toHeaders(
+        final HttpCodec.Injector injector, final int samplingPriority, final int baggageVersion) {
+      return new InjectedHeaders(
+          injector,
+          samplingPriority,
+          baggageVersion,
+          keysAndValues.toArray(new String[keysAndValues.size()]));
+    }
+  }
+}
@@ -19,6 +19,12 @@ public class ContextualScopeManager implements ScopeManager {
   final Deque<ScopeContext> scopeContexts = new ConcurrentLinkedDeque<>();
   final List<ScopeListener> scopeListeners = new CopyOnWriteArrayList<>();
 
+  /**
+   * Scope contexts are rarely registered, so until the first one is added lookups go straight to
+   * the thread local instead of iterating (and allocating an iterator over) the empty deque.
+   */
+  private volatile boolean hasScopeContexts = false;
+
   private final int depthLimit;
   private final DDScopeEventFactory scopeEventFactory;
 
@@ -37,9 +43,11 @@ public class ContextualScopeManager implements ScopeManager {
         return NoopScopeManager.NoopScope.INSTANCE;
       }
     }
-    for (final ScopeContext context : scopeContexts) {
-      if (context.inContext()) {
-        return context.activate(span, finishOnClose);
+    if (hasScopeContexts) {
+      for (final ScopeContext context : scopeContexts) {
+        if (context.inContext()) {
+          return context.activate(span, finishOnClose);
+        }
       }
     }
     if (span instanceof DDSpan) {
@@ -56,9 +64,11 @@ public class ContextualScopeManager implements ScopeManager {
 
   @Override
   public Scope active() {
-    for (final ScopeContext csm : scopeContexts) {
-      if (csm.inContext()) {
-        return csm.active();
+    if (hasScopeContexts) {
+      for (final ScopeContext csm : scopeContexts) {
+        if (csm.inContext()) {
+          return csm.active();
+        }
       }
     }
     return tlsScope.get();
@@ -66,9 +76,11 @@ public class ContextualScopeManager implements ScopeManager {
 
   @Override
   public Span activeSpan() {
-    for (final ScopeContext csm : scopeContexts) {
-      if (csm.inContext()) {
-        return csm.activeSpan();
+    if (hasScopeContexts) {
+      for (final ScopeContext csm : scopeContexts) {
+        if (csm.inContext()) {
+          return csm.activeSpan();
+        }
       }
     }
     final DDScope active = tlsScope.get();
@@ -78,6 +90,7 @@ public class ContextualScopeManager implements ScopeManager {
   @Deprecated
   public void addScopeContext(final ScopeContext context) {
     scopeContexts.addFirst(context);
+    hasScopeContexts = true;
   }
 
   /** Attach a listener to scope activation events */
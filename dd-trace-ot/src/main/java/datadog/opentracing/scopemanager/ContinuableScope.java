@@ -9,12 +9,15 @@ import datadog.trace.context.ScopeListener;
 import datadog.trace.context.TraceScope;
 import java.io.Closeable;
 import java.lang.ref.WeakReference;
-import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 public class ContinuableScope implements DDScope, TraceScope {
+  private static final AtomicIntegerFieldUpdater<Continuation> CONTINUATION_USED =
+      AtomicIntegerFieldUpdater.newUpdater(Continuation.class, "used");
+
   /** ScopeManager holding the thread-local to this scope. */
   private final ContextualScopeManager scopeManager;
   /**
@@ -25,16 +28,25 @@ public class ContinuableScope implements DDScope, TraceScope {
   private final DDScopeEventFactory eventFactory;
   /** Event for this scope */
   private final DDScopeEvent event;
+  /**
+   * Event for the time this scope is open on its thread. Scopes activated on top of it get their
+   * own event nested in this one, so that a short child doesn't split this event into fragments.
+   */
+  private final DDScopeEvent activationEvent;
   /** If true, finish the span when openCount hits 0. */
   private final boolean finishOnClose;
-  /** Count of open scope and continuations */
+  /**
+   * Count of open scope and continuations, shared with the scopes activated from continuations. It
+   * is held on its own so that those scopes don't keep the scope which started the chain, and the
+   * scopes it restores, reachable.
+   */
   private final AtomicInteger openCount;
   /** Scope to placed in the thread local after close. May be null. */
   private final DDScope toRestore;
   /** Continuation that created this scope. May be null. */
   private final Continuation continuation;
   /** Flag to propagate this scope across async boundaries. */
-  private final AtomicBoolean isAsyncPropagating = new AtomicBoolean(false);
+  private volatile boolean isAsyncPropagating = false;
   /** depth of scope on thread */
   private final int depth;
 
@@ -65,9 +77,9 @@ public class ContinuableScope implements DDScope, TraceScope {
     toRestore = scopeManager.tlsScope.get();
     scopeManager.tlsScope.set(this);
     depth = toRestore == null ? 0 : toRestore.depth() + 1;
-    for (final ScopeListener listener : scopeManager.scopeListeners) {
-      listener.afterScopeActivated();
-    }
+    activationEvent = eventFactory.createActivation(spanUnderScope.context());
+    activationEvent.start();
+    notifyActivated();
   }
 
   @Override
@@ -76,6 +88,7 @@ public class ContinuableScope implements DDScope, TraceScope {
     // The reason is that we get span on construction and span event starts when span is created.
     // This means from JFR perspective scope is included into the span.
     event.finish();
+    activationEvent.finish();
 
     if (null != continuation) {
       spanUnderScope.context().getTrace().cancelContinuation(continuation);
@@ -85,23 +98,34 @@ public class ContinuableScope implements DDScope, TraceScope {
       spanUnderScope.finish();
     }
 
-    for (final ScopeListener listener : scopeManager.scopeListeners) {
-      listener.afterScopeClosed();
-    }
-
-    if (scopeManager.tlsScope.get() == this) {
+    // Restore before notifying so listeners observe the scope that is active after this close
+    final boolean onTop = scopeManager.tlsScope.get() == this;
+    if (onTop) {
       scopeManager.tlsScope.set(toRestore);
-      if (toRestore != null) {
-        for (final ScopeListener listener : scopeManager.scopeListeners) {
-          listener.afterScopeActivated();
-        }
-      }
     } else {
       log.debug(
           "Tried to close {} scope when {} is on top. Ignoring!",
           this,
           scopeManager.tlsScope.get());
     }
+
+    // Avoid allocating an iterator when nobody listens, which is the common case
+    if (!scopeManager.scopeListeners.isEmpty()) {
+      for (final ScopeListener listener : scopeManager.scopeListeners) {
+        listener.afterScopeClosed();
+      }
+      if (onTop && toRestore != null) {
+        notifyActivated();
+      }
+    }
+  }
+
+  private void notifyActivated() {
+    if (!scopeManager.scopeListeners.isEmpty()) {
+      for (final ScopeListener listener : scopeManager.scopeListeners) {
+        listener.afterScopeActivated();
+      }
+    }
   }
 
   @Override
@@ -116,12 +140,12 @@ public class ContinuableScope implements DDScope, TraceScope {
 
   @Override
   public boolean isAsyncPropagating() {
-    return isAsyncPropagating.get();
+    return isAsyncPropagating;
   }
 
   @Override
   public void setAsyncPropagation(final boolean value) {
-    isAsyncPropagating.set(value);
+    isAsyncPropagating = value;
   }
 
   /**
@@ -146,7 +170,9 @@ public class ContinuableScope implements DDScope, TraceScope {
   public class Continuation implements Closeable, TraceScope.Continuation {
     public WeakReference<Continuation> ref;
 
-    private final AtomicBoolean used = new AtomicBoolean(false);
+    /** Set to 1 once activated or closed. Package private for the field updater. */
+    volatile int used = 0;
+
     private final PendingTrace trace;
 
     private Continuation() {
@@ -158,7 +184,7 @@ public class ContinuableScope implements DDScope, TraceScope {
 
     @Override
     public ContinuableScope activate() {
-      if (used.compareAndSet(false, true)) {
+      if (CONTINUATION_USED.compareAndSet(this, 0, 1)) {
         final ContinuableScope scope =
             new ContinuableScope(
                 scopeManager, openCount, this, spanUnderScope, finishOnClose, eventFactory);
@@ -179,7 +205,7 @@ public class ContinuableScope implements DDScope, TraceScope {
 
     @Override
     public void close(final boolean closeContinuationScope) {
-      if (used.compareAndSet(false, true)) {
+      if (CONTINUATION_USED.compareAndSet(this, 0, 1)) {
         trace.cancelContinuation(this);
         if (closeContinuationScope) {
           ContinuableScope.this.close();
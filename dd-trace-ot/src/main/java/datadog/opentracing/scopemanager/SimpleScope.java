@@ -32,16 +32,18 @@ public class SimpleScope implements DDScope {
     if (finishOnClose) {
       spanUnderScope.finish();
     }
+    // Restore before notifying so listeners observe the scope that is active after this close
+    final boolean onTop = scopeManager.tlsScope.get() == this;
+    if (onTop) {
+      scopeManager.tlsScope.set(toRestore);
+    }
+
     for (final ScopeListener listener : scopeManager.scopeListeners) {
       listener.afterScopeClosed();
     }
-
-    if (scopeManager.tlsScope.get() == this) {
-      scopeManager.tlsScope.set(toRestore);
-      if (toRestore != null) {
-        for (final ScopeListener listener : scopeManager.scopeListeners) {
-          listener.afterScopeActivated();
-        }
+    if (onTop && toRestore != null) {
+      for (final ScopeListener listener : scopeManager.scopeListeners) {
+        listener.afterScopeActivated();
       }
     }
   }
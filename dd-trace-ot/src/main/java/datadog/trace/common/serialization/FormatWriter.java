@@ -1,8 +1,11 @@
 package datadog.trace.common.serialization;
 
 import datadog.opentracing.DDSpan;
+import datadog.opentracing.DDSpanContext;
+import datadog.opentracing.TagStore;
 import java.io.IOException;
 import java.math.BigInteger;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -73,6 +76,79 @@ public abstract class FormatWriter<DEST> {
     writeMapFooter(destination);
   }
 
+  /** Writes the span metrics straight from the metric store. */
+  public void writeMetrics(final DDSpanContext context, final DEST destination)
+      throws IOException {
+    final TagStore metrics = context.getMetricStore();
+    if (metrics == null) {
+      writeNumberMap("metrics", context.getMetrics(), destination);
+      return;
+    }
+    // The snapshot keeps the entry count in line with the entries visited
+    final TagStore.Snapshot snapshot = metrics.snapshot();
+    writeKey("metrics", destination);
+    writeMapHeader(snapshot.size(), destination);
+    snapshot.visit(
+        new TagStore.Visitor<IOException>() {
+          @Override
+          public void visit(final String key, final byte kind, final Object object, final long bits)
+              throws IOException {
+            switch (kind) {
+              case TagStore.INT:
+                writeInt(key, (int) bits, destination);
+                break;
+              case TagStore.LONG:
+                writeLong(key, bits, destination);
+                break;
+              case TagStore.FLOAT:
+                writeFloat(key, (float) Double.longBitsToDouble(bits), destination);
+                break;
+              case TagStore.DOUBLE:
+                writeDouble(key, Double.longBitsToDouble(bits), destination);
+                break;
+              default:
+                writeNumber(key, (Number) TagStore.toObject(kind, object, bits), destination);
+            }
+          }
+        });
+    writeMapFooter(destination);
+  }
+
+  /**
+   * Writes the baggage and the stringified tags, tags taking precedence, without first merging
+   * them into a map like {@link DDSpan#getMeta()} does.
+   */
+  public void writeMeta(final DDSpanContext context, final DEST destination) throws IOException {
+    final TagStore.Snapshot tags = context.getTagStore().snapshot();
+    Map<String, String> baggage = context.getBaggageItems();
+    if (!baggage.isEmpty()) {
+      // Baggage is concurrent, take a stable copy so the entry count matches what is written
+      baggage = new HashMap<>(baggage);
+    }
+    int size = tags.size();
+    for (final String key : baggage.keySet()) {
+      if (!tags.containsKey(key)) {
+        size++;
+      }
+    }
+    writeKey("meta", destination);
+    writeMapHeader(size, destination);
+    for (final Map.Entry<String, String> entry : baggage.entrySet()) {
+      if (!tags.containsKey(entry.getKey())) {
+        writeString(entry.getKey(), entry.getValue(), destination);
+      }
+    }
+    tags.visit(
+        new TagStore.Visitor<IOException>() {
+          @Override
+          public void visit(final String key, final byte kind, final Object object, final long bits)
+              throws IOException {
+            writeString(key, TagStore.toString(kind, object, bits), destination);
+          }
+        });
+    writeMapFooter(destination);
+  }
+
   public void writeTrace(final List<DDSpan> trace, final DEST destination) throws IOException {
     writeListHeader(trace.size(), destination);
     for (final DDSpan span : trace) {
@@ -94,8 +170,8 @@ public abstract class FormatWriter<DEST> {
     /* 8  */ writeLong("duration", span.getDurationNano(), destination);
     /* 9  */ writeString("type", span.getType(), destination);
     /* 10 */ writeInt("error", span.getError(), destination);
-    /* 11 */ writeNumberMap("metrics", span.getMetrics(), destination);
-    /* 12 */ writeStringMap("meta", span.getMeta(), destination);
+    /* 11 */ writeMetrics(span.context(), destination);
+    /* 12 */ writeMeta(span.context(), destination);
     writeMapFooter(destination);
   }
 }
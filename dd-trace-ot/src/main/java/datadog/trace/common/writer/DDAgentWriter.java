@@ -5,10 +5,12 @@ import static datadog.trace.api.Config.DEFAULT_AGENT_UNIX_DOMAIN_SOCKET;
 import static datadog.trace.api.Config.DEFAULT_TRACE_AGENT_PORT;
 
 import datadog.opentracing.DDSpan;
+import datadog.opentracing.TraceSnapshot;
 import datadog.trace.common.writer.ddagent.BatchWritingDisruptor;
 import datadog.trace.common.writer.ddagent.DDAgentApi;
 import datadog.trace.common.writer.ddagent.DDAgentResponseListener;
 import datadog.trace.common.writer.ddagent.Monitor;
+import datadog.trace.common.writer.ddagent.PipelineStats;
 import datadog.trace.common.writer.ddagent.TraceProcessingDisruptor;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -39,6 +41,8 @@ public class DDAgentWriter implements Writer {
 
   private final AtomicInteger traceCount = new AtomicInteger(0);
 
+  private final PipelineStats pipelineStats = new PipelineStats(this);
+
   public final Monitor monitor;
 
   // Apply defaults to the class generated by lombok.
@@ -110,12 +114,25 @@ public class DDAgentWriter implements Writer {
     return traceProcessingDisruptor.getDisruptorRemainingCapacity();
   }
 
+  public final long getBatchDisruptorCapacity() {
+    return batchWritingDisruptor.getDisruptorCapacity();
+  }
+
+  public final long getBatchDisruptorRemainingCapacity() {
+    return batchWritingDisruptor.getDisruptorRemainingCapacity();
+  }
+
+  public PipelineStats getPipelineStats() {
+    return pipelineStats;
+  }
+
   @Override
   public void write(final List<DDSpan> trace) {
     // We can't add events after shutdown otherwise it will never complete shutting down.
     if (traceProcessingDisruptor.running) {
       final int representativeCount;
-      if (trace.isEmpty() || !(trace.get(0).isRootSpan())) {
+      final DDSpan firstSpan = TraceSnapshot.first(trace);
+      if (firstSpan == null || !firstSpan.isRootSpan()) {
         // We don't want to reset the count if we can't correctly report the value.
         representativeCount = 1;
       } else {
@@ -139,6 +156,25 @@ public class DDAgentWriter implements Writer {
     }
   }
 
+  /**
+   * Moves the work of completing written traces onto the trace processing thread. The processor
+   * runs before serialization and may drop the trace.
+   */
+  public void setTraceProcessor(final TraceProcessor processor) {
+    traceProcessingDisruptor.setTraceProcessor(processor);
+  }
+
+  /**
+   * Called from the trace processing thread when a published trace is dropped by the {@link
+   * TraceProcessor}, so that it is counted as if it had never been written.
+   */
+  public void onTraceDropped(final int representativeCount) {
+    // The trace itself was counted by incrementTraceCount() before being written
+    if (representativeCount > 1) {
+      traceCount.addAndGet(representativeCount - 1);
+    }
+  }
+
   public boolean flush() {
     return traceProcessingDisruptor.flush(traceCount.getAndSet(0));
   }
@@ -167,6 +203,7 @@ public class DDAgentWriter implements Writer {
     } finally { // in case first close fails.
       batchWritingDisruptor.close();
     }
+    pipelineStats.unregisterMBean();
     monitor.onShutdown(this, flushSuccess);
   }
 
@@ -0,0 +1,17 @@
+package datadog.trace.common.writer;
+
+import datadog.opentracing.DDSpan;
+import java.util.List;
+
+/**
+ * Completes a trace written to a {@link DDAgentWriter} before it is serialized, on the writer's
+ * processing thread rather than on the application thread which finished the trace.
+ */
+public interface TraceProcessor {
+
+  /**
+   * @param trace the spans as they were written
+   * @return the spans to serialize, or null if the trace should be dropped
+   */
+  List<DDSpan> process(List<DDSpan> trace);
+}
@@ -64,10 +64,15 @@ public interface Writer extends Closeable {
     }
 
     private static Writer createAgentWriter(final Config config) {
-      return DDAgentWriter.builder()
-          .agentApi(createApi(config))
-          .monitor(createMonitor(config))
-          .build();
+      final DDAgentWriter writer =
+          DDAgentWriter.builder()
+              .agentApi(createApi(config))
+              .monitor(createMonitor(config))
+              .build();
+      if (config.isHealthMetricsJmxEnabled()) {
+        writer.getPipelineStats().registerMBean();
+      }
+      return writer;
     }
 
     private static DDAgentApi createApi(final Config config) {
@@ -92,6 +97,10 @@ public interface Writer extends Closeable {
           port = config.getJmxFetchStatsdPort();
         }
 
+        final int aggregationInterval = config.getHealthMetricsAggregationInterval();
+        if (aggregationInterval > 0) {
+          return new Monitor.AggregatingStatsD(host, port, aggregationInterval);
+        }
         return new Monitor.StatsD(host, port);
       }
     }
@@ -68,6 +68,8 @@ public class BatchWritingDisruptor extends AbstractDisruptor<byte[]> {
     private final List<byte[]> serializedTraces = new ArrayList<>();
     private int representativeCount = 0;
     private int sizeInBytes = 0;
+    // System.nanoTime() when the first trace of the batch was queued
+    private long batchStartNanos;
     private long nextScheduledFlush;
 
     private BatchWritingHandler(
@@ -88,6 +90,9 @@ public class BatchWritingDisruptor extends AbstractDisruptor<byte[]> {
         final DisruptorEvent<byte[]> event, final long sequence, final boolean endOfBatch) {
       try {
         if (event.data != null) {
+          if (serializedTraces.isEmpty()) {
+            batchStartNanos = event.publishNanos;
+          }
           sizeInBytes += event.data.length;
           serializedTraces.add(event.data);
         }
@@ -114,10 +119,14 @@ public class BatchWritingDisruptor extends AbstractDisruptor<byte[]> {
         }
 
         // TODO add retry and rate limiting
+        final long requestStart = System.nanoTime();
         final DDAgentApi.Response response =
             api.sendSerializedTraces(representativeCount, sizeInBytes, serializedTraces);
+        final long requestNanos = System.nanoTime() - requestStart;
+        final long batchAgeNanos = requestStart - batchStartNanos;
 
-        monitor.onFlush(writer, early);
+        writer.getPipelineStats().recordFlush(batchAgeNanos, requestNanos);
+        monitor.onFlush(writer, early, batchAgeNanos, requestNanos);
 
         if (response.success()) {
           log.debug("Successfully sent {} traces to the API", serializedTraces.size());
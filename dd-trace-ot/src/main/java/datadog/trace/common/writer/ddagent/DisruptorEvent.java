@@ -10,11 +10,14 @@ class DisruptorEvent<T> {
   T data = null;
   int representativeCount = 0;
   CountDownLatch flushLatch = null;
+  // System.nanoTime() when the data was published, to measure the time spent in the queue
+  long publishNanos = 0;
 
   void reset() {
     data = null;
     representativeCount = 0;
     flushLatch = null;
+    publishNanos = 0;
   }
 
   static class Factory<T> implements EventFactory<DisruptorEvent<T>> {
@@ -34,6 +37,7 @@ class DisruptorEvent<T> {
         final Integer representativeCount) {
       event.data = data;
       event.representativeCount = representativeCount;
+      event.publishNanos = System.nanoTime();
     }
   }
 
@@ -0,0 +1,130 @@
+package datadog.trace.common.writer.ddagent;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free histogram of non-negative values with log-linear buckets, in the style of HdrHistogram:
+ * every power of two range is split into 8 buckets, so values are known within 12.5%. Recording a
+ * value is a few atomic operations and doesn't allocate.
+ */
+public final class Histogram {
+  private static final int SUB_BUCKET_BITS = 3;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  // values are positive longs, so the highest exponent is 62
+  private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+  private final AtomicLong sum = new AtomicLong();
+  private final AtomicLong max = new AtomicLong();
+
+  public void record(final long value) {
+    final long v = Math.max(value, 0);
+    buckets.incrementAndGet(bucket(v));
+    sum.addAndGet(v);
+    long current;
+    while ((current = max.get()) < v && !max.compareAndSet(current, v)) {
+      // retry
+    }
+  }
+
+  /** @return the values recorded since the last reset */
+  public Snapshot snapshot() {
+    final long[] counts = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets.get(i);
+      count += counts[i];
+    }
+    return new Snapshot(counts, count, sum.get(), max.get());
+  }
+
+  /** @return the values recorded since the last reset, resetting the histogram */
+  public Snapshot snapshotThenReset() {
+    final long[] counts = new long[BUCKETS];
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      counts[i] = buckets.getAndSet(i, 0);
+      count += counts[i];
+    }
+    return new Snapshot(counts, count, sum.getAndSet(0), max.getAndSet(0));
+  }
+
+  static int bucket(final long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    final int exponent = 63 - Long.numberOfLeadingZeros(value);
+    final int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+  }
+
+  /** @return the highest value which falls into a bucket */
+  static long highestValue(final int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    final int shift = bucket / SUB_BUCKETS - 1;
+    final long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+    return lowest + (1L << shift) - 1;
+  }
+
+  public static final class Snapshot {
+    private final long[] counts;
+    private final long count;
+    private final long sum;
+    private final long max;
+
+    Snapshot(final long[] counts, final long count, final long sum, final long max) {
+      this.counts = counts;
+      this.count = count;
+      this.sum = sum;
+      this.max = max;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public long getSum() {
+      return sum;
+    }
+
+    public long getMax() {
+      return max;
+    }
+
+    public long getMean() {
+      return count == 0 ? 0 : sum / count;
+    }
+
+    public long getP50() {
+      return getPercentile(50);
+    }
+
+    public long getP95() {
+      return getPercentile(95);
+    }
+
+    public long getP99() {
+      return getPercentile(99);
+    }
+
+    /**
+     * @param percentile between 0 and 100
+     * @return a value which at least the percentile of values are lower than or equal to, within
+     *     the precision of the buckets
+     */
+    public long getPercentile(final double percentile) {
+      final long rank = (long) Math.ceil(count * percentile / 100);
+      long seen = 0;
+      for (int i = 0; i < counts.length; i++) {
+        seen += counts[i];
+        if (seen >= rank && seen > 0) {
+          return Math.min(highestValue(i), max);
+        }
+      }
+      return 0;
+    }
+  }
+}
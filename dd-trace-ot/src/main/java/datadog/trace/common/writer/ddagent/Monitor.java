@@ -2,10 +2,17 @@ package datadog.trace.common.writer.ddagent;
 
 import com.timgroup.statsd.NonBlockingStatsDClient;
 import com.timgroup.statsd.StatsDClient;
+import datadog.common.exec.CommonTaskExecutor;
 import datadog.opentracing.DDSpan;
 import datadog.opentracing.DDTraceOTInfo;
 import datadog.trace.common.writer.DDAgentWriter;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Callback interface for monitoring the health of the DDAgentWriter. Provides hooks for major
@@ -28,12 +35,30 @@ public interface Monitor {
 
   void onFailedPublish(final DDAgentWriter agentWriter, final List<DDSpan> trace);
 
-  void onFlush(final DDAgentWriter agentWriter, final boolean early);
+  /**
+   * Called after each request sending a batch to the agent.
+   *
+   * @param batchAgeNanos time from queueing the first trace of the batch to sending the request
+   * @param requestNanos round trip time of the request
+   */
+  void onFlush(
+      final DDAgentWriter agentWriter,
+      final boolean early,
+      final long batchAgeNanos,
+      final long requestNanos);
 
   void onScheduleFlush(final DDAgentWriter agentWriter, final boolean previousIncomplete);
 
+  /**
+   * @param queueNanos time from writing the trace to the start of its serialization
+   * @param serializationNanos time spent serializing the trace
+   */
   void onSerialize(
-      final DDAgentWriter agentWriter, final List<DDSpan> trace, final byte[] serializedTrace);
+      final DDAgentWriter agentWriter,
+      final List<DDSpan> trace,
+      final byte[] serializedTrace,
+      final long queueNanos,
+      final long serializationNanos);
 
   void onFailedSerialize(
       final DDAgentWriter agentWriter, final List<DDSpan> trace, final Throwable optionalCause);
@@ -115,11 +140,19 @@ public interface Monitor {
     }
 
     @Override
-    public void onFlush(final DDAgentWriter agentWriter, final boolean early) {}
+    public void onFlush(
+        final DDAgentWriter agentWriter,
+        final boolean early,
+        final long batchAgeNanos,
+        final long requestNanos) {}
 
     @Override
     public void onSerialize(
-        final DDAgentWriter agentWriter, final List<DDSpan> trace, final byte[] serializedTrace) {
+        final DDAgentWriter agentWriter,
+        final List<DDSpan> trace,
+        final byte[] serializedTrace,
+        final long queueNanos,
+        final long serializationNanos) {
       // DQH - Because of Java tracer's 2 phase acceptance and serialization scheme, this doesn't
       // map precisely
       statsd.count("queue.accepted_size", serializedTrace.length);
@@ -181,6 +214,229 @@ public interface Monitor {
     }
   }
 
+  /**
+   * Variant of {@link StatsD} which aggregates the metrics in memory and sends them once per flush
+   * interval, rather than sending one message per event. Counters are striped so the application
+   * threads publishing traces don't contend, and distributions are kept in histograms which are
+   * sent as their count, mean, max and percentiles. The client packs the messages of a flush into
+   * as few datagrams as they fit in.
+   *
+   * <p>On top of the metrics of {@link StatsD}, this reports the serialization time of traces and
+   * the number of traces and bytes of each request to the agent.
+   */
+  final class AggregatingStatsD implements Monitor {
+    private static final double[] PERCENTILES = {50, 95, 99};
+
+    private final String hostInfo;
+    private final StatsDClient statsd;
+    private final long flushIntervalSeconds;
+
+    private final StripedCounter accepted = new StripedCounter();
+    private final StripedCounter acceptedLengths = new StripedCounter();
+    private final StripedCounter dropped = new StripedCounter();
+    private final StripedCounter acceptedSize = new StripedCounter();
+    private final StripedCounter requests = new StripedCounter();
+    private final StripedCounter errors = new StripedCounter();
+    private final ConcurrentMap<Integer, StripedCounter> responses = new ConcurrentHashMap<>();
+    // last values of the flush interval, -1 if there was no request
+    private final AtomicLong queueLength = new AtomicLong(-1);
+    private final AtomicLong queueSize = new AtomicLong(-1);
+    private final Histogram queueMicros = new Histogram();
+    private final Histogram serializationMicros = new Histogram();
+    private final Histogram batchTraces = new Histogram();
+    private final Histogram batchBytes = new Histogram();
+    private final Histogram batchAgeMillis = new Histogram();
+    private final Histogram requestMillis = new Histogram();
+
+    private volatile ScheduledFuture<?> flushTask;
+
+    public AggregatingStatsD(final String host, final int port, final long flushIntervalSeconds) {
+      hostInfo = host + ":" + port;
+      statsd = new NonBlockingStatsDClient(StatsD.PREFIX, host, port, StatsD.getDefaultTags());
+      this.flushIntervalSeconds = flushIntervalSeconds;
+    }
+
+    // Currently, intended for testing
+    private AggregatingStatsD(final StatsDClient statsd, final long flushIntervalSeconds) {
+      hostInfo = null;
+      this.statsd = statsd;
+      this.flushIntervalSeconds = flushIntervalSeconds;
+    }
+
+    @Override
+    public void onStart(final DDAgentWriter agentWriter) {
+      statsd.recordGaugeValue("queue.max_length", agentWriter.getDisruptorCapacity());
+      flushTask =
+          CommonTaskExecutor.INSTANCE.scheduleAtFixedRate(
+              new Runnable() {
+                @Override
+                public void run() {
+                  flush();
+                }
+              },
+              flushIntervalSeconds,
+              flushIntervalSeconds,
+              TimeUnit.SECONDS);
+    }
+
+    @Override
+    public void onShutdown(final DDAgentWriter agentWriter, final boolean flushSuccess) {
+      final ScheduledFuture<?> task = flushTask;
+      if (task != null) {
+        task.cancel(false);
+      }
+      flush();
+    }
+
+    @Override
+    public void onPublish(final DDAgentWriter agentWriter, final List<DDSpan> trace) {
+      accepted.increment();
+      acceptedLengths.add(trace.size());
+    }
+
+    @Override
+    public void onFailedPublish(final DDAgentWriter agentWriter, final List<DDSpan> trace) {
+      dropped.increment();
+    }
+
+    @Override
+    public void onScheduleFlush(final DDAgentWriter agentWriter, final boolean previousIncomplete) {
+      // not recorded
+    }
+
+    @Override
+    public void onFlush(
+        final DDAgentWriter agentWriter,
+        final boolean early,
+        final long batchAgeNanos,
+        final long requestNanos) {
+      batchAgeMillis.record(TimeUnit.NANOSECONDS.toMillis(batchAgeNanos));
+      requestMillis.record(TimeUnit.NANOSECONDS.toMillis(requestNanos));
+    }
+
+    @Override
+    public void onSerialize(
+        final DDAgentWriter agentWriter,
+        final List<DDSpan> trace,
+        final byte[] serializedTrace,
+        final long queueNanos,
+        final long serializationNanos) {
+      acceptedSize.add(serializedTrace.length);
+      queueMicros.record(TimeUnit.NANOSECONDS.toMicros(queueNanos));
+      serializationMicros.record(TimeUnit.NANOSECONDS.toMicros(serializationNanos));
+    }
+
+    @Override
+    public void onFailedSerialize(
+        final DDAgentWriter agentWriter, final List<DDSpan> trace, final Throwable optionalCause) {}
+
+    @Override
+    public void onSend(
+        final DDAgentWriter agentWriter,
+        final int representativeCount,
+        final int sizeInBytes,
+        final DDAgentApi.Response response) {
+      onSendAttempt(representativeCount, sizeInBytes, response);
+    }
+
+    @Override
+    public void onFailedSend(
+        final DDAgentWriter agentWriter,
+        final int representativeCount,
+        final int sizeInBytes,
+        final DDAgentApi.Response response) {
+      onSendAttempt(representativeCount, sizeInBytes, response);
+    }
+
+    private void onSendAttempt(
+        final int representativeCount, final int sizeInBytes, final DDAgentApi.Response response) {
+      requests.increment();
+      queueLength.set(representativeCount);
+      queueSize.set(sizeInBytes);
+      batchTraces.record(representativeCount);
+      batchBytes.record(sizeInBytes);
+
+      if (response.exception() != null) {
+        errors.increment();
+      }
+
+      final Integer status = response.status();
+      if (status != null) {
+        StripedCounter counter = responses.get(status);
+        if (counter == null) {
+          final StripedCounter newCounter = new StripedCounter();
+          counter = responses.putIfAbsent(status, newCounter);
+          if (counter == null) {
+            counter = newCounter;
+          }
+        }
+        counter.increment();
+      }
+    }
+
+    /** Sends the metrics aggregated since the last flush. */
+    void flush() {
+      count("queue.accepted", accepted);
+      count("queue.accepted_lengths", acceptedLengths);
+      count("queue.dropped", dropped);
+      count("queue.accepted_size", acceptedSize);
+      count("api.requests", requests);
+      count("api.errors", errors);
+      for (final Map.Entry<Integer, StripedCounter> response : responses.entrySet()) {
+        count("api.responses", response.getValue(), "status: " + response.getKey());
+      }
+      gauge("queue.length", queueLength);
+      gauge("queue.size", queueSize);
+      distribution("queue.time_us", queueMicros);
+      distribution("serialization.time_us", serializationMicros);
+      distribution("api.batch.traces", batchTraces);
+      distribution("api.batch.bytes", batchBytes);
+      distribution("api.batch.age_ms", batchAgeMillis);
+      distribution("api.request.time_ms", requestMillis);
+    }
+
+    private void count(final String aspect, final StripedCounter counter, final String... tags) {
+      final long delta = counter.sumThenReset();
+      if (delta != 0) {
+        statsd.count(aspect, delta, tags);
+      }
+    }
+
+    private void gauge(final String aspect, final AtomicLong value) {
+      final long last = value.getAndSet(-1);
+      if (last >= 0) {
+        statsd.recordGaugeValue(aspect, last);
+      }
+    }
+
+    private void distribution(final String aspect, final Histogram histogram) {
+      final Histogram.Snapshot snapshot = histogram.snapshotThenReset();
+      if (snapshot.getCount() == 0) {
+        return;
+      }
+      statsd.count(aspect + ".count", snapshot.getCount());
+      statsd.recordGaugeValue(aspect + ".avg", snapshot.getMean());
+      statsd.recordGaugeValue(aspect + ".max", snapshot.getMax());
+      for (final double percentile : PERCENTILES) {
+        statsd.recordGaugeValue(
+            aspect + ".p" + (int) percentile, snapshot.getPercentile(percentile));
+      }
+    }
+
+    @Override
+    public String toString() {
+      if (hostInfo == null) {
+        return "AggregatingStatsD";
+      } else {
+        return "AggregatingStatsD { host="
+            + hostInfo
+            + ", flushInterval="
+            + flushIntervalSeconds
+            + "s }";
+      }
+    }
+  }
+
   final class Noop implements Monitor {
     @Override
     public void onStart(final DDAgentWriter agentWriter) {}
@@ -195,7 +451,11 @@ public interface Monitor {
     public void onFailedPublish(final DDAgentWriter agentWriter, final List<DDSpan> trace) {}
 
     @Override
-    public void onFlush(final DDAgentWriter agentWriter, final boolean early) {}
+    public void onFlush(
+        final DDAgentWriter agentWriter,
+        final boolean early,
+        final long batchAgeNanos,
+        final long requestNanos) {}
 
     @Override
     public void onScheduleFlush(
@@ -203,7 +463,11 @@ public interface Monitor {
 
     @Override
     public void onSerialize(
-        final DDAgentWriter agentWriter, final List<DDSpan> trace, final byte[] serializedTrace) {}
+        final DDAgentWriter agentWriter,
+        final List<DDSpan> trace,
+        final byte[] serializedTrace,
+        final long queueNanos,
+        final long serializationNanos) {}
 
     @Override
     public void onFailedSerialize(
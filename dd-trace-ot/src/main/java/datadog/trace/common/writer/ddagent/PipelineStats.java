@@ -0,0 +1,108 @@
+package datadog.trace.common.writer.ddagent;
+
+import datadog.trace.common.writer.DDAgentWriter;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Latency histograms of the stages of a {@link DDAgentWriter}, from the start of the writer, and
+ * the occupancy of its queues. Each stage is recorded by the single thread handling it, the
+ * application threads only take the time they write a trace.
+ */
+@Slf4j
+public final class PipelineStats implements PipelineStatsMXBean {
+  public static final String OBJECT_NAME = "datadog.trace:type=WriterPipeline";
+
+  private final DDAgentWriter writer;
+  private final Histogram queueTimeMicros = new Histogram();
+  private final Histogram serializationTimeMicros = new Histogram();
+  private final Histogram batchAgeMillis = new Histogram();
+  private final Histogram requestTimeMillis = new Histogram();
+
+  private volatile ObjectName registeredName;
+
+  public PipelineStats(final DDAgentWriter writer) {
+    this.writer = writer;
+  }
+
+  void recordSerialization(final long queueNanos, final long serializationNanos) {
+    queueTimeMicros.record(TimeUnit.NANOSECONDS.toMicros(queueNanos));
+    serializationTimeMicros.record(TimeUnit.NANOSECONDS.toMicros(serializationNanos));
+  }
+
+  void recordFlush(final long batchAgeNanos, final long requestNanos) {
+    batchAgeMillis.record(TimeUnit.NANOSECONDS.toMillis(batchAgeNanos));
+    requestTimeMillis.record(TimeUnit.NANOSECONDS.toMillis(requestNanos));
+  }
+
+  /**
+   * Registers these stats with the platform MBean server. This initializes JMX, so it shouldn't be
+   * called before the application had the chance to set up a custom log manager.
+   */
+  public void registerMBean() {
+    try {
+      final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      final ObjectName name = new ObjectName(OBJECT_NAME);
+      server.registerMBean(this, name);
+      registeredName = name;
+    } catch (final JMException e) {
+      log.debug("Unable to register the writer pipeline MBean", e);
+    }
+  }
+
+  public void unregisterMBean() {
+    final ObjectName name = registeredName;
+    if (name != null) {
+      registeredName = null;
+      try {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+      } catch (final JMException e) {
+        log.debug("Unable to unregister the writer pipeline MBean", e);
+      }
+    }
+  }
+
+  @Override
+  public long getTraceQueueCapacity() {
+    return writer.getDisruptorCapacity();
+  }
+
+  @Override
+  public long getTraceQueueDepth() {
+    return writer.getDisruptorUtilizedCapacity();
+  }
+
+  @Override
+  public long getBatchQueueCapacity() {
+    return writer.getBatchDisruptorCapacity();
+  }
+
+  @Override
+  public long getBatchQueueDepth() {
+    return writer.getBatchDisruptorCapacity() - writer.getBatchDisruptorRemainingCapacity();
+  }
+
+  @Override
+  public Histogram.Snapshot getQueueTimeMicros() {
+    return queueTimeMicros.snapshot();
+  }
+
+  @Override
+  public Histogram.Snapshot getSerializationTimeMicros() {
+    return serializationTimeMicros.snapshot();
+  }
+
+  @Override
+  public Histogram.Snapshot getBatchAgeMillis() {
+    return batchAgeMillis.snapshot();
+  }
+
+  @Override
+  public Histogram.Snapshot getRequestTimeMillis() {
+    return requestTimeMillis.snapshot();
+  }
+}
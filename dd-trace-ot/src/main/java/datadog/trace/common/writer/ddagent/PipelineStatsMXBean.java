@@ -0,0 +1,23 @@
+package datadog.trace.common.writer.ddagent;
+
+/** JMX view of the {@link PipelineStats} of a writer. */
+public interface PipelineStatsMXBean {
+  long getTraceQueueCapacity();
+
+  long getTraceQueueDepth();
+
+  long getBatchQueueCapacity();
+
+  long getBatchQueueDepth();
+
+  /** Time from writing a trace to the start of its serialization. */
+  Histogram.Snapshot getQueueTimeMicros();
+
+  Histogram.Snapshot getSerializationTimeMicros();
+
+  /** Time from queueing the first trace of a batch to sending the batch. */
+  Histogram.Snapshot getBatchAgeMillis();
+
+  /** Round trip time of the requests sending batches to the agent. */
+  Histogram.Snapshot getRequestTimeMillis();
+}
@@ -0,0 +1,42 @@
+package datadog.trace.common.writer.ddagent;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter spread over several cache lines, so threads incrementing it concurrently don't contend
+ * on a single value. This is what LongAdder does, which isn't available on Java 7.
+ */
+public final class StripedCounter {
+  // Thread ids are sequential, so masking them spreads threads evenly over the stripes
+  private static final int STRIPES =
+      Math.min(64, Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1) << 1);
+  // 8 longs to a 64 byte cache line
+  private static final int PADDING = 8;
+
+  private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+  public void increment() {
+    add(1);
+  }
+
+  public void add(final long delta) {
+    cells.getAndAdd(((int) Thread.currentThread().getId() & (STRIPES - 1)) * PADDING, delta);
+  }
+
+  public long sum() {
+    long sum = 0;
+    for (int i = 0; i < STRIPES; i++) {
+      sum += cells.get(i * PADDING);
+    }
+    return sum;
+  }
+
+  /** @return the sum, resetting the counter to 0 without losing concurrent increments */
+  public long sumThenReset() {
+    long sum = 0;
+    for (int i = 0; i < STRIPES; i++) {
+      sum += cells.getAndSet(i * PADDING, 0);
+    }
+    return sum;
+  }
+}
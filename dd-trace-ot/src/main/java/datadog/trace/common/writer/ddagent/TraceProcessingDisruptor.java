@@ -4,6 +4,7 @@ import com.lmax.disruptor.EventHandler;
 import datadog.common.exec.DaemonThreadFactory;
 import datadog.opentracing.DDSpan;
 import datadog.trace.common.writer.DDAgentWriter;
+import datadog.trace.common.writer.TraceProcessor;
 import java.util.List;
 import lombok.extern.slf4j.Slf4j;
 
@@ -13,9 +14,13 @@ import lombok.extern.slf4j.Slf4j;
  *
  * <p>publishing to the buffer will not block the calling thread, but instead will return false if
  * the buffer is full. This is to avoid impacting an application thread.
+ *
+ * <p>When a {@link TraceProcessor} is set, it runs on the processing thread before serialization,
+ * so that work the tracer would otherwise do on the application thread is moved here.
  */
 @Slf4j
 public class TraceProcessingDisruptor extends AbstractDisruptor<List<DDSpan>> {
+  private final TraceSerializingHandler handler;
 
   public TraceProcessingDisruptor(
       final int disruptorSize,
@@ -24,7 +29,17 @@ public class TraceProcessingDisruptor extends AbstractDisruptor<List<DDSpan>> {
       final Monitor monitor,
       final DDAgentWriter writer) {
     // TODO: add config to enable control over serialization overhead.
-    super(disruptorSize, new TraceSerializingHandler(api, batchWritingDisruptor, monitor, writer));
+    this(disruptorSize, new TraceSerializingHandler(api, batchWritingDisruptor, monitor, writer));
+  }
+
+  private TraceProcessingDisruptor(
+      final int disruptorSize, final TraceSerializingHandler handler) {
+    super(disruptorSize, handler);
+    this.handler = handler;
+  }
+
+  public void setTraceProcessor(final TraceProcessor processor) {
+    handler.processor = processor;
   }
 
   @Override
@@ -44,6 +59,7 @@ public class TraceProcessingDisruptor extends AbstractDisruptor<List<DDSpan>> {
     private final BatchWritingDisruptor batchWritingDisruptor;
     private final Monitor monitor;
     private final DDAgentWriter writer;
+    private volatile TraceProcessor processor;
 
     public TraceSerializingHandler(
         final DDAgentApi api,
@@ -60,21 +76,26 @@ public class TraceProcessingDisruptor extends AbstractDisruptor<List<DDSpan>> {
     public void onEvent(
         final DisruptorEvent<List<DDSpan>> event, final long sequence, final boolean endOfBatch) {
       try {
-        if (event.data != null) {
-          if (1 < event.representativeCount && !event.data.isEmpty()) {
+        final List<DDSpan> trace = process(event);
+        if (trace != null) {
+          if (1 < event.representativeCount && !trace.isEmpty()) {
             // attempt to have agent scale the metrics properly
-            ((DDSpan) event.data.get(0).getLocalRootSpan())
+            ((DDSpan) trace.get(0).getLocalRootSpan())
                 .context()
                 .setMetric("_sample_rate", 1d / event.representativeCount);
           }
           try {
-            final byte[] serializedTrace = api.serializeTrace(event.data);
+            final long serializationStart = System.nanoTime();
+            final long queueNanos = serializationStart - event.publishNanos;
+            final byte[] serializedTrace = api.serializeTrace(trace);
+            final long serializationNanos = System.nanoTime() - serializationStart;
             batchWritingDisruptor.publish(serializedTrace, event.representativeCount);
-            monitor.onSerialize(writer, event.data, serializedTrace);
+            writer.getPipelineStats().recordSerialization(queueNanos, serializationNanos);
+            monitor.onSerialize(writer, trace, serializedTrace, queueNanos, serializationNanos);
             event.representativeCount = 0; // reset in case flush is invoked below.
           } catch (final Throwable e) {
             log.debug("Error while serializing trace", e);
-            monitor.onFailedSerialize(writer, event.data, e);
+            monitor.onFailedSerialize(writer, trace, e);
           }
         }
 
@@ -92,5 +113,25 @@ public class TraceProcessingDisruptor extends AbstractDisruptor<List<DDSpan>> {
         event.reset();
       }
     }
+
+    private List<DDSpan> process(final DisruptorEvent<List<DDSpan>> event) {
+      final TraceProcessor processor = this.processor;
+      if (event.data == null || processor == null) {
+        return event.data;
+      }
+      List<DDSpan> trace = null;
+      try {
+        trace = processor.process(event.data);
+      } catch (final Throwable e) {
+        log.debug("Error while processing trace", e);
+      }
+      if (trace == null || trace.isEmpty()) {
+        // Not written after all: carry the count over as if the trace had been dropped by the tracer
+        writer.onTraceDropped(event.representativeCount);
+        event.representativeCount = 0;
+        return null;
+      }
+      return trace;
+    }
   }
 }
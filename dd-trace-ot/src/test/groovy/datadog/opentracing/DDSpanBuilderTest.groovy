@@ -422,7 +422,7 @@ class DDSpanBuilderTest extends DDSpecification {
     span.samplingPriority == extractedContext.samplingPriority
     span.context().origin == extractedContext.origin
     span.context().baggageItems == extractedContext.baggage
-    span.context().@tags == extractedContext.tags + [(Config.RUNTIME_ID_TAG)  : config.getRuntimeId(),
+    span.context().tags == extractedContext.tags + [(Config.RUNTIME_ID_TAG)  : config.getRuntimeId(),
                                                      (Config.LANGUAGE_TAG_KEY): Config.LANGUAGE_TAG_VALUE,
                                                      (DDTags.THREAD_NAME)     : thread.name, (DDTags.THREAD_ID): thread.id]
 
@@ -443,7 +443,7 @@ class DDSpanBuilderTest extends DDSpecification {
     span.samplingPriority == null
     span.context().origin == tagContext.origin
     span.context().baggageItems == [:]
-    span.context().@tags == tagContext.tags + [(Config.RUNTIME_ID_TAG)  : config.getRuntimeId(),
+    span.context().tags == tagContext.tags + [(Config.RUNTIME_ID_TAG)  : config.getRuntimeId(),
                                                (Config.LANGUAGE_TAG_KEY): Config.LANGUAGE_TAG_VALUE,
                                                (DDTags.THREAD_NAME)     : thread.name, (DDTags.THREAD_ID): thread.id]
 
@@ -0,0 +1,178 @@
+package datadog.opentracing
+
+import datadog.trace.util.test.DDSpecification
+
+class TagStoreTest extends DDSpecification {
+
+  def "values keep their type"() {
+    setup:
+    def store = new TagStore()
+
+    when:
+    store.put("key", value)
+
+    then:
+    store.get("key") == value
+    store.get("key").class == value.class
+    store.asMap() == ["key": value]
+
+    where:
+    value << ["string", 1, 2L, 0.5d, 0.25f, true, false, (short) 3, 1.5G]
+  }
+
+  def "typed puts are stored unboxed"() {
+    setup:
+    def store = new TagStore()
+    def visited = [:]
+
+    when:
+    store.putLong("long", 42L)
+    store.putDouble("double", 1.5d)
+    store.visit({ String key, byte kind, Object object, long bits ->
+      visited[key] = [kind, object]
+    } as TagStore.Visitor)
+
+    then:
+    visited == ["long": [TagStore.LONG, null], "double": [TagStore.DOUBLE, null]]
+    store.get("long") == 42L
+    store.get("double") == 1.5d
+  }
+
+  def "null values remove the key"() {
+    setup:
+    def store = new TagStore()
+    store.put("key", "value")
+
+    when:
+    store.put("key", null)
+
+    then:
+    store.size() == 0
+    !store.containsKey("key")
+  }
+
+  def "store matches a map under puts and removes"() {
+    setup:
+    def store = new TagStore(0)
+    def expected = [:]
+    def random = new Random(42)
+
+    when:
+    10000.times {
+      def key = "key-" + random.nextInt(50)
+      if (random.nextInt(3) == 0) {
+        store.remove(key)
+        expected.remove(key)
+      } else {
+        store.put(key, it)
+        expected.put(key, it)
+      }
+    }
+
+    then:
+    store.size() == expected.size()
+    store.toMap() == expected
+    (0..<50).every { store.get("key-" + it) == expected.get("key-" + it) }
+  }
+
+  def "map view is read-only"() {
+    setup:
+    def store = new TagStore()
+    store.put("a", 1)
+    store.put("b", "two")
+    def view = store.asMap()
+
+    when:
+    modification.call(view)
+
+    then:
+    thrown(UnsupportedOperationException)
+    view == ["a": 1, "b": "two"]
+    store.size() == 2
+
+    where:
+    modification << [
+      { it.remove("a") },
+      { it.remove("missing") },
+      { it.put("c", 3) },
+      { it.clear() },
+      { it.entrySet().clear() }
+    ]
+  }
+
+  def "snapshots and iteration are unaffected by later writes"() {
+    setup:
+    def store = new TagStore(0)
+    (0..<4).each { store.put("key-" + it, it) }
+    def snapshot = store.snapshot()
+    def iterator = store.asMap().entrySet().iterator()
+    def visited = []
+
+    when:
+    store.put("key-0", "replaced")
+    store.remove("key-1")
+    (4..<10).each { store.put("key-" + it, it) }
+    snapshot.visit({ String key, byte kind, Object object, long bits ->
+      visited << key
+    } as TagStore.Visitor)
+
+    then:
+    snapshot.size() == 4
+    snapshot.get("key-0") == 0
+    snapshot.containsKey("key-1")
+    !snapshot.containsKey("key-4")
+    visited == ["key-0", "key-1", "key-2", "key-3"]
+    iterator.collect { it.key } == ["key-0", "key-1", "key-2", "key-3"]
+    store.size() == 9
+    store.get("key-0") == "replaced"
+  }
+
+  def "concurrent readers see every value whole"() {
+    setup:
+    def store = new TagStore(0)
+    store.put("key", "string")
+    def done = false
+    def torn = []
+    def reader = Thread.start {
+      while (!done) {
+        def value = store.get("key")
+        if (value != "string" && value != Long.MAX_VALUE) {
+          torn << value
+        }
+      }
+    }
+
+    when:
+    100000.times {
+      if (it % 2 == 0) {
+        store.putLong("key", Long.MAX_VALUE)
+      } else {
+        store.put("key", "string")
+      }
+      store.put("other-" + (it % 20), it)
+    }
+    done = true
+    reader.join()
+
+    then:
+    torn.isEmpty()
+  }
+
+  def "values render like String.valueOf"() {
+    setup:
+    def store = new TagStore()
+    store.put("key", value)
+    def rendered = null
+
+    when:
+    store.visit({ String key, byte kind, Object object, long bits ->
+      rendered = TagStore.toString(kind, object, bits)
+    } as TagStore.Visitor)
+
+    then:
+    rendered == String.valueOf(value)
+
+    where:
+    value << ["string", 1, Long.MAX_VALUE, 0.1d, 0.1f, true, 1.5G]
+  }
+}
@@ -0,0 +1,87 @@
+package datadog.opentracing
+
+import datadog.trace.common.writer.ListWriter
+import datadog.trace.util.test.DDSpecification
+
+import java.util.concurrent.ConcurrentLinkedDeque
+
+class TraceSnapshotTest extends DDSpecification {
+  def writer = new ListWriter()
+  def tracer = DDTracer.builder().writer(writer).build()
+
+  def cleanup() {
+    tracer.close()
+  }
+
+  def "spans are only copied when the content is read"() {
+    setup:
+    def spans = (1..3).collect { tracer.buildSpan("span-$it").start() as DDSpan }
+    def source = new ConcurrentLinkedDeque<DDSpan>(spans)
+    def snapshot = new TraceSnapshot(source)
+
+    expect:
+    !snapshot.isEmpty()
+    snapshot.size() == 3
+    snapshot.first().is(spans[0])
+    TraceSnapshot.first(snapshot).is(spans[0])
+    snapshot.@spans == null
+
+    when:
+    def span = snapshot.get(1)
+    source.clear()
+
+    then:
+    span.is(spans[1])
+    snapshot.size() == 3
+    snapshot == spans
+    snapshot.first().is(spans[0])
+  }
+
+  def "snapshot can be sorted in place"() {
+    setup:
+    def spans = (1..3).collect { tracer.buildSpan("span-$it").start() as DDSpan }
+    def snapshot = new TraceSnapshot(new ConcurrentLinkedDeque<DDSpan>(spans.reverse()))
+
+    when:
+    snapshot.sort { it.operationName }
+
+    then:
+    snapshot == spans
+
+    when:
+    snapshot.add(spans[0])
+
+    then:
+    thrown(UnsupportedOperationException)
+  }
+
+  def "empty source"() {
+    setup:
+    def snapshot = new TraceSnapshot(new ConcurrentLinkedDeque<DDSpan>())
+
+    expect:
+    snapshot.isEmpty()
+    snapshot.first() == null
+    snapshot.size() == 0
+    TraceSnapshot.first([]) == null
+  }
+
+  def "finished trace is handed to the writer without a copy"() {
+    setup:
+    // TestInterceptor is registered through the service loader for the whole test classpath
+    tracer.@interceptors.clear()
+
+    when:
+    def root = tracer.buildSpan("root").start()
+    tracer.buildSpan("child").asChildOf(root).start().finish()
+    root.finish()
+
+    then:
+    writer.size() == 1
+    writer.firstTrace() instanceof TraceSnapshot
+    // what health metrics read on the application thread
+    writer.firstTrace().size() == 2
+    writer.firstTrace().@spans == null
+    writer.firstTrace()*.operationName == ["root", "child"]
+  }
+}
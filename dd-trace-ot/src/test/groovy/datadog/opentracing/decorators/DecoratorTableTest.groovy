@@ -0,0 +1,53 @@
+package datadog.opentracing.decorators
+
+import datadog.trace.util.test.DDSpecification
+
+class DecoratorTableTest extends DDSpecification {
+
+  def "decorators are returned in the order they were added"() {
+    setup:
+    def first = new ServiceNameDecorator("service", false)
+    def second = new ServiceNameDecorator("service", true)
+    def other = new ErrorFlag()
+
+    when:
+    def table = DecoratorTable.EMPTY.with(first).with(other).with(second)
+
+    then:
+    table.get("service") as List == [first, second]
+    table.get("error") as List == [other]
+    table.get("servic") == null
+    table.get("unknown") == null
+    DecoratorTable.EMPTY.get("service") == null
+  }
+
+  def "decoratesAny checks every key"() {
+    setup:
+    def table = DecoratorTable.EMPTY.with(new ErrorFlag())
+
+    expect:
+    table.decoratesAny(keys) == result
+
+    where:
+    keys                    | result
+    []                      | false
+    ["env", "version"]      | false
+    ["env", "error"]        | true
+  }
+
+  def "shouldSetTag combines the decorator results and survives failures"() {
+    setup:
+    def keep = Mock(AbstractDecorator)
+    def drop = Mock(AbstractDecorator)
+    def failing = Mock(AbstractDecorator)
+
+    when:
+    def result = DecoratorTable.shouldSetTag([keep, failing, drop] as AbstractDecorator[], null, "tag", "value")
+
+    then:
+    1 * keep.shouldSetTag(null, "tag", "value") >> true
+    1 * failing.shouldSetTag(null, "tag", "value") >> { throw new IllegalStateException() }
+    1 * drop.shouldSetTag(null, "tag", "value") >> false
+    !result
+  }
+}
@@ -0,0 +1,91 @@
+package datadog.opentracing.propagation
+
+import datadog.trace.util.test.DDSpecification
+import io.opentracing.SpanContext
+import io.opentracing.propagation.TextMapExtractAdapter
+import spock.lang.Shared
+
+import static datadog.opentracing.DDTracer.TRACE_ID_MAX
+import static datadog.trace.api.Config.PropagationStyle.B3
+import static datadog.trace.api.Config.PropagationStyle.DATADOG
+import static datadog.trace.api.Config.PropagationStyle.HAYSTACK
+
+class FusedHttpExtractorTest extends DDSpecification {
+
+  @Shared
+  Map<String, String> taggedHeaders = ["SOME_HEADER": "some-tag", "Trace-ID": "haystack-trace"]
+
+  @Shared
+  String outOfRangeTraceId = (TRACE_ID_MAX + 1).toString()
+
+  def "fused extractor matches compound extractor"() {
+    setup:
+    def fused = new FusedHttpExtractor(styles, taggedHeaders)
+    def compound = new HttpCodec.CompoundExtractor(styles.collect {
+      switch (it) {
+        case DATADOG: return new DatadogHttpCodec.Extractor(taggedHeaders)
+        case B3: return new B3HttpCodec.Extractor(taggedHeaders)
+        default: return new HaystackHttpCodec.Extractor(taggedHeaders)
+      }
+    })
+
+    when:
+    SpanContext expected = compound.extract(new TextMapExtractAdapter(headers))
+    SpanContext actual = fused.extract(new TextMapExtractAdapter(headers))
+
+    then:
+    if (expected == null) {
+      assert actual == null
+    } else {
+      assert actual.class == expected.class
+      assert actual.origin == expected.origin
+      assert actual.tags == expected.tags
+      if (expected instanceof ExtractedContext) {
+        assert actual.traceId == expected.traceId
+        assert actual.spanId == expected.spanId
+        assert actual.samplingPriority == expected.samplingPriority
+        assert actual.baggage == expected.baggage
+      }
+    }
+
+    where:
+    styles                  | headers
+    [DATADOG, B3]           | ["X-DATADOG-TRACE-ID": "1", "X-DATADOG-PARENT-ID": "2", "X-B3-TRACEID": "a", "X-B3-SPANID": "b"]
+    [B3, DATADOG]           | ["X-DATADOG-TRACE-ID": "1", "X-DATADOG-PARENT-ID": "2", "X-B3-TRACEID": "a", "X-B3-SPANID": "b"]
+    [DATADOG, B3]           | ["X-DATADOG-TRACE-ID": "abc", "X-DATADOG-PARENT-ID": "2", "X-B3-TRACEID": "a", "X-B3-SPANID": "b"]
+    [DATADOG, B3]           | ["X-DATADOG-TRACE-ID": outOfRangeTraceId, "X-B3-TRACEID": "a", "X-B3-SPANID": "b"]
+    [DATADOG, B3]           | ["X-B3-TRACEID": "1" + "f" * 32, "X-B3-SPANID": "1", "SOME_HEADER": "info"]
+    [DATADOG, B3]           | ["X-B3-TRACEID": "463ac35c9f6413ad48485a3953bb6124", "X-B3-SPANID": "1", "X-B3-SAMPLED": "1"]
+    [DATADOG]               | ["x-datadog-trace-id": "1", "x-datadog-parent-id": "2", "x-datadog-sampling-priority": "2", "x-datadog-origin": "saipan", "OT-BAGGAGE-K1": "v%201"]
+    [DATADOG]               | ["x-datadog-trace-id": "1", "x-datadog-sampling-priority": "high"]
+    [DATADOG, B3]           | ["x-datadog-origin": "saipan"]
+    [B3, DATADOG]           | ["x-datadog-origin": "saipan"]
+    [DATADOG, B3, HAYSTACK] | ["SOME_HEADER": "my-interesting-info"]
+    [DATADOG, B3, HAYSTACK] | ["Trace-ID": "7", "Span-ID": "8", "Baggage-k1": "v1", "ot-baggage-k2": "v2"]
+    [HAYSTACK, DATADOG]     | ["Trace-ID": "7", "Span-ID": "8", "x-datadog-trace-id": "1", "x-datadog-parent-id": "2"]
+    [HAYSTACK]              | ["Trace-ID": "7", "Span-ID": "8", "Baggage-k1": "%"]
+    [DATADOG, HAYSTACK]     | ["SOME_HEADER": "%"]
+    [DATADOG, B3]           | [:]
+    []                      | ["x-datadog-trace-id": "1", "x-datadog-parent-id": "2"]
+  }
+
+  def "header table resolves names case insensitively"() {
+    setup:
+    def builder = new FusedHttpExtractor.HeaderTable.Builder()
+    builder.addTag("Some-Header", "some-tag")
+    builder.addRole("x-datadog-trace-id", 1)
+    def table = builder.build()
+
+    expect:
+    table.get(name)?.tag == tag
+    table.get(name)?.roles == roles
+
+    where:
+    name                 | tag        | roles
+    "SOME-HEADER"        | "some-tag" | 0
+    "some-header"        | "some-tag" | 0
+    "X-Datadog-Trace-Id" | null       | 1
+    "x-datadog-trace"    | null       | null
+    "other"              | null       | null
+  }
+}
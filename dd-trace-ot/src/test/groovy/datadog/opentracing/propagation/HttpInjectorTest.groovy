@@ -86,4 +86,61 @@ class HttpInjectorTest extends DDSpecification {
     [B3]          | PrioritySampling.SAMPLER_KEEP | "saipan"
     [B3, DATADOG] | PrioritySampling.SAMPLER_KEEP | "saipan"
   }
+
+  def "repeated injection reuses cached headers until baggage or priority changes"() {
+    setup:
+    Config config = Mock(Config) {
+      getPropagationStylesToInject() >> [DATADOG, B3]
+    }
+    HttpCodec.Injector injector = HttpCodec.createInjector(config)
+
+    def tracer = DDTracer.builder().writer(new ListWriter()).build()
+    final DDSpanContext context =
+      new DDSpanContext(
+        1G,
+        2G,
+        0G,
+        "fakeService",
+        "fakeOperation",
+        "fakeResource",
+        PrioritySampling.UNSET,
+        null,
+        ["k1": "v1"],
+        false,
+        "fakeType",
+        null,
+        new PendingTrace(tracer, 1G),
+        tracer,
+        [:])
+
+    def first = [:]
+    def second = [:]
+
+    when:
+    injector.inject(context, new TextMapInjectAdapter(first))
+    def cached = context.injectedHeaders
+    injector.inject(context, new TextMapInjectAdapter(second))
+
+    then:
+    second == first
+    context.injectedHeaders.is(cached)
+
+    when:
+    context.setBaggageItem("k2", "v 2")
+    def withBaggage = [:]
+    injector.inject(context, new TextMapInjectAdapter(withBaggage))
+
+    then:
+    !context.injectedHeaders.is(cached)
+    withBaggage == first + [(DatadogHttpCodec.OT_BAGGAGE_PREFIX + "k2"): "v+2"]
+
+    when:
+    context.setSamplingPriority(PrioritySampling.SAMPLER_KEEP)
+    def withPriority = [:]
+    injector.inject(context, new TextMapInjectAdapter(withPriority))
+
+    then:
+    withPriority[DatadogHttpCodec.SAMPLING_PRIORITY_KEY] == String.valueOf(PrioritySampling.SAMPLER_KEEP)
+    withPriority[B3HttpCodec.SAMPLING_PRIORITY_KEY] == "1"
+  }
 }
@@ -4,6 +4,7 @@ package datadog.trace
 import datadog.opentracing.DDSpan
 import datadog.opentracing.DDTracer
 import datadog.opentracing.propagation.DatadogHttpCodec
+import datadog.opentracing.propagation.FusedHttpExtractor
 import datadog.opentracing.propagation.HttpCodec
 import datadog.trace.api.Config
 import datadog.trace.api.sampling.PrioritySampling
@@ -16,6 +17,7 @@ import datadog.trace.common.writer.ListWriter
 import datadog.trace.common.writer.LoggingWriter
 import datadog.trace.common.writer.ddagent.Monitor
 import datadog.trace.util.test.DDSpecification
+import io.opentracing.propagation.TextMapExtractAdapter
 import io.opentracing.propagation.TextMapInject
 import org.junit.Rule
 import org.junit.contrib.java.lang.system.EnvironmentVariables
@@ -24,6 +26,7 @@ import spock.lang.Timeout
 
 import static datadog.trace.api.Config.DEFAULT_SERVICE_NAME
 import static datadog.trace.api.Config.HEADER_TAGS
+import static datadog.trace.api.Config.HEALTH_METRICS_AGGREGATION_INTERVAL
 import static datadog.trace.api.Config.HEALTH_METRICS_ENABLED
 import static datadog.trace.api.Config.PREFIX
 import static datadog.trace.api.Config.PRIORITY_SAMPLING
@@ -50,10 +53,10 @@ class DDTracerTest extends DDSpecification {
     tracer.writer instanceof DDAgentWriter
     tracer.writer.monitor instanceof Monitor.Noop
 
-    tracer.spanContextDecorators.size() == 15
+    tracer.decoratorTable.size() == 15
 
     tracer.injector instanceof HttpCodec.CompoundInjector
-    tracer.extractor instanceof HttpCodec.CompoundExtractor
+    tracer.extractor instanceof FusedHttpExtractor
   }
 
   def "verify enabling health monitor"() {
@@ -68,6 +71,19 @@ class DDTracerTest extends DDSpecification {
     tracer.writer.monitor.hostInfo == "localhost:8125"
   }
 
+  def "verify enabling aggregated health monitor"() {
+    setup:
+    System.setProperty(PREFIX + HEALTH_METRICS_ENABLED, "true")
+    System.setProperty(PREFIX + HEALTH_METRICS_AGGREGATION_INTERVAL, "10")
+
+    when:
+    def tracer = DDTracer.builder().config(new Config()).build()
+
+    then:
+    tracer.writer.monitor instanceof Monitor.AggregatingStatsD
+    tracer.writer.monitor.hostInfo == "localhost:8125"
+  }
+
 
   def "verify overriding sampler"() {
     setup:
@@ -97,18 +113,18 @@ class DDTracerTest extends DDSpecification {
 
     when:
     def tracer = DDTracer.builder().config(new Config()).build()
-    // Datadog extractor gets placed first
-    def taggedHeaders = tracer.extractor.extractors[0].taggedHeaders
+    // Every tagged header is extracted into the tag named by the mapping
+    def context = tracer.extractor.extract(new TextMapExtractAdapter([a: "x", c: "y", e: "z"]))
 
     then:
     tracer.defaultSpanTags == map
     tracer.serviceNameMappings == map
-    taggedHeaders == map
+    context.tags == tags
 
     where:
-    mapString       | map
-    "a:1, a:2, a:3" | [a: "3"]
-    "a:b,c:d,e:"    | [a: "b", c: "d"]
+    mapString       | map              | tags
+    "a:1, a:2, a:3" | [a: "3"]         | ["3": "x"]
+    "a:b,c:d,e:"    | [a: "b", c: "d"] | [b: "x", d: "y"]
   }
 
   def "verify overriding host"() {
@@ -7,15 +7,19 @@ import datadog.opentracing.DDTracer
 import datadog.opentracing.PendingTrace
 import datadog.trace.api.sampling.PrioritySampling
 import datadog.trace.common.writer.DDAgentWriter
+import datadog.trace.common.writer.TraceProcessor
 import datadog.trace.common.writer.ddagent.BatchWritingDisruptor
 import datadog.trace.common.writer.ddagent.DDAgentApi
 import datadog.trace.common.writer.ddagent.Monitor
+import datadog.trace.common.writer.ddagent.PipelineStats
 import datadog.trace.util.test.DDSpecification
 import org.msgpack.core.MessagePack
 import org.msgpack.core.buffer.ArrayBufferOutput
 import spock.lang.Retry
 import spock.lang.Timeout
 
+import javax.management.ObjectName
+import java.lang.management.ManagementFactory
 import java.util.concurrent.Phaser
 import java.util.concurrent.Semaphore
 import java.util.concurrent.TimeUnit
@@ -73,6 +77,35 @@ class DDAgentWriterTest extends DDSpecification {
     trace = [newSpanOf(0, "fixed-thread-name")]
   }
 
+  def "trace processor runs on the processing thread"() {
+    setup:
+    def writer = DDAgentWriter.builder().agentApi(api).traceBufferSize(2).flushFrequencySeconds(-1).build()
+    def threads = []
+    writer.setTraceProcessor(new TraceProcessor() {
+      @Override
+      List<DDSpan> process(List<DDSpan> trace) {
+        threads << Thread.currentThread()
+        return trace[0].operationName == "drop" ? null : trace
+      }
+    })
+    writer.start()
+
+    when:
+    writer.write([newSpanOf(0, "fixed-thread-name")])
+    writer.write([newSpanOf(0, "fixed-thread-name").setOperationName("drop") as DDSpan])
+    writer.flush()
+
+    then:
+    1 * api.serializeTrace(_) >> { trace -> callRealMethod() }
+    1 * api.sendSerializedTraces(1, _, { it.size() == 1 }) >> DDAgentApi.Response.success(200)
+    0 * _
+    threads.size() == 2
+    !threads.contains(Thread.currentThread())
+
+    cleanup:
+    writer.close()
+  }
+
   def "test flood of traces"() {
     setup:
     def writer = DDAgentWriter.builder().agentApi(api).traceBufferSize(disruptorSize).flushFrequencySeconds(-1).build()
@@ -153,8 +186,8 @@ class DDAgentWriterTest extends DDSpecification {
     5 * api.serializeTrace(_) >> { trace -> callRealMethod() }
     1 * api.sendSerializedTraces(5, _, { it.size() == 5 }) >> DDAgentApi.Response.success(200)
     5 * monitor.onPublish(_, _)
-    5 * monitor.onSerialize(_, _, _)
-    1 * monitor.onFlush(_, _)
+    5 * monitor.onSerialize(_, _, _, _, _)
+    1 * monitor.onFlush(_, _, _, _)
     1 * monitor.onSend(_, _, _, _) >> {
       phaser.arrive()
     }
@@ -244,7 +277,7 @@ class DDAgentWriterTest extends DDSpecification {
 
     then:
     1 * api.serializeTrace(_) >> { trace -> callRealMethod() }
-    1 * monitor.onSerialize(writer, _, _)
+    1 * monitor.onSerialize(writer, _, _, _, _)
     1 * monitor.onPublish(writer, _)
     0 * _
     writer.traceCount.get() == 0
@@ -302,8 +335,8 @@ class DDAgentWriterTest extends DDSpecification {
 
     then:
     1 * monitor.onPublish(writer, minimalTrace)
-    1 * monitor.onSerialize(writer, minimalTrace, _)
-    1 * monitor.onFlush(writer, _)
+    1 * monitor.onSerialize(writer, minimalTrace, _, _, _)
+    1 * monitor.onFlush(writer, _, _, _)
     1 * monitor.onSend(writer, 1, _, { response -> response.success() && response.status() == 200 })
 
     when:
@@ -349,8 +382,8 @@ class DDAgentWriterTest extends DDSpecification {
 
     then:
     1 * monitor.onPublish(writer, minimalTrace)
-    1 * monitor.onSerialize(writer, minimalTrace, _)
-    1 * monitor.onFlush(writer, _)
+    1 * monitor.onSerialize(writer, minimalTrace, _, _, _)
+    1 * monitor.onFlush(writer, _, _, _)
     1 * monitor.onFailedSend(writer, 1, _, { response -> !response.success() && response.status() == 500 })
 
     when:
@@ -390,8 +423,8 @@ class DDAgentWriterTest extends DDSpecification {
 
     then:
     1 * monitor.onPublish(writer, minimalTrace)
-    1 * monitor.onSerialize(writer, minimalTrace, _)
-    1 * monitor.onFlush(writer, _)
+    1 * monitor.onSerialize(writer, minimalTrace, _, _, _)
+    1 * monitor.onFlush(writer, _, _, _)
     1 * monitor.onFailedSend(writer, 1, _, { response -> !response.success() && response.status() == null })
 
     when:
@@ -440,7 +473,7 @@ class DDAgentWriterTest extends DDSpecification {
       onFailedPublish(_, _) >> {
         numFailedPublish.incrementAndGet()
       }
-      onFlush(_, _) >> {
+      onFlush(_, _, _, _) >> {
         numFlushes.incrementAndGet()
       }
       onSend(_, _, _, _) >> {
@@ -673,6 +706,100 @@ class DDAgentWriterTest extends DDSpecification {
     writer.close()
   }
 
+  def "aggregated statsd"() {
+    setup:
+    def minimalTrace = createMinimalTrace()
+
+    def agent = httpServer {
+      handlers {
+        put("v0.4/traces") {
+          response.status(200).send()
+        }
+      }
+    }
+
+    def statsd = Mock(StatsDClient)
+    def monitor = new Monitor.AggregatingStatsD(statsd, 3600)
+    def writer = DDAgentWriter.builder().traceAgentPort(agent.address.port).monitor(monitor).build()
+    writer.start()
+
+    when:
+    writer.write(minimalTrace)
+    writer.write(minimalTrace)
+    writer.flush()
+
+    then:
+    0 * statsd.count(*_)
+    0 * statsd.incrementCounter(*_)
+
+    when:
+    monitor.flush()
+
+    then:
+    1 * statsd.count("queue.accepted", 2)
+    1 * statsd.count("queue.accepted_lengths", 2 * minimalTrace.size())
+    1 * statsd.count("api.requests", 1)
+    1 * statsd.count("api.responses", 1, "status: 200")
+    1 * statsd.count("queue.time_us.count", 2)
+    1 * statsd.count("serialization.time_us.count", 2)
+    1 * statsd.count("api.request.time_ms.count", 1)
+    1 * statsd.recordGaugeValue("api.batch.traces.max", 2)
+    0 * statsd.count("queue.dropped", *_)
+    0 * statsd.count("api.errors", *_)
+
+    when:
+    monitor.flush()
+
+    then:
+    0 * statsd.count(*_)
+
+    cleanup:
+    writer.close()
+    agent.close()
+  }
+
+  def "pipeline stats"() {
+    setup:
+    def minimalTrace = createMinimalTrace()
+
+    def agent = httpServer {
+      handlers {
+        put("v0.4/traces") {
+          response.status(200).send()
+        }
+      }
+    }
+    def writer = DDAgentWriter.builder().traceAgentPort(agent.address.port).build()
+    writer.start()
+    writer.pipelineStats.registerMBean()
+    def server = ManagementFactory.getPlatformMBeanServer()
+    def name = new ObjectName(PipelineStats.OBJECT_NAME)
+
+    when:
+    writer.write(minimalTrace)
+    writer.write(minimalTrace)
+    writer.flush()
+
+    then:
+    writer.pipelineStats.queueTimeMicros.count == 2
+    writer.pipelineStats.serializationTimeMicros.count == 2
+    writer.pipelineStats.batchAgeMillis.count == 1
+    writer.pipelineStats.requestTimeMillis.count == 1
+    writer.pipelineStats.traceQueueCapacity == DISRUPTOR_BUFFER_SIZE
+    writer.pipelineStats.batchQueueCapacity == DISRUPTOR_BUFFER_SIZE
+    server.getAttribute(name, "SerializationTimeMicros").get("count") == 2
+    server.getAttribute(name, "TraceQueueCapacity") == DISRUPTOR_BUFFER_SIZE
+
+    when:
+    writer.close()
+
+    then:
+    !server.isRegistered(name)
+
+    cleanup:
+    agent.close()
+  }
+
   static int calculateSize(List<DDSpan> trace) {
     def buffer = new ArrayBufferOutput()
     def packer = MessagePack.newDefaultPacker(buffer)
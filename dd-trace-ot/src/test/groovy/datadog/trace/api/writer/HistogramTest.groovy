@@ -0,0 +1,49 @@
+package datadog.trace.api.writer
+
+import datadog.trace.common.writer.ddagent.Histogram
+import datadog.trace.util.test.DDSpecification
+
+class HistogramTest extends DDSpecification {
+
+  def "values are bucketed within 12.5%"() {
+    expect:
+    Histogram.highestValue(Histogram.bucket(value)) >= value
+    Histogram.highestValue(Histogram.bucket(value)) <= value * 1.125
+    Histogram.bucket(value) == 0 || Histogram.highestValue(Histogram.bucket(value) - 1) < value
+
+    where:
+    value << [0, 1, 7, 8, 15, 16, 17, 100, 1000, 123456789, Long.MAX_VALUE]
+  }
+
+  def "snapshot summarizes and resets"() {
+    setup:
+    def histogram = new Histogram()
+    (1..1000).each { histogram.record(it) }
+    histogram.record(-5)
+
+    expect:
+    histogram.snapshot().count == 1001
+    histogram.snapshot().p99 >= 990
+
+    when:
+    def snapshot = histogram.snapshotThenReset()
+
+    then:
+    snapshot.count == 1001
+    snapshot.sum == 500500
+    snapshot.max == 1000
+    snapshot.mean == 500
+    snapshot.getPercentile(50) >= 500
+    snapshot.getPercentile(50) <= 500 * 1.125
+    snapshot.getPercentile(99) >= 990
+    snapshot.getPercentile(100) == 1000
+
+    when:
+    def empty = histogram.snapshotThenReset()
+
+    then:
+    empty.count == 0
+    empty.max == 0
+    empty.getPercentile(50) == 0
+  }
+}
@@ -0,0 +1,31 @@
+package datadog.trace.api.writer
+
+import datadog.trace.common.writer.ddagent.StripedCounter
+import datadog.trace.util.test.DDSpecification
+
+import java.util.concurrent.CountDownLatch
+
+class StripedCounterTest extends DDSpecification {
+
+  def "counts increments from all threads"() {
+    setup:
+    def counter = new StripedCounter()
+    def start = new CountDownLatch(1)
+    def threads = (1..8).collect {
+      Thread.start {
+        start.await()
+        10000.times { counter.increment() }
+      }
+    }
+
+    when:
+    start.countDown()
+    threads*.join()
+    counter.add(5)
+
+    then:
+    counter.sum() == 80005
+    counter.sumThenReset() == 80005
+    counter.sum() == 0
+  }
+}